@@ -40,6 +40,11 @@ public abstract class AbstractCacheManager implements CacheManager, Destroyable
      */
     private final ConcurrentMap<String, Cache> caches;
 
+    /**
+     * Receives the statistics of every created cache that keeps them, if set.
+     */
+    private CacheStatisticsExporter statisticsExporter;
+
     /**
      * Default no-arg constructor that instantiates an internal name-to-cache {@code ConcurrentMap}.
      */
@@ -69,6 +74,8 @@ public abstract class AbstractCacheManager implements CacheManager, Destroyable
             Cache existing = caches.putIfAbsent(name, cache);
             if (existing != null) {
                 cache = existing;
+            } else if (statisticsExporter != null && cache instanceof InstrumentedCache) {
+                statisticsExporter.export(name, ((InstrumentedCache) cache).getStatistics());
             }
         }
 
@@ -76,6 +83,28 @@ public abstract class AbstractCacheManager implements CacheManager, Destroyable
         return cache;
     }
 
+    /**
+     * Returns the exporter notified of the statistics of every created {@link InstrumentedCache InstrumentedCache},
+     * or {@code null} if statistics are not exported (the default).
+     *
+     * @return the exporter notified of the statistics of every created cache, or {@code null}.
+     * @since 1.13
+     */
+    public CacheStatisticsExporter getStatisticsExporter() {
+        return statisticsExporter;
+    }
+
+    /**
+     * Sets the exporter notified of the statistics of every {@link InstrumentedCache InstrumentedCache} created
+     * from now on.
+     *
+     * @param statisticsExporter the exporter notified of the statistics of every created cache.
+     * @since 1.13
+     */
+    public void setStatisticsExporter(CacheStatisticsExporter statisticsExporter) {
+        this.statisticsExporter = statisticsExporter;
+    }
+
     /**
      * Creates a new {@code Cache} instance associated with the specified {@code name}.
      *
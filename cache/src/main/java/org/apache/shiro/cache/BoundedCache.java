@@ -0,0 +1,744 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.shiro.cache;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * A thread-safe {@link Cache Cache} holding at most {@link #getMaxSize() maxSize} entries, optionally expiring
+ * entries a fixed time after they were written ({@link #getTimeToLive() timeToLive}) or last read
+ * ({@link #getTimeToIdle() timeToIdle}).
+ * <p/>
+ * Entries are stored in a {@link ConcurrentHashMap}, so {@link #get get} never blocks: a read only records the access
+ * in a small striped, lossy buffer.  The buffers are replayed against the eviction policy in batches by whichever
+ * thread manages to acquire the eviction lock, and accesses are simply dropped when a buffer is full.  Writes update
+ * the eviction policy directly under the lock.
+ * <p/>
+ * Two {@link EvictionPolicy eviction policies} are supported:
+ * <ul>
+ * <li>{@link EvictionPolicy#LRU LRU} evicts the least recently used entry.</li>
+ * <li>{@link EvictionPolicy#TINY_LFU TINY_LFU} (the default) admits new entries into a small LRU window, and only
+ * moves an entry leaving the window into the main, segmented LRU space if it has been accessed more often recently
+ * than the entry it would displace.  Access frequencies are estimated by a compact {@code FrequencySketch}.  This
+ * keeps frequently used entries (such as the authorization info of active users) from being flushed out by a burst
+ * of one-off entries.</li>
+ * </ul>
+ * Expired entries are removed lazily when they are read, when they reach the head of an eviction queue, or when
+ * {@link #cleanUp()} is called; they are never returned by this cache.
+ * <p/>
+ * {@code null} keys and values are not stored: {@code get(null)} and {@code remove(null)} return {@code null}, and
+ * {@code put(key, null)} is equivalent to {@code remove(key)}.
+ * <p/>
+ * Hits, misses, puts and evictions (including expirations) are available via {@link #getStatistics()}.
+ *
+ * @see BoundedCacheManager
+ * @since 1.13
+ */
+public class BoundedCache<K, V> implements InstrumentedCache<K, V>, PagedCache<K, V> {
+
+    /**
+     * The policy used to choose which entry to discard once a {@code BoundedCache} is full.
+     */
+    public enum EvictionPolicy {
+        /**
+         * Discard the least recently used entry.
+         */
+        LRU,
+        /**
+         * Window TinyLFU: recently added entries compete with the least recently used entry of the main space based
+         * on their estimated access frequency.
+         */
+        TINY_LFU
+    }
+
+    private static final int NCPU = Runtime.getRuntime().availableProcessors();
+    private static final int READ_BUFFER_STRIPES = ceilingPowerOfTwo(Math.min(4 * NCPU, 64));
+    private static final int READ_BUFFER_SIZE = 32;
+    private static final int READ_BUFFER_MASK = READ_BUFFER_SIZE - 1;
+    private static final int READ_BUFFER_DRAIN_THRESHOLD = 16;
+    // spaces the per-stripe counters a cache line apart:
+    private static final int COUNTER_SPACING = 8;
+
+    private static final byte NONE = 0;
+    private static final byte WINDOW = 1;
+    private static final byte PROBATION = 2;
+    private static final byte PROTECTED = 3;
+
+    private final String name;
+    private final int maxSize;
+    private final long timeToLiveNanos;
+    private final long timeToIdleNanos;
+    private final boolean expires;
+    private final EvictionPolicy evictionPolicy;
+
+    private final ConcurrentMap<K, Node<K, V>> data;
+    private final SimpleCacheStatistics statistics = new SimpleCacheStatistics();
+
+    private final AtomicReferenceArray<Node<K, V>> readBuffer;
+    private final AtomicLongArray readBufferWrites;
+    private final AtomicLongArray readBufferReads;
+
+    // eviction policy state, guarded by evictionLock:
+    private final ReentrantLock evictionLock = new ReentrantLock();
+    private final AccessOrderDeque<K, V> window = new AccessOrderDeque<K, V>();
+    private final AccessOrderDeque<K, V> probation = new AccessOrderDeque<K, V>();
+    private final AccessOrderDeque<K, V> protectedDeque = new AccessOrderDeque<K, V>();
+    private final FrequencySketch sketch;
+    private final int windowMaxSize;
+    private final int protectedMaxSize;
+    private int linkedSize;
+    private int windowSize;
+    private int protectedSize;
+
+    public BoundedCache(String name, int maxSize) {
+        this(name, maxSize, 0, 0, EvictionPolicy.TINY_LFU);
+    }
+
+    /**
+     * Creates a new cache.
+     *
+     * @param name           the name of the cache
+     * @param maxSize        the maximum number of entries retained by the cache
+     * @param timeToLive     the number of milliseconds after which a written entry expires, or {@code 0} (or less) if
+     *                       entries should not expire after a fixed time
+     * @param timeToIdle     the number of milliseconds after which an entry that has not been read or written expires,
+     *                       or {@code 0} (or less) if entries should not expire when idle
+     * @param evictionPolicy the policy used to choose which entry to discard once the cache is full, or {@code null}
+     *                       for {@link EvictionPolicy#TINY_LFU TINY_LFU}.
+     */
+    public BoundedCache(String name, int maxSize, long timeToLive, long timeToIdle, EvictionPolicy evictionPolicy) {
+        if (name == null) {
+            throw new IllegalArgumentException("Cache name cannot be null.");
+        }
+        if (maxSize <= 0) {
+            throw new IllegalArgumentException("maxSize must be greater than zero.");
+        }
+        this.name = name;
+        this.maxSize = maxSize;
+        this.timeToLiveNanos = timeToLive > 0 ? TimeUnit.MILLISECONDS.toNanos(timeToLive) : 0L;
+        this.timeToIdleNanos = timeToIdle > 0 ? TimeUnit.MILLISECONDS.toNanos(timeToIdle) : 0L;
+        this.expires = timeToLiveNanos > 0 || timeToIdleNanos > 0;
+        this.evictionPolicy = evictionPolicy != null ? evictionPolicy : EvictionPolicy.TINY_LFU;
+
+        this.data = new ConcurrentHashMap<K, Node<K, V>>(Math.min(maxSize, 1 << 16));
+        this.readBuffer = new AtomicReferenceArray<Node<K, V>>(READ_BUFFER_STRIPES * READ_BUFFER_SIZE);
+        this.readBufferWrites = new AtomicLongArray(READ_BUFFER_STRIPES * COUNTER_SPACING);
+        this.readBufferReads = new AtomicLongArray(READ_BUFFER_STRIPES * COUNTER_SPACING);
+
+        if (this.evictionPolicy == EvictionPolicy.TINY_LFU) {
+            // a 1% admission window, with 80% of the remaining main space reserved for frequently used entries:
+            this.windowMaxSize = Math.max(1, maxSize / 100);
+            this.protectedMaxSize = (int) ((maxSize - windowMaxSize) * 0.8d);
+            this.sketch = new FrequencySketch(maxSize);
+        } else {
+            this.windowMaxSize = maxSize;
+            this.protectedMaxSize = 0;
+            this.sketch = null;
+        }
+    }
+
+    /**
+     * Returns the name of this cache.
+     *
+     * @return the name of this cache.
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Returns the maximum number of entries retained by this cache.
+     *
+     * @return the maximum number of entries retained by this cache.
+     */
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    /**
+     * Returns the number of milliseconds after which a written entry expires, or {@code 0} if entries do not expire
+     * after a fixed time.
+     *
+     * @return the number of milliseconds after which a written entry expires.
+     */
+    public long getTimeToLive() {
+        return TimeUnit.NANOSECONDS.toMillis(timeToLiveNanos);
+    }
+
+    /**
+     * Returns the number of milliseconds after which an entry that has not been accessed expires, or {@code 0} if
+     * entries do not expire when idle.
+     *
+     * @return the number of milliseconds after which an entry that has not been accessed expires.
+     */
+    public long getTimeToIdle() {
+        return TimeUnit.NANOSECONDS.toMillis(timeToIdleNanos);
+    }
+
+    /**
+     * Returns the policy used to choose which entry to discard once this cache is full.
+     *
+     * @return the policy used to choose which entry to discard once this cache is full.
+     */
+    public EvictionPolicy getEvictionPolicy() {
+        return evictionPolicy;
+    }
+
+    public V get(K key) throws CacheException {
+        if (key == null) {
+            return null;
+        }
+        Node<K, V> node = data.get(key);
+        if (node == null) {
+            statistics.recordMiss();
+            return null;
+        }
+        if (expires) {
+            long now = System.nanoTime();
+            if (isExpired(node, now)) {
+                statistics.recordMiss();
+                if (data.remove(key, node)) {
+                    statistics.recordEviction();
+                    afterRemoval(node);
+                }
+                return null;
+            }
+            if (timeToIdleNanos > 0) {
+                node.accessTime = now;
+            }
+        }
+        statistics.recordHit();
+        if (recordRead(node)) {
+            tryMaintenance();
+        }
+        return node.value;
+    }
+
+    /**
+     * Returns the value of the specified entry if present and not expired, without recording a hit or miss or
+     * affecting the eviction order.
+     */
+    V peek(K key) {
+        Node<K, V> node = key != null ? data.get(key) : null;
+        if (node == null || (expires && isExpired(node, System.nanoTime()))) {
+            return null;
+        }
+        return node.value;
+    }
+
+    public V put(K key, V value) throws CacheException {
+        if (key == null) {
+            throw new IllegalArgumentException("Cache key cannot be null.");
+        }
+        if (value == null) {
+            return remove(key);
+        }
+        statistics.recordPut();
+        long now = System.nanoTime();
+        Node<K, V> node = new Node<K, V>(key, value, now);
+        for (;;) {
+            Node<K, V> prior = data.putIfAbsent(key, node);
+            if (prior == null) {
+                afterWrite(node, null, now);
+                return null;
+            }
+            if (data.replace(key, prior, node)) {
+                afterWrite(node, prior, now);
+                return expires && isExpired(prior, now) ? null : prior.value;
+            }
+        }
+    }
+
+    public V remove(K key) throws CacheException {
+        if (key == null) {
+            return null;
+        }
+        Node<K, V> node = data.remove(key);
+        if (node == null) {
+            return null;
+        }
+        afterRemoval(node);
+        return expires && isExpired(node, System.nanoTime()) ? null : node.value;
+    }
+
+    public void clear() throws CacheException {
+        evictionLock.lock();
+        try {
+            data.clear();
+            drainReadBuffer();
+            window.clear();
+            probation.clear();
+            protectedDeque.clear();
+            linkedSize = 0;
+            windowSize = 0;
+            protectedSize = 0;
+        } finally {
+            evictionLock.unlock();
+        }
+    }
+
+    public int size() {
+        if (!expires) {
+            return data.size();
+        }
+        long now = System.nanoTime();
+        int size = 0;
+        for (Node<K, V> node : data.values()) {
+            if (!isExpired(node, now)) {
+                size++;
+            }
+        }
+        return size;
+    }
+
+    public Set<K> keys() {
+        long now = expires ? System.nanoTime() : 0L;
+        Set<K> keys = new HashSet<K>();
+        for (Map.Entry<K, Node<K, V>> entry : data.entrySet()) {
+            if (!expires || !isExpired(entry.getValue(), now)) {
+                keys.add(entry.getKey());
+            }
+        }
+        if (!keys.isEmpty()) {
+            return Collections.unmodifiableSet(keys);
+        }
+        return Collections.emptySet();
+    }
+
+    public Collection<V> values() {
+        long now = expires ? System.nanoTime() : 0L;
+        List<V> values = new ArrayList<V>();
+        for (Node<K, V> node : data.values()) {
+            if (!expires || !isExpired(node, now)) {
+                values.add(node.value);
+            }
+        }
+        if (!values.isEmpty()) {
+            return Collections.unmodifiableList(values);
+        }
+        return Collections.emptyList();
+    }
+
+    /**
+     * Returns a weakly consistent iterator over the values of the entries that have not expired, without copying
+     * them.  All entries are local, so the page size is ignored.
+     *
+     * @param pageSize ignored
+     * @return an iterator over the values of this cache.
+     */
+    public Iterator<V> valueIterator(int pageSize) {
+        final Iterator<Node<K, V>> nodes = data.values().iterator();
+        return new Iterator<V>() {
+            private V next;
+
+            public boolean hasNext() {
+                while (next == null && nodes.hasNext()) {
+                    Node<K, V> node = nodes.next();
+                    if (!expires || !isExpired(node, System.nanoTime())) {
+                        next = node.value;
+                    }
+                }
+                return next != null;
+            }
+
+            public V next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                V value = next;
+                next = null;
+                return value;
+            }
+
+            public void remove() {
+                throw new UnsupportedOperationException();
+            }
+        };
+    }
+
+    /**
+     * Removes all expired entries and applies any pending reads to the eviction policy.  Expired entries are
+     * otherwise removed lazily, so calling this periodically is only useful to release the memory of expired entries
+     * that are no longer read.
+     */
+    public void cleanUp() {
+        evictionLock.lock();
+        try {
+            drainReadBuffer();
+            if (expires) {
+                long now = System.nanoTime();
+                for (Node<K, V> node : data.values()) {
+                    if (isExpired(node, now)) {
+                        evict(node);
+                    }
+                }
+            }
+        } finally {
+            evictionLock.unlock();
+        }
+    }
+
+    /**
+     * Returns a live view of the statistics of this cache.
+     *
+     * @return a live view of the statistics of this cache.
+     */
+    public CacheStatistics getStatistics() {
+        return statistics;
+    }
+
+    public void recordLoad(long loadTime) {
+        statistics.recordLoad(loadTime);
+    }
+
+    private boolean isExpired(Node<K, V> node, long now) {
+        return (timeToLiveNanos > 0 && now - node.writeTime >= timeToLiveNanos) ||
+                (timeToIdleNanos > 0 && now - node.accessTime >= timeToIdleNanos);
+    }
+
+    /**
+     * Records a read in the calling thread's read buffer stripe without blocking.  The read is dropped if the stripe
+     * is full or another thread is concurrently recording into the same slot.
+     *
+     * @return {@code true} if the stripe has accumulated enough reads that they should be drained.
+     */
+    private boolean recordRead(Node<K, V> node) {
+        int stripe = stripe();
+        int counter = stripe * COUNTER_SPACING;
+        long writes = readBufferWrites.get(counter);
+        long pending = writes - readBufferReads.get(counter);
+        if (pending >= READ_BUFFER_SIZE) {
+            return true;
+        }
+        if (readBufferWrites.compareAndSet(counter, writes, writes + 1)) {
+            readBuffer.lazySet(stripe * READ_BUFFER_SIZE + (int) (writes & READ_BUFFER_MASK), node);
+            return pending + 1 >= READ_BUFFER_DRAIN_THRESHOLD;
+        }
+        return false;
+    }
+
+    private static int stripe() {
+        int hash = (int) Thread.currentThread().getId() * 0x9e3779b9;
+        return ((hash >>> 16) ^ hash) & (READ_BUFFER_STRIPES - 1);
+    }
+
+    private void tryMaintenance() {
+        if (evictionLock.tryLock()) {
+            try {
+                drainReadBuffer();
+                if (expires) {
+                    expireQueueHeads(System.nanoTime());
+                }
+            } finally {
+                evictionLock.unlock();
+            }
+        }
+    }
+
+    private void afterWrite(Node<K, V> node, Node<K, V> prior, long now) {
+        evictionLock.lock();
+        try {
+            drainReadBuffer();
+            byte queue = WINDOW;
+            if (prior != null && prior.queue != NONE) {
+                // an updated entry keeps its place in the policy:
+                queue = prior.queue;
+                unlink(prior);
+            }
+            // the node may have been removed or replaced again before we got the lock:
+            if (data.get(node.key) == node) {
+                link(node, queue);
+            }
+            if (expires) {
+                expireQueueHeads(now);
+            }
+            evictOverflow();
+        } finally {
+            evictionLock.unlock();
+        }
+    }
+
+    private void afterRemoval(Node<K, V> node) {
+        evictionLock.lock();
+        try {
+            unlink(node);
+        } finally {
+            evictionLock.unlock();
+        }
+    }
+
+    private void drainReadBuffer() {
+        for (int stripe = 0; stripe < READ_BUFFER_STRIPES; stripe++) {
+            int counter = stripe * COUNTER_SPACING;
+            long reads = readBufferReads.get(counter);
+            long writes = readBufferWrites.get(counter);
+            for (; reads < writes; reads++) {
+                int index = stripe * READ_BUFFER_SIZE + (int) (reads & READ_BUFFER_MASK);
+                Node<K, V> node = readBuffer.get(index);
+                if (node == null) {
+                    // the writer has claimed the slot but not yet filled it - pick it up on the next drain:
+                    break;
+                }
+                readBuffer.lazySet(index, null);
+                onAccess(node);
+            }
+            readBufferReads.lazySet(counter, reads);
+        }
+    }
+
+    private void onAccess(Node<K, V> node) {
+        if (node.queue == NONE) {
+            // removed since the read was recorded
+            return;
+        }
+        if (sketch != null) {
+            sketch.increment(node.key);
+        }
+        switch (node.queue) {
+            case WINDOW:
+                window.moveToBack(node);
+                break;
+            case PROBATION:
+                probation.unlink(node);
+                protectedDeque.linkLast(node);
+                node.queue = PROTECTED;
+                protectedSize++;
+                demoteProtectedOverflow();
+                break;
+            case PROTECTED:
+                protectedDeque.moveToBack(node);
+                break;
+            default:
+                break;
+        }
+    }
+
+    private void link(Node<K, V> node, byte queue) {
+        if (sketch != null) {
+            sketch.increment(node.key);
+        }
+        node.queue = queue;
+        linkedSize++;
+        switch (queue) {
+            case PROBATION:
+                probation.linkLast(node);
+                break;
+            case PROTECTED:
+                protectedDeque.linkLast(node);
+                protectedSize++;
+                break;
+            default:
+                window.linkLast(node);
+                windowSize++;
+                break;
+        }
+    }
+
+    private void unlink(Node<K, V> node) {
+        switch (node.queue) {
+            case WINDOW:
+                window.unlink(node);
+                windowSize--;
+                break;
+            case PROBATION:
+                probation.unlink(node);
+                break;
+            case PROTECTED:
+                protectedDeque.unlink(node);
+                protectedSize--;
+                break;
+            default:
+                return;
+        }
+        node.queue = NONE;
+        linkedSize--;
+    }
+
+    private void evict(Node<K, V> node) {
+        unlink(node);
+        if (data.remove(node.key, node)) {
+            statistics.recordEviction();
+        }
+    }
+
+    private void demoteProtectedOverflow() {
+        while (protectedSize > protectedMaxSize) {
+            Node<K, V> demoted = protectedDeque.first;
+            protectedDeque.unlink(demoted);
+            protectedSize--;
+            probation.linkLast(demoted);
+            demoted.queue = PROBATION;
+        }
+    }
+
+    private void evictOverflow() {
+        if (sketch != null) {
+            // entries leaving the window are admitted into the main space only if they are used more often than
+            // the entry they would displace:
+            while (windowSize > windowMaxSize) {
+                Node<K, V> candidate = window.first;
+                if (linkedSize > maxSize) {
+                    Node<K, V> victim = probation.first != null ? probation.first : protectedDeque.first;
+                    if (victim == null || sketch.frequency(candidate.key) <= sketch.frequency(victim.key)) {
+                        evict(candidate);
+                        continue;
+                    }
+                    evict(victim);
+                }
+                window.unlink(candidate);
+                windowSize--;
+                probation.linkLast(candidate);
+                candidate.queue = PROBATION;
+            }
+        }
+        while (linkedSize > maxSize) {
+            Node<K, V> victim = probation.first;
+            if (victim == null) {
+                victim = protectedDeque.first;
+            }
+            if (victim == null) {
+                victim = window.first;
+            }
+            evict(victim);
+        }
+    }
+
+    private void expireQueueHeads(long now) {
+        expireQueueHead(window, now);
+        expireQueueHead(probation, now);
+        expireQueueHead(protectedDeque, now);
+    }
+
+    private void expireQueueHead(AccessOrderDeque<K, V> deque, long now) {
+        Node<K, V> node;
+        while ((node = deque.first) != null && isExpired(node, now)) {
+            evict(node);
+        }
+    }
+
+    private static int ceilingPowerOfTwo(int value) {
+        int result = 1;
+        while (result < value) {
+            result <<= 1;
+        }
+        return result;
+    }
+
+    public String toString() {
+        return new StringBuilder("BoundedCache '")
+                .append(name).append("' (")
+                .append(data.size())
+                .append(" entries)")
+                .toString();
+    }
+
+    /**
+     * A cache entry.  Updating a key replaces its node, so only the access time changes after construction.
+     */
+    private static final class Node<K, V> {
+
+        final K key;
+        final V value;
+        final long writeTime;
+        volatile long accessTime;
+
+        // guarded by the eviction lock:
+        byte queue;
+        Node<K, V> prev;
+        Node<K, V> next;
+
+        Node(K key, V value, long now) {
+            this.key = key;
+            this.value = value;
+            this.writeTime = now;
+            this.accessTime = now;
+        }
+    }
+
+    /**
+     * An intrusive doubly-linked list of nodes, least recently used first.  Guarded by the eviction lock.
+     */
+    private static final class AccessOrderDeque<K, V> {
+
+        Node<K, V> first;
+        Node<K, V> last;
+
+        void linkLast(Node<K, V> node) {
+            node.prev = last;
+            node.next = null;
+            if (last == null) {
+                first = node;
+            } else {
+                last.next = node;
+            }
+            last = node;
+        }
+
+        void unlink(Node<K, V> node) {
+            Node<K, V> prev = node.prev;
+            Node<K, V> next = node.next;
+            if (prev == null) {
+                first = next;
+            } else {
+                prev.next = next;
+            }
+            if (next == null) {
+                last = prev;
+            } else {
+                next.prev = prev;
+            }
+            node.prev = null;
+            node.next = null;
+        }
+
+        void moveToBack(Node<K, V> node) {
+            if (node != last) {
+                unlink(node);
+                linkLast(node);
+            }
+        }
+
+        void clear() {
+            Node<K, V> node = first;
+            while (node != null) {
+                Node<K, V> next = node.next;
+                node.prev = null;
+                node.next = null;
+                node.queue = NONE;
+                node = next;
+            }
+            first = null;
+            last = null;
+        }
+    }
+}
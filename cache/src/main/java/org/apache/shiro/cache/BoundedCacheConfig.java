@@ -0,0 +1,121 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.shiro.cache;
+
+/**
+ * The settings of a single {@link BoundedCache} created by a {@link BoundedCacheManager}.  Any setting left
+ * {@code null} falls back to the corresponding default of the {@code BoundedCacheManager}.
+ *
+ * @see BoundedCacheManager#getCaches()
+ * @since 1.13
+ */
+public class BoundedCacheConfig {
+
+    private Integer maxSize;
+    private Long timeToLive;
+    private Long timeToIdle;
+    private BoundedCache.EvictionPolicy evictionPolicy;
+
+    /**
+     * Returns the maximum number of entries retained by the cache, or {@code null} to use the manager's default.
+     *
+     * @return the maximum number of entries retained by the cache, or {@code null} to use the manager's default.
+     */
+    public Integer getMaxSize() {
+        return maxSize;
+    }
+
+    /**
+     * Sets the maximum number of entries retained by the cache, or {@code null} to use the manager's default.
+     *
+     * @param maxSize the maximum number of entries retained by the cache
+     */
+    public void setMaxSize(Integer maxSize) {
+        this.maxSize = maxSize;
+    }
+
+    /**
+     * Returns the number of milliseconds after which a written entry expires, or {@code null} to use the manager's
+     * default.
+     *
+     * @return the number of milliseconds after which a written entry expires, or {@code null} to use the manager's
+     *         default.
+     */
+    public Long getTimeToLive() {
+        return timeToLive;
+    }
+
+    /**
+     * Sets the number of milliseconds after which a written entry expires.  {@code 0} disables this expiration and
+     * {@code null} uses the manager's default.
+     *
+     * @param timeToLive the number of milliseconds after which a written entry expires
+     */
+    public void setTimeToLive(Long timeToLive) {
+        this.timeToLive = timeToLive;
+    }
+
+    /**
+     * Returns the number of milliseconds after which an entry that has not been accessed expires, or {@code null}
+     * to use the manager's default.
+     *
+     * @return the number of milliseconds after which an entry that has not been accessed expires, or {@code null}
+     *         to use the manager's default.
+     */
+    public Long getTimeToIdle() {
+        return timeToIdle;
+    }
+
+    /**
+     * Sets the number of milliseconds after which an entry that has not been accessed expires.  {@code 0} disables
+     * this expiration and {@code null} uses the manager's default.
+     *
+     * @param timeToIdle the number of milliseconds after which an entry that has not been accessed expires
+     */
+    public void setTimeToIdle(Long timeToIdle) {
+        this.timeToIdle = timeToIdle;
+    }
+
+    /**
+     * Returns the policy used to choose which entry to discard once the cache is full, or {@code null} to use the
+     * manager's default.
+     *
+     * @return the policy used to choose which entry to discard once the cache is full, or {@code null} to use the
+     *         manager's default.
+     */
+    public BoundedCache.EvictionPolicy getEvictionPolicy() {
+        return evictionPolicy;
+    }
+
+    /**
+     * Sets the policy used to choose which entry to discard once the cache is full, or {@code null} to use the
+     * manager's default.
+     *
+     * @param evictionPolicy the policy used to choose which entry to discard once the cache is full
+     */
+    public void setEvictionPolicy(BoundedCache.EvictionPolicy evictionPolicy) {
+        this.evictionPolicy = evictionPolicy;
+    }
+
+    @Override
+    public String toString() {
+        return "BoundedCacheConfig[maxSize=" + maxSize + ", timeToLive=" + timeToLive +
+                ", timeToIdle=" + timeToIdle + ", evictionPolicy=" + evictionPolicy + "]";
+    }
+}
@@ -0,0 +1,310 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.shiro.cache;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Memory-only {@link CacheManager CacheManager} producing {@link BoundedCache BoundedCache}s: caches with a fixed
+ * maximum size, optional time-to-live and time-to-idle expiration, non-blocking reads and frequency-aware eviction.
+ * <p/>
+ * Unlike {@link MemoryConstrainedCacheManager}, whose caches shrink only when the garbage collector clears soft
+ * references, the memory used by each cache is bounded by configuration and evictions happen predictably as entries
+ * are added.
+ * <p/>
+ * Every cache uses the manager's {@code default*} settings unless overridden through {@link #getCaches() caches},
+ * which is keyed by cache name.  A key also matches any cache whose name ends with a '.' followed by the key, so a
+ * single entry can configure e.g. the {@code authorizationCache} of every realm.  Example {@code shiro.ini}
+ * configuration:
+ * <pre>
+ * cacheManager = org.apache.shiro.cache.BoundedCacheManager
+ * cacheManager.defaultMaxSize = 10000
+ * cacheManager.defaultTimeToIdle = 1800000
+ * cacheManager.caches[authorizationCache].maxSize = 5000
+ * cacheManager.caches[authorizationCache].timeToLive = 600000
+ * cacheManager.caches[authenticationCache].evictionPolicy = LRU
+ * securityManager.cacheManager = $cacheManager
+ * </pre>
+ * Settings only apply to caches created after they are set.
+ * <h3>Active sessions</h3>
+ * Caches named in {@link #getUnboundedCacheNames() unboundedCacheNames}, by default only the
+ * {@link #ACTIVE_SESSION_CACHE_NAME active session cache}, are not bounded by the {@code default*} settings: unless a
+ * {@code maxSize} is configured for them through {@link #getCaches() caches}, they are unbounded
+ * {@link MapCache MapCache}s.  An {@code EnterpriseCacheSessionDAO} keeps live sessions only in that cache, so evicting
+ * an entry would silently log a user out; sessions leave it when they are stopped or expire instead.  Since an
+ * unbounded cache neither evicts nor expires entries, configuring a {@code timeToLive}, {@code timeToIdle} or
+ * {@code evictionPolicy} for it without a {@code maxSize} is rejected when the cache is created.
+ *
+ * @since 1.13
+ */
+public class BoundedCacheManager extends AbstractCacheManager {
+
+    /**
+     * The default maximum number of entries of each cache.
+     */
+    public static final int DEFAULT_MAX_SIZE = 10000;
+
+    /**
+     * The name of the cache a {@code CachingSessionDAO} keeps active sessions in unless configured otherwise.
+     */
+    public static final String ACTIVE_SESSION_CACHE_NAME = "shiro-activeSessionCache";
+
+    private int defaultMaxSize = DEFAULT_MAX_SIZE;
+    private long defaultTimeToLive;
+    private long defaultTimeToIdle;
+    private BoundedCache.EvictionPolicy defaultEvictionPolicy = BoundedCache.EvictionPolicy.TINY_LFU;
+
+    private final Map<String, BoundedCacheConfig> caches = new CacheConfigMap();
+
+    private volatile Set<String> unboundedCacheNames = Collections.singleton(ACTIVE_SESSION_CACHE_NAME);
+
+    /**
+     * Returns the maximum number of entries of caches not configured otherwise.  Defaults to
+     * {@link #DEFAULT_MAX_SIZE}.
+     *
+     * @return the maximum number of entries of caches not configured otherwise.
+     */
+    public int getDefaultMaxSize() {
+        return defaultMaxSize;
+    }
+
+    /**
+     * Sets the maximum number of entries of caches not configured otherwise.
+     *
+     * @param defaultMaxSize the maximum number of entries of caches not configured otherwise.
+     */
+    public void setDefaultMaxSize(int defaultMaxSize) {
+        if (defaultMaxSize <= 0) {
+            throw new IllegalArgumentException("defaultMaxSize must be greater than zero.");
+        }
+        this.defaultMaxSize = defaultMaxSize;
+    }
+
+    /**
+     * Returns the number of milliseconds after which a written entry expires for caches not configured otherwise.
+     * Defaults to {@code 0}, meaning entries do not expire after a fixed time.
+     *
+     * @return the number of milliseconds after which a written entry expires for caches not configured otherwise.
+     */
+    public long getDefaultTimeToLive() {
+        return defaultTimeToLive;
+    }
+
+    /**
+     * Sets the number of milliseconds after which a written entry expires for caches not configured otherwise.
+     *
+     * @param defaultTimeToLive the number of milliseconds after which a written entry expires, or {@code 0} to
+     *                          disable this expiration.
+     */
+    public void setDefaultTimeToLive(long defaultTimeToLive) {
+        this.defaultTimeToLive = defaultTimeToLive;
+    }
+
+    /**
+     * Returns the number of milliseconds after which an entry that has not been accessed expires for caches not
+     * configured otherwise.  Defaults to {@code 0}, meaning entries do not expire when idle.
+     *
+     * @return the number of milliseconds after which an entry that has not been accessed expires for caches not
+     *         configured otherwise.
+     */
+    public long getDefaultTimeToIdle() {
+        return defaultTimeToIdle;
+    }
+
+    /**
+     * Sets the number of milliseconds after which an entry that has not been accessed expires for caches not
+     * configured otherwise.
+     *
+     * @param defaultTimeToIdle the number of milliseconds after which an entry that has not been accessed expires,
+     *                          or {@code 0} to disable this expiration.
+     */
+    public void setDefaultTimeToIdle(long defaultTimeToIdle) {
+        this.defaultTimeToIdle = defaultTimeToIdle;
+    }
+
+    /**
+     * Returns the eviction policy of caches not configured otherwise.  Defaults to
+     * {@link BoundedCache.EvictionPolicy#TINY_LFU TINY_LFU}.
+     *
+     * @return the eviction policy of caches not configured otherwise.
+     */
+    public BoundedCache.EvictionPolicy getDefaultEvictionPolicy() {
+        return defaultEvictionPolicy;
+    }
+
+    /**
+     * Sets the eviction policy of caches not configured otherwise.
+     *
+     * @param defaultEvictionPolicy the eviction policy of caches not configured otherwise.
+     */
+    public void setDefaultEvictionPolicy(BoundedCache.EvictionPolicy defaultEvictionPolicy) {
+        if (defaultEvictionPolicy == null) {
+            throw new IllegalArgumentException("defaultEvictionPolicy cannot be null.");
+        }
+        this.defaultEvictionPolicy = defaultEvictionPolicy;
+    }
+
+    /**
+     * Returns the per-cache settings, keyed by cache name (or cache name suffix, see the class documentation).
+     * <p/>
+     * Getting a key that is not yet present from the returned map creates and stores an empty
+     * {@link BoundedCacheConfig} for it, which is what allows nested INI assignments such as
+     * {@code cacheManager.caches[authorizationCache].maxSize = 5000}.
+     *
+     * @return the per-cache settings, keyed by cache name.
+     */
+    public Map<String, BoundedCacheConfig> getCaches() {
+        return caches;
+    }
+
+    /**
+     * Replaces the per-cache settings with the specified ones.
+     *
+     * @param caches the per-cache settings, keyed by cache name.
+     */
+    public void setCaches(Map<String, BoundedCacheConfig> caches) {
+        synchronized (this.caches) {
+            this.caches.clear();
+            if (caches != null) {
+                this.caches.putAll(caches);
+            }
+        }
+    }
+
+    /**
+     * Returns the names of the caches that must not lose entries to eviction, which are unbounded unless a
+     * {@code maxSize} is configured for them through {@link #getCaches() caches}.  Defaults to the
+     * {@link #ACTIVE_SESSION_CACHE_NAME active session cache} only.
+     *
+     * @return the names of the caches that are unbounded unless configured otherwise.
+     */
+    public Set<String> getUnboundedCacheNames() {
+        return unboundedCacheNames;
+    }
+
+    /**
+     * Sets the names of the caches that must not lose entries to eviction, for example the
+     * {@code activeSessionsCacheName} of a {@code CachingSessionDAO} configured with a custom cache name.
+     *
+     * @param unboundedCacheNames the names of the caches that are unbounded unless configured otherwise.
+     */
+    public void setUnboundedCacheNames(Set<String> unboundedCacheNames) {
+        this.unboundedCacheNames = unboundedCacheNames != null ?
+                Collections.unmodifiableSet(new LinkedHashSet<String>(unboundedCacheNames)) :
+                Collections.<String>emptySet();
+    }
+
+    /**
+     * Returns a new {@link BoundedCache BoundedCache} configured with the settings that apply to the specified cache
+     * name, or an unbounded {@link MapCache MapCache} if the name is one of the
+     * {@link #getUnboundedCacheNames() unboundedCacheNames} and no {@code maxSize} is configured for it.
+     *
+     * @param name the name of the cache
+     * @return a new {@link BoundedCache BoundedCache}, or an unbounded {@link MapCache MapCache}.
+     * @throws CacheException if settings that only apply to bounded caches are configured for an unbounded cache.
+     */
+    @Override
+    protected Cache<Object, Object> createCache(String name) throws CacheException {
+        BoundedCacheConfig config = getCacheConfig(name);
+        if (unboundedCacheNames.contains(name) && (config == null || config.getMaxSize() == null)) {
+            if (config != null && (config.getTimeToLive() != null || config.getTimeToIdle() != null ||
+                    config.getEvictionPolicy() != null)) {
+                throw new CacheException("Cache [" + name + "] is unbounded unless a maxSize is configured for it: " +
+                        "its timeToLive, timeToIdle and evictionPolicy settings would be ignored.");
+            }
+            return new MapCache<Object, Object>(name, new ConcurrentHashMap<Object, Object>());
+        }
+        int maxSize = defaultMaxSize;
+        long timeToLive = defaultTimeToLive;
+        long timeToIdle = defaultTimeToIdle;
+        BoundedCache.EvictionPolicy evictionPolicy = defaultEvictionPolicy;
+        if (config != null) {
+            if (config.getMaxSize() != null) {
+                maxSize = config.getMaxSize();
+            }
+            if (config.getTimeToLive() != null) {
+                timeToLive = config.getTimeToLive();
+            }
+            if (config.getTimeToIdle() != null) {
+                timeToIdle = config.getTimeToIdle();
+            }
+            if (config.getEvictionPolicy() != null) {
+                evictionPolicy = config.getEvictionPolicy();
+            }
+        }
+        return new BoundedCache<Object, Object>(name, maxSize, timeToLive, timeToIdle, evictionPolicy);
+    }
+
+    /**
+     * Returns the settings configured for the specified cache name: the entry whose key equals the name if present,
+     * otherwise the entry whose key is the longest suffix of the name following a '.', otherwise {@code null}.
+     *
+     * @param name the name of the cache
+     * @return the settings configured for the specified cache name, or {@code null} if none are.
+     */
+    protected BoundedCacheConfig getCacheConfig(String name) {
+        synchronized (caches) {
+            BoundedCacheConfig match = null;
+            int matchLength = -1;
+            for (Map.Entry<String, BoundedCacheConfig> entry : caches.entrySet()) {
+                String key = entry.getKey();
+                if (key == null) {
+                    continue;
+                }
+                if (key.equals(name)) {
+                    return entry.getValue();
+                }
+                if (key.length() > matchLength && name.endsWith("." + key)) {
+                    match = entry.getValue();
+                    matchLength = key.length();
+                }
+            }
+            return match;
+        }
+    }
+
+    /**
+     * Creates a {@link BoundedCacheConfig} on first access to a key, so that nested properties can be assigned from
+     * configuration without declaring each entry first.
+     */
+    private static final class CacheConfigMap extends LinkedHashMap<String, BoundedCacheConfig> {
+
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        public synchronized BoundedCacheConfig get(Object key) {
+            BoundedCacheConfig config = super.get(key);
+            if (config == null && key instanceof String) {
+                config = new BoundedCacheConfig();
+                put((String) key, config);
+            }
+            return config;
+        }
+
+        @Override
+        public synchronized BoundedCacheConfig put(String key, BoundedCacheConfig value) {
+            return super.put(key, value);
+        }
+    }
+}
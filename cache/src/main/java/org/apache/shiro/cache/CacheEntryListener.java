@@ -0,0 +1,43 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.shiro.cache;
+
+/**
+ * Notified when entries of a {@link ListenableCache} change, including changes made by other members of a cluster
+ * sharing the cache.  Notifications may be delivered asynchronously, so implementations must be thread-safe and
+ * should return quickly.
+ *
+ * @param <K> the type of the cache keys
+ * @since 1.13
+ */
+public interface CacheEntryListener<K> {
+
+    /**
+     * Called after the entry with the specified key was updated, removed, expired or evicted.
+     *
+     * @param key the key of the changed entry
+     */
+    void onChange(K key);
+
+    /**
+     * Called after all entries of the cache were removed at once, if the cache reports such changes as a whole
+     * rather than entry by entry.
+     */
+    void onClear();
+}
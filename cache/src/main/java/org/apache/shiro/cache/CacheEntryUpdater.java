@@ -0,0 +1,42 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.shiro.cache;
+
+import java.io.Serializable;
+
+/**
+ * A change to apply to a single cache entry in place, by an {@link UpdatableCache}.  For distributed caches the
+ * updater is usually sent to, and executed by, the node owning the entry, which is why it must be
+ * {@code Serializable} and should carry as little state as possible.
+ *
+ * @param <V> the type of the cached values
+ * @since 1.13
+ */
+public interface CacheEntryUpdater<V> extends Serializable {
+
+    /**
+     * Returns the new value of the entry, computed from its current value.  The current value may be modified and
+     * returned.
+     *
+     * @param current the current value of the entry, never {@code null}
+     * @return the new value of the entry, or {@code null} if the update cannot be applied to the current value, in
+     *         which case the entry is left unchanged.
+     */
+    V update(V current);
+}
@@ -0,0 +1,90 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.shiro.cache;
+
+/**
+ * A live, read-only view of the activity of a {@link Cache Cache}, used to judge whether a cache is effective and how
+ * it should be sized.  Counts accumulate from the moment the cache (or the statistics instance) was created.
+ * <p/>
+ * Obtain an instance from any {@link InstrumentedCache InstrumentedCache}, or have a {@code CacheManager} hand each
+ * new cache's statistics to a {@link CacheStatisticsExporter CacheStatisticsExporter}.
+ *
+ * @see InstrumentedCache
+ * @since 1.13
+ */
+public interface CacheStatistics {
+
+    /**
+     * Returns the number of lookups that found a value.
+     *
+     * @return the number of lookups that found a value.
+     */
+    long getHitCount();
+
+    /**
+     * Returns the number of lookups that did not find a value.
+     *
+     * @return the number of lookups that did not find a value.
+     */
+    long getMissCount();
+
+    /**
+     * Returns the ratio of hits to total lookups, or {@code 0} if no lookups have occurred yet.
+     *
+     * @return the ratio of hits to total lookups.
+     */
+    double getHitRatio();
+
+    /**
+     * Returns the number of values stored in the cache.
+     *
+     * @return the number of values stored in the cache.
+     */
+    long getPutCount();
+
+    /**
+     * Returns the number of entries the cache discarded on its own, because it was full or the entry expired.
+     * Caches that cannot observe their own evictions report {@code 0}.
+     *
+     * @return the number of entries the cache discarded on its own.
+     */
+    long getEvictionCount();
+
+    /**
+     * Returns the number of times a missing value was computed (for example by a Realm querying its data source)
+     * and reported to the cache.
+     *
+     * @return the number of times a missing value was computed and reported to the cache.
+     */
+    long getLoadCount();
+
+    /**
+     * Returns the total number of nanoseconds spent computing missing values, as reported to the cache.
+     *
+     * @return the total number of nanoseconds spent computing missing values.
+     */
+    long getTotalLoadTime();
+
+    /**
+     * Returns the estimated number of bytes of memory used by the cache, or {@code -1} if unknown.
+     *
+     * @return the estimated number of bytes of memory used by the cache, or {@code -1} if unknown.
+     */
+    long getEstimatedMemorySize();
+}
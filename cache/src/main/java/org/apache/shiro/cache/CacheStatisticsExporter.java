@@ -0,0 +1,47 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.shiro.cache;
+
+/**
+ * A hook that publishes cache statistics to a monitoring system, such as JMX or Micrometer, without Shiro depending
+ * on that system.
+ * <p/>
+ * {@code CacheManager}s that support it call {@link #export export} once for every cache they create.  Since the
+ * given {@link CacheStatistics} is a live view, implementations typically register it once (e.g. as an MBean, or as
+ * gauges and function counters reading its getters) rather than copying its values.
+ * <p/>
+ * Example {@code shiro.ini} configuration:
+ * <pre>
+ * statisticsExporter = com.mycompany.shiro.MicrometerCacheStatisticsExporter
+ * cacheManager = org.apache.shiro.cache.MemoryConstrainedCacheManager
+ * cacheManager.statisticsExporter = $statisticsExporter
+ * </pre>
+ *
+ * @since 1.13
+ */
+public interface CacheStatisticsExporter {
+
+    /**
+     * Publishes the statistics of a newly created cache.
+     *
+     * @param cacheName  the name of the cache
+     * @param statistics a live view of the statistics of the cache
+     */
+    void export(String cacheName, CacheStatistics statistics);
+}
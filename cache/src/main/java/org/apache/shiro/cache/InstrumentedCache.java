@@ -0,0 +1,44 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.shiro.cache;
+
+/**
+ * A {@link Cache Cache} that keeps {@link CacheStatistics statistics} about its use.
+ * <p/>
+ * Caches do not compute missing values themselves, so load counts and times are reported by the components that do,
+ * such as {@link org.apache.shiro.realm.CachingRealm CachingRealm}s, via {@link #recordLoad(long)}.
+ *
+ * @since 1.13
+ */
+public interface InstrumentedCache<K, V> extends Cache<K, V> {
+
+    /**
+     * Returns a live view of the statistics of this cache.
+     *
+     * @return a live view of the statistics of this cache.
+     */
+    CacheStatistics getStatistics();
+
+    /**
+     * Records that a value missing from this cache was computed, taking the specified number of nanoseconds.
+     *
+     * @param loadTime the number of nanoseconds it took to compute the value.
+     */
+    void recordLoad(long loadTime);
+}
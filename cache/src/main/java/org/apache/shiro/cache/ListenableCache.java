@@ -0,0 +1,47 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.shiro.cache;
+
+/**
+ * A {@link Cache} reporting changes to its entries to registered {@link CacheEntryListener}s.  For distributed caches
+ * this includes changes made by other cluster members, which is what allows a {@link NearCache} to keep its local
+ * copies coherent.
+ *
+ * @param <K> the type of the cache keys
+ * @param <V> the type of the cached values
+ * @since 1.13
+ */
+public interface ListenableCache<K, V> extends Cache<K, V> {
+
+    /**
+     * Registers the specified listener to be notified of changes to the entries of this cache.
+     *
+     * @param listener the listener to register
+     * @throws CacheException if the listener cannot be registered with the underlying cache system
+     */
+    void addCacheEntryListener(CacheEntryListener<K> listener) throws CacheException;
+
+    /**
+     * Stops notifying the specified listener, if it was registered with this cache.
+     *
+     * @param listener the listener to unregister
+     * @throws CacheException if the listener cannot be unregistered from the underlying cache system
+     */
+    void removeCacheEntryListener(CacheEntryListener<K> listener) throws CacheException;
+}
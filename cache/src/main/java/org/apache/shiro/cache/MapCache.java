@@ -20,16 +20,24 @@ package org.apache.shiro.cache;
 
 import java.util.Collection;
 import java.util.Collections;
+import java.util.Iterator;
 import java.util.Map;
 import java.util.Set;
 
 /**
  * A <code>MapCache</code> is a {@link Cache Cache} implementation that uses a backing {@link Map} instance to store
  * and retrieve cached data.
+ * <p/>
+ * As of 1.13, hits, misses and puts are counted and available via {@link #getStatistics()}.  Entries removed by the
+ * backing map on its own (for example by the garbage collector in a {@link org.apache.shiro.util.SoftHashMap
+ * SoftHashMap}) cannot be observed and are not counted as evictions.
+ * <p/>
+ * {@link #valueIterator(int)} iterates the values of the backing map directly, so it is only weakly consistent if
+ * the backing map is a concurrent map and otherwise must not be used while the cache is modified.
  *
  * @since 1.0
  */
-public class MapCache<K, V> implements Cache<K, V> {
+public class MapCache<K, V> implements InstrumentedCache<K, V>, PagedCache<K, V> {
 
     /**
      * Backing instance.
@@ -41,22 +49,51 @@ public class MapCache<K, V> implements Cache<K, V> {
      */
     private final String name;
 
+    /**
+     * The statistics of this cache.
+     */
+    private final SimpleCacheStatistics statistics;
+
     public MapCache(String name, Map<K, V> backingMap) {
+        this(name, backingMap, new SimpleCacheStatistics());
+    }
+
+    /**
+     * Creates a cache recording its activity in the specified statistics, which allows several {@code MapCache}
+     * instances wrapping the same backing map to share them.
+     *
+     * @param name       the name of the cache
+     * @param backingMap the map storing the cached data
+     * @param statistics the statistics to record activity in
+     * @since 1.13
+     */
+    public MapCache(String name, Map<K, V> backingMap, SimpleCacheStatistics statistics) {
         if (name == null) {
             throw new IllegalArgumentException("Cache name cannot be null.");
         }
         if (backingMap == null) {
             throw new IllegalArgumentException("Backing map cannot be null.");
         }
+        if (statistics == null) {
+            throw new IllegalArgumentException("Statistics cannot be null.");
+        }
         this.name = name;
         this.map = backingMap;
+        this.statistics = statistics;
     }
 
     public V get(K key) throws CacheException {
-        return map.get(key);
+        V value = map.get(key);
+        if (value != null) {
+            statistics.recordHit();
+        } else {
+            statistics.recordMiss();
+        }
+        return value;
     }
 
     public V put(K key, V value) throws CacheException {
+        statistics.recordPut();
         return map.put(key, value);
     }
 
@@ -88,6 +125,36 @@ public class MapCache<K, V> implements Cache<K, V> {
         return Collections.emptyList();
     }
 
+    /**
+     * Returns an iterator over the values of the backing map, which are all local so the page size is ignored.
+     *
+     * @param pageSize ignored
+     * @return an iterator over the values of the backing map.
+     * @since 1.13
+     */
+    public Iterator<V> valueIterator(int pageSize) throws CacheException {
+        return Collections.unmodifiableCollection(map.values()).iterator();
+    }
+
+    /**
+     * Returns a live view of the statistics of this cache.
+     *
+     * @return a live view of the statistics of this cache.
+     * @since 1.13
+     */
+    public CacheStatistics getStatistics() {
+        return statistics;
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @since 1.13
+     */
+    public void recordLoad(long loadTime) {
+        statistics.recordLoad(loadTime);
+    }
+
     public String toString() {
         return new StringBuilder("MapCache '")
                 .append(name).append("' (")
@@ -0,0 +1,372 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.shiro.cache;
+
+import org.apache.shiro.util.Destroyable;
+
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A {@link Cache Cache} keeping local copies of the entries read from or written to a (typically distributed)
+ * backing cache, so that repeated reads of the same entries on one node, as happens with sticky sessions, do not
+ * require a network call each.
+ * <p/>
+ * Local copies are held in a {@link BoundedCache} and expire {@link #getTimeToLive() timeToLive} milliseconds after
+ * they were stored, which bounds how long a node may see a stale entry.  If the backing cache is a
+ * {@link ListenableCache}, local copies are also dropped as soon as the backing cache reports that the entry was
+ * changed by another node, which keeps them coherent well within that bound.  Changes made through this cache are
+ * applied to both tiers, and the notifications they cause in the backing cache are recognized and ignored so that
+ * they do not discard the copy just stored.  Since notifications only identify the changed key, a change is only
+ * expected for a short while (at most one second, and never longer than {@code timeToLive}): a notification arriving
+ * later, or one the backing cache never sends, cannot cause a change made by another node to be missed for longer.
+ * <p/>
+ * Reads served by the local tier return the same value instance to all callers on this node.  {@link #size()},
+ * {@link #keys()}, {@link #values()} and {@link #valueIterator(int)} are always served by the backing cache, and
+ * {@link #getStatistics()} returns the statistics of the local tier.
+ *
+ * @since 1.13
+ */
+public class NearCache<K, V> implements InstrumentedCache<K, V>, UpdatableCache<K, V>, PagedCache<K, V>, Destroyable {
+
+    /**
+     * The default maximum number of local copies.
+     */
+    public static final int DEFAULT_MAX_SIZE = 10000;
+
+    /**
+     * The default number of milliseconds a local copy is used before the entry is read from the backing cache again.
+     */
+    public static final long DEFAULT_TIME_TO_LIVE = 5000L;
+
+    /**
+     * The maximum number of milliseconds a notification is expected for a change made through this cache.
+     */
+    private static final long MAX_NOTIFICATION_DELAY = 1000L;
+
+    /**
+     * The number of keys with expected notifications above which expired expectations are purged.
+     */
+    private static final int EXPECTATION_PURGE_THRESHOLD = 1024;
+
+    private final Cache<K, V> backingCache;
+    private final BoundedCache<K, V> local;
+    private final long timeToLive;
+
+    /**
+     * The notifications still expected for changes made through this cache, keyed by entry key.  Only used if the
+     * backing cache is listenable.
+     */
+    private final ConcurrentMap<K, ExpectedNotifications> expectedNotifications;
+    private final long notificationDelayNanos;
+    private final CacheEntryListener<K> invalidator;
+
+    /**
+     * Creates a near cache in front of the specified cache, with {@link #DEFAULT_MAX_SIZE} local copies living for
+     * {@link #DEFAULT_TIME_TO_LIVE} milliseconds.
+     *
+     * @param name         the name of the cache
+     * @param backingCache the cache holding the authoritative entries
+     */
+    public NearCache(String name, Cache<K, V> backingCache) {
+        this(name, backingCache, DEFAULT_MAX_SIZE, DEFAULT_TIME_TO_LIVE);
+    }
+
+    /**
+     * Creates a near cache in front of the specified cache, registering with it for change notifications if it is a
+     * {@link ListenableCache}.
+     *
+     * @param name         the name of the cache
+     * @param backingCache the cache holding the authoritative entries
+     * @param maxSize      the maximum number of local copies
+     * @param timeToLive   the number of milliseconds a local copy is used before the entry is read from the backing
+     *                     cache again, greater than zero
+     */
+    public NearCache(String name, Cache<K, V> backingCache, int maxSize, long timeToLive) {
+        if (backingCache == null) {
+            throw new IllegalArgumentException("backingCache cannot be null.");
+        }
+        if (timeToLive <= 0) {
+            throw new IllegalArgumentException("timeToLive must be greater than zero.");
+        }
+        this.backingCache = backingCache;
+        this.local = new BoundedCache<K, V>(name, maxSize, timeToLive, 0, BoundedCache.EvictionPolicy.LRU);
+        this.timeToLive = timeToLive;
+        this.notificationDelayNanos = TimeUnit.MILLISECONDS.toNanos(Math.min(timeToLive, MAX_NOTIFICATION_DELAY));
+        if (backingCache instanceof ListenableCache) {
+            this.expectedNotifications = new ConcurrentHashMap<K, ExpectedNotifications>();
+            this.invalidator = new CacheEntryListener<K>() {
+                public void onChange(K key) {
+                    if (key != null && !consumeExpectedNotification(key)) {
+                        local.remove(key);
+                    }
+                }
+
+                public void onClear() {
+                    local.clear();
+                }
+            };
+            ((ListenableCache<K, V>) backingCache).addCacheEntryListener(invalidator);
+        } else {
+            this.expectedNotifications = null;
+            this.invalidator = null;
+        }
+    }
+
+    /**
+     * Returns the cache holding the authoritative entries.
+     *
+     * @return the cache holding the authoritative entries.
+     */
+    public Cache<K, V> getBackingCache() {
+        return backingCache;
+    }
+
+    /**
+     * Returns the number of milliseconds a local copy is used before the entry is read from the backing cache again.
+     *
+     * @return the number of milliseconds a local copy is used.
+     */
+    public long getTimeToLive() {
+        return timeToLive;
+    }
+
+    /**
+     * Returns {@code true} if local copies are dropped when the backing cache reports changes, i.e. if the backing
+     * cache is a {@link ListenableCache}.
+     *
+     * @return {@code true} if local copies are invalidated by change notifications of the backing cache.
+     */
+    public boolean isInvalidatedByNotifications() {
+        return invalidator != null;
+    }
+
+    public V get(K key) throws CacheException {
+        if (key == null) {
+            return null;
+        }
+        V value = local.get(key);
+        if (value == null) {
+            value = backingCache.get(key);
+            if (value != null) {
+                local.put(key, value);
+            }
+        }
+        return value;
+    }
+
+    public V put(K key, V value) throws CacheException {
+        expectNotification(key);
+        V previous;
+        try {
+            previous = backingCache.put(key, value);
+        } catch (CacheException e) {
+            consumeExpectedNotification(key);
+            local.remove(key);
+            throw e;
+        }
+        local.put(key, value);
+        return previous;
+    }
+
+    public V remove(K key) throws CacheException {
+        local.remove(key);
+        return backingCache.remove(key);
+    }
+
+    public void clear() throws CacheException {
+        local.clear();
+        backingCache.clear();
+    }
+
+    /**
+     * Applies the updater to the backing cache if it is an {@link UpdatableCache}, then to the local copy if there is
+     * one.
+     *
+     * @return {@code true} if the backing cache was updated, {@code false} if the entry does not exist, the update
+     *         could not be applied or the backing cache is not updatable.
+     */
+    public boolean update(K key, CacheEntryUpdater<V> updater) throws CacheException {
+        if (!(backingCache instanceof UpdatableCache)) {
+            return false;
+        }
+        expectNotification(key);
+        boolean updated;
+        try {
+            updated = ((UpdatableCache<K, V>) backingCache).update(key, updater);
+        } catch (CacheException e) {
+            consumeExpectedNotification(key);
+            local.remove(key);
+            throw e;
+        }
+        if (!updated) {
+            consumeExpectedNotification(key);
+            local.remove(key);
+            return false;
+        }
+        V current = local.peek(key);
+        if (current != null) {
+            V value = updater.update(current);
+            if (value != null) {
+                local.put(key, value);
+            } else {
+                local.remove(key);
+            }
+        }
+        return true;
+    }
+
+    public int size() {
+        return backingCache.size();
+    }
+
+    public Set<K> keys() {
+        return backingCache.keys();
+    }
+
+    public Collection<V> values() {
+        return backingCache.values();
+    }
+
+    public Iterator<V> valueIterator(int pageSize) throws CacheException {
+        if (backingCache instanceof PagedCache) {
+            return ((PagedCache<K, V>) backingCache).valueIterator(pageSize);
+        }
+        return backingCache.values().iterator();
+    }
+
+    /**
+     * Returns the statistics of the local tier: its hit ratio is the proportion of reads that did not require
+     * accessing the backing cache.
+     *
+     * @return the statistics of the local tier.
+     */
+    public CacheStatistics getStatistics() {
+        return local.getStatistics();
+    }
+
+    public void recordLoad(long loadTime) {
+        if (backingCache instanceof InstrumentedCache) {
+            ((InstrumentedCache<K, V>) backingCache).recordLoad(loadTime);
+        } else {
+            local.recordLoad(loadTime);
+        }
+    }
+
+    /**
+     * Stops listening to the backing cache and drops all local copies.  The backing cache is left untouched.
+     */
+    public void destroy() {
+        if (invalidator != null) {
+            ((ListenableCache<K, V>) backingCache).removeCacheEntryListener(invalidator);
+        }
+        local.clear();
+    }
+
+    private void expectNotification(K key) {
+        if (expectedNotifications == null || key == null) {
+            return;
+        }
+        long now = System.nanoTime();
+        if (expectedNotifications.size() > EXPECTATION_PURGE_THRESHOLD) {
+            purgeExpectedNotifications(now);
+        }
+        ExpectedNotifications expected = expectedNotifications.get(key);
+        if (expected == null) {
+            ExpectedNotifications created = new ExpectedNotifications();
+            expected = expectedNotifications.putIfAbsent(key, created);
+            if (expected == null) {
+                expected = created;
+            }
+        }
+        expected.add(now + notificationDelayNanos, now);
+    }
+
+    /**
+     * Returns {@code true} if a notification was expected for a change made through this cache, in which case the
+     * local copy is already up to date.  Expectations older than the notification delay are discarded instead.
+     */
+    private boolean consumeExpectedNotification(K key) {
+        if (expectedNotifications == null) {
+            return false;
+        }
+        ExpectedNotifications expected = expectedNotifications.get(key);
+        if (expected == null) {
+            return false;
+        }
+        boolean consumed = expected.consume(System.nanoTime());
+        if (expected.isEmpty()) {
+            //an expectation added concurrently may be lost, which only costs a read from the backing cache:
+            expectedNotifications.remove(key, expected);
+        }
+        return consumed;
+    }
+
+    private void purgeExpectedNotifications(long now) {
+        for (Iterator<Map.Entry<K, ExpectedNotifications>> i = expectedNotifications.entrySet().iterator();
+             i.hasNext(); ) {
+            if (i.next().getValue().isExpired(now)) {
+                i.remove();
+            }
+        }
+    }
+
+    /**
+     * The number of notifications expected for one key, and until when they are expected.
+     */
+    private static final class ExpectedNotifications {
+
+        private int count;
+        private long deadline;
+
+        private synchronized void add(long deadline, long now) {
+            if (isExpired(now)) {
+                count = 0;
+            }
+            count++;
+            this.deadline = deadline;
+        }
+
+        private synchronized boolean consume(long now) {
+            if (count == 0 || isExpired(now)) {
+                count = 0;
+                return false;
+            }
+            count--;
+            return true;
+        }
+
+        private synchronized boolean isEmpty() {
+            return count == 0;
+        }
+
+        private synchronized boolean isExpired(long now) {
+            return now - deadline > 0;
+        }
+    }
+
+    public String toString() {
+        return "NearCache '" + local.getName() + "' (" + backingCache + ")";
+    }
+}
@@ -0,0 +1,44 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.shiro.cache;
+
+import java.util.Iterator;
+
+/**
+ * A {@link Cache} whose values can be enumerated a page at a time.  Unlike {@link #values()}, which returns every
+ * value at once (and for a distributed cache transfers all of them in a single call), the iterator returned by
+ * {@link #valueIterator(int)} holds at most about one page of values in memory.
+ *
+ * @param <K> the type of the cache keys
+ * @param <V> the type of the cached values
+ * @since 1.13
+ */
+public interface PagedCache<K, V> extends Cache<K, V> {
+
+    /**
+     * Returns an iterator over the values of this cache, fetching them {@code pageSize} at a time.  The iterator is
+     * weakly consistent: it reflects some of the changes made to the cache while it is in use, and values removed
+     * meanwhile may or may not be returned.  Implementations backed by local memory may ignore the page size.
+     *
+     * @param pageSize the maximum number of values fetched at once, greater than zero
+     * @return an iterator over the values of this cache; it does not support removal.
+     * @throws CacheException if there is a problem accessing the underlying cache system
+     */
+    Iterator<V> valueIterator(int pageSize) throws CacheException;
+}
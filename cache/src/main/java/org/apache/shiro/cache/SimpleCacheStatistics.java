@@ -0,0 +1,112 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.shiro.cache;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A thread-safe {@link CacheStatistics} implementation whose counts are incremented by the cache it describes.
+ * <p/>
+ * Counters are {@link LongAdder}s, so recording from many threads at once does not contend on a single memory
+ * location.  Subclasses may override {@link #getEvictionCount()} or {@link #getEstimatedMemorySize()} to report
+ * figures maintained by an underlying caching product instead.
+ *
+ * @since 1.13
+ */
+public class SimpleCacheStatistics implements CacheStatistics {
+
+    private final LongAdder hitCount = new LongAdder();
+    private final LongAdder missCount = new LongAdder();
+    private final LongAdder putCount = new LongAdder();
+    private final LongAdder evictionCount = new LongAdder();
+    private final LongAdder loadCount = new LongAdder();
+    private final LongAdder totalLoadTime = new LongAdder();
+
+    public void recordHit() {
+        hitCount.increment();
+    }
+
+    public void recordMiss() {
+        missCount.increment();
+    }
+
+    public void recordPut() {
+        putCount.increment();
+    }
+
+    public void recordEviction() {
+        evictionCount.increment();
+    }
+
+    /**
+     * Records that a missing value was computed, taking the specified number of nanoseconds.
+     *
+     * @param loadTime the number of nanoseconds it took to compute the value.
+     */
+    public void recordLoad(long loadTime) {
+        loadCount.increment();
+        totalLoadTime.add(Math.max(0, loadTime));
+    }
+
+    public long getHitCount() {
+        return hitCount.sum();
+    }
+
+    public long getMissCount() {
+        return missCount.sum();
+    }
+
+    public double getHitRatio() {
+        long hits = getHitCount();
+        long total = hits + getMissCount();
+        return total == 0 ? 0d : (double) hits / total;
+    }
+
+    public long getPutCount() {
+        return putCount.sum();
+    }
+
+    public long getEvictionCount() {
+        return evictionCount.sum();
+    }
+
+    public long getLoadCount() {
+        return loadCount.sum();
+    }
+
+    public long getTotalLoadTime() {
+        return totalLoadTime.sum();
+    }
+
+    /**
+     * Returns {@code -1}, as the memory used by a cache is unknown to this implementation.
+     *
+     * @return {@code -1}
+     */
+    public long getEstimatedMemorySize() {
+        return -1;
+    }
+
+    @Override
+    public String toString() {
+        return getClass().getSimpleName() + "[hits=" + getHitCount() + ", misses=" + getMissCount() +
+                ", puts=" + getPutCount() + ", evictions=" + getEvictionCount() + ", loads=" + getLoadCount() +
+                ", totalLoadTime=" + getTotalLoadTime() + "ns]";
+    }
+}
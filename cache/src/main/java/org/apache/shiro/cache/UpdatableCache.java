@@ -0,0 +1,43 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.shiro.cache;
+
+/**
+ * A {@link Cache} able to change an existing entry in place, without transferring its whole value.  Distributed cache
+ * implementations typically ship the {@link CacheEntryUpdater} to the node owning the entry (as an entry processor)
+ * instead of reading and writing back the complete value.
+ *
+ * @param <K> the type of the cache keys
+ * @param <V> the type of the cached values
+ * @since 1.13
+ */
+public interface UpdatableCache<K, V> extends Cache<K, V> {
+
+    /**
+     * Atomically replaces the value of the specified entry with the result of the specified updater, if the entry
+     * exists.
+     *
+     * @param key     the key of the entry to update
+     * @param updater the change to apply to the current value of the entry
+     * @return {@code true} if the entry was updated, {@code false} if it does not exist or the updater could not be
+     *         applied to it.
+     * @throws CacheException if there is a problem accessing the underlying cache system
+     */
+    boolean update(K key, CacheEntryUpdater<V> updater) throws CacheException;
+}
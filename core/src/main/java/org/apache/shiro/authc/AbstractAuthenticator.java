@@ -18,6 +18,12 @@
  */
 package org.apache.shiro.authc;
 
+import org.apache.shiro.authc.event.FailedAuthenticationEvent;
+import org.apache.shiro.authc.event.LogoutEvent;
+import org.apache.shiro.authc.event.SuccessfulAuthenticationEvent;
+import org.apache.shiro.event.EventBus;
+import org.apache.shiro.event.EventBusAware;
+import org.apache.shiro.event.EventBusUtils;
 import org.apache.shiro.subject.PrincipalCollection;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -40,7 +46,7 @@ import java.util.Collection;
  *
  * @since 0.1
  */
-public abstract class AbstractAuthenticator implements Authenticator, LogoutAware {
+public abstract class AbstractAuthenticator implements Authenticator, LogoutAware, EventBusAware {
 
     /*-------------------------------------------
     |             C O N S T A N T S             |
@@ -58,6 +64,11 @@ public abstract class AbstractAuthenticator implements Authenticator, LogoutAwar
      */
     private Collection<AuthenticationListener> listeners;
 
+    /**
+     * The EventBus used to publish {@link org.apache.shiro.authc.event.AuthenticationEvent AuthenticationEvent}s.
+     */
+    private EventBus eventBus;
+
     /*-------------------------------------------
     |         C O N S T R U C T O R S           |
     ============================================*/
@@ -102,6 +113,29 @@ public abstract class AbstractAuthenticator implements Authenticator, LogoutAwar
         return this.listeners;
     }
 
+    /**
+     * Returns the EventBus used to publish
+     * {@link org.apache.shiro.authc.event.AuthenticationEvent AuthenticationEvent}s.
+     *
+     * @return the EventBus used to publish {@code AuthenticationEvent}s.
+     * @since 1.13
+     */
+    public EventBus getEventBus() {
+        return eventBus;
+    }
+
+    /**
+     * Sets the EventBus used to publish
+     * {@link org.apache.shiro.authc.event.AuthenticationEvent AuthenticationEvent}s.  Events are only created when the
+     * bus has a subscriber for them.
+     *
+     * @param eventBus the EventBus used to publish {@code AuthenticationEvent}s.
+     * @since 1.13
+     */
+    public void setEventBus(EventBus eventBus) {
+        this.eventBus = eventBus;
+    }
+
     /*-------------------------------------------
     |               M E T H O D S               |
     ============================================*/
@@ -152,6 +186,10 @@ public abstract class AbstractAuthenticator implements Authenticator, LogoutAwar
         for (AuthenticationListener listener : this.listeners) {
             listener.onLogout(principals);
         }
+        EventBus eventBus = this.eventBus;
+        if (EventBusUtils.hasSubscribers(eventBus, LogoutEvent.class)) {
+            eventBus.publish(new LogoutEvent(this, principals));
+        }
     }
 
     /**
@@ -193,6 +231,11 @@ public abstract class AbstractAuthenticator implements Authenticator, LogoutAwar
 
         log.trace("Authentication attempt received for token [{}]", token);
 
+        EventBus eventBus = this.eventBus;
+        boolean publishSuccess = EventBusUtils.hasSubscribers(eventBus, SuccessfulAuthenticationEvent.class);
+        boolean publishFailure = EventBusUtils.hasSubscribers(eventBus, FailedAuthenticationEvent.class);
+        long startNanos = publishSuccess || publishFailure ? System.nanoTime() : 0L;
+
         AuthenticationInfo info;
         try {
             info = doAuthenticate(token);
@@ -225,7 +268,9 @@ public abstract class AbstractAuthenticator implements Authenticator, LogoutAwar
                     log.warn(msg, t2);
                 }
             }
-
+            if (publishFailure) {
+                eventBus.publish(new FailedAuthenticationEvent(this, token, ae, System.nanoTime() - startNanos));
+            }
 
             throw ae;
         }
@@ -233,6 +278,9 @@ public abstract class AbstractAuthenticator implements Authenticator, LogoutAwar
         log.debug("Authentication successful for token [{}].  Returned account [{}]", token, info);
 
         notifySuccess(token, info);
+        if (publishSuccess) {
+            eventBus.publish(new SuccessfulAuthenticationEvent(this, token, info, System.nanoTime() - startNanos));
+        }
 
         return info;
     }
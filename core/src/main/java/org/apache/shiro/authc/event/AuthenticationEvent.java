@@ -0,0 +1,35 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.shiro.authc.event;
+
+import org.apache.shiro.event.Event;
+
+/**
+ * Root class of the events published by an {@link org.apache.shiro.authc.AbstractAuthenticator Authenticator} about
+ * authentication attempts and logouts.  Events are only created when the authenticator's
+ * {@link org.apache.shiro.event.EventBus EventBus} has a subscriber for them.
+ *
+ * @since 1.13
+ */
+public abstract class AuthenticationEvent extends Event {
+
+    public AuthenticationEvent(Object source) {
+        super(source);
+    }
+}
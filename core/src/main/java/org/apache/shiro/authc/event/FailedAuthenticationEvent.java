@@ -0,0 +1,78 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.shiro.authc.event;
+
+import org.apache.shiro.authc.AuthenticationException;
+import org.apache.shiro.authc.AuthenticationToken;
+import org.apache.shiro.authc.HostAuthenticationToken;
+
+/**
+ * Event triggered when an authentication attempt failed.  Only the principal and host of the submitted token are
+ * kept, never its credentials.
+ *
+ * @see SuccessfulAuthenticationEvent
+ * @since 1.13
+ */
+public class FailedAuthenticationEvent extends AuthenticationEvent {
+
+    private final Object principal;
+    private final String host;
+    private final AuthenticationException exception;
+    private final long durationNanos;
+
+    public FailedAuthenticationEvent(Object source, AuthenticationToken token, AuthenticationException exception,
+                                     long durationNanos) {
+        super(source);
+        this.principal = token != null ? token.getPrincipal() : null;
+        this.host = token instanceof HostAuthenticationToken ? ((HostAuthenticationToken) token).getHost() : null;
+        this.exception = exception;
+        this.durationNanos = durationNanos;
+    }
+
+    /**
+     * Returns the principal submitted for authentication, for example a username.
+     *
+     * @return the principal submitted for authentication.
+     */
+    public Object getPrincipal() {
+        return principal;
+    }
+
+    /**
+     * Returns the host the authentication attempt originated from, or {@code null} if the token did not tell.
+     *
+     * @return the host the authentication attempt originated from, or {@code null} if unknown.
+     */
+    public String getHost() {
+        return host;
+    }
+
+    public AuthenticationException getException() {
+        return exception;
+    }
+
+    /**
+     * Returns the number of nanoseconds the authentication attempt took.
+     *
+     * @return the number of nanoseconds the authentication attempt took.
+     */
+    public long getDurationNanos() {
+        return durationNanos;
+    }
+}
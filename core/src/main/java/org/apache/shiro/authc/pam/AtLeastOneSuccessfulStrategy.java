@@ -21,6 +21,7 @@ package org.apache.shiro.authc.pam;
 import org.apache.shiro.authc.AuthenticationException;
 import org.apache.shiro.authc.AuthenticationInfo;
 import org.apache.shiro.authc.AuthenticationToken;
+import org.apache.shiro.realm.Realm;
 import org.apache.shiro.subject.PrincipalCollection;
 
 /**
@@ -35,16 +36,57 @@ import org.apache.shiro.subject.PrincipalCollection;
  * realms during the authentication attempt. If you want only the account data from the first successfully
  * consulted realm and want to ignore all subsequent realms, use the
  * {@link FirstSuccessfulStrategy FirstSuccessfulAuthenticationStrategy} instead.
+ * <p/>
+ * If {@link #setStopAfterFirstSuccess(boolean) stopAfterFirstSuccess} is set, realms after the first successful one
+ * are not consulted (or, during concurrent authentication, their attempts are cancelled), so only the account data
+ * of the realms consulted up to and including the first successful one is aggregated.
  *
  * @see FirstSuccessfulStrategy FirstSuccessfulAuthenticationStrategy
  * @since 0.2
  */
 public class AtLeastOneSuccessfulStrategy extends AbstractAuthenticationStrategy {
 
+    private boolean stopAfterFirstSuccess;
+
+    /**
+     * Sets whether realms after the first successful one should be skipped.  The default is {@code false}.
+     *
+     * @param stopAfterFirstSuccess whether realms after the first successful one should be skipped.
+     * @since 1.13
+     */
+    public void setStopAfterFirstSuccess(boolean stopAfterFirstSuccess) {
+        this.stopAfterFirstSuccess = stopAfterFirstSuccess;
+    }
+
+    /**
+     * Returns whether realms after the first successful one are skipped.
+     *
+     * @return whether realms after the first successful one are skipped.
+     * @since 1.13
+     */
+    public boolean isStopAfterFirstSuccess() {
+        return stopAfterFirstSuccess;
+    }
+
     private static boolean isEmpty(PrincipalCollection pc) {
         return pc == null || pc.isEmpty();
     }
 
+    /**
+     * Throws a {@link ShortCircuitIterationException} if {@code stopAfterFirstSuccess} is set and a previously
+     * consulted realm authenticated successfully, returns the <code>aggregate</code> method argument, without
+     * modification otherwise.
+     *
+     * @since 1.13
+     */
+    @Override
+    public AuthenticationInfo beforeAttempt(Realm realm, AuthenticationToken token, AuthenticationInfo aggregate) throws AuthenticationException {
+        if (isStopAfterFirstSuccess() && aggregate != null && !isEmpty(aggregate.getPrincipals())) {
+            throw new ShortCircuitIterationException();
+        }
+        return aggregate;
+    }
+
     /**
      * Ensures that the <code>aggregate</code> method argument is not <code>null</code> and
      * <code>aggregate.{@link org.apache.shiro.authc.AuthenticationInfo#getPrincipals() getPrincipals()}</code>
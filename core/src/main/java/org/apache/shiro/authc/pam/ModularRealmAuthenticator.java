@@ -22,10 +22,23 @@ import org.apache.shiro.authc.*;
 import org.apache.shiro.realm.Realm;
 import org.apache.shiro.subject.PrincipalCollection;
 import org.apache.shiro.util.CollectionUtils;
+import org.apache.shiro.util.Destroyable;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * A {@code ModularRealmAuthenticator} delegates account lookups to a pluggable (modular) collection of
@@ -54,6 +67,12 @@ import java.util.Collection;
  * <p/>
  * As most multi-realm applications require at least one Realm authenticates successfully, the default
  * implementation is the {@link AtLeastOneSuccessfulStrategy}.
+ * <h3>Concurrent Authentication</h3>
+ * By default realms are consulted one after the other, so a multi-realm login takes as long as all realm lookups
+ * combined.  If {@link #setConcurrentAuthenticationEnabled(boolean) concurrentAuthenticationEnabled} is set, all
+ * supporting realms are queried at once on an {@link #setExecutor(Executor) executor} instead.  See
+ * {@link #doConcurrentMultiRealmAuthentication doConcurrentMultiRealmAuthentication} for how the
+ * {@code AuthenticationStrategy} contract is preserved.
  *
  * @see #setRealms
  * @see AtLeastOneSuccessfulStrategy
@@ -61,7 +80,7 @@ import java.util.Collection;
  * @see FirstSuccessfulStrategy
  * @since 0.1
  */
-public class ModularRealmAuthenticator extends AbstractAuthenticator {
+public class ModularRealmAuthenticator extends AbstractAuthenticator implements Destroyable {
 
     /*--------------------------------------------
     |             C O N S T A N T S             |
@@ -82,6 +101,18 @@ public class ModularRealmAuthenticator extends AbstractAuthenticator {
      */
     private AuthenticationStrategy authenticationStrategy;
 
+    /**
+     * Whether realms are consulted concurrently during multi-realm authentication attempts.
+     */
+    private boolean concurrentAuthenticationEnabled;
+
+    /**
+     * The executor used to consult realms concurrently, and whether it was created (and must be shut down) by this
+     * instance.
+     */
+    private Executor executor;
+    private boolean executorCreated;
+
     /*--------------------------------------------
     |         C O N S T R U C T O R S           |
     ============================================*/
@@ -143,6 +174,91 @@ public class ModularRealmAuthenticator extends AbstractAuthenticator {
         this.authenticationStrategy = authenticationStrategy;
     }
 
+    /**
+     * Returns {@code true} if realms are consulted concurrently during multi-realm authentication attempts,
+     * {@code false} if they are consulted one after the other.  The default is {@code false}.
+     *
+     * @return {@code true} if realms are consulted concurrently during multi-realm authentication attempts.
+     * @since 1.13
+     */
+    public boolean isConcurrentAuthenticationEnabled() {
+        return concurrentAuthenticationEnabled;
+    }
+
+    /**
+     * Sets whether realms are consulted concurrently during multi-realm authentication attempts.  If enabled and no
+     * {@link #setExecutor(Executor) executor} has been configured, a pool of daemon threads is created on first use
+     * and shut down when this authenticator is {@link #destroy() destroyed}.
+     *
+     * @param concurrentAuthenticationEnabled whether realms are consulted concurrently.
+     * @since 1.13
+     */
+    public void setConcurrentAuthenticationEnabled(boolean concurrentAuthenticationEnabled) {
+        this.concurrentAuthenticationEnabled = concurrentAuthenticationEnabled;
+    }
+
+    /**
+     * Returns the executor used to consult realms concurrently, or {@code null} if none has been configured or
+     * created yet.
+     *
+     * @return the executor used to consult realms concurrently.
+     * @since 1.13
+     */
+    public Executor getExecutor() {
+        return executor;
+    }
+
+    /**
+     * Sets the executor used to consult realms concurrently when
+     * {@link #setConcurrentAuthenticationEnabled(boolean) concurrentAuthenticationEnabled} is set.  Externally
+     * provided executors are not shut down by this authenticator.
+     * <p/>
+     * Realms are invoked on the executor's threads, so no {@code Subject} is bound to the thread during the lookup.
+     * If your realms require one, wrap the executor in a
+     * {@link org.apache.shiro.concurrent.SubjectAwareExecutor SubjectAwareExecutor}.
+     *
+     * @param executor the executor used to consult realms concurrently.
+     * @since 1.13
+     */
+    public void setExecutor(Executor executor) {
+        destroyCreatedExecutor();
+        this.executor = executor;
+    }
+
+    private synchronized Executor getOrCreateExecutor() {
+        if (this.executor == null) {
+            this.executor = Executors.newCachedThreadPool(new ThreadFactory() {
+                private final AtomicInteger count = new AtomicInteger(1);
+
+                public Thread newThread(Runnable r) {
+                    Thread thread = new Thread(r);
+                    thread.setDaemon(true);
+                    thread.setName("shiroRealmAuthentication-" + count.getAndIncrement());
+                    return thread;
+                }
+            });
+            this.executorCreated = true;
+        }
+        return this.executor;
+    }
+
+    private synchronized void destroyCreatedExecutor() {
+        if (this.executorCreated && this.executor instanceof ExecutorService) {
+            ((ExecutorService) this.executor).shutdownNow();
+        }
+        this.executor = null;
+        this.executorCreated = false;
+    }
+
+    /**
+     * Shuts down the executor used for concurrent authentication if it was created by this instance.
+     *
+     * @since 1.13
+     */
+    public void destroy() {
+        destroyCreatedExecutor();
+    }
+
     /*--------------------------------------------
     |               M E T H O D S               |
 
@@ -243,6 +359,115 @@ public class ModularRealmAuthenticator extends AbstractAuthenticator {
         return aggregate;
     }
 
+    /**
+     * Performs the multi-realm authentication attempt like
+     * {@link #doMultiRealmAuthentication(Collection, AuthenticationToken) doMultiRealmAuthentication}, but starts
+     * the {@link Realm#getAuthenticationInfo(AuthenticationToken) getAuthenticationInfo} calls of all supporting
+     * realms at once on the configured {@link #getExecutor() executor}.
+     * <p/>
+     * The {@link AuthenticationStrategy} sees exactly the same sequence of callbacks as in the sequential case: the
+     * calling thread invokes {@code beforeAttempt} and {@code afterAttempt} for each realm in realm order, waiting
+     * for a realm's result only when its turn comes, and threads the aggregate through them as before.  Processing
+     * results in realm order (rather than in completion order) keeps the merge order, and therefore the primary
+     * principal, deterministic.  A login therefore takes as long as the slowest realm whose result is actually
+     * needed rather than the sum of all realms.
+     * <p/>
+     * If the strategy signals a {@link ShortCircuitIterationException short circuit} from {@code beforeAttempt} (as
+     * {@link FirstSuccessfulStrategy} and {@link AtLeastOneSuccessfulStrategy} do when their
+     * {@code stopAfterFirstSuccess} property is set), or throws an exception, all attempts still in progress are
+     * cancelled.
+     *
+     * @param realms the multiple realms configured on this Authenticator instance.
+     * @param token  the submitted AuthenticationToken representing the subject's (user's) log-in principals and credentials.
+     * @return an aggregated AuthenticationInfo instance representing account data across all the successfully
+     *         consulted realms.
+     * @since 1.13
+     */
+    protected AuthenticationInfo doConcurrentMultiRealmAuthentication(Collection<Realm> realms,
+                                                                      final AuthenticationToken token) {
+
+        AuthenticationStrategy strategy = getAuthenticationStrategy();
+
+        AuthenticationInfo aggregate = strategy.beforeAllAttempts(realms, token);
+
+        if (log.isTraceEnabled()) {
+            log.trace("Concurrently consulting {} realms for PAM authentication", realms.size());
+        }
+
+        Executor executor = getOrCreateExecutor();
+        List<FutureTask<AuthenticationInfo>> attempts = new ArrayList<FutureTask<AuthenticationInfo>>(realms.size());
+        for (final Realm realm : realms) {
+            FutureTask<AuthenticationInfo> attempt = null;
+            if (realm.supports(token)) {
+                log.trace("Attempting to authenticate token [{}] using realm [{}]", token, realm);
+                attempt = new FutureTask<AuthenticationInfo>(new Callable<AuthenticationInfo>() {
+                    public AuthenticationInfo call() throws Exception {
+                        return realm.getAuthenticationInfo(token);
+                    }
+                });
+                try {
+                    executor.execute(attempt);
+                } catch (RejectedExecutionException e) {
+                    log.debug("Executor rejected the authentication attempt for realm [{}].  Running it in the " +
+                            "calling thread.", realm);
+                    attempt.run();
+                }
+            }
+            attempts.add(attempt);
+        }
+
+        try {
+            int i = 0;
+            for (Realm realm : realms) {
+                FutureTask<AuthenticationInfo> attempt = attempts.get(i++);
+
+                try {
+                    aggregate = strategy.beforeAttempt(realm, token, aggregate);
+                } catch (ShortCircuitIterationException shortCircuitSignal) {
+                    // Stop consulting subsequent realms on receiving short circuit signal from strategy.  Their
+                    // attempts are cancelled below.
+                    break;
+                }
+
+                if (attempt == null) {
+                    log.debug("Realm [{}] does not support token {}.  Skipping realm.", realm, token);
+                    continue;
+                }
+
+                AuthenticationInfo info = null;
+                Throwable t = null;
+                try {
+                    info = attempt.get();
+                } catch (ExecutionException e) {
+                    t = e.getCause() != null ? e.getCause() : e;
+                } catch (CancellationException e) {
+                    t = e;
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new AuthenticationException("Interrupted while waiting for realm [" + realm + "] to " +
+                            "authenticate token [" + token + "].", e);
+                }
+                if (t != null && log.isDebugEnabled()) {
+                    String msg = "Realm [" + realm + "] threw an exception during a multi-realm authentication attempt:";
+                    log.debug(msg, t);
+                }
+
+                aggregate = strategy.afterAttempt(realm, token, info, aggregate, t);
+            }
+        } finally {
+            // no-op for completed attempts:
+            for (FutureTask<AuthenticationInfo> attempt : attempts) {
+                if (attempt != null) {
+                    attempt.cancel(true);
+                }
+            }
+        }
+
+        aggregate = strategy.afterAllAttempts(token, aggregate);
+
+        return aggregate;
+    }
+
 
     /**
      * Attempts to authenticate the given token by iterating over the internal collection of
@@ -271,6 +496,8 @@ public class ModularRealmAuthenticator extends AbstractAuthenticator {
         Collection<Realm> realms = getRealms();
         if (realms.size() == 1) {
             return doSingleRealmAuthentication(realms.iterator().next(), authenticationToken);
+        } else if (isConcurrentAuthenticationEnabled()) {
+            return doConcurrentMultiRealmAuthentication(realms, authenticationToken);
         } else {
             return doMultiRealmAuthentication(realms, authenticationToken);
         }
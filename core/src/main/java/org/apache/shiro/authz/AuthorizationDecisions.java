@@ -0,0 +1,117 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.shiro.authz;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A memo of the permission check results of a single Subject, used by {@link ModularRealmAuthorizer} when
+ * {@link ModularRealmAuthorizer#setDecisionCachingEnabled(boolean) decision caching} is enabled.
+ * <p/>
+ * Each instance is stamped with the authorization <em>generation</em> of the realms that produced its decisions.
+ * Once the realms' generation changes (for example because
+ * {@link org.apache.shiro.realm.AuthorizingRealm#clearCachedAuthorizationInfo clearCachedAuthorizationInfo} was
+ * called), the memo is considered stale and is replaced.  Since that only covers changes made through this node's
+ * realms, each instance also has a time to live, after which it is replaced too; this bounds how long decisions
+ * survive authorization cache entries that expired, or were cleared on another node.
+ * <p/>
+ * Keys are either permission {@code String}s or {@link Permission} instances.  At most {@code maxEntries} decisions
+ * are retained; further decisions are simply not recorded.
+ *
+ * @since 1.13
+ */
+public class AuthorizationDecisions {
+
+    private final long generation;
+    private final int maxEntries;
+    private final long expirationNanos;
+    private final ConcurrentMap<Object, Boolean> decisions;
+
+    public AuthorizationDecisions(long generation, int maxEntries) {
+        this(generation, maxEntries, 0L);
+    }
+
+    /**
+     * Creates an empty memo that {@link #isExpired() expires} after the specified number of milliseconds.
+     *
+     * @param generation       the authorization generation the decisions are made under
+     * @param maxEntries       the maximum number of decisions to record
+     * @param timeToLiveMillis the number of milliseconds after which the memo expires, or {@code 0} or less if it
+     *                         should never expire
+     */
+    public AuthorizationDecisions(long generation, int maxEntries, long timeToLiveMillis) {
+        this.generation = generation;
+        this.maxEntries = maxEntries;
+        this.expirationNanos = timeToLiveMillis > 0 ?
+                System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeToLiveMillis) : 0L;
+        this.decisions = new ConcurrentHashMap<Object, Boolean>();
+    }
+
+    /**
+     * Returns the authorization generation these decisions were made under.
+     *
+     * @return the authorization generation these decisions were made under.
+     */
+    public long getGeneration() {
+        return generation;
+    }
+
+    /**
+     * Returns {@code true} if the time to live of this memo has elapsed, in which case its decisions should no
+     * longer be used.
+     *
+     * @return {@code true} if the time to live of this memo has elapsed.
+     */
+    public boolean isExpired() {
+        return expirationNanos != 0L && System.nanoTime() - expirationNanos >= 0;
+    }
+
+    /**
+     * Returns the recorded decision for the specified permission, or {@code null} if none was recorded.
+     *
+     * @param permission the permission String or {@link Permission} instance
+     * @return the recorded decision for the specified permission, or {@code null} if none was recorded.
+     */
+    public Boolean get(Object permission) {
+        return permission != null ? decisions.get(permission) : null;
+    }
+
+    /**
+     * Records the decision for the specified permission, unless {@code maxEntries} decisions are already recorded.
+     *
+     * @param permission the permission String or {@link Permission} instance
+     * @param permitted  whether the permission was granted
+     */
+    public void put(Object permission, boolean permitted) {
+        if (permission != null && decisions.size() < maxEntries) {
+            decisions.put(permission, permitted);
+        }
+    }
+
+    /**
+     * Returns the number of recorded decisions.
+     *
+     * @return the number of recorded decisions.
+     */
+    public int size() {
+        return decisions.size();
+    }
+}
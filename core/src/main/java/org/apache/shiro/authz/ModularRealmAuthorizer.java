@@ -18,24 +18,52 @@
  */
 package org.apache.shiro.authz;
 
+import org.apache.shiro.authz.event.PermissionCheckEvent;
 import org.apache.shiro.authz.permission.PermissionResolver;
 import org.apache.shiro.authz.permission.PermissionResolverAware;
 import org.apache.shiro.authz.permission.RolePermissionResolver;
 import org.apache.shiro.authz.permission.RolePermissionResolverAware;
+import org.apache.shiro.authz.permission.WildcardPermission;
+import org.apache.shiro.cache.Cache;
+import org.apache.shiro.cache.MapCache;
+import org.apache.shiro.event.EventBus;
+import org.apache.shiro.event.EventBusAware;
+import org.apache.shiro.event.EventBusUtils;
+import org.apache.shiro.realm.AuthorizingRealm;
 import org.apache.shiro.realm.Realm;
 import org.apache.shiro.subject.PrincipalCollection;
+import org.apache.shiro.util.SoftHashMap;
 
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
 
 
 /**
  * A <tt>ModularRealmAuthorizer</tt> is an <tt>Authorizer</tt> implementation that consults one or more configured
  * {@link Realm Realm}s during an authorization operation.
+ * <p/>
+ * Checks of several permissions at once ({@code isPermitted(principals, String...)}, {@code isPermittedAll}, etc.)
+ * are evaluated as a batch: each realm is asked about all permissions that are still undecided in a single call,
+ * and no further realms are consulted once every permission has been granted.  If an {@link #setExecutor(Executor)
+ * executor} is configured, the realms are consulted concurrently instead.  Subclasses that override
+ * {@link #isPermitted(PrincipalCollection, String)} or {@link #isPermitted(PrincipalCollection, Permission)} have
+ * each permission of such checks passed to their override instead, one at a time.
+ * <p/>
+ * Permission checks answered from {@link #isDecisionCachingEnabled() memoized decisions} never reach a realm, so
+ * this authorizer publishes the {@link PermissionCheckEvent PermissionCheckEvent} for them itself if an
+ * {@link #setEventBus EventBus} is configured.
  *
  * @since 0.2
  */
-public class ModularRealmAuthorizer implements Authorizer, PermissionResolverAware, RolePermissionResolverAware {
+public class ModularRealmAuthorizer implements Authorizer, PermissionResolverAware, RolePermissionResolverAware,
+        EventBusAware {
 
     /**
      * The realms to consult during any authorization check.
@@ -54,6 +82,37 @@ public class ModularRealmAuthorizer implements Authorizer, PermissionResolverAwa
      */
     protected RolePermissionResolver rolePermissionResolver;
 
+    /**
+     * The default maximum number of permission check results memoized per Subject.
+     *
+     * @since 1.13
+     */
+    public static final int DEFAULT_MAX_DECISIONS_PER_SUBJECT = 256;
+
+    /**
+     * The default number of milliseconds a Subject's memoized decisions are used for, equal to 30 seconds.
+     *
+     * @since 1.13
+     */
+    public static final long DEFAULT_DECISION_TIME_TO_LIVE = 30 * 1000L;
+
+    private boolean decisionCachingEnabled = false;
+    private int maxDecisionsPerSubject = DEFAULT_MAX_DECISIONS_PER_SUBJECT;
+    private long decisionTimeToLive = DEFAULT_DECISION_TIME_TO_LIVE;
+    private Cache<Object, AuthorizationDecisions> decisionCache;
+
+    private Executor executor;
+
+    /**
+     * The EventBus used to publish {@link PermissionCheckEvent}s for memoized decisions.
+     */
+    private EventBus eventBus;
+
+    /**
+     * Whether a subclass overrides the single permission checks, which multi-permission checks then go through.
+     */
+    private final boolean singlePermissionChecksOverridden = overridesSinglePermissionChecks();
+
     /**
      * Default no-argument constructor, does nothing.
      */
@@ -196,6 +255,202 @@ public class ModularRealmAuthorizer implements Authorizer, PermissionResolverAwa
     }
 
 
+    /**
+     * Returns {@code true} if the results of single permission checks should be memoized per Subject (per
+     * {@code PrincipalCollection}), {@code false} otherwise.
+     * <p/>
+     * When enabled, repeated {@code isPermitted}/{@code checkPermission} calls for the same permission are answered
+     * from the memo without consulting any realm.  Memoized decisions are discarded as soon as the
+     * {@link AuthorizingRealm#getAuthorizationGeneration() authorization generation} of any configured
+     * {@code AuthorizingRealm} changes, which happens whenever a realm's cached authorization info is cleared.
+     * <p/>
+     * Authorization info that merely expires from a realm's authorization cache, or that is cleared on another node
+     * sharing that cache, does not change the generation seen here.  Memoized decisions are therefore also discarded
+     * once they are {@link #getDecisionTimeToLive() decisionTimeToLive} milliseconds old, which should not exceed the
+     * time to live of the realms' authorization caches.  The same applies to decisions from realms that are not
+     * {@code AuthorizingRealm}s, or from realms that change an account's permissions without clearing its cached
+     * authorization info.
+     * <p/>
+     * The default value is {@code false}.
+     *
+     * @return {@code true} if the results of permission checks should be memoized per Subject.
+     * @since 1.13
+     */
+    public boolean isDecisionCachingEnabled() {
+        return decisionCachingEnabled;
+    }
+
+    /**
+     * Sets whether the results of single permission checks should be memoized per Subject.
+     *
+     * @param decisionCachingEnabled whether the results of permission checks should be memoized per Subject.
+     * @see #isDecisionCachingEnabled()
+     * @since 1.13
+     */
+    public void setDecisionCachingEnabled(boolean decisionCachingEnabled) {
+        this.decisionCachingEnabled = decisionCachingEnabled;
+    }
+
+    /**
+     * Returns the maximum number of permission check results memoized per Subject.  Defaults to
+     * {@link #DEFAULT_MAX_DECISIONS_PER_SUBJECT}.
+     *
+     * @return the maximum number of permission check results memoized per Subject.
+     * @since 1.13
+     */
+    public int getMaxDecisionsPerSubject() {
+        return maxDecisionsPerSubject;
+    }
+
+    /**
+     * Sets the maximum number of permission check results memoized per Subject.
+     *
+     * @param maxDecisionsPerSubject the maximum number of permission check results memoized per Subject.
+     * @since 1.13
+     */
+    public void setMaxDecisionsPerSubject(int maxDecisionsPerSubject) {
+        this.maxDecisionsPerSubject = maxDecisionsPerSubject;
+    }
+
+    /**
+     * Returns the number of milliseconds a Subject's memoized decisions are used for before being discarded.
+     * Defaults to {@link #DEFAULT_DECISION_TIME_TO_LIVE}.  A value of {@code 0} or less keeps decisions until the
+     * realms' authorization generation changes, which is only safe when authorization info never changes behind
+     * this node's back.
+     *
+     * @return the number of milliseconds a Subject's memoized decisions are used for.
+     * @see #isDecisionCachingEnabled()
+     * @since 1.13
+     */
+    public long getDecisionTimeToLive() {
+        return decisionTimeToLive;
+    }
+
+    /**
+     * Sets the number of milliseconds a Subject's memoized decisions are used for before being discarded.
+     *
+     * @param decisionTimeToLive the number of milliseconds a Subject's memoized decisions are used for, or {@code 0}
+     *                           or less to keep them until the realms' authorization generation changes.
+     * @since 1.13
+     */
+    public void setDecisionTimeToLive(long decisionTimeToLive) {
+        this.decisionTimeToLive = decisionTimeToLive;
+    }
+
+    /**
+     * Returns the cache holding each Subject's {@link AuthorizationDecisions}, keyed by {@code PrincipalCollection}.
+     * If none has been set, a local, memory-sensitive cache is created on first use.
+     *
+     * @return the cache holding each Subject's {@link AuthorizationDecisions}.
+     * @since 1.13
+     */
+    public Cache<Object, AuthorizationDecisions> getDecisionCache() {
+        if (this.decisionCache == null) {
+            this.decisionCache = new MapCache<Object, AuthorizationDecisions>(
+                    getClass().getName() + ".decisionCache", new SoftHashMap<Object, AuthorizationDecisions>());
+        }
+        return this.decisionCache;
+    }
+
+    /**
+     * Sets the cache holding each Subject's {@link AuthorizationDecisions}, keyed by {@code PrincipalCollection}.
+     * Since decisions are cheap to recompute and change whenever authorization data does, a local cache is
+     * recommended.
+     *
+     * @param decisionCache the cache holding each Subject's {@link AuthorizationDecisions}.
+     * @since 1.13
+     */
+    public void setDecisionCache(Cache<Object, AuthorizationDecisions> decisionCache) {
+        this.decisionCache = decisionCache;
+    }
+
+    /**
+     * Returns the executor used to consult realms concurrently when checking several permissions at once, or
+     * {@code null} (the default) if realms are consulted one after the other.
+     *
+     * @return the executor used to consult realms concurrently, or {@code null}.
+     * @since 1.13
+     */
+    public Executor getExecutor() {
+        return executor;
+    }
+
+    /**
+     * Sets the executor used to consult realms concurrently when checking several permissions at once.  Realms are
+     * invoked on the executor's threads; if they require a bound {@code Subject}, wrap the executor in a
+     * {@link org.apache.shiro.concurrent.SubjectAwareExecutor SubjectAwareExecutor}.
+     *
+     * @param executor the executor used to consult realms concurrently, or {@code null} to consult them serially.
+     * @since 1.13
+     */
+    public void setExecutor(Executor executor) {
+        this.executor = executor;
+    }
+
+    /**
+     * Returns the EventBus used to publish {@link PermissionCheckEvent}s for permission checks answered from
+     * memoized decisions.
+     *
+     * @return the EventBus used to publish {@code PermissionCheckEvent}s for memoized decisions.
+     * @since 1.13
+     */
+    public EventBus getEventBus() {
+        return eventBus;
+    }
+
+    /**
+     * Sets the EventBus used to publish {@link PermissionCheckEvent}s for permission checks answered from
+     * memoized decisions.  Events are only created when the bus has a subscriber for them.
+     *
+     * @param eventBus the EventBus used to publish {@code PermissionCheckEvent}s for memoized decisions.
+     * @since 1.13
+     */
+    public void setEventBus(EventBus eventBus) {
+        this.eventBus = eventBus;
+    }
+
+    /**
+     * Returns the combined authorization generation of all configured {@link AuthorizingRealm}s.  Since each realm's
+     * generation only ever increases, the sum changes whenever any of them does.
+     *
+     * @return the combined authorization generation of all configured {@code AuthorizingRealm}s.
+     * @since 1.13
+     */
+    protected long getAuthorizationGeneration() {
+        long generation = 0;
+        Collection<Realm> realms = getRealms();
+        if (realms != null) {
+            for (Realm realm : realms) {
+                if (realm instanceof AuthorizingRealm) {
+                    generation += ((AuthorizingRealm) realm).getAuthorizationGeneration();
+                }
+            }
+        }
+        return generation;
+    }
+
+    /**
+     * Returns the current (neither stale nor expired) memoized decisions for the specified principals, creating them if necessary, or
+     * {@code null} if {@link #isDecisionCachingEnabled() decision caching} is disabled.
+     *
+     * @param principals the principals of the Subject being checked
+     * @return the current memoized decisions for the specified principals, or {@code null} if disabled.
+     * @since 1.13
+     */
+    protected AuthorizationDecisions getDecisions(PrincipalCollection principals) {
+        if (!isDecisionCachingEnabled() || principals == null || principals.isEmpty()) {
+            return null;
+        }
+        Cache<Object, AuthorizationDecisions> cache = getDecisionCache();
+        long generation = getAuthorizationGeneration();
+        AuthorizationDecisions decisions = cache.get(principals);
+        if (decisions == null || decisions.getGeneration() != generation || decisions.isExpired()) {
+            decisions = new AuthorizationDecisions(generation, getMaxDecisionsPerSubject(), getDecisionTimeToLive());
+            cache.put(principals, decisions);
+        }
+        return decisions;
+    }
+
     /**
      * Used by the {@link Authorizer Authorizer} implementation methods to ensure that the {@link #setRealms realms}
      * has been set.  The default implementation ensures the property is not null and not empty.
@@ -218,7 +473,22 @@ public class ModularRealmAuthorizer implements Authorizer, PermissionResolverAwa
      */
     public boolean isPermitted(PrincipalCollection principals, String permission) {
         assertRealmsConfigured();
+        AuthorizationDecisions decisions = getDecisions(principals);
+        if (decisions != null) {
+            long startNanos = System.nanoTime();
+            Boolean decision = decisions.get(permission);
+            if (decision != null) {
+                publishMemoizedDecision(principals, permission, decision, startNanos);
+                return decision;
+            }
+            boolean permitted = isPermittedByRealms(principals, permission);
+            decisions.put(permission, permitted);
+            return permitted;
+        }
+        return isPermittedByRealms(principals, permission);
+    }
 
+    private boolean isPermittedByRealms(PrincipalCollection principals, String permission) {
         // 获取所有的 [领域] 这些领域可能是具有授权能力的
         for (Realm realm : getRealms()) {
             // 如果没有授权能力就继续
@@ -239,6 +509,22 @@ public class ModularRealmAuthorizer implements Authorizer, PermissionResolverAwa
      */
     public boolean isPermitted(PrincipalCollection principals, Permission permission) {
         assertRealmsConfigured();
+        AuthorizationDecisions decisions = getDecisions(principals);
+        if (decisions != null) {
+            long startNanos = System.nanoTime();
+            Boolean decision = decisions.get(permission);
+            if (decision != null) {
+                publishMemoizedDecision(principals, permission, decision, startNanos);
+                return decision;
+            }
+            boolean permitted = isPermittedByRealms(principals, permission);
+            decisions.put(permission, permitted);
+            return permitted;
+        }
+        return isPermittedByRealms(principals, permission);
+    }
+
+    private boolean isPermittedByRealms(PrincipalCollection principals, Permission permission) {
         for (Realm realm : getRealms()) {
             if (!(realm instanceof Authorizer)) continue;
             if (((Authorizer) realm).isPermitted(principals, permission)) {
@@ -256,11 +542,7 @@ public class ModularRealmAuthorizer implements Authorizer, PermissionResolverAwa
     public boolean[] isPermitted(PrincipalCollection principals, String... permissions) {
         assertRealmsConfigured();
         if (permissions != null && permissions.length > 0) {
-            boolean[] isPermitted = new boolean[permissions.length];
-            for (int i = 0; i < permissions.length; i++) {
-                isPermitted[i] = isPermitted(principals, permissions[i]);
-            }
-            return isPermitted;
+            return isPermittedBatch(principals, new PermissionBatch(permissions));
         }
         return new boolean[0];
     }
@@ -273,12 +555,7 @@ public class ModularRealmAuthorizer implements Authorizer, PermissionResolverAwa
     public boolean[] isPermitted(PrincipalCollection principals, List<Permission> permissions) {
         assertRealmsConfigured();
         if (permissions != null && !permissions.isEmpty()) {
-            boolean[] isPermitted = new boolean[permissions.size()];
-            int i = 0;
-            for (Permission p : permissions) {
-                isPermitted[i++] = isPermitted(principals, p);
-            }
-            return isPermitted;
+            return isPermittedBatch(principals, new PermissionBatch(permissions));
         }
 
         return new boolean[0];
@@ -292,11 +569,7 @@ public class ModularRealmAuthorizer implements Authorizer, PermissionResolverAwa
     public boolean isPermittedAll(PrincipalCollection principals, String... permissions) {
         assertRealmsConfigured();
         if (permissions != null && permissions.length > 0) {
-            for (String perm : permissions) {
-                if (!isPermitted(principals, perm)) {
-                    return false;
-                }
-            }
+            return firstDenied(isPermittedBatch(principals, new PermissionBatch(permissions))) < 0;
         }
         return true;
     }
@@ -309,11 +582,7 @@ public class ModularRealmAuthorizer implements Authorizer, PermissionResolverAwa
     public boolean isPermittedAll(PrincipalCollection principals, Collection<Permission> permissions) {
         assertRealmsConfigured();
         if (permissions != null && !permissions.isEmpty()) {
-            for (Permission permission : permissions) {
-                if (!isPermitted(principals, permission)) {
-                    return false;
-                }
-            }
+            return firstDenied(isPermittedBatch(principals, new PermissionBatch(permissions))) < 0;
         }
         return true;
     }
@@ -347,8 +616,9 @@ public class ModularRealmAuthorizer implements Authorizer, PermissionResolverAwa
     public void checkPermissions(PrincipalCollection principals, String... permissions) throws AuthorizationException {
         assertRealmsConfigured();
         if (permissions != null && permissions.length > 0) {
-            for (String perm : permissions) {
-                checkPermission(principals, perm);
+            int denied = firstDenied(isPermittedBatch(principals, new PermissionBatch(permissions)));
+            if (denied >= 0) {
+                throw new UnauthorizedException("Subject does not have permission [" + permissions[denied] + "]");
             }
         }
     }
@@ -360,10 +630,270 @@ public class ModularRealmAuthorizer implements Authorizer, PermissionResolverAwa
      */
     public void checkPermissions(PrincipalCollection principals, Collection<Permission> permissions) throws AuthorizationException {
         assertRealmsConfigured();
-        if (permissions != null) {
-            for (Permission permission : permissions) {
-                checkPermission(principals, permission);
+        if (permissions != null && !permissions.isEmpty()) {
+            PermissionBatch batch = new PermissionBatch(permissions);
+            int denied = firstDenied(isPermittedBatch(principals, batch));
+            if (denied >= 0) {
+                throw new UnauthorizedException("Subject does not have permission [" + batch.keys[denied] + "]");
+            }
+        }
+    }
+
+    private static int firstDenied(boolean[] results) {
+        for (int i = 0; i < results.length; i++) {
+            if (!results[i]) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private boolean overridesSinglePermissionChecks() {
+        try {
+            return getClass().getMethod("isPermitted", PrincipalCollection.class, String.class)
+                    .getDeclaringClass() != ModularRealmAuthorizer.class ||
+                    getClass().getMethod("isPermitted", PrincipalCollection.class, Permission.class)
+                            .getDeclaringClass() != ModularRealmAuthorizer.class;
+        } catch (NoSuchMethodException e) {
+            return true;
+        }
+    }
+
+    /**
+     * Evaluates a batch of permissions.  Memoized decisions are used first (if
+     * {@link #isDecisionCachingEnabled() decision caching} is enabled); each realm is then asked about all of the
+     * permissions still undecided in a single call, until every permission has been granted or all realms have been
+     * consulted.  Permission strings are resolved at most once, with this authorizer's
+     * {@link #getPermissionResolver() permissionResolver}, for every realm known to use that same resolver; other
+     * realms receive the strings and resolve them themselves.
+     * <p/>
+     * If a subclass overrides the single permission checks, the undecided permissions are passed to those instead,
+     * which memoize their own decisions.
+     */
+    private boolean[] isPermittedBatch(PrincipalCollection principals, PermissionBatch batch) {
+        AuthorizationDecisions decisions = getDecisions(principals);
+        if (decisions != null) {
+            for (int i = 0; i < batch.size(); i++) {
+                long startNanos = System.nanoTime();
+                Boolean decision = decisions.get(batch.keys[i]);
+                if (decision != null) {
+                    batch.decide(i, decision);
+                    publishMemoizedDecision(principals, batch.keys[i], decision, startNanos);
+                }
+            }
+        }
+
+        if (!batch.isComplete() && singlePermissionChecksOverridden) {
+            for (int index : batch.undecided()) {
+                boolean permitted = batch.strings != null ? isPermitted(principals, batch.strings[index]) :
+                        isPermitted(principals, batch.permissions[index]);
+                if (permitted) {
+                    batch.grant(index);
+                }
+            }
+        } else if (!batch.isComplete()) {
+            List<Authorizer> authorizers = new ArrayList<Authorizer>(getRealms().size());
+            for (Realm realm : getRealms()) {
+                if (realm instanceof Authorizer) {
+                    authorizers.add((Authorizer) realm);
+                }
+            }
+            Executor executor = getExecutor();
+            if (executor != null && authorizers.size() > 1) {
+                evaluateConcurrently(principals, batch, authorizers, executor);
+            } else {
+                for (Authorizer authorizer : authorizers) {
+                    int[] undecided = batch.undecided();
+                    batch.grant(undecided, evaluate(principals, batch, undecided, authorizer));
+                    if (batch.isComplete()) {
+                        break;
+                    }
+                }
+            }
+
+            if (decisions != null) {
+                for (int i = 0; i < batch.size(); i++) {
+                    if (!batch.decided[i]) {
+                        decisions.put(batch.keys[i], batch.results[i]);
+                    }
+                }
+            }
+        }
+        return batch.results;
+    }
+
+    /**
+     * Publishes the {@code PermissionCheckEvent} of a permission check answered from memoized decisions, which no
+     * realm gets to see.
+     */
+    private void publishMemoizedDecision(PrincipalCollection principals, Object permission, boolean permitted,
+                                         long startNanos) {
+        EventBus eventBus = this.eventBus;
+        if (!EventBusUtils.hasSubscribers(eventBus, PermissionCheckEvent.class)) {
+            return;
+        }
+        Permission p;
+        if (permission instanceof Permission) {
+            p = (Permission) permission;
+        } else {
+            PermissionResolver resolver = getPermissionResolver();
+            p = resolver != null ? resolver.resolvePermission((String) permission) :
+                    new WildcardPermission((String) permission);
+        }
+        eventBus.publish(new PermissionCheckEvent(this, principals, p, permitted, System.nanoTime() - startNanos));
+    }
+
+    private void evaluateConcurrently(final PrincipalCollection principals, final PermissionBatch batch,
+                                      List<Authorizer> authorizers, Executor executor) {
+        final int[] indexes = batch.undecided();
+        List<FutureTask<boolean[]>> tasks = new ArrayList<FutureTask<boolean[]>>(authorizers.size());
+        for (final Authorizer authorizer : authorizers) {
+            FutureTask<boolean[]> task = new FutureTask<boolean[]>(new Callable<boolean[]>() {
+                public boolean[] call() {
+                    return evaluate(principals, batch, indexes, authorizer);
+                }
+            });
+            try {
+                executor.execute(task);
+            } catch (RejectedExecutionException e) {
+                task.run();
+            }
+            tasks.add(task);
+        }
+        try {
+            for (FutureTask<boolean[]> task : tasks) {
+                try {
+                    batch.grant(indexes, task.get());
+                } catch (ExecutionException e) {
+                    Throwable cause = e.getCause();
+                    if (cause instanceof RuntimeException) {
+                        throw (RuntimeException) cause;
+                    }
+                    if (cause instanceof Error) {
+                        throw (Error) cause;
+                    }
+                    throw new AuthorizationException(cause);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new AuthorizationException("Interrupted while waiting for realm authorization results.", e);
+                }
+                if (batch.isComplete()) {
+                    break;
+                }
+            }
+        } finally {
+            for (FutureTask<boolean[]> task : tasks) {
+                task.cancel(true);
+            }
+        }
+    }
+
+    /**
+     * Asks a single realm about the batch entries at the specified indexes in one call.
+     */
+    private boolean[] evaluate(PrincipalCollection principals, PermissionBatch batch, int[] indexes, Authorizer authorizer) {
+        if (batch.strings == null || usesPermissionResolver(authorizer)) {
+            List<Permission> permissions = new ArrayList<Permission>(indexes.length);
+            for (int index : indexes) {
+                permissions.add(batch.permission(index, getPermissionResolver()));
+            }
+            return authorizer.isPermitted(principals, permissions);
+        }
+        String[] strings = new String[indexes.length];
+        for (int i = 0; i < indexes.length; i++) {
+            strings[i] = batch.strings[indexes[i]];
+        }
+        return authorizer.isPermitted(principals, strings);
+    }
+
+    private boolean usesPermissionResolver(Authorizer authorizer) {
+        PermissionResolver resolver = getPermissionResolver();
+        return resolver != null && authorizer instanceof AuthorizingRealm &&
+                ((AuthorizingRealm) authorizer).getPermissionResolver() == resolver;
+    }
+
+    /**
+     * The state of a batch permission check: the permissions being checked (as given, and resolved lazily if given
+     * as Strings), which of them have been decided, and their results.
+     */
+    private static final class PermissionBatch {
+
+        private final Object[] keys;
+        private final String[] strings;
+        private final Permission[] permissions;
+        private final boolean[] results;
+        // entries whose result came from memoized decisions:
+        private final boolean[] decided;
+        private int undecidedCount;
+
+        PermissionBatch(String[] strings) {
+            this.keys = strings;
+            this.strings = strings;
+            this.permissions = new Permission[strings.length];
+            this.results = new boolean[strings.length];
+            this.decided = new boolean[strings.length];
+            this.undecidedCount = strings.length;
+        }
+
+        PermissionBatch(Collection<Permission> permissions) {
+            this.permissions = permissions.toArray(new Permission[permissions.size()]);
+            this.keys = this.permissions;
+            this.strings = null;
+            this.results = new boolean[this.permissions.length];
+            this.decided = new boolean[this.permissions.length];
+            this.undecidedCount = this.permissions.length;
+        }
+
+        int size() {
+            return keys.length;
+        }
+
+        boolean isComplete() {
+            return undecidedCount == 0;
+        }
+
+        void decide(int index, boolean result) {
+            decided[index] = true;
+            results[index] = result;
+            undecidedCount--;
+        }
+
+        /**
+         * Returns the indexes of all entries neither granted nor decided from memoized decisions so far.
+         */
+        synchronized int[] undecided() {
+            int[] indexes = new int[keys.length];
+            int count = 0;
+            for (int i = 0; i < keys.length; i++) {
+                if (!results[i] && !decided[i]) {
+                    indexes[count++] = i;
+                }
+            }
+            return count == indexes.length ? indexes : Arrays.copyOf(indexes, count);
+        }
+
+        synchronized void grant(int[] indexes, boolean[] granted) {
+            for (int i = 0; i < indexes.length && i < granted.length; i++) {
+                if (granted[i]) {
+                    grant(indexes[i]);
+                }
+            }
+        }
+
+        synchronized void grant(int index) {
+            if (!results[index]) {
+                results[index] = true;
+                undecidedCount--;
+            }
+        }
+
+        synchronized Permission permission(int index, PermissionResolver resolver) {
+            Permission permission = permissions[index];
+            if (permission == null) {
+                permission = resolver.resolvePermission(strings[index]);
+                permissions[index] = permission;
             }
+            return permission;
         }
     }
 
@@ -0,0 +1,66 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.shiro.authz.event;
+
+import org.apache.shiro.event.Event;
+import org.apache.shiro.subject.PrincipalCollection;
+
+/**
+ * Root class of the events published by an {@link org.apache.shiro.realm.AuthorizingRealm AuthorizingRealm} about
+ * the access control decisions it made.  Events are only created when the realm's
+ * {@link org.apache.shiro.event.EventBus EventBus} has a subscriber for them.
+ *
+ * @since 1.13
+ */
+public abstract class AuthorizationEvent extends Event {
+
+    private final PrincipalCollection principals;
+    private final boolean granted;
+    private final long durationNanos;
+
+    public AuthorizationEvent(Object source, PrincipalCollection principals, boolean granted, long durationNanos) {
+        super(source);
+        this.principals = principals;
+        this.granted = granted;
+        this.durationNanos = durationNanos;
+    }
+
+    public PrincipalCollection getPrincipals() {
+        return principals;
+    }
+
+    /**
+     * Returns {@code true} if the realm granted the access, {@code false} if it did not.
+     *
+     * @return {@code true} if the realm granted the access, {@code false} if it did not.
+     */
+    public boolean isGranted() {
+        return granted;
+    }
+
+    /**
+     * Returns the number of nanoseconds the decision took, including the lookup of the authorization data.  The
+     * events of a check of several permissions or roles at once all report the duration of the whole check.
+     *
+     * @return the number of nanoseconds the decision took.
+     */
+    public long getDurationNanos() {
+        return durationNanos;
+    }
+}
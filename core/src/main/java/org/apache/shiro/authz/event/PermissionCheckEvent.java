@@ -0,0 +1,44 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.shiro.authz.event;
+
+import org.apache.shiro.authz.Permission;
+import org.apache.shiro.subject.PrincipalCollection;
+
+/**
+ * Event triggered when a realm decided whether a {@code Subject} is permitted to perform an action.  Decisions
+ * memoized by a {@link org.apache.shiro.authz.ModularRealmAuthorizer ModularRealmAuthorizer} are published with the
+ * authorizer as the event source.
+ *
+ * @since 1.13
+ */
+public class PermissionCheckEvent extends AuthorizationEvent {
+
+    private final Permission permission;
+
+    public PermissionCheckEvent(Object source, PrincipalCollection principals, Permission permission,
+                                boolean granted, long durationNanos) {
+        super(source, principals, granted, durationNanos);
+        this.permission = permission;
+    }
+
+    public Permission getPermission() {
+        return permission;
+    }
+}
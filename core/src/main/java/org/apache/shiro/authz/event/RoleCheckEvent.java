@@ -0,0 +1,41 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.shiro.authz.event;
+
+import org.apache.shiro.subject.PrincipalCollection;
+
+/**
+ * Event triggered when a realm decided whether a {@code Subject} has a role.
+ *
+ * @since 1.13
+ */
+public class RoleCheckEvent extends AuthorizationEvent {
+
+    private final String roleIdentifier;
+
+    public RoleCheckEvent(Object source, PrincipalCollection principals, String roleIdentifier,
+                          boolean granted, long durationNanos) {
+        super(source, principals, granted, durationNanos);
+        this.roleIdentifier = roleIdentifier;
+    }
+
+    public String getRoleIdentifier() {
+        return roleIdentifier;
+    }
+}
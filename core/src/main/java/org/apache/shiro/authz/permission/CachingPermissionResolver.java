@@ -0,0 +1,266 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.shiro.authz.permission;
+
+import org.apache.shiro.authz.Permission;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A {@link PermissionResolver} decorator that interns the permissions returned by a wrapped resolver, so that
+ * resolving the same permission string repeatedly returns the same {@link Permission} instance instead of parsing
+ * and allocating a new one on every call.
+ * <p/>
+ * Resolved permissions are kept in a bounded, least-recently-used cache.  The cache is split into independently
+ * locked segments so concurrent callers resolving different strings rarely contend with each other.  Hit, miss and
+ * eviction counts are available to help size the cache.
+ * <p/>
+ * The wrapped resolver must return immutable permissions (as {@link WildcardPermission WildcardPermission} is),
+ * since instances are shared between all callers.
+ * <p/>
+ * Example {@code shiro.ini} configuration:
+ * <pre>
+ * permissionResolver = org.apache.shiro.authz.permission.CachingPermissionResolver
+ * permissionResolver.maxSize = 2000
+ * # optional, defaults to a WildcardPermissionResolver:
+ * # permissionResolver.permissionResolver = $myPermissionResolver
+ * securityManager.authorizer.permissionResolver = $permissionResolver
+ * </pre>
+ *
+ * @since 1.13
+ */
+public class CachingPermissionResolver implements PermissionResolver {
+
+    /**
+     * The default maximum number of permissions retained by the cache.
+     */
+    public static final int DEFAULT_MAX_SIZE = 1000;
+
+    private static final int SEGMENT_COUNT = 16;
+
+    private PermissionResolver permissionResolver;
+    private volatile int maxSize;
+    private volatile Segment[] segments;
+
+    private final AtomicLong hitCount = new AtomicLong();
+    private final AtomicLong missCount = new AtomicLong();
+    private final AtomicLong evictionCount = new AtomicLong();
+
+    public CachingPermissionResolver() {
+        this(new WildcardPermissionResolver());
+    }
+
+    public CachingPermissionResolver(PermissionResolver permissionResolver) {
+        this(permissionResolver, DEFAULT_MAX_SIZE);
+    }
+
+    public CachingPermissionResolver(PermissionResolver permissionResolver, int maxSize) {
+        setPermissionResolver(permissionResolver);
+        setMaxSize(maxSize);
+    }
+
+    /**
+     * Returns the wrapped resolver used to resolve permission strings not yet in the cache.
+     *
+     * @return the wrapped resolver used to resolve permission strings not yet in the cache.
+     */
+    public PermissionResolver getPermissionResolver() {
+        return permissionResolver;
+    }
+
+    /**
+     * Sets the wrapped resolver used to resolve permission strings not yet in the cache.  Any previously cached
+     * permissions are discarded.
+     *
+     * @param permissionResolver the wrapped resolver used to resolve permission strings not yet in the cache.
+     */
+    public void setPermissionResolver(PermissionResolver permissionResolver) {
+        if (permissionResolver == null) {
+            throw new IllegalArgumentException("Null PermissionResolver is not allowed");
+        }
+        this.permissionResolver = permissionResolver;
+        clear();
+    }
+
+    /**
+     * Returns the maximum number of permissions retained by the cache.  Defaults to {@link #DEFAULT_MAX_SIZE}.
+     *
+     * @return the maximum number of permissions retained by the cache.
+     */
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    /**
+     * Sets the maximum number of permissions retained by the cache.  Any previously cached permissions are
+     * discarded.
+     *
+     * @param maxSize the maximum number of permissions retained by the cache.
+     */
+    public void setMaxSize(int maxSize) {
+        if (maxSize <= 0) {
+            throw new IllegalArgumentException("maxSize must be greater than zero.");
+        }
+        this.maxSize = maxSize;
+        int segmentCount = Math.min(SEGMENT_COUNT, maxSize);
+        Segment[] segments = new Segment[segmentCount];
+        for (int i = 0; i < segmentCount; i++) {
+            // spread the remainder over the first segments so the total capacity is exactly maxSize:
+            int segmentCapacity = maxSize / segmentCount + (i < maxSize % segmentCount ? 1 : 0);
+            segments[i] = new Segment(segmentCapacity, evictionCount);
+        }
+        this.segments = segments;
+    }
+
+    public Permission resolvePermission(String permissionString) {
+        if (permissionString == null) {
+            return permissionResolver.resolvePermission(null);
+        }
+        Segment segment = segmentFor(permissionString);
+        Permission permission;
+        synchronized (segment) {
+            permission = segment.get(permissionString);
+        }
+        if (permission != null) {
+            hitCount.incrementAndGet();
+            return permission;
+        }
+
+        missCount.incrementAndGet();
+        permission = permissionResolver.resolvePermission(permissionString);
+        if (permission != null) {
+            synchronized (segment) {
+                Permission existing = segment.get(permissionString);
+                if (existing != null) {
+                    // another thread resolved the same string concurrently - intern to its instance:
+                    return existing;
+                }
+                segment.put(permissionString, permission);
+            }
+        }
+        return permission;
+    }
+
+    private Segment segmentFor(String permissionString) {
+        Segment[] segments = this.segments;
+        int hash = permissionString.hashCode();
+        hash ^= (hash >>> 16);
+        return segments[(hash & 0x7fffffff) % segments.length];
+    }
+
+    /**
+     * Discards all cached permissions.  The hit, miss and eviction counts are left untouched.
+     */
+    public void clear() {
+        Segment[] segments = this.segments;
+        if (segments != null) {
+            for (Segment segment : segments) {
+                synchronized (segment) {
+                    segment.clear();
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the number of permissions currently cached.
+     *
+     * @return the number of permissions currently cached.
+     */
+    public int size() {
+        int size = 0;
+        for (Segment segment : segments) {
+            synchronized (segment) {
+                size += segment.size();
+            }
+        }
+        return size;
+    }
+
+    /**
+     * Returns the number of times a permission string was found in the cache.
+     *
+     * @return the number of times a permission string was found in the cache.
+     */
+    public long getHitCount() {
+        return hitCount.get();
+    }
+
+    /**
+     * Returns the number of times a permission string had to be resolved by the wrapped resolver.
+     *
+     * @return the number of times a permission string had to be resolved by the wrapped resolver.
+     */
+    public long getMissCount() {
+        return missCount.get();
+    }
+
+    /**
+     * Returns the number of cached permissions discarded to stay within {@link #getMaxSize() maxSize}.
+     *
+     * @return the number of cached permissions discarded to stay within {@code maxSize}.
+     */
+    public long getEvictionCount() {
+        return evictionCount.get();
+    }
+
+    /**
+     * Returns the ratio of cache hits to total lookups, or {@code 0} if no lookups have occurred yet.
+     *
+     * @return the ratio of cache hits to total lookups.
+     */
+    public double getHitRatio() {
+        long hits = hitCount.get();
+        long total = hits + missCount.get();
+        return total == 0 ? 0d : (double) hits / total;
+    }
+
+    @Override
+    public String toString() {
+        return getClass().getSimpleName() + "[size=" + size() + ", maxSize=" + maxSize +
+                ", hits=" + getHitCount() + ", misses=" + getMissCount() + ", evictions=" + getEvictionCount() + "]";
+    }
+
+    /**
+     * An access-ordered map that removes its least recently used entry once it grows beyond its capacity.  Callers
+     * must synchronize on the segment.
+     */
+    private static final class Segment extends LinkedHashMap<String, Permission> {
+
+        private final int capacity;
+        private final AtomicLong evictionCount;
+
+        Segment(int capacity, AtomicLong evictionCount) {
+            super(16, 0.75f, true);
+            this.capacity = capacity;
+            this.evictionCount = evictionCount;
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Permission> eldest) {
+            if (size() > capacity) {
+                evictionCount.incrementAndGet();
+                return true;
+            }
+            return false;
+        }
+    }
+}
@@ -0,0 +1,165 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.shiro.authz.permission;
+
+import org.apache.shiro.authz.Permission;
+
+import java.io.ObjectStreamException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * A {@link WildcardPermission WildcardPermission} that additionally keeps a compiled form of its parts, allowing
+ * {@link #implies(Permission) implies} checks against other compiled permissions to run without hashing, iterators
+ * or allocation.
+ * <p/>
+ * When the permission is constructed, every part token is {@link PermissionTokenInterner#intern(String) interned}
+ * to an {@code int} id and each part is stored as a sorted {@code int[]}, along with a precomputed flag indicating
+ * whether the part contains the {@link #WILDCARD_TOKEN wildcard token}.  An {@code implies} check is then a merge
+ * of sorted integer arrays per part.
+ * <p/>
+ * Semantics are identical to {@code WildcardPermission}:
+ * <ul>
+ * <li>{@link #equals(Object) equals} and {@link #hashCode() hashCode} are inherited, so a compiled permission is
+ * equal to a plain {@code WildcardPermission} created from the same string.</li>
+ * <li>If the other permission is not a {@code CompiledWildcardPermission} created with the same interner, the
+ * check falls back to {@link WildcardPermission#implies(Permission) WildcardPermission.implies}.</li>
+ * <li>Instances are serialized as plain {@code WildcardPermission}s, so the wire format is unchanged and nodes
+ * without this class can still read them.</li>
+ * </ul>
+ *
+ * @see CompiledWildcardPermissionResolver
+ * @since 1.13
+ */
+public class CompiledWildcardPermission extends WildcardPermission {
+
+    private final transient PermissionTokenInterner interner;
+    private final transient int[][] partIds;
+    private final transient boolean[] wildcardParts;
+
+    public CompiledWildcardPermission(String wildcardString) {
+        this(wildcardString, DEFAULT_CASE_SENSITIVE);
+    }
+
+    public CompiledWildcardPermission(String wildcardString, boolean caseSensitive) {
+        this(wildcardString, caseSensitive, PermissionTokenInterner.getSharedInstance());
+    }
+
+    public CompiledWildcardPermission(String wildcardString, boolean caseSensitive, PermissionTokenInterner interner) {
+        super(wildcardString, caseSensitive);
+        if (interner == null) {
+            throw new IllegalArgumentException("PermissionTokenInterner argument cannot be null.");
+        }
+        this.interner = interner;
+
+        List<Set<String>> parts = getParts();
+        this.partIds = new int[parts.size()][];
+        this.wildcardParts = new boolean[parts.size()];
+        for (int i = 0; i < parts.size(); i++) {
+            Set<String> part = parts.get(i);
+            int[] ids = new int[part.size()];
+            int j = 0;
+            for (String token : part) {
+                ids[j++] = interner.intern(token);
+            }
+            Arrays.sort(ids);
+            this.partIds[i] = ids;
+            this.wildcardParts[i] = part.contains(WILDCARD_TOKEN);
+        }
+    }
+
+    /**
+     * Returns the interner used to compile this permission's part tokens.
+     *
+     * @return the interner used to compile this permission's part tokens.
+     */
+    public PermissionTokenInterner getInterner() {
+        return interner;
+    }
+
+    @Override
+    public boolean implies(Permission p) {
+        if (!(p instanceof CompiledWildcardPermission)) {
+            return super.implies(p);
+        }
+        CompiledWildcardPermission other = (CompiledWildcardPermission) p;
+        if (other.interner != this.interner) {
+            return super.implies(p);
+        }
+
+        int[][] otherIds = other.partIds;
+        int length = partIds.length;
+        int i = 0;
+        for (; i < otherIds.length; i++) {
+            // everything beyond the number of parts in this permission is automatically implied:
+            if (i >= length) {
+                return true;
+            }
+            if (!wildcardParts[i] && !containsAll(partIds[i], otherIds[i])) {
+                return false;
+            }
+        }
+
+        // this permission has more parts than the other one - only imply it if all remaining parts are wildcards:
+        for (; i < length; i++) {
+            if (!wildcardParts[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Returns {@code true} if the sorted {@code candidates} array contains every element of the sorted
+     * {@code required} array.
+     */
+    private static boolean containsAll(int[] candidates, int[] required) {
+        if (required.length > candidates.length) {
+            return false;
+        }
+        if (required.length == 1) {
+            return Arrays.binarySearch(candidates, required[0]) >= 0;
+        }
+        int c = 0;
+        for (int r : required) {
+            while (c < candidates.length && candidates[c] < r) {
+                c++;
+            }
+            if (c == candidates.length || candidates[c] != r) {
+                return false;
+            }
+            c++;
+        }
+        return true;
+    }
+
+    /**
+     * Serializes this instance as a plain {@link WildcardPermission WildcardPermission} with the same parts, keeping
+     * the serialized form identical to non-compiled permissions.
+     *
+     * @return a {@code WildcardPermission} with the same parts as this instance.
+     * @throws ObjectStreamException never thrown; declared as required by the serialization contract.
+     */
+    protected Object writeReplace() throws ObjectStreamException {
+        WildcardPermission replacement = new WildcardPermission();
+        replacement.setParts(getParts());
+        return replacement;
+    }
+}
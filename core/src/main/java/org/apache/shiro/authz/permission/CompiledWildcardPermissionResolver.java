@@ -0,0 +1,80 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.shiro.authz.permission;
+
+import org.apache.shiro.authz.Permission;
+
+/**
+ * {@code PermissionResolver} implementation that returns a new
+ * {@link CompiledWildcardPermission CompiledWildcardPermission} based on the input string.
+ * <p/>
+ * Because both a Realm's granted permissions and the permissions being checked are usually resolved by the same
+ * resolver, using this class as a Realm's {@code permissionResolver} lets every {@code implies} check take the
+ * compiled fast path.  For example, in {@code shiro.ini}:
+ * <pre>
+ * permissionResolver = org.apache.shiro.authz.permission.CompiledWildcardPermissionResolver
+ * securityManager.authorizer.permissionResolver = $permissionResolver
+ * </pre>
+ *
+ * @since 1.13
+ */
+public class CompiledWildcardPermissionResolver extends WildcardPermissionResolver {
+
+    private PermissionTokenInterner interner;
+
+    public CompiledWildcardPermissionResolver() {
+        this(WildcardPermission.DEFAULT_CASE_SENSITIVE);
+    }
+
+    public CompiledWildcardPermissionResolver(boolean caseSensitive) {
+        super(caseSensitive);
+        this.interner = PermissionTokenInterner.getSharedInstance();
+    }
+
+    /**
+     * Returns the interner used to compile resolved permissions.  Defaults to the
+     * {@link PermissionTokenInterner#getSharedInstance() shared instance}.
+     *
+     * @return the interner used to compile resolved permissions.
+     */
+    public PermissionTokenInterner getInterner() {
+        return interner;
+    }
+
+    /**
+     * Sets the interner used to compile resolved permissions.
+     *
+     * @param interner the interner used to compile resolved permissions.
+     */
+    public void setInterner(PermissionTokenInterner interner) {
+        this.interner = interner;
+    }
+
+    /**
+     * Returns a new {@link CompiledWildcardPermission CompiledWildcardPermission} instance constructed based on the
+     * specified <tt>permissionString</tt>.
+     *
+     * @param permissionString the permission string to convert to a {@link Permission Permission} instance.
+     * @return a new {@link CompiledWildcardPermission CompiledWildcardPermission} instance
+     */
+    @Override
+    public Permission resolvePermission(String permissionString) {
+        return new CompiledWildcardPermission(permissionString, isCaseSensitive(), interner);
+    }
+}
@@ -0,0 +1,283 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.shiro.authz.permission;
+
+import org.apache.shiro.authz.Permission;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * An immutable, indexed set of granted {@link Permission Permission}s that answers &quot;does any granted permission
+ * imply this one?&quot; without testing every granted permission.
+ * <p/>
+ * {@link WildcardPermission WildcardPermission}s are stored in a trie keyed by their part tokens (domain, action,
+ * instance, ...), with a dedicated branch for parts containing the {@link WildcardPermission#WILDCARD_TOKEN wildcard
+ * token}.  Trailing wildcard parts are trimmed since they imply anything.  A lookup walks at most two branches per
+ * level (the exact token and the wildcard branch), so its cost is proportional to the depth of the checked permission
+ * rather than to the number of granted permissions.
+ * <p/>
+ * Permissions that cannot be indexed are kept in a list and checked linearly, as before.  These are:
+ * <ul>
+ * <li>permissions that are not {@code WildcardPermission}s, such as {@link AllPermission AllPermission};</li>
+ * <li>{@code WildcardPermission} subclasses that override {@code implies}, since their semantics are unknown;</li>
+ * <li>permissions whose parts would expand to more than {@link #getMaxExpansion() maxExpansion} trie paths, such as
+ * {@code "a,b,c:d,e,f:1,2,3,4,5,6,7,8"}.</li>
+ * </ul>
+ * <p/>
+ * The result of {@link #implies(Permission)} is always identical to iterating over the original permissions and
+ * calling {@code implies} on each one.
+ *
+ * @since 1.13
+ */
+public class PermissionIndex {
+
+    /**
+     * The default maximum number of trie paths a single granted permission may expand to before it is checked
+     * linearly instead.
+     */
+    public static final int DEFAULT_MAX_EXPANSION = 64;
+
+    private final Node root;
+    private final List<Permission> unindexed;
+    private final List<WildcardPermission> indexed;
+    private final int maxExpansion;
+
+    public PermissionIndex(Collection<? extends Permission> permissions) {
+        this(permissions, DEFAULT_MAX_EXPANSION);
+    }
+
+    public PermissionIndex(Collection<? extends Permission> permissions, int maxExpansion) {
+        this.maxExpansion = maxExpansion;
+        this.root = new Node();
+        List<Permission> unindexed = new ArrayList<Permission>();
+        List<WildcardPermission> indexed = new ArrayList<WildcardPermission>();
+        if (permissions != null) {
+            for (Permission permission : permissions) {
+                if (permission == null) {
+                    continue;
+                }
+                if (isIndexable(permission) && index((WildcardPermission) permission)) {
+                    indexed.add((WildcardPermission) permission);
+                } else {
+                    unindexed.add(permission);
+                }
+            }
+        }
+        this.unindexed = unindexed.isEmpty() ? Collections.<Permission>emptyList() : unindexed;
+        this.indexed = indexed;
+    }
+
+    /**
+     * Returns the maximum number of trie paths a single granted permission may expand to before it is checked
+     * linearly instead.
+     *
+     * @return the maximum number of trie paths a single granted permission may expand to.
+     */
+    public int getMaxExpansion() {
+        return maxExpansion;
+    }
+
+    /**
+     * Returns the total number of permissions in this index.
+     *
+     * @return the total number of permissions in this index.
+     */
+    public int size() {
+        return indexed.size() + unindexed.size();
+    }
+
+    /**
+     * Returns {@code true} if this index contains no permissions, {@code false} otherwise.
+     *
+     * @return {@code true} if this index contains no permissions, {@code false} otherwise.
+     */
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    /**
+     * Returns {@code true} if any permission in this index implies the specified permission, {@code false}
+     * otherwise.
+     *
+     * @param permission the permission to check
+     * @return {@code true} if any permission in this index implies the specified permission.
+     */
+    public boolean implies(Permission permission) {
+        for (Permission granted : unindexed) {
+            if (granted.implies(permission)) {
+                return true;
+            }
+        }
+        // indexed permissions all have WildcardPermission semantics, which only imply other WildcardPermissions:
+        if (!(permission instanceof WildcardPermission) || indexed.isEmpty()) {
+            return false;
+        }
+
+        List<Set<String>> parts = ((WildcardPermission) permission).getParts();
+        String[] path = new String[parts.size()];
+        boolean exact = true;
+        for (int i = 0; i < path.length; i++) {
+            Set<String> part = parts.get(i);
+            Iterator<String> tokens = part.iterator();
+            if (!tokens.hasNext()) {
+                // malformed (empty) part - can't be routed, so check the indexed permissions directly:
+                return impliesLinear(permission);
+            }
+            path[i] = tokens.next();
+            exact &= part.size() == 1;
+        }
+        return root.implies(path, 0, permission, exact);
+    }
+
+    private boolean impliesLinear(Permission permission) {
+        for (WildcardPermission granted : indexed) {
+            if (granted.implies(permission)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private boolean index(WildcardPermission permission) {
+        List<Set<String>> parts = permission.getParts();
+        if (parts == null) {
+            return false;
+        }
+        // trailing wildcard parts imply anything, including the absence of a part:
+        int length = parts.size();
+        while (length > 0 && parts.get(length - 1).contains(WildcardPermission.WILDCARD_TOKEN)) {
+            length--;
+        }
+        long expansion = 1;
+        for (int i = 0; i < length; i++) {
+            Set<String> part = parts.get(i);
+            if (part.isEmpty()) {
+                return false;
+            }
+            if (!part.contains(WildcardPermission.WILDCARD_TOKEN)) {
+                expansion *= part.size();
+                if (expansion > maxExpansion) {
+                    return false;
+                }
+            }
+        }
+        insert(root, parts, 0, length, permission);
+        return true;
+    }
+
+    private static void insert(Node node, List<Set<String>> parts, int depth, int length, WildcardPermission permission) {
+        if (depth == length) {
+            node.addTerminal(permission);
+            return;
+        }
+        Set<String> part = parts.get(depth);
+        if (part.contains(WildcardPermission.WILDCARD_TOKEN)) {
+            insert(node.wildcardChild(), parts, depth + 1, length, permission);
+        } else {
+            for (String token : part) {
+                insert(node.child(token), parts, depth + 1, length, permission);
+            }
+        }
+    }
+
+    private static boolean isIndexable(Permission permission) {
+        if (!(permission instanceof WildcardPermission)) {
+            return false;
+        }
+        Class<?> clazz = permission.getClass();
+        if (clazz == WildcardPermission.class || clazz == CompiledWildcardPermission.class) {
+            return true;
+        }
+        try {
+            Class<?> declaring = clazz.getMethod("implies", Permission.class).getDeclaringClass();
+            return declaring == WildcardPermission.class || declaring == CompiledWildcardPermission.class;
+        } catch (NoSuchMethodException e) {
+            return false;
+        }
+    }
+
+    /**
+     * A trie node.  Nodes are only mutated while the enclosing index is being constructed and are safely published
+     * through the index's final {@code root} field.
+     */
+    private static final class Node {
+
+        private Map<String, Node> children;
+        private Node wildcard;
+        private List<WildcardPermission> terminals;
+
+        Node child(String token) {
+            if (children == null) {
+                children = new HashMap<String, Node>();
+            }
+            Node child = children.get(token);
+            if (child == null) {
+                child = new Node();
+                children.put(token, child);
+            }
+            return child;
+        }
+
+        Node wildcardChild() {
+            if (wildcard == null) {
+                wildcard = new Node();
+            }
+            return wildcard;
+        }
+
+        void addTerminal(WildcardPermission permission) {
+            if (terminals == null) {
+                terminals = new ArrayList<WildcardPermission>(1);
+            }
+            terminals.add(permission);
+        }
+
+        /**
+         * Walks the trie along {@code path}.  Every permission terminating at a visited node matches the first token
+         * of each part of the checked permission; if the checked permission has only one token per part
+         * ({@code exact}), that is sufficient, otherwise the candidate is verified with {@code implies}.
+         */
+        boolean implies(String[] path, int depth, Permission permission, boolean exact) {
+            if (terminals != null) {
+                for (WildcardPermission candidate : terminals) {
+                    if (exact || candidate.implies(permission)) {
+                        return true;
+                    }
+                }
+            }
+            if (depth == path.length) {
+                return false;
+            }
+            if (children != null) {
+                Node child = children.get(path[depth]);
+                if (child != null && child.implies(path, depth + 1, permission, exact)) {
+                    return true;
+                }
+            }
+            return wildcard != null && wildcard.implies(path, depth + 1, permission, exact);
+        }
+    }
+}
@@ -0,0 +1,80 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.shiro.authz.permission;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Assigns a stable {@code int} id to every distinct permission part token (e.g. {@code newsletter}, {@code edit},
+ * {@code 12}) so {@link CompiledWildcardPermission CompiledWildcardPermission} instances can compare parts as
+ * integers instead of hashing Strings on every {@code implies} check.
+ * <p/>
+ * Ids are only meaningful within the interner that issued them: two compiled permissions can only use the fast
+ * comparison path if they were compiled by the same interner instance.  Token ids are never released, so an
+ * interner grows with the number of distinct tokens seen by the application.  This is typically bounded by the
+ * permission model, but applications that embed unbounded values (such as request-scoped ids) in permission
+ * strings may wish to use a dedicated interner with a shorter lifecycle.
+ *
+ * @since 1.13
+ */
+public class PermissionTokenInterner {
+
+    private static final PermissionTokenInterner SHARED = new PermissionTokenInterner();
+
+    private final ConcurrentMap<String, Integer> ids = new ConcurrentHashMap<String, Integer>();
+    private final AtomicInteger sequence = new AtomicInteger();
+
+    /**
+     * Returns the JVM-wide interner used by default when no explicit interner is configured.
+     *
+     * @return the JVM-wide interner used by default when no explicit interner is configured.
+     */
+    public static PermissionTokenInterner getSharedInstance() {
+        return SHARED;
+    }
+
+    /**
+     * Returns the id assigned to the specified token, assigning a new one if the token has not been seen before.
+     *
+     * @param token the permission part token to intern
+     * @return the id assigned to the specified token.
+     */
+    public int intern(String token) {
+        Integer id = ids.get(token);
+        if (id == null) {
+            Integer candidate = sequence.getAndIncrement();
+            id = ids.putIfAbsent(token, candidate);
+            if (id == null) {
+                id = candidate;
+            }
+        }
+        return id;
+    }
+
+    /**
+     * Returns the number of distinct tokens interned so far.
+     *
+     * @return the number of distinct tokens interned so far.
+     */
+    public int size() {
+        return ids.size();
+    }
+}
@@ -23,6 +23,8 @@ import org.apache.shiro.authc.AuthenticationInfo;
 import org.apache.shiro.authc.AuthenticationToken;
 import org.apache.shiro.authc.Authenticator;
 import org.apache.shiro.authc.pam.ModularRealmAuthenticator;
+import org.apache.shiro.event.EventBus;
+import org.apache.shiro.event.EventBusAware;
 import org.apache.shiro.util.LifecycleUtils;
 
 
@@ -56,6 +58,7 @@ public abstract class AuthenticatingSecurityManager extends RealmSecurityManager
     public AuthenticatingSecurityManager() {
         super();
         this.authenticator = new ModularRealmAuthenticator();
+        applyEventBusToAuthenticator();
     }
 
     /**
@@ -86,6 +89,34 @@ public abstract class AuthenticatingSecurityManager extends RealmSecurityManager
             throw new IllegalArgumentException(msg);
         }
         this.authenticator = authenticator;
+        applyEventBusToAuthenticator();
+    }
+
+    /**
+     * Sets any configured EventBus on the Authenticator if necessary.
+     *
+     * @since 1.13
+     */
+    @Override
+    protected void afterEventBusSet() {
+        super.afterEventBusSet();
+        applyEventBusToAuthenticator();
+    }
+
+    /**
+     * Ensures the internal delegate <code>Authenticator</code> is injected with the
+     * {@link #setEventBus EventBus} so it may publish authentication events.
+     * <p/>
+     * Note: This implementation only injects the EventBus into the Authenticator if the Authenticator
+     * instance implements the {@link EventBusAware EventBusAware} interface.
+     *
+     * @since 1.13
+     */
+    protected void applyEventBusToAuthenticator() {
+        EventBus eventBus = getEventBus();
+        if (eventBus != null && this.authenticator instanceof EventBusAware) {
+            ((EventBusAware) this.authenticator).setEventBus(eventBus);
+        }
     }
 
     /**
@@ -22,6 +22,8 @@ import org.apache.shiro.authz.AuthorizationException;
 import org.apache.shiro.authz.Authorizer;
 import org.apache.shiro.authz.ModularRealmAuthorizer;
 import org.apache.shiro.authz.Permission;
+import org.apache.shiro.event.EventBus;
+import org.apache.shiro.event.EventBusAware;
 import org.apache.shiro.subject.PrincipalCollection;
 import org.apache.shiro.util.LifecycleUtils;
 
@@ -58,6 +60,7 @@ public abstract class AuthorizingSecurityManager extends AuthenticatingSecurityM
     public AuthorizingSecurityManager() {
         super();
         this.authorizer = new ModularRealmAuthorizer();
+        applyEventBusToAuthorizer();
     }
 
     /**
@@ -83,6 +86,34 @@ public abstract class AuthorizingSecurityManager extends AuthenticatingSecurityM
             throw new IllegalArgumentException(msg);
         }
         this.authorizer = authorizer;
+        applyEventBusToAuthorizer();
+    }
+
+    /**
+     * Sets any configured EventBus on the Authorizer if necessary.
+     *
+     * @since 1.13
+     */
+    @Override
+    protected void afterEventBusSet() {
+        super.afterEventBusSet();
+        applyEventBusToAuthorizer();
+    }
+
+    /**
+     * Ensures the internal delegate <code>Authorizer</code> is injected with the
+     * {@link #setEventBus EventBus} so it may publish authorization events.
+     * <p/>
+     * Note: This implementation only injects the EventBus into the Authorizer if the Authorizer
+     * instance implements the {@link EventBusAware EventBusAware} interface.
+     *
+     * @since 1.13
+     */
+    protected void applyEventBusToAuthorizer() {
+        EventBus eventBus = getEventBus();
+        if (eventBus != null && this.authorizer instanceof EventBusAware) {
+            ((EventBusAware) this.authorizer).setEventBus(eventBus);
+        }
     }
 
     /**
@@ -28,11 +28,13 @@ import org.apache.shiro.authc.credential.CredentialsMatcher;
 import org.apache.shiro.authc.credential.SimpleCredentialsMatcher;
 import org.apache.shiro.cache.Cache;
 import org.apache.shiro.cache.CacheManager;
+import org.apache.shiro.cache.CacheStatistics;
 import org.apache.shiro.subject.PrincipalCollection;
 import org.apache.shiro.util.Initializable;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.Map;
 import java.util.concurrent.atomic.AtomicInteger;
 
 
@@ -309,6 +311,21 @@ public abstract class AuthenticatingRealm extends CachingRealm implements Initia
         this.authenticationCacheName = authenticationCacheName;
     }
 
+    /**
+     * Returns the statistics of the {@link #getAuthenticationCache() authenticationCache}, keyed by
+     * {@link #getAuthenticationCacheName() authenticationCacheName}, in addition to those of any superclass, if the
+     * cache has been created and keeps statistics.
+     *
+     * @return the statistics of the caches used by this realm, keyed by cache name.
+     * @since 1.13
+     */
+    @Override
+    public Map<String, CacheStatistics> getCacheStatistics() {
+        Map<String, CacheStatistics> statistics = super.getCacheStatistics();
+        addCacheStatistics(statistics, getAuthenticationCacheName(), getAuthenticationCache());
+        return statistics;
+    }
+
     /**
      * Returns {@code true} if authentication caching should be utilized if a {@link CacheManager} has been
      * {@link #setCacheManager(org.apache.shiro.cache.CacheManager) configured}, {@code false} otherwise.
@@ -509,9 +526,10 @@ public abstract class AuthenticatingRealm extends CachingRealm implements Initia
      *
      * @param token the authentication token submitted which resulted in a successful authentication attempt.
      * @param info  the AuthenticationInfo to cache as a result of the successful authentication attempt.
+     * @param startTime the {@link System#nanoTime()} at which looking up the info started.
      * @since 1.2
      */
-    private void cacheAuthenticationInfoIfPossible(AuthenticationToken token, AuthenticationInfo info) {
+    private void cacheAuthenticationInfoIfPossible(AuthenticationToken token, AuthenticationInfo info, long startTime) {
         // 检查缓存是否启用
         if (!isAuthenticationCachingEnabled(token, info)) {
             log.debug("AuthenticationInfo caching is disabled for info [{}].  Submitted token: [{}].", info, token);
@@ -521,6 +539,7 @@ public abstract class AuthenticatingRealm extends CachingRealm implements Initia
 
         Cache<Object, AuthenticationInfo> cache = getAvailableAuthenticationCache();
         if (cache != null) {
+            recordCacheLoad(cache, startTime);
             Object key = getAuthenticationCacheKey(token);
             cache.put(key, info);
             log.trace("Cached AuthenticationInfo for continued authentication.  key=[{}], value=[{}].", key, info);
@@ -577,13 +596,14 @@ public abstract class AuthenticatingRealm extends CachingRealm implements Initia
         if (info == null) {
             // otherwise not cached, perform the lookup:
             // 没有使用缓存，或者缓存未命中，那么就执行 [加载]
+            long startTime = System.nanoTime();
             info = doGetAuthenticationInfo(token);
 
             log.debug("Looked up AuthenticationInfo [{}] from doGetAuthenticationInfo", info);
 
             // 缓存它
             if (token != null && info != null) {
-                cacheAuthenticationInfoIfPossible(token, info);
+                cacheAuthenticationInfoIfPossible(token, info, startTime);
             }
         } else {
             log.debug("Using cached authentication info [{}] to perform credentials matching.", info);
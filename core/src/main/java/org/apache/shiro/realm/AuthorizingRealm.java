@@ -20,9 +20,16 @@ package org.apache.shiro.realm;
 
 import org.apache.shiro.authc.credential.CredentialsMatcher;
 import org.apache.shiro.authz.*;
+import org.apache.shiro.authz.event.PermissionCheckEvent;
+import org.apache.shiro.authz.event.RoleCheckEvent;
 import org.apache.shiro.authz.permission.*;
+import org.apache.shiro.cache.BoundedCache;
 import org.apache.shiro.cache.Cache;
 import org.apache.shiro.cache.CacheManager;
+import org.apache.shiro.cache.CacheStatistics;
+import org.apache.shiro.event.EventBus;
+import org.apache.shiro.event.EventBusAware;
+import org.apache.shiro.event.EventBusUtils;
 import org.apache.shiro.subject.PrincipalCollection;
 import org.apache.shiro.util.CollectionUtils;
 import org.apache.shiro.util.Initializable;
@@ -32,6 +39,8 @@ import org.slf4j.LoggerFactory;
 
 import java.util.*;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
 
 
 /**
@@ -54,7 +63,7 @@ import java.util.concurrent.atomic.AtomicInteger;
  * @since 0.2
  */
 public abstract class AuthorizingRealm extends AuthenticatingRealm
-        implements Authorizer, Initializable, PermissionResolverAware, RolePermissionResolverAware {
+        implements Authorizer, Initializable, PermissionResolverAware, RolePermissionResolverAware, EventBusAware {
 
     //TODO - complete JavaDoc
 
@@ -67,6 +76,12 @@ public abstract class AuthorizingRealm extends AuthenticatingRealm
      * The default suffix appended to the realm name for caching AuthorizationInfo instances.
      */
     private static final String DEFAULT_AUTHORIZATION_CACHE_SUFFIX = ".authorizationCache";
+    private static final String RESOLVED_AUTHORIZATIONS_SUFFIX = ".resolvedAuthorizations";
+
+    /**
+     * The maximum number of accounts whose resolved permissions are retained.
+     */
+    private static final int MAX_RESOLVED_AUTHORIZATIONS = 10000;
 
     private static final AtomicInteger INSTANCE_COUNT = new AtomicInteger();
 
@@ -84,6 +99,42 @@ public abstract class AuthorizingRealm extends AuthenticatingRealm
 
     private RolePermissionResolver permissionRoleResolver;
 
+    private boolean resolvedPermissionCachingEnabled;
+    private boolean permissionIndexingEnabled;
+
+    /**
+     * The permissions resolved from cached AuthorizationInfo (and their indexes), keyed by
+     * {@link #getAuthorizationCacheKey authorization cache key}.  Only created while resolved permission caching or
+     * permission indexing is enabled.
+     */
+    private volatile Cache<Object, ResolvedAuthorization> resolvedAuthorizations;
+
+    private static final int RESOLVED_AUTHORIZATION_VERSION_STRIPES = 64;
+
+    /**
+     * Incremented whenever an entry of {@link #resolvedAuthorizations} is discarded, in the stripe of its key, so
+     * that permissions resolved concurrently from the discarded AuthorizationInfo are not retained.  Discarding one
+     * account's entry leaves the permissions being resolved for other accounts alone.
+     */
+    private final AtomicLongArray resolvedAuthorizationVersions =
+            new AtomicLongArray(RESOLVED_AUTHORIZATION_VERSION_STRIPES);
+
+    /**
+     * Incremented whenever all entries of {@link #resolvedAuthorizations} are discarded.
+     */
+    private final AtomicLong resolvedAuthorizationEpoch = new AtomicLong();
+
+    /**
+     * Incremented whenever cached authorization data is discarded, allowing results derived from it elsewhere to
+     * be recognized as stale.
+     */
+    private final AtomicLong authorizationGeneration = new AtomicLong();
+
+    /**
+     * The EventBus used to publish {@link org.apache.shiro.authz.event.AuthorizationEvent AuthorizationEvent}s.
+     */
+    private EventBus eventBus;
+
     /*-------------------------------------------
     |         C O N S T R U C T O R S           |
     ============================================*/
@@ -131,6 +182,7 @@ public abstract class AuthorizingRealm extends AuthenticatingRealm
 
     public void setAuthorizationCache(Cache<Object, AuthorizationInfo> authorizationCache) {
         this.authorizationCache = authorizationCache;
+        clearResolvedPermissions();
     }
 
     public Cache<Object, AuthorizationInfo> getAuthorizationCache() {
@@ -146,6 +198,21 @@ public abstract class AuthorizingRealm extends AuthenticatingRealm
         this.authorizationCacheName = authorizationCacheName;
     }
 
+    /**
+     * Returns the statistics of the {@link #getAuthorizationCache() authorizationCache}, keyed by
+     * {@link #getAuthorizationCacheName() authorizationCacheName}, in addition to those of any superclass, if the
+     * cache has been created and keeps statistics.
+     *
+     * @return the statistics of the caches used by this realm, keyed by cache name.
+     * @since 1.13
+     */
+    @Override
+    public Map<String, CacheStatistics> getCacheStatistics() {
+        Map<String, CacheStatistics> statistics = super.getCacheStatistics();
+        addCacheStatistics(statistics, getAuthorizationCacheName(), getAuthorizationCache());
+        return statistics;
+    }
+
     /**
      * Returns {@code true} if authorization caching should be utilized if a {@link CacheManager} has been
      * {@link #setCacheManager(org.apache.shiro.cache.CacheManager) configured}, {@code false} otherwise.
@@ -181,14 +248,136 @@ public abstract class AuthorizingRealm extends AuthenticatingRealm
     public void setPermissionResolver(PermissionResolver permissionResolver) {
         if (permissionResolver == null) throw new IllegalArgumentException("Null PermissionResolver is not allowed");
         this.permissionResolver = permissionResolver;
+        clearResolvedPermissions();
     }
 
     public RolePermissionResolver getRolePermissionResolver() {
         return permissionRoleResolver;
     }
 
+    /**
+     * Returns the EventBus used to publish {@link org.apache.shiro.authz.event.AuthorizationEvent AuthorizationEvent}s.
+     *
+     * @return the EventBus used to publish {@code AuthorizationEvent}s.
+     * @since 1.13
+     */
+    public EventBus getEventBus() {
+        return eventBus;
+    }
+
+    /**
+     * Sets the EventBus used to publish a {@link PermissionCheckEvent} or {@link RoleCheckEvent} for each permission
+     * or role this realm checks.  Events are only created, and checks only timed, when the bus has a subscriber for
+     * them.
+     *
+     * @param eventBus the EventBus used to publish {@code AuthorizationEvent}s.
+     * @since 1.13
+     */
+    public void setEventBus(EventBus eventBus) {
+        this.eventBus = eventBus;
+    }
+
     public void setRolePermissionResolver(RolePermissionResolver permissionRoleResolver) {
         this.permissionRoleResolver = permissionRoleResolver;
+        clearResolvedPermissions();
+    }
+
+    /**
+     * Returns {@code true} if the permissions resolved from a cached {@code AuthorizationInfo} instance (its
+     * {@link AuthorizationInfo#getObjectPermissions() object permissions}, its resolved
+     * {@link AuthorizationInfo#getStringPermissions() string permissions} and the permissions of its
+     * {@link AuthorizationInfo#getRoles() roles}) should be retained for as long as that instance is cached,
+     * {@code false} if they should be resolved again on every permission check.
+     * <p/>
+     * This only takes effect when {@link #isAuthorizationCachingEnabled() authorization caching} is enabled.  The
+     * resolved permissions are retained under the account's {@link #getAuthorizationCacheKey authorization cache key}
+     * (for at most 10,000 accounts) and are discarded when
+     * {@link #clearCachedAuthorizationInfo(PrincipalCollection) clearCachedAuthorizationInfo} is called, when the
+     * account's {@code AuthorizationInfo} has to be loaded again, or when a permission resolver is replaced.  If a
+     * {@link #setRolePermissionResolver RolePermissionResolver} returns different permissions for a role at runtime,
+     * the affected accounts' cached authorization info must be cleared for the change to be seen, exactly as when the
+     * account's own permissions change.
+     * <p/>
+     * Enabling this assumes that cached {@code AuthorizationInfo} instances are never modified in place.  Because the
+     * retained permissions are used directly by the {@code Authorizer} methods of this realm, the
+     * {@code protected} per-{@code AuthorizationInfo} methods (such as
+     * {@link #isPermitted(Permission, AuthorizationInfo)}) are no longer called for accounts whose permissions have
+     * been retained; subclasses overriding those methods should leave this disabled.
+     * <p/>
+     * The default value is {@code false}.
+     *
+     * @return {@code true} if resolved permissions should be retained alongside cached {@code AuthorizationInfo}.
+     * @since 1.13
+     */
+    public boolean isResolvedPermissionCachingEnabled() {
+        return resolvedPermissionCachingEnabled;
+    }
+
+    /**
+     * Sets whether the permissions resolved from a cached {@code AuthorizationInfo} instance should be retained for
+     * as long as that instance is cached.
+     * <p/>
+     * The default value is {@code false}.
+     *
+     * @param resolvedPermissionCachingEnabled the value to set
+     * @since 1.13
+     */
+    public void setResolvedPermissionCachingEnabled(boolean resolvedPermissionCachingEnabled) {
+        this.resolvedPermissionCachingEnabled = resolvedPermissionCachingEnabled;
+        resolvedAuthorizationSettingsChanged();
+    }
+
+    /**
+     * Returns {@code true} if permission checks against cached {@code AuthorizationInfo} should use a
+     * {@link PermissionIndex PermissionIndex} built once per account, {@code false} if every check should
+     * iterate over all of the account's permissions.
+     * <p/>
+     * Indexing only takes effect when {@link #isAuthorizationCachingEnabled() authorization caching} is enabled,
+     * since the index is only worth building when the account's {@code AuthorizationInfo} is reused.  Like
+     * {@link #isResolvedPermissionCachingEnabled() resolved permissions}, the index is retained under the account's
+     * {@link #getAuthorizationCacheKey authorization cache key} and is discarded when
+     * {@link #clearCachedAuthorizationInfo(PrincipalCollection) clearCachedAuthorizationInfo} is called, when the
+     * account's {@code AuthorizationInfo} has to be loaded again, or when a permission resolver is replaced.
+     * <p/>
+     * Enabling this assumes that cached {@code AuthorizationInfo} instances are never modified in place: permissions
+     * added to or removed from a cached instance are not seen until its cache entry is cleared.  As with resolved
+     * permissions, the {@code protected} per-{@code AuthorizationInfo} methods are bypassed for indexed accounts.
+     * <p/>
+     * The default value is {@code false}.
+     *
+     * @return {@code true} if permission checks should use a {@code PermissionIndex}, {@code false} otherwise.
+     * @since 1.13
+     */
+    public boolean isPermissionIndexingEnabled() {
+        return permissionIndexingEnabled;
+    }
+
+    /**
+     * Sets whether permission checks against cached {@code AuthorizationInfo} should use a
+     * {@link PermissionIndex PermissionIndex} built once per account.
+     * <p/>
+     * The default value is {@code false}.
+     *
+     * @param permissionIndexingEnabled the value to set
+     * @since 1.13
+     */
+    public void setPermissionIndexingEnabled(boolean permissionIndexingEnabled) {
+        this.permissionIndexingEnabled = permissionIndexingEnabled;
+        resolvedAuthorizationSettingsChanged();
+    }
+
+    private void resolvedAuthorizationSettingsChanged() {
+        this.resolvedAuthorizationEpoch.incrementAndGet();
+        if (this.resolvedPermissionCachingEnabled || this.permissionIndexingEnabled) {
+            if (this.resolvedAuthorizations == null) {
+                this.resolvedAuthorizations = new BoundedCache<Object, ResolvedAuthorization>(
+                        getClass().getName() + RESOLVED_AUTHORIZATIONS_SUFFIX, MAX_RESOLVED_AUTHORIZATIONS);
+            } else {
+                this.resolvedAuthorizations.clear();
+            }
+        } else {
+            this.resolvedAuthorizations = null;
+        }
     }
 
     /*--------------------------------------------
@@ -339,14 +528,17 @@ public abstract class AuthorizingRealm extends AuthenticatingRealm
 
         if (info == null) {
             // Call template method if the info was not found in a cache
+            long startTime = System.nanoTime();
             info = doGetAuthorizationInfo(principals);
             // If the info is not null and the cache has been created, then cache the authorization info.
             if (info != null && cache != null) {
+                recordCacheLoad(cache, startTime);
                 if (log.isTraceEnabled()) {
                     log.trace("Caching authorization info for principals: [" + principals + "].");
                 }
                 Object key = getAuthorizationCacheKey(principals);
                 cache.put(key, info);
+                discardResolvedAuthorization(key);
             }
         }
 
@@ -380,12 +572,71 @@ public abstract class AuthorizingRealm extends AuthenticatingRealm
             return;
         }
 
+        authorizationGeneration.incrementAndGet();
+
         Cache<Object, AuthorizationInfo> cache = getAvailableAuthorizationCache();
         //cache instance will be non-null if caching is enabled:
         if (cache != null) {
             Object key = getAuthorizationCacheKey(principals);
             cache.remove(key);
+            discardResolvedAuthorization(key);
+        }
+    }
+
+    private void discardResolvedAuthorization(Object key) {
+        Cache<Object, ResolvedAuthorization> resolved = this.resolvedAuthorizations;
+        if (resolved != null) {
+            resolvedAuthorizationVersions.incrementAndGet(resolvedAuthorizationStripe(key));
+            resolved.remove(key);
+        }
+    }
+
+    private static int resolvedAuthorizationStripe(Object key) {
+        int h = key != null ? key.hashCode() : 0;
+        return (h ^ (h >>> 16)) & (RESOLVED_AUTHORIZATION_VERSION_STRIPES - 1);
+    }
+
+    /**
+     * Returns the version of the retained permissions of the account identified by the given principals, to be
+     * passed to {@link #getResolvedAuthorization} once the account's AuthorizationInfo has been obtained.  The
+     * version changes whenever the account's retained permissions (or all retained permissions) are discarded.
+     */
+    private long getResolvedAuthorizationVersion(PrincipalCollection principals) {
+        if (this.resolvedAuthorizations == null || principals == null) {
+            return 0L;
+        }
+        //both counters only ever grow, so their sum changes whenever either does:
+        return resolvedAuthorizationEpoch.get() +
+                resolvedAuthorizationVersions.get(resolvedAuthorizationStripe(getAuthorizationCacheKey(principals)));
+    }
+
+    /**
+     * Discards all permissions resolved from cached {@code AuthorizationInfo} instances, as well as their indexes.
+     * The authorization cache itself is left untouched; permissions will be resolved again on the next check.
+     *
+     * @since 1.13
+     */
+    protected void clearResolvedPermissions() {
+        Cache<Object, ResolvedAuthorization> resolved = this.resolvedAuthorizations;
+        if (resolved != null) {
+            this.resolvedAuthorizationEpoch.incrementAndGet();
+            resolved.clear();
         }
+        this.authorizationGeneration.incrementAndGet();
+    }
+
+    /**
+     * Returns this realm's authorization generation: a counter incremented every time cached authorization data is
+     * discarded, such as when {@link #clearCachedAuthorizationInfo(PrincipalCollection) clearCachedAuthorizationInfo}
+     * is called or a permission resolver is replaced.  Components that derive results from this realm's
+     * authorization data, such as the decision cache of {@link org.apache.shiro.authz.ModularRealmAuthorizer}, use it
+     * to detect when those results are stale.
+     *
+     * @return this realm's authorization generation.
+     * @since 1.13
+     */
+    public long getAuthorizationGeneration() {
+        return authorizationGeneration.get();
     }
 
     /**
@@ -399,8 +650,53 @@ public abstract class AuthorizingRealm extends AuthenticatingRealm
      */
     protected abstract AuthorizationInfo doGetAuthorizationInfo(PrincipalCollection principals);
 
+    /**
+     * Returns all permissions granted by the specified {@code AuthorizationInfo}: its object permissions, its
+     * resolved string permissions and the resolved permissions of its roles.
+     *
+     * @param info the AuthorizationInfo whose permissions should be returned
+     * @return all permissions granted by the specified {@code AuthorizationInfo}, never {@code null}.
+     */
     //visibility changed from private to protected per SHIRO-332
     protected Collection<Permission> getPermissions(AuthorizationInfo info) {
+        return resolveAllPermissions(info);
+    }
+
+    /**
+     * Returns the permissions retained for the account identified by the given principals, resolving them from the
+     * given {@code AuthorizationInfo} (and indexing them) first if necessary, or {@code null} if neither
+     * {@link #isResolvedPermissionCachingEnabled() resolved permission caching} nor
+     * {@link #isPermissionIndexingEnabled() permission indexing} applies.
+     *
+     * @param principals the principals the {@code info} was obtained for
+     * @param info       the account's AuthorizationInfo, as returned by {@link #getAuthorizationInfo}
+     * @param version    the {@link #getResolvedAuthorizationVersion version} before {@code info} was obtained
+     * @return the retained permissions, or {@code null} if they should not be retained.
+     */
+    private ResolvedAuthorization getResolvedAuthorization(PrincipalCollection principals, AuthorizationInfo info,
+                                                           long version) {
+        Cache<Object, ResolvedAuthorization> resolvedAuthorizations = this.resolvedAuthorizations;
+        if (info == null || resolvedAuthorizations == null || getAvailableAuthorizationCache() == null) {
+            return null;
+        }
+        Object key = getAuthorizationCacheKey(principals);
+        ResolvedAuthorization resolved = resolvedAuthorizations.get(key);
+        if (resolved == null) {
+            resolved = new ResolvedAuthorization(getPermissions(info), isPermissionIndexingEnabled());
+            //don't retain permissions resolved from AuthorizationInfo that was discarded in the meantime, but leave
+            //an entry stored concurrently from newer AuthorizationInfo alone:
+            if (getResolvedAuthorizationVersion(principals) == version) {
+                resolvedAuthorizations.put(key, resolved);
+                if (getResolvedAuthorizationVersion(principals) != version &&
+                        resolvedAuthorizations.get(key) == resolved) {
+                    resolvedAuthorizations.remove(key);
+                }
+            }
+        }
+        return resolved;
+    }
+
+    private Collection<Permission> resolveAllPermissions(AuthorizationInfo info) {
         Set<Permission> permissions = new HashSet<Permission>();
 
         if (info != null) {
@@ -462,8 +758,19 @@ public abstract class AuthorizingRealm extends AuthenticatingRealm
     }
 
     public boolean isPermitted(PrincipalCollection principals, Permission permission) {
+        EventBus eventBus = this.eventBus;
+        if (!EventBusUtils.hasSubscribers(eventBus, PermissionCheckEvent.class)) {
+            long version = getResolvedAuthorizationVersion(principals);
+            AuthorizationInfo info = getAuthorizationInfo(principals);
+            return isPermitted(permission, info, getResolvedAuthorization(principals, info, version));
+        }
+        long startNanos = System.nanoTime();
+        long version = getResolvedAuthorizationVersion(principals);
         AuthorizationInfo info = getAuthorizationInfo(principals);
-        return isPermitted(permission, info);
+        boolean permitted = isPermitted(permission, info, getResolvedAuthorization(principals, info, version));
+        eventBus.publish(new PermissionCheckEvent(this, principals, permission, permitted,
+                System.nanoTime() - startNanos));
+        return permitted;
     }
 
     //visibility changed from private to protected per SHIRO-332
@@ -479,6 +786,60 @@ public abstract class AuthorizingRealm extends AuthenticatingRealm
         return false;
     }
 
+    private boolean isPermitted(Permission permission, AuthorizationInfo info, ResolvedAuthorization resolved) {
+        if (resolved == null) {
+            return isPermitted(permission, info);
+        }
+        return resolved.implies(permission);
+    }
+
+    private boolean[] isPermitted(Collection<Permission> permissions, AuthorizationInfo info,
+                                  ResolvedAuthorization resolved) {
+        if (resolved == null) {
+            List<Permission> list = permissions == null || permissions instanceof List ?
+                    (List<Permission>) permissions : new ArrayList<Permission>(permissions);
+            return isPermitted(list, info);
+        }
+        boolean[] result = new boolean[permissions != null ? permissions.size() : 0];
+        int i = 0;
+        if (permissions != null) {
+            for (Permission p : permissions) {
+                result[i++] = resolved.implies(p);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Returns the EventBus to publish {@code PermissionCheckEvent}s to, or {@code null} if nothing subscribes to them.
+     */
+    private EventBus getPermissionCheckEventBus() {
+        EventBus eventBus = this.eventBus;
+        return EventBusUtils.hasSubscribers(eventBus, PermissionCheckEvent.class) ? eventBus : null;
+    }
+
+    /**
+     * Publishes a {@code PermissionCheckEvent} for each permission of a multi-permission check, all reporting the
+     * duration of the whole check.
+     */
+    private void publishPermissionChecks(EventBus eventBus, PrincipalCollection principals,
+                                         Collection<Permission> permissions, boolean[] results, long startNanos) {
+        if (permissions == null) {
+            return;
+        }
+        long durationNanos = System.nanoTime() - startNanos;
+        int i = 0;
+        for (Permission p : permissions) {
+            eventBus.publish(new PermissionCheckEvent(this, principals, p, results[i++], durationNanos));
+        }
+    }
+
+    private static boolean[] granted(Collection<?> checked) {
+        boolean[] result = new boolean[checked != null ? checked.size() : 0];
+        Arrays.fill(result, true);
+        return result;
+    }
+
     public boolean[] isPermitted(PrincipalCollection subjectIdentifier, String... permissions) {
         List<Permission> perms = new ArrayList<Permission>(permissions.length);
         for (String permString : permissions) {
@@ -488,8 +849,15 @@ public abstract class AuthorizingRealm extends AuthenticatingRealm
     }
 
     public boolean[] isPermitted(PrincipalCollection principals, List<Permission> permissions) {
+        EventBus eventBus = getPermissionCheckEventBus();
+        long startNanos = eventBus != null ? System.nanoTime() : 0L;
+        long version = getResolvedAuthorizationVersion(principals);
         AuthorizationInfo info = getAuthorizationInfo(principals);
-        return isPermitted(permissions, info);
+        boolean[] result = isPermitted(permissions, info, getResolvedAuthorization(principals, info, version));
+        if (eventBus != null) {
+            publishPermissionChecks(eventBus, principals, permissions, result, startNanos);
+        }
+        return result;
     }
 
     protected boolean[] isPermitted(List<Permission> permissions, AuthorizationInfo info) {
@@ -519,8 +887,34 @@ public abstract class AuthorizingRealm extends AuthenticatingRealm
     }
 
     public boolean isPermittedAll(PrincipalCollection principal, Collection<Permission> permissions) {
+        EventBus eventBus = getPermissionCheckEventBus();
+        long startNanos = eventBus != null ? System.nanoTime() : 0L;
+        long version = getResolvedAuthorizationVersion(principal);
         AuthorizationInfo info = getAuthorizationInfo(principal);
-        return info != null && isPermittedAll(permissions, info);
+        if (info == null) {
+            return false;
+        }
+        ResolvedAuthorization resolved = getResolvedAuthorization(principal, info, version);
+        boolean permitted;
+        if (resolved == null) {
+            permitted = isPermittedAll(permissions, info);
+        } else {
+            permitted = true;
+            if (permissions != null) {
+                for (Permission p : permissions) {
+                    if (!resolved.implies(p)) {
+                        permitted = false;
+                        break;
+                    }
+                }
+            }
+        }
+        if (eventBus != null) {
+            //which permissions were denied is only worked out when some were:
+            boolean[] results = permitted ? granted(permissions) : isPermitted(permissions, info, resolved);
+            publishPermissionChecks(eventBus, principal, permissions, results, startNanos);
+        }
+        return permitted;
     }
 
     protected boolean isPermittedAll(Collection<Permission> permissions, AuthorizationInfo info) {
@@ -540,8 +934,29 @@ public abstract class AuthorizingRealm extends AuthenticatingRealm
     }
 
     public void checkPermission(PrincipalCollection principal, Permission permission) throws AuthorizationException {
+        EventBus eventBus = getPermissionCheckEventBus();
+        long startNanos = eventBus != null ? System.nanoTime() : 0L;
+        long version = getResolvedAuthorizationVersion(principal);
         AuthorizationInfo info = getAuthorizationInfo(principal);
-        checkPermission(permission, info);
+        ResolvedAuthorization resolved = getResolvedAuthorization(principal, info, version);
+        try {
+            if (resolved == null) {
+                checkPermission(permission, info);
+            } else if (!resolved.implies(permission)) {
+                String msg = "User is not permitted [" + permission + "]";
+                throw new UnauthorizedException(msg);
+            }
+        } catch (UnauthorizedException e) {
+            if (eventBus != null) {
+                eventBus.publish(new PermissionCheckEvent(this, principal, permission, false,
+                        System.nanoTime() - startNanos));
+            }
+            throw e;
+        }
+        if (eventBus != null) {
+            eventBus.publish(new PermissionCheckEvent(this, principal, permission, true,
+                    System.nanoTime() - startNanos));
+        }
     }
 
     protected void checkPermission(Permission permission, AuthorizationInfo info) {
@@ -560,8 +975,32 @@ public abstract class AuthorizingRealm extends AuthenticatingRealm
     }
 
     public void checkPermissions(PrincipalCollection principal, Collection<Permission> permissions) throws AuthorizationException {
+        EventBus eventBus = getPermissionCheckEventBus();
+        long startNanos = eventBus != null ? System.nanoTime() : 0L;
+        long version = getResolvedAuthorizationVersion(principal);
         AuthorizationInfo info = getAuthorizationInfo(principal);
-        checkPermissions(permissions, info);
+        ResolvedAuthorization resolved = getResolvedAuthorization(principal, info, version);
+        try {
+            if (resolved == null) {
+                checkPermissions(permissions, info);
+            } else if (permissions != null) {
+                for (Permission p : permissions) {
+                    if (!resolved.implies(p)) {
+                        String msg = "User is not permitted [" + p + "]";
+                        throw new UnauthorizedException(msg);
+                    }
+                }
+            }
+        } catch (UnauthorizedException e) {
+            if (eventBus != null) {
+                publishPermissionChecks(eventBus, principal, permissions, isPermitted(permissions, info, resolved),
+                        startNanos);
+            }
+            throw e;
+        }
+        if (eventBus != null) {
+            publishPermissionChecks(eventBus, principal, permissions, granted(permissions), startNanos);
+        }
     }
 
     protected void checkPermissions(Collection<Permission> permissions, AuthorizationInfo info) {
@@ -573,20 +1012,71 @@ public abstract class AuthorizingRealm extends AuthenticatingRealm
     }
 
     public boolean hasRole(PrincipalCollection principal, String roleIdentifier) {
+        EventBus eventBus = this.eventBus;
+        if (!EventBusUtils.hasSubscribers(eventBus, RoleCheckEvent.class)) {
+            AuthorizationInfo info = getAuthorizationInfo(principal);
+            return hasRole(roleIdentifier, info);
+        }
+        long startNanos = System.nanoTime();
         AuthorizationInfo info = getAuthorizationInfo(principal);
-        return hasRole(roleIdentifier, info);
+        boolean hasRole = hasRole(roleIdentifier, info);
+        eventBus.publish(new RoleCheckEvent(this, principal, roleIdentifier, hasRole,
+                System.nanoTime() - startNanos));
+        return hasRole;
     }
 
     protected boolean hasRole(String roleIdentifier, AuthorizationInfo info) {
         return info != null && info.getRoles() != null && info.getRoles().contains(roleIdentifier);
     }
 
+    /**
+     * Returns the EventBus to publish {@code RoleCheckEvent}s to, or {@code null} if nothing subscribes to them.
+     */
+    private EventBus getRoleCheckEventBus() {
+        EventBus eventBus = this.eventBus;
+        return EventBusUtils.hasSubscribers(eventBus, RoleCheckEvent.class) ? eventBus : null;
+    }
+
+    /**
+     * Publishes a {@code RoleCheckEvent} for each role of a multi-role check, all reporting the duration of the
+     * whole check.
+     */
+    private void publishRoleChecks(EventBus eventBus, PrincipalCollection principal, Collection<String> roles,
+                                   boolean[] results, long startNanos) {
+        if (roles == null) {
+            return;
+        }
+        long durationNanos = System.nanoTime() - startNanos;
+        int i = 0;
+        for (String roleName : roles) {
+            eventBus.publish(new RoleCheckEvent(this, principal, roleName, results[i++], durationNanos));
+        }
+    }
+
+    /**
+     * Returns the result of {@link #hasRoles(List, AuthorizationInfo)} for the specified roles, to tell which roles of
+     * a failed multi-role check are missing.
+     */
+    private boolean[] roleResults(Collection<String> roles, AuthorizationInfo info) {
+        if (info == null) {
+            return new boolean[roles != null ? roles.size() : 0];
+        }
+        List<String> list = roles == null || roles instanceof List ?
+                (List<String>) roles : new ArrayList<String>(roles);
+        return hasRoles(list, info);
+    }
+
     public boolean[] hasRoles(PrincipalCollection principal, List<String> roleIdentifiers) {
+        EventBus eventBus = getRoleCheckEventBus();
+        long startNanos = eventBus != null ? System.nanoTime() : 0L;
         AuthorizationInfo info = getAuthorizationInfo(principal);
         boolean[] result = new boolean[roleIdentifiers != null ? roleIdentifiers.size() : 0];
         if (info != null) {
             result = hasRoles(roleIdentifiers, info);
         }
+        if (eventBus != null) {
+            publishRoleChecks(eventBus, principal, roleIdentifiers, result, startNanos);
+        }
         return result;
     }
 
@@ -606,8 +1096,15 @@ public abstract class AuthorizingRealm extends AuthenticatingRealm
     }
 
     public boolean hasAllRoles(PrincipalCollection principal, Collection<String> roleIdentifiers) {
+        EventBus eventBus = getRoleCheckEventBus();
+        long startNanos = eventBus != null ? System.nanoTime() : 0L;
         AuthorizationInfo info = getAuthorizationInfo(principal);
-        return info != null && hasAllRoles(roleIdentifiers, info);
+        boolean hasAllRoles = info != null && hasAllRoles(roleIdentifiers, info);
+        if (eventBus != null && info != null) {
+            boolean[] results = hasAllRoles ? granted(roleIdentifiers) : roleResults(roleIdentifiers, info);
+            publishRoleChecks(eventBus, principal, roleIdentifiers, results, startNanos);
+        }
+        return hasAllRoles;
     }
 
     private boolean hasAllRoles(Collection<String> roleIdentifiers, AuthorizationInfo info) {
@@ -622,8 +1119,20 @@ public abstract class AuthorizingRealm extends AuthenticatingRealm
     }
 
     public void checkRole(PrincipalCollection principal, String role) throws AuthorizationException {
+        EventBus eventBus = getRoleCheckEventBus();
+        long startNanos = eventBus != null ? System.nanoTime() : 0L;
         AuthorizationInfo info = getAuthorizationInfo(principal);
-        checkRole(role, info);
+        try {
+            checkRole(role, info);
+        } catch (UnauthorizedException e) {
+            if (eventBus != null) {
+                eventBus.publish(new RoleCheckEvent(this, principal, role, false, System.nanoTime() - startNanos));
+            }
+            throw e;
+        }
+        if (eventBus != null) {
+            eventBus.publish(new RoleCheckEvent(this, principal, role, true, System.nanoTime() - startNanos));
+        }
     }
 
     protected void checkRole(String role, AuthorizationInfo info) {
@@ -634,8 +1143,20 @@ public abstract class AuthorizingRealm extends AuthenticatingRealm
     }
 
     public void checkRoles(PrincipalCollection principal, Collection<String> roles) throws AuthorizationException {
+        EventBus eventBus = getRoleCheckEventBus();
+        long startNanos = eventBus != null ? System.nanoTime() : 0L;
         AuthorizationInfo info = getAuthorizationInfo(principal);
-        checkRoles(roles, info);
+        try {
+            checkRoles(roles, info);
+        } catch (UnauthorizedException e) {
+            if (eventBus != null) {
+                publishRoleChecks(eventBus, principal, roles, roleResults(roles, info), startNanos);
+            }
+            throw e;
+        }
+        if (eventBus != null) {
+            publishRoleChecks(eventBus, principal, roles, granted(roles), startNanos);
+        }
     }
 
     public void checkRoles(PrincipalCollection principal, String... roles) throws AuthorizationException {
@@ -665,4 +1186,32 @@ public abstract class AuthorizingRealm extends AuthenticatingRealm
         super.doClearCache(principals);
         clearCachedAuthorizationInfo(principals);
     }
+
+    /**
+     * The permissions resolved from an account's cached {@code AuthorizationInfo}, and their index if indexing was
+     * enabled when they were resolved.
+     */
+    private static final class ResolvedAuthorization {
+
+        private final Collection<Permission> permissions;
+        private final PermissionIndex index;
+
+        private ResolvedAuthorization(Collection<Permission> permissions, boolean indexed) {
+            this.permissions = permissions;
+            //built once along with the permissions, rather than by whichever concurrent checks come first:
+            this.index = indexed ? new PermissionIndex(permissions) : null;
+        }
+
+        private boolean implies(Permission permission) {
+            if (index != null) {
+                return index.implies(permission);
+            }
+            for (Permission perm : permissions) {
+                if (perm.implies(permission)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
 }
@@ -19,8 +19,11 @@
 package org.apache.shiro.realm;
 
 import org.apache.shiro.authc.LogoutAware;
+import org.apache.shiro.cache.Cache;
 import org.apache.shiro.cache.CacheManager;
 import org.apache.shiro.cache.CacheManagerAware;
+import org.apache.shiro.cache.CacheStatistics;
+import org.apache.shiro.cache.InstrumentedCache;
 import org.apache.shiro.subject.PrincipalCollection;
 import org.apache.shiro.util.CollectionUtils;
 import org.apache.shiro.util.Nameable;
@@ -28,6 +31,8 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
 import java.util.concurrent.atomic.AtomicInteger;
 
 /**
@@ -140,6 +145,47 @@ public abstract class CachingRealm implements Realm, Nameable, CacheManagerAware
     protected void afterCacheManagerSet() {
     }
 
+    /**
+     * Returns the statistics of the caches used by this realm that keep them (see
+     * {@link org.apache.shiro.cache.InstrumentedCache InstrumentedCache}), keyed by cache name.  Caches that have not
+     * been created yet are not included.
+     * <p/>
+     * This implementation returns an empty map; subclasses that use caches add their own.
+     *
+     * @return the statistics of the caches used by this realm, keyed by cache name.
+     * @since 1.13
+     */
+    public Map<String, CacheStatistics> getCacheStatistics() {
+        return new LinkedHashMap<String, CacheStatistics>();
+    }
+
+    /**
+     * Adds the statistics of the specified cache to the map, if the cache keeps statistics.
+     *
+     * @param statistics the map to add to
+     * @param cacheName  the name of the cache
+     * @param cache      the cache, may be {@code null}
+     * @since 1.13
+     */
+    protected static void addCacheStatistics(Map<String, CacheStatistics> statistics, String cacheName, Cache<?, ?> cache) {
+        if (cache instanceof InstrumentedCache) {
+            statistics.put(cacheName, ((InstrumentedCache<?, ?>) cache).getStatistics());
+        }
+    }
+
+    /**
+     * Reports to the specified cache, if it keeps statistics, that a value missing from it was computed.
+     *
+     * @param cache     the cache the value was missing from, may be {@code null}
+     * @param startTime the {@link System#nanoTime()} at which computing the value started
+     * @since 1.13
+     */
+    protected static void recordCacheLoad(Cache<?, ?> cache, long startTime) {
+        if (cache instanceof InstrumentedCache) {
+            ((InstrumentedCache<?, ?>) cache).recordLoad(System.nanoTime() - startTime);
+        }
+    }
+
     /**
      * If caching is enabled, this will clear any cached data associated with the specified account identity.
      * Subclasses are free to override for additional behavior, but be sure to call {@code super.onLogout} first.
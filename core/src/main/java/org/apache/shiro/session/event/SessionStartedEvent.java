@@ -0,0 +1,45 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.shiro.session.event;
+
+import org.apache.shiro.session.Session;
+
+/**
+ * Event triggered when a session has been started.
+ *
+ * @since 1.13
+ */
+public class SessionStartedEvent extends SessionEvent {
+
+    private final long durationNanos;
+
+    public SessionStartedEvent(Object source, Session session, long durationNanos) {
+        super(source, session);
+        this.durationNanos = durationNanos;
+    }
+
+    /**
+     * Returns the number of nanoseconds it took to create and store the session.
+     *
+     * @return the number of nanoseconds it took to create and store the session.
+     */
+    public long getDurationNanos() {
+        return durationNanos;
+    }
+}
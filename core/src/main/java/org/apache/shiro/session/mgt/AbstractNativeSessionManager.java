@@ -21,19 +21,27 @@ package org.apache.shiro.session.mgt;
 import org.apache.shiro.authz.AuthorizationException;
 import org.apache.shiro.event.EventBus;
 import org.apache.shiro.event.EventBusAware;
+import org.apache.shiro.event.EventBusUtils;
 import org.apache.shiro.session.InvalidSessionException;
 import org.apache.shiro.session.Session;
 import org.apache.shiro.session.SessionException;
 import org.apache.shiro.session.SessionListener;
 import org.apache.shiro.session.UnknownSessionException;
+import org.apache.shiro.session.event.SessionExpiredEvent;
+import org.apache.shiro.session.event.SessionStartedEvent;
+import org.apache.shiro.session.event.SessionStoppedEvent;
 import org.apache.shiro.util.CollectionUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Date;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 /**
  * Abstract implementation supporting the {@link NativeSessionManager NativeSessionManager} interface, supporting
@@ -50,6 +58,13 @@ public abstract class AbstractNativeSessionManager extends AbstractSessionManage
 
     private Collection<SessionListener> listeners;
 
+    private long touchGranularity;
+
+    /**
+     * The persisted lastAccessTime of sessions whose latest touches were not persisted, keyed by session id.
+     */
+    private final ConcurrentMap<Serializable, Long> unpersistedTouches = new ConcurrentHashMap<Serializable, Long>();
+
     public AbstractNativeSessionManager() {
         this.listeners = new ArrayList<SessionListener>();
     }
@@ -64,7 +79,40 @@ public abstract class AbstractNativeSessionManager extends AbstractSessionManage
     }
 
     /**
-     * Returns the EventBus used to publish SessionEvents.
+     * Returns the minimum number of milliseconds a {@link #touch(SessionKey) touch} must move a session's
+     * {@link Session#getLastAccessTime() lastAccessTime} forward for the session to be persisted.  Defaults to
+     * {@code 0}, meaning every touch is persisted.
+     *
+     * @return the minimum number of milliseconds a touch must move a session's lastAccessTime forward for the
+     *         session to be persisted.
+     * @since 1.13
+     */
+    public long getTouchGranularity() {
+        return touchGranularity;
+    }
+
+    /**
+     * Sets the minimum number of milliseconds a {@link #touch(SessionKey) touch} must move a session's
+     * {@link Session#getLastAccessTime() lastAccessTime} forward, compared to its last persisted value, for the
+     * session to be persisted.
+     * <p/>
+     * Most session writes of a busy application exist only to move the lastAccessTime forward by a fraction of a
+     * second; a granularity of a few seconds removes nearly all of them.  The in-memory lastAccessTime is always
+     * exact, and any other change to the session is persisted as usual (including its lastAccessTime).  However, the
+     * persisted lastAccessTime may lag behind by up to this amount, so a session may be considered expired by
+     * this much too early when validated from its persisted state.  The granularity should therefore be small
+     * compared to the session timeout.
+     *
+     * @param touchGranularity the minimum number of milliseconds a touch must move a session's lastAccessTime
+     *                         forward for the session to be persisted, or {@code 0} to persist every touch.
+     * @since 1.13
+     */
+    public void setTouchGranularity(long touchGranularity) {
+        this.touchGranularity = touchGranularity;
+    }
+
+    /**
+     * Returns the EventBus used to publish {@link org.apache.shiro.session.event.SessionEvent SessionEvent}s.
      *
      * @return the EventBus used to publish SessionEvents.
      * @since 1.3
@@ -99,6 +147,10 @@ public abstract class AbstractNativeSessionManager extends AbstractSessionManage
      * 开启会话的入口方法
      */
     public Session start(SessionContext context) {
+        // 只有存在订阅者时才计时并发布 SessionStartedEvent
+        boolean publish = EventBusUtils.hasSubscribers(this.eventBus, SessionStartedEvent.class);
+        long startNanos = publish ? System.nanoTime() : 0L;
+
         // 底层调用 SessionFactory 创建新的 Session 对象
         Session session = createSession(context);
 
@@ -110,6 +162,9 @@ public abstract class AbstractNativeSessionManager extends AbstractSessionManage
 
         // 通知所有监听器
         notifyStart(session);
+        if (publish) {
+            publishEvent(new SessionStartedEvent(this, session, System.nanoTime() - startNanos));
+        }
 
         //Don't expose the EIS-tier Session object to the client-tier:
         return createExposedSession(session, context);
@@ -211,6 +266,9 @@ public abstract class AbstractNativeSessionManager extends AbstractSessionManage
         for (SessionListener listener : this.listeners) {
             listener.onStop(forNotification);
         }
+        if (EventBusUtils.hasSubscribers(this.eventBus, SessionStoppedEvent.class)) {
+            publishEvent(new SessionStoppedEvent(this, forNotification));
+        }
     }
 
     protected void notifyExpiration(Session session) {
@@ -218,6 +276,42 @@ public abstract class AbstractNativeSessionManager extends AbstractSessionManage
         for (SessionListener listener : this.listeners) {
             listener.onExpiration(forNotification);
         }
+        if (EventBusUtils.hasSubscribers(this.eventBus, SessionExpiredEvent.class)) {
+            publishEvent(new SessionExpiredEvent(this, forNotification));
+        }
+    }
+
+    /**
+     * Forgets the persisted lastAccessTime remembered for the specified session, once the session has been persisted
+     * (so that its next touch is compared to what was just persisted) or is gone.
+     */
+    void forgetUnpersistedTouches(Session session) {
+        if (session.getId() != null) {
+            unpersistedTouches.remove(session.getId());
+        }
+    }
+
+    /**
+     * Returns {@code true} if the latest touches of the session with the specified id were not persisted.
+     */
+    boolean hasUnpersistedTouches(Serializable sessionId) {
+        return unpersistedTouches.containsKey(sessionId);
+    }
+
+    /**
+     * Forgets the persisted lastAccessTime remembered for all sessions except the specified ones, which are known
+     * to still exist.
+     */
+    void retainUnpersistedTouches(Set<Serializable> sessionIds) {
+        unpersistedTouches.keySet().retainAll(sessionIds);
+    }
+
+    /**
+     * Persists a changed session through {@link #onChange(Session)}.
+     */
+    private void persist(Session session) {
+        onChange(session);
+        forgetUnpersistedTouches(session);
     }
 
     public Date getStartTimestamp(SessionKey key) {
@@ -235,13 +329,46 @@ public abstract class AbstractNativeSessionManager extends AbstractSessionManage
     public void setTimeout(SessionKey key, long maxIdleTimeInMillis) throws InvalidSessionException {
         Session s = lookupRequiredSession(key);
         s.setTimeout(maxIdleTimeInMillis);
-        onChange(s);
+        persist(s);
     }
 
     public void touch(SessionKey key) throws InvalidSessionException {
         Session s = lookupRequiredSession(key);
+        Date previousAccessTime = s.getLastAccessTime();
         s.touch();
-        onChange(s);
+        if (isTouchPersistent(s, previousAccessTime)) {
+            onChange(s);
+        }
+    }
+
+    /**
+     * Returns {@code true} if a touch of the specified session must be persisted, that is if it moved the session's
+     * lastAccessTime forward by at least the {@link #getTouchGranularity() touchGranularity} since it was last
+     * persisted.
+     *
+     * @param session            the session that was touched
+     * @param previousAccessTime the lastAccessTime of the session as retrieved, before it was touched
+     * @return {@code true} if the touch must be persisted, {@code false} otherwise.
+     * @since 1.13
+     */
+    protected boolean isTouchPersistent(Session session, Date previousAccessTime) {
+        Serializable sessionId = session.getId();
+        Date lastAccessTime = session.getLastAccessTime();
+        if (touchGranularity <= 0 || sessionId == null || previousAccessTime == null || lastAccessTime == null) {
+            return true;
+        }
+        //the retrieved session may be the very instance skipped touches were applied to, so remember what was
+        //persisted rather than trusting previousAccessTime:
+        Long persistedAccessTime = unpersistedTouches.get(sessionId);
+        long baseline = persistedAccessTime != null ? persistedAccessTime : previousAccessTime.getTime();
+        if (lastAccessTime.getTime() - baseline >= touchGranularity) {
+            unpersistedTouches.remove(sessionId);
+            return true;
+        }
+        if (persistedAccessTime == null) {
+            unpersistedTouches.putIfAbsent(sessionId, baseline);
+        }
+        return false;
     }
 
     public String getHost(SessionKey key) {
@@ -266,7 +393,7 @@ public abstract class AbstractNativeSessionManager extends AbstractSessionManage
         } else {
             Session s = lookupRequiredSession(sessionKey);
             s.setAttribute(attributeKey, value);
-            onChange(s);
+            persist(s);
         }
     }
 
@@ -274,7 +401,7 @@ public abstract class AbstractNativeSessionManager extends AbstractSessionManage
         Session s = lookupRequiredSession(sessionKey);
         Object removed = s.removeAttribute(attributeKey);
         if (removed != null) {
-            onChange(s);
+            persist(s);
         }
         return removed;
     }
@@ -307,7 +434,7 @@ public abstract class AbstractNativeSessionManager extends AbstractSessionManage
     }
 
     protected void onStop(Session session) {
-        onChange(session);
+        persist(session);
     }
 
     protected void afterStopped(Session session) {
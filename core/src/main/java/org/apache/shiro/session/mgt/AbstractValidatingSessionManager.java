@@ -28,11 +28,55 @@ import org.apache.shiro.util.LifecycleUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.Serializable;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.Date;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 
 /**
  * Default business-tier implementation of the {@link ValidatingSessionManager} interface.
+ * <h3>Incremental validation</h3>
+ * By default, {@link #validateSessions()} validates every {@link #getActiveSessions() active session} on each run,
+ * which becomes expensive with a large number of sessions.  If
+ * {@link #setIncrementalValidationEnabled(boolean) incrementalValidationEnabled} is {@code true}, sessions are instead
+ * kept in a {@link SessionExpirationIndex} ordered by expected expiration time, and each run after the first only
+ * validates the sessions that are due, rescheduling those that were accessed in the meantime.  The cost of a run is
+ * then proportional to the number of expiring sessions, which allows a much shorter
+ * {@link #setSessionValidationInterval(long) sessionValidationInterval}.
+ * <p/>
+ * Sessions are indexed when created or first retrieved by this manager.  When several nodes share a
+ * {@code SessionDAO}, sessions only ever used by another node are not indexed here; set the
+ * {@link #setFullValidationInterval(long) fullValidationInterval} so that all active sessions are still validated
+ * from time to time.
+ * <h3>Parallel validation</h3>
+ * With more than one {@link #setSessionValidationThreads(int) sessionValidationThreads}, the sessions to validate
+ * are split into chunks of {@link #setSessionValidationChunkSize(int) sessionValidationChunkSize} sessions that are
+ * validated concurrently.  Since invalid sessions are typically updated and deleted through a {@code SessionDAO},
+ * {@link #setMaxInvalidationsPerSecond(int) maxInvalidationsPerSecond} can limit the load a validation run puts on
+ * the underlying data store.  This applies to whichever {@link SessionValidationScheduler} triggers the validation.
+ * <p/>
+ * Full validation runs enumerate the active sessions through {@link #getActiveSessionIterator(int)}, a
+ * {@code sessionValidationChunkSize} page at a time when the session store supports it, and only a few chunks are
+ * queued for the validation threads at any time, so the memory used by a run does not grow with the number of
+ * sessions.
+ * <p/>
+ * The outcome of every run is reported to the {@link #setSessionValidationListeners(Collection)
+ * sessionValidationListeners}.
  *
  * @since 0.1
  */
@@ -58,6 +102,43 @@ public abstract class AbstractValidatingSessionManager extends AbstractNativeSes
 
     protected long sessionValidationInterval;
 
+    private boolean incrementalValidationEnabled;
+
+    private long fullValidationInterval;
+
+    private final SessionExpirationIndex expirationIndex = new SessionExpirationIndex();
+
+    /**
+     * The default number of sessions validated together by one thread when validating in parallel.
+     *
+     * @since 1.13
+     */
+    public static final int DEFAULT_SESSION_VALIDATION_CHUNK_SIZE = 1000;
+
+    private int sessionValidationThreads = 1;
+
+    private int sessionValidationChunkSize = DEFAULT_SESSION_VALIDATION_CHUNK_SIZE;
+
+    private int maxInvalidationsPerSecond;
+
+    private Collection<SessionValidationListener> sessionValidationListeners =
+            new ArrayList<SessionValidationListener>();
+
+    private ExecutorService sessionValidationExecutor;
+
+    /**
+     * Earliest time, as given by {@link System#nanoTime()}, at which the next session may be invalidated.
+     */
+    private long nextInvalidationTime;
+
+    private final Object invalidationRateLock = new Object();
+
+    /**
+     * Time of the last validation of all active sessions, or {@code 0} if the expiration index was not populated
+     * yet.
+     */
+    private volatile long lastFullValidation;
+
     public AbstractValidatingSessionManager() {
         this.sessionValidationSchedulerEnabled = true;
         this.sessionValidationInterval = DEFAULT_SESSION_VALIDATION_INTERVAL;
@@ -109,6 +190,166 @@ public abstract class AbstractValidatingSessionManager extends AbstractNativeSes
         return sessionValidationInterval;
     }
 
+    /**
+     * Returns {@code true} if {@link #validateSessions()} only validates the sessions due to expire, {@code false}
+     * if it validates all active sessions.  The default is {@code false}.
+     *
+     * @return {@code true} if {@link #validateSessions()} only validates the sessions due to expire.
+     * @since 1.13
+     */
+    public boolean isIncrementalValidationEnabled() {
+        return incrementalValidationEnabled;
+    }
+
+    /**
+     * Sets whether {@link #validateSessions()} only validates the sessions due to expire, as tracked by an
+     * expiration index, instead of all active sessions.  The first validation after enabling this still validates all
+     * active sessions, to populate the index.
+     *
+     * @param incrementalValidationEnabled whether {@link #validateSessions()} only validates the sessions due to
+     *                                     expire.
+     * @since 1.13
+     */
+    public void setIncrementalValidationEnabled(boolean incrementalValidationEnabled) {
+        this.incrementalValidationEnabled = incrementalValidationEnabled;
+        if (!incrementalValidationEnabled) {
+            this.expirationIndex.clear();
+            this.lastFullValidation = 0;
+        }
+    }
+
+    /**
+     * Returns the minimum number of milliseconds between two validations of all active sessions when
+     * {@link #isIncrementalValidationEnabled() incrementalValidationEnabled}.  Defaults to {@code 0}, meaning all
+     * active sessions are only validated once, to populate the expiration index.
+     *
+     * @return the minimum number of milliseconds between two validations of all active sessions.
+     * @since 1.13
+     */
+    public long getFullValidationInterval() {
+        return fullValidationInterval;
+    }
+
+    /**
+     * Sets the minimum number of milliseconds between two validations of all active sessions when
+     * {@link #isIncrementalValidationEnabled() incrementalValidationEnabled}.  This is only needed when sessions may
+     * be created and used without this manager, typically by other nodes sharing the same {@code SessionDAO}.
+     *
+     * @param fullValidationInterval the minimum number of milliseconds between two validations of all active
+     *                               sessions, or {@code 0} to only validate all of them once.
+     * @since 1.13
+     */
+    public void setFullValidationInterval(long fullValidationInterval) {
+        this.fullValidationInterval = fullValidationInterval;
+    }
+
+    /**
+     * Returns the number of threads validating sessions concurrently during a validation run.  Defaults to {@code 1},
+     * meaning sessions are validated by the thread calling {@link #validateSessions()}.
+     *
+     * @return the number of threads validating sessions concurrently during a validation run.
+     * @since 1.13
+     */
+    public int getSessionValidationThreads() {
+        return sessionValidationThreads;
+    }
+
+    /**
+     * Sets the number of threads validating sessions concurrently during a validation run.  Only takes effect if set
+     * before the first validation run.
+     *
+     * @param sessionValidationThreads the number of threads validating sessions concurrently.
+     * @since 1.13
+     */
+    public void setSessionValidationThreads(int sessionValidationThreads) {
+        if (sessionValidationThreads <= 0) {
+            throw new IllegalArgumentException("sessionValidationThreads must be greater than zero.");
+        }
+        this.sessionValidationThreads = sessionValidationThreads;
+    }
+
+    /**
+     * Returns the number of sessions validated together by one thread when validating in parallel, which is also the
+     * number of sessions fetched at once when enumerating the active sessions.  Defaults to
+     * {@link #DEFAULT_SESSION_VALIDATION_CHUNK_SIZE}.
+     *
+     * @return the number of sessions validated together by one thread when validating in parallel.
+     * @since 1.13
+     */
+    public int getSessionValidationChunkSize() {
+        return sessionValidationChunkSize;
+    }
+
+    /**
+     * Sets the number of sessions validated together by one thread when validating in parallel.
+     *
+     * @param sessionValidationChunkSize the number of sessions validated together by one thread.
+     * @since 1.13
+     */
+    public void setSessionValidationChunkSize(int sessionValidationChunkSize) {
+        if (sessionValidationChunkSize <= 0) {
+            throw new IllegalArgumentException("sessionValidationChunkSize must be greater than zero.");
+        }
+        this.sessionValidationChunkSize = sessionValidationChunkSize;
+    }
+
+    /**
+     * Returns the maximum number of sessions invalidated per second during a validation run, across all validation
+     * threads.  Defaults to {@code 0}, meaning no limit.
+     *
+     * @return the maximum number of sessions invalidated per second during a validation run.
+     * @since 1.13
+     */
+    public int getMaxInvalidationsPerSecond() {
+        return maxInvalidationsPerSecond;
+    }
+
+    /**
+     * Sets the maximum number of sessions invalidated per second during a validation run, across all validation
+     * threads.  Every invalidated session usually results in writes to (and deletes from) the {@code SessionDAO}, so
+     * this bounds the load a validation run following a mass expiration puts on the data store, at the cost of a
+     * longer run.
+     *
+     * @param maxInvalidationsPerSecond the maximum number of sessions invalidated per second, or {@code 0} for no
+     *                                  limit.
+     * @since 1.13
+     */
+    public void setMaxInvalidationsPerSecond(int maxInvalidationsPerSecond) {
+        this.maxInvalidationsPerSecond = maxInvalidationsPerSecond;
+    }
+
+    /**
+     * Returns the listeners notified of the outcome of every validation run.
+     *
+     * @return the listeners notified of the outcome of every validation run.
+     * @since 1.13
+     */
+    public Collection<SessionValidationListener> getSessionValidationListeners() {
+        return sessionValidationListeners;
+    }
+
+    /**
+     * Sets the listeners notified of the outcome of every validation run.
+     *
+     * @param sessionValidationListeners the listeners notified of the outcome of every validation run.
+     * @since 1.13
+     */
+    public void setSessionValidationListeners(Collection<SessionValidationListener> sessionValidationListeners) {
+        this.sessionValidationListeners = sessionValidationListeners != null ? sessionValidationListeners :
+                new ArrayList<SessionValidationListener>();
+    }
+
+    /**
+     * Returns the index of the sessions known to this manager, ordered by expected expiration time, used when
+     * {@link #isIncrementalValidationEnabled() incrementalValidationEnabled}.
+     *
+     * @return the index of the sessions known to this manager, ordered by expected expiration time.
+     * @since 1.13
+     */
+    protected SessionExpirationIndex getExpirationIndex() {
+        return expirationIndex;
+    }
+
     @Override
     protected final Session doGetSession(final SessionKey key) throws InvalidSessionException {
         // 开启会话校验定时器
@@ -119,6 +360,9 @@ public abstract class AbstractValidatingSessionManager extends AbstractNativeSes
         Session s = retrieveSession(key);
         if (s != null) {
             validate(s, key);
+            if (incrementalValidationEnabled && s.getId() != null && !expirationIndex.contains(s.getId())) {
+                scheduleExpiration(s, true);
+            }
         }
         return s;
     }
@@ -134,7 +378,11 @@ public abstract class AbstractValidatingSessionManager extends AbstractNativeSes
 
     protected Session createSession(SessionContext context) throws AuthorizationException {
         enableSessionValidationIfNecessary();
-        return doCreateSession(context);
+        Session s = doCreateSession(context);
+        if (incrementalValidationEnabled && s != null && s.getId() != null) {
+            scheduleExpiration(s, false);
+        }
+        return s;
     }
 
     protected abstract Session doCreateSession(SessionContext initData) throws AuthorizationException;
@@ -165,6 +413,7 @@ public abstract class AbstractValidatingSessionManager extends AbstractNativeSes
 
     protected void onExpiration(Session session) {
         onChange(session);
+        forgetUnpersistedTouches(session);
     }
 
     protected void afterExpired(Session session) {
@@ -209,6 +458,36 @@ public abstract class AbstractValidatingSessionManager extends AbstractNativeSes
         return session.getTimeout();
     }
 
+    /**
+     * Returns the time at which the specified session expires unless accessed again, based on its last access time
+     * and {@link #getTimeout(Session) timeout}, or {@code -1} if it never expires.
+     *
+     * @param session the session for which to determine the expiration time.
+     * @return the time, in milliseconds since the epoch, at which the session expires, or {@code -1} if it never
+     *         expires.
+     * @since 1.13
+     */
+    protected long getExpirationTime(Session session) {
+        long timeout = getTimeout(session);
+        if (timeout < 0) {
+            return -1;
+        }
+        Date lastAccessTime = session.getLastAccessTime();
+        //without a last access time the session can only be checked right away:
+        return lastAccessTime != null ? lastAccessTime.getTime() + timeout : System.currentTimeMillis();
+    }
+
+    private void scheduleExpiration(Session session, boolean ifAbsent) {
+        long expirationTime = getExpirationTime(session);
+        if (expirationTime < 0) {
+            expirationIndex.remove(session.getId());
+        } else if (ifAbsent) {
+            expirationIndex.scheduleIfAbsent(session.getId(), expirationTime);
+        } else {
+            expirationIndex.schedule(session.getId(), expirationTime);
+        }
+    }
+
     protected SessionValidationScheduler createSessionValidationScheduler() {
         ExecutorServiceSessionValidationScheduler scheduler;
 
@@ -268,41 +547,58 @@ public abstract class AbstractValidatingSessionManager extends AbstractNativeSes
 
     public void destroy() {
         disableSessionValidation();
+        ExecutorService executor;
+        synchronized (this) {
+            executor = sessionValidationExecutor;
+            sessionValidationExecutor = null;
+        }
+        if (executor != null) {
+            executor.shutdownNow();
+        }
     }
 
     /**
+     * Validates all active sessions or, if {@link #isIncrementalValidationEnabled() incrementalValidationEnabled},
+     * only those due to expire, then notifies the {@link #getSessionValidationListeners() sessionValidationListeners}.
+     *
      * @see ValidatingSessionManager#validateSessions()
      */
     public void validateSessions() {
-        if (log.isInfoEnabled()) {
-            log.info("Validating all active sessions...");
-        }
-
-        int invalidCount = 0;
-
-        Collection<Session> activeSessions = getActiveSessions();
-
-        if (activeSessions != null && !activeSessions.isEmpty()) {
-            for (Session s : activeSessions) {
-                try {
-                    //simulate a lookup key to satisfy the method signature.
-                    //this could probably stand to be cleaned up in future versions:
-                    SessionKey key = new DefaultSessionKey(s.getId());
-                    validate(s, key);
-                } catch (InvalidSessionException e) {
-                    if (log.isDebugEnabled()) {
-                        boolean expired = (e instanceof ExpiredSessionException);
-                        String msg = "Invalidated session with id [" + s.getId() + "]" +
-                                (expired ? " (expired)" : " (stopped)");
-                        log.debug(msg);
-                    }
-                    invalidCount++;
-                }
+        long startTime = System.currentTimeMillis();
+        boolean incremental = false;
+        if (incrementalValidationEnabled) {
+            long last = lastFullValidation;
+            if (last > 0 && (fullValidationInterval <= 0 || startTime - last < fullValidationInterval)) {
+                incremental = true;
+            } else {
+                lastFullValidation = startTime;
             }
         }
 
-        if (log.isInfoEnabled()) {
+        ValidationRun run;
+        if (incremental) {
+            List<Serializable> due = expirationIndex.pollDue(startTime);
+            run = new ValidationRun(false, due);
+            if (log.isDebugEnabled()) {
+                log.debug("Validating [{}] sessions due to expire...", due.size());
+            }
+            validateAll(due.iterator(), run);
+        } else {
+            if (log.isInfoEnabled()) {
+                log.info("Validating all active sessions...");
+            }
+            run = new ValidationRun(true, null);
+            validateAll(getActiveSessionIterator(sessionValidationChunkSize), run);
+        }
+        afterSessionValidationComplete(run);
+
+        SessionValidationResult result = new SessionValidationResult(startTime,
+                System.currentTimeMillis() - startTime, incremental, run.scanned.get(), run.expired.get(),
+                run.stopped.get(), run.errors.get());
+
+        if (log.isInfoEnabled() && (!incremental || result.getExpiredCount() + result.getStoppedCount() > 0)) {
             String msg = "Finished session validation.";
+            int invalidCount = result.getExpiredCount() + result.getStoppedCount();
             if (invalidCount > 0) {
                 msg += "  [" + invalidCount + "] sessions were stopped.";
             } else {
@@ -310,7 +606,277 @@ public abstract class AbstractValidatingSessionManager extends AbstractNativeSes
             }
             log.info(msg);
         }
+        notifyValidation(result);
+    }
+
+    /**
+     * Indexes again the due sessions that could not be validated, so that the next run retries them, and forgets
+     * what is remembered about sessions that a complete validation of all active sessions did not find, such as
+     * sessions deleted directly from the underlying store.
+     */
+    private void afterSessionValidationComplete(ValidationRun run) {
+        if (run.unfinished != null && !run.unfinished.isEmpty()) {
+            log.debug("[{}] sessions due to expire were not validated.  They will be retried.", run.unfinished.size());
+            long now = System.currentTimeMillis();
+            for (Serializable sessionId : run.unfinished) {
+                expirationIndex.scheduleIfAbsent(sessionId, now);
+            }
+        }
+        if (run.liveSessionIds != null && !run.incomplete) {
+            retainUnpersistedTouches(run.liveSessionIds);
+        }
+    }
+
+    /**
+     * Validates the specified sessions, or sessions identified by id, either on the calling thread or in chunks on
+     * the {@link #getSessionValidationThreads() session validation threads}.  At most two chunks per thread are
+     * queued at any time, so that sessions are not taken from the iterator faster than they are validated.
+     */
+    private void validateAll(Iterator<?> sessions, ValidationRun run) {
+        if (sessions == null || !sessions.hasNext()) {
+            return;
+        }
+        if (sessionValidationThreads <= 1) {
+            run.validateAll(sessions);
+            return;
+        }
+        int chunkSize = sessionValidationChunkSize;
+        List<Object> chunk = nextChunk(sessions, chunkSize);
+        if (!sessions.hasNext()) {
+            run.validateAll(chunk.iterator());
+            return;
+        }
+
+        ExecutorService executor = getSessionValidationExecutor();
+        int maxQueued = sessionValidationThreads * 2;
+        Deque<Future<?>> futures = new ArrayDeque<Future<?>>(maxQueued);
+        while (!chunk.isEmpty()) {
+            if (futures.size() >= maxQueued && !awaitChunk(futures, run)) {
+                return;
+            }
+            futures.add(executor.submit(run.chunk(chunk)));
+            chunk = nextChunk(sessions, chunkSize);
+        }
+        while (!futures.isEmpty()) {
+            if (!awaitChunk(futures, run)) {
+                return;
+            }
+        }
+    }
+
+    private static List<Object> nextChunk(Iterator<?> sessions, int chunkSize) {
+        List<Object> chunk = new ArrayList<Object>(chunkSize);
+        while (chunk.size() < chunkSize && sessions.hasNext()) {
+            chunk.add(sessions.next());
+        }
+        return chunk;
+    }
+
+    /**
+     * Waits for the oldest queued chunk to be validated, returning {@code false} and cancelling all queued chunks if
+     * the calling thread is interrupted.
+     */
+    private boolean awaitChunk(Deque<Future<?>> futures, ValidationRun run) {
+        Future<?> future = futures.poll();
+        try {
+            future.get();
+        } catch (InterruptedException e) {
+            run.incomplete = true;
+            future.cancel(true);
+            for (Future<?> f : futures) {
+                f.cancel(true);
+            }
+            futures.clear();
+            Thread.currentThread().interrupt();
+            return false;
+        } catch (ExecutionException e) {
+            run.incomplete = true;
+            log.error("Unable to validate a chunk of sessions.", e.getCause());
+        }
+        return true;
+    }
+
+    private synchronized ExecutorService getSessionValidationExecutor() {
+        if (sessionValidationExecutor == null) {
+            sessionValidationExecutor = Executors.newFixedThreadPool(sessionValidationThreads, new ThreadFactory() {
+                private final AtomicInteger count = new AtomicInteger(1);
+
+                public Thread newThread(Runnable r) {
+                    Thread thread = new Thread(r);
+                    thread.setDaemon(true);
+                    thread.setName("SessionValidationWorker-" + count.getAndIncrement());
+                    return thread;
+                }
+            });
+        }
+        return sessionValidationExecutor;
+    }
+
+    /**
+     * Waits as long as needed to keep invalidations under {@link #getMaxInvalidationsPerSecond()}.
+     */
+    private void throttleInvalidation() {
+        int rate = maxInvalidationsPerSecond;
+        if (rate <= 0) {
+            return;
+        }
+        long delay;
+        synchronized (invalidationRateLock) {
+            long now = System.nanoTime();
+            long next = Math.max(nextInvalidationTime - now, 0) + now;
+            nextInvalidationTime = next + TimeUnit.SECONDS.toNanos(1) / rate;
+            delay = next - now;
+        }
+        if (delay > 0) {
+            try {
+                TimeUnit.NANOSECONDS.sleep(delay);
+            } catch (InterruptedException e) {
+                //stops the validation run:
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private void notifyValidation(SessionValidationResult result) {
+        for (SessionValidationListener listener : sessionValidationListeners) {
+            try {
+                listener.onValidation(result);
+            } catch (RuntimeException e) {
+                log.warn("SessionValidationListener [" + listener + "] failed.", e);
+            }
+        }
+    }
+
+    /**
+     * The state of a single validation run, shared by all threads taking part in it.
+     */
+    private final class ValidationRun {
+
+        private final AtomicInteger scanned = new AtomicInteger();
+        private final AtomicInteger expired = new AtomicInteger();
+        private final AtomicInteger stopped = new AtomicInteger();
+        private final AtomicInteger errors = new AtomicInteger();
+
+        // the ids of the sessions found valid with unpersisted touches, only collected when validating all sessions:
+        private final Set<Serializable> liveSessionIds;
+
+        // the ids of the due sessions not validated yet, only tracked when validating due sessions:
+        private final Set<Serializable> unfinished;
+
+        private volatile boolean incomplete;
+
+        private ValidationRun(boolean all, Collection<Serializable> due) {
+            this.liveSessionIds = all ? Collections.newSetFromMap(new ConcurrentHashMap<Serializable, Boolean>()) : null;
+            if (due != null) {
+                this.unfinished = Collections.newSetFromMap(new ConcurrentHashMap<Serializable, Boolean>());
+                this.unfinished.addAll(due);
+            } else {
+                this.unfinished = null;
+            }
+        }
+
+        private void finished(Serializable sessionId) {
+            if (unfinished != null && sessionId != null) {
+                unfinished.remove(sessionId);
+            }
+        }
+
+        private Runnable chunk(final List<?> sessions) {
+            return new Runnable() {
+                public void run() {
+                    validateAll(sessions.iterator());
+                }
+            };
+        }
+
+        /**
+         * Validates each element, which is either a {@link Session} or the id of a session still to be retrieved.
+         */
+        private void validateAll(Iterator<?> sessions) {
+            while (sessions.hasNext()) {
+                if (Thread.currentThread().isInterrupted()) {
+                    incomplete = true;
+                    return;
+                }
+                Object element = sessions.next();
+                scanned.incrementAndGet();
+                Session s;
+                if (element instanceof Session) {
+                    s = (Session) element;
+                } else {
+                    try {
+                        s = retrieveSession(new DefaultSessionKey((Serializable) element));
+                    } catch (UnknownSessionException e) {
+                        //already stopped and deleted:
+                        finished((Serializable) element);
+                        continue;
+                    } catch (RuntimeException e) {
+                        errors.incrementAndGet();
+                        log.warn("Unable to retrieve session with id [" + element + "] for validation.", e);
+                        continue;
+                    }
+                    if (s == null) {
+                        finished((Serializable) element);
+                        continue;
+                    }
+                }
+                if (!validateSession(s)) {
+                    throttleInvalidation();
+                }
+            }
+        }
+
+        private boolean validateSession(Session s) {
+            try {
+                //simulate a lookup key to satisfy the method signature.
+                //this could probably stand to be cleaned up in future versions:
+                SessionKey key = new DefaultSessionKey(s.getId());
+                validate(s, key);
+                if (incrementalValidationEnabled && s.getId() != null) {
+                    scheduleExpiration(s, false);
+                }
+                if (liveSessionIds != null && s.getId() != null && hasUnpersistedTouches(s.getId())) {
+                    liveSessionIds.add(s.getId());
+                }
+                finished(s.getId());
+                return true;
+            } catch (InvalidSessionException e) {
+                finished(s.getId());
+                boolean isExpired = (e instanceof ExpiredSessionException);
+                (isExpired ? expired : stopped).incrementAndGet();
+                if (log.isDebugEnabled()) {
+                    String msg = "Invalidated session with id [" + s.getId() + "]" +
+                            (isExpired ? " (expired)" : " (stopped)");
+                    log.debug(msg);
+                }
+                return false;
+            } catch (RuntimeException e) {
+                errors.incrementAndGet();
+                log.warn("Unable to validate session with id [" + s.getId() + "].", e);
+                if (liveSessionIds != null && s.getId() != null) {
+                    liveSessionIds.add(s.getId());
+                }
+                return true;
+            }
+        }
     }
 
     protected abstract Collection<Session> getActiveSessions();
+
+    /**
+     * Returns an iterator over the active sessions, fetching them from the underlying store {@code pageSize} at a
+     * time if possible.  This implementation iterates over {@link #getActiveSessions()}; subclasses able to page
+     * through their sessions should override it.
+     *
+     * @param pageSize the maximum number of sessions fetched at once
+     * @return an iterator over the active sessions.
+     * @since 1.13
+     */
+    protected Iterator<Session> getActiveSessionIterator(int pageSize) {
+        Collection<Session> active = getActiveSessions();
+        if (active == null) {
+            return Collections.<Session>emptySet().iterator();
+        }
+        return active.iterator();
+    }
 }
@@ -0,0 +1,466 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.shiro.session.mgt;
+
+import org.apache.shiro.io.DefaultSerializer;
+import org.apache.shiro.io.SerializationException;
+import org.apache.shiro.io.Serializer;
+import org.apache.shiro.session.Session;
+import org.apache.shiro.subject.SimplePrincipalCollection;
+import org.apache.shiro.subject.support.DefaultSubjectContext;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.DataOutput;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.Serializable;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * {@link Serializer} writing {@link SimpleSession}s in a compact, versioned binary format, as a faster and smaller
+ * alternative to standard Java serialization for session stores and distributed caches.
+ * <p/>
+ * Compared to {@code SimpleSession}'s own serialized form, this format:
+ * <ul>
+ * <li>writes timestamps as variable-length integers, relative to the session's start timestamp;</li>
+ * <li>writes well-known attribute keys (such as the subject's principals key) as a small number instead of a
+ * string, as well as any {@link #setAttributeKeys(List) additional keys} configured;</li>
+ * <li>writes {@code String}, {@code Boolean}, {@code Integer}, {@code Long}, {@code Date}, {@code byte[]} and
+ * {@link SimplePrincipalCollection} values natively, as well as values of any type with a
+ * {@link #setAttributeCodecs(List) registered codec}.</li>
+ * </ul>
+ * Other values, and sessions that are not exactly {@code SimpleSession}s, fall back to standard Java serialization.
+ * <p/>
+ * All parties exchanging serialized sessions must configure the same attribute keys and codecs, in the same order.
+ *
+ * @since 1.13
+ */
+public class BinarySessionSerializer implements Serializer<Session> {
+
+    private static final byte MAGIC = (byte) 0xB5;
+    private static final byte VERSION = 1;
+
+    private static final byte SIMPLE_SESSION = 0;
+    private static final byte SERIALIZED_SESSION = 1;
+
+    private static final int ID = 1;
+    private static final int START_TIMESTAMP = 1 << 1;
+    private static final int STOP_TIMESTAMP = 1 << 2;
+    private static final int LAST_ACCESS_TIME = 1 << 3;
+    private static final int EXPIRED = 1 << 4;
+    private static final int HOST = 1 << 5;
+    private static final int ATTRIBUTES = 1 << 6;
+
+    private static final byte NULL = 0;
+    private static final byte STRING = 1;
+    private static final byte TRUE = 2;
+    private static final byte FALSE = 3;
+    private static final byte INTEGER = 4;
+    private static final byte LONG = 5;
+    private static final byte DATE = 6;
+    private static final byte BYTES = 7;
+    private static final byte PRINCIPALS = 8;
+    private static final byte KEY = 9;
+    private static final byte CODEC = 10;
+    private static final byte SERIALIZED = 11;
+
+    /**
+     * Attribute keys known to every serializer.  Their position is part of the format: keys may only be appended.
+     */
+    private static final List<String> BUILT_IN_KEYS = Collections.unmodifiableList(Arrays.asList(
+            DefaultSubjectContext.PRINCIPALS_SESSION_KEY,
+            DefaultSubjectContext.AUTHENTICATED_SESSION_KEY,
+            "org.apache.shiro.subject.support.DelegatingSubject.RUN_AS_PRINCIPALS_SESSION_KEY",
+            "shiroSavedRequest"
+    ));
+
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    private final Serializer<Object> fallback = new DefaultSerializer<Object>();
+
+    private volatile List<String> keys = BUILT_IN_KEYS;
+
+    private volatile Map<String, Integer> keyIndexes = indexOf(BUILT_IN_KEYS);
+
+    private volatile List<SessionAttributeCodec<?>> codecs = Collections.emptyList();
+
+    private volatile Map<Class<?>, Integer> codecIndexes = Collections.emptyMap();
+
+    public BinarySessionSerializer() {
+    }
+
+    /**
+     * Returns the attribute keys written as a number, in addition to the built-in ones.
+     *
+     * @return the attribute keys written as a number, in addition to the built-in ones.
+     */
+    public List<String> getAttributeKeys() {
+        return keys.subList(BUILT_IN_KEYS.size(), keys.size());
+    }
+
+    /**
+     * Sets attribute keys to write as a number rather than a string, in addition to the built-in ones.  Keys may be
+     * appended to the list over time, but never reordered or removed while serialized sessions remain.
+     *
+     * @param attributeKeys the attribute keys to write as a number.
+     */
+    public void setAttributeKeys(List<String> attributeKeys) {
+        List<String> all = new ArrayList<String>(BUILT_IN_KEYS);
+        if (attributeKeys != null) {
+            all.addAll(attributeKeys);
+        }
+        this.keyIndexes = indexOf(all);
+        this.keys = Collections.unmodifiableList(all);
+    }
+
+    /**
+     * Returns the codecs used to write attribute values of specific types.
+     *
+     * @return the codecs used to write attribute values of specific types.
+     */
+    public List<SessionAttributeCodec<?>> getAttributeCodecs() {
+        return codecs;
+    }
+
+    /**
+     * Sets the codecs used to write attribute values of specific types.  Codecs are identified by their position,
+     * so codecs may be appended to the list over time, but never reordered or removed while serialized sessions
+     * remain.
+     *
+     * @param attributeCodecs the codecs used to write attribute values of specific types.
+     */
+    public void setAttributeCodecs(List<SessionAttributeCodec<?>> attributeCodecs) {
+        List<SessionAttributeCodec<?>> list = attributeCodecs != null ?
+                new ArrayList<SessionAttributeCodec<?>>(attributeCodecs) : new ArrayList<SessionAttributeCodec<?>>();
+        Map<Class<?>, Integer> indexes = new HashMap<Class<?>, Integer>();
+        for (int i = 0; i < list.size(); i++) {
+            indexes.put(list.get(i).getType(), i);
+        }
+        this.codecIndexes = indexes;
+        this.codecs = Collections.unmodifiableList(list);
+    }
+
+    public byte[] serialize(Session session) throws SerializationException {
+        if (session == null) {
+            throw new IllegalArgumentException("argument cannot be null.");
+        }
+        ByteArrayOutputStream baos = new ByteArrayOutputStream(256);
+        DataOutputStream out = new DataOutputStream(baos);
+        try {
+            out.writeByte(MAGIC);
+            out.writeByte(VERSION);
+            if (session.getClass() == SimpleSession.class) {
+                out.writeByte(SIMPLE_SESSION);
+                writeSession((SimpleSession) session, out);
+            } else {
+                out.writeByte(SERIALIZED_SESSION);
+                out.write(fallback.serialize(session));
+            }
+            out.flush();
+            return baos.toByteArray();
+        } catch (IOException e) {
+            throw new SerializationException("Unable to serialize session [" + session.getId() + "]", e);
+        }
+    }
+
+    public Session deserialize(byte[] serialized) throws SerializationException {
+        if (serialized == null) {
+            throw new IllegalArgumentException("argument cannot be null.");
+        }
+        if (serialized.length < 3 || serialized[0] != MAGIC) {
+            throw new SerializationException("Not a binary serialized session.");
+        }
+        if (serialized[1] != VERSION) {
+            throw new SerializationException("Unsupported binary session format version " + serialized[1]);
+        }
+        try {
+            if (serialized[2] == SERIALIZED_SESSION) {
+                return (Session) fallback.deserialize(Arrays.copyOfRange(serialized, 3, serialized.length));
+            }
+            DataInputStream in = new DataInputStream(new ByteArrayInputStream(serialized, 3, serialized.length - 3));
+            return readSession(in);
+        } catch (IOException e) {
+            throw new SerializationException("Unable to deserialize session.", e);
+        } catch (RuntimeException e) {
+            throw new SerializationException("Unable to deserialize session.", e);
+        }
+    }
+
+    private void writeSession(SimpleSession session, DataOutput out) throws IOException {
+        Date start = session.getStartTimestamp();
+        Date stop = session.getStopTimestamp();
+        Date lastAccess = session.getLastAccessTime();
+        Map<Object, Object> attributes = session.getAttributes();
+        int flags = 0;
+        flags |= session.getId() != null ? ID : 0;
+        flags |= start != null ? START_TIMESTAMP : 0;
+        flags |= stop != null ? STOP_TIMESTAMP : 0;
+        flags |= lastAccess != null ? LAST_ACCESS_TIME : 0;
+        flags |= session.isExpired() ? EXPIRED : 0;
+        flags |= session.getHost() != null ? HOST : 0;
+        flags |= attributes != null ? ATTRIBUTES : 0;
+        out.writeByte(flags);
+
+        if (session.getId() != null) {
+            writeValue(session.getId(), out);
+        }
+        long base = 0;
+        if (start != null) {
+            base = start.getTime();
+            writeVarLong(zigZag(base), out);
+        }
+        if (lastAccess != null) {
+            writeVarLong(zigZag(lastAccess.getTime() - base), out);
+        }
+        if (stop != null) {
+            writeVarLong(zigZag(stop.getTime() - base), out);
+        }
+        writeVarLong(zigZag(session.getTimeout()), out);
+        if (session.getHost() != null) {
+            writeString(session.getHost(), out);
+        }
+        if (attributes != null) {
+            writeVarLong(attributes.size(), out);
+            for (Map.Entry<Object, Object> entry : attributes.entrySet()) {
+                writeKey(entry.getKey(), out);
+                writeValue(entry.getValue(), out);
+            }
+        }
+    }
+
+    private SimpleSession readSession(DataInput in) throws IOException {
+        SimpleSession session = new SimpleSession();
+        int flags = in.readUnsignedByte();
+        session.setId(isSet(flags, ID) ? (Serializable) readValue(in) : null);
+        long base = 0;
+        if (isSet(flags, START_TIMESTAMP)) {
+            base = unZigZag(readVarLong(in));
+            session.setStartTimestamp(new Date(base));
+        } else {
+            session.setStartTimestamp(null);
+        }
+        session.setLastAccessTime(isSet(flags, LAST_ACCESS_TIME) ? new Date(base + unZigZag(readVarLong(in))) : null);
+        session.setStopTimestamp(isSet(flags, STOP_TIMESTAMP) ? new Date(base + unZigZag(readVarLong(in))) : null);
+        session.setExpired(isSet(flags, EXPIRED));
+        session.setTimeout(unZigZag(readVarLong(in)));
+        session.setHost(isSet(flags, HOST) ? readString(in) : null);
+        if (isSet(flags, ATTRIBUTES)) {
+            int size = (int) readVarLong(in);
+            Map<Object, Object> attributes = new HashMap<Object, Object>(Math.max(16, (int) (size / .75f) + 1));
+            for (int i = 0; i < size; i++) {
+                Object key = readValue(in);
+                attributes.put(key, readValue(in));
+            }
+            session.setAttributes(attributes);
+        }
+        session.resetDirtyState();
+        return session;
+    }
+
+    private void writeKey(Object key, DataOutput out) throws IOException {
+        Integer index = key instanceof String ? keyIndexes.get(key) : null;
+        if (index != null) {
+            out.writeByte(KEY);
+            writeVarLong(index, out);
+        } else {
+            writeValue(key, out);
+        }
+    }
+
+    private void writeValue(Object value, DataOutput out) throws IOException {
+        if (value == null) {
+            out.writeByte(NULL);
+            return;
+        }
+        Class<?> type = value.getClass();
+        if (type == String.class) {
+            out.writeByte(STRING);
+            writeString((String) value, out);
+        } else if (type == Boolean.class) {
+            out.writeByte((Boolean) value ? TRUE : FALSE);
+        } else if (type == Integer.class) {
+            out.writeByte(INTEGER);
+            writeVarLong(zigZag((Integer) value), out);
+        } else if (type == Long.class) {
+            out.writeByte(LONG);
+            writeVarLong(zigZag((Long) value), out);
+        } else if (type == Date.class) {
+            out.writeByte(DATE);
+            writeVarLong(zigZag(((Date) value).getTime()), out);
+        } else if (type == byte[].class) {
+            out.writeByte(BYTES);
+            writeBytes((byte[]) value, out);
+        } else if (type == SimplePrincipalCollection.class) {
+            out.writeByte(PRINCIPALS);
+            writePrincipals((SimplePrincipalCollection) value, out);
+        } else {
+            Integer codec = codecIndexes.get(type);
+            if (codec != null) {
+                out.writeByte(CODEC);
+                writeVarLong(codec, out);
+                writeBytes(encode(codecs.get(codec), value), out);
+            } else {
+                out.writeByte(SERIALIZED);
+                writeBytes(fallback.serialize(value), out);
+            }
+        }
+    }
+
+    private Object readValue(DataInput in) throws IOException {
+        byte tag = in.readByte();
+        switch (tag) {
+            case NULL:
+                return null;
+            case STRING:
+                return readString(in);
+            case TRUE:
+                return Boolean.TRUE;
+            case FALSE:
+                return Boolean.FALSE;
+            case INTEGER:
+                return (int) unZigZag(readVarLong(in));
+            case LONG:
+                return unZigZag(readVarLong(in));
+            case DATE:
+                return new Date(unZigZag(readVarLong(in)));
+            case BYTES:
+                return readBytes(in);
+            case PRINCIPALS:
+                return readPrincipals(in);
+            case KEY:
+                return keys.get((int) readVarLong(in));
+            case CODEC:
+                SessionAttributeCodec<?> codec = codecs.get((int) readVarLong(in));
+                return codec.read(new DataInputStream(new ByteArrayInputStream(readBytes(in))));
+            case SERIALIZED:
+                return fallback.deserialize(readBytes(in));
+            default:
+                throw new IOException("Unknown value tag " + tag);
+        }
+    }
+
+    private void writePrincipals(SimplePrincipalCollection principals, DataOutput out) throws IOException {
+        Collection<String> realmNames = principals.getRealmNames();
+        writeVarLong(realmNames.size(), out);
+        for (String realmName : realmNames) {
+            writeString(realmName, out);
+            Collection<?> realmPrincipals = principals.fromRealm(realmName);
+            writeVarLong(realmPrincipals.size(), out);
+            for (Object principal : realmPrincipals) {
+                writeValue(principal, out);
+            }
+        }
+    }
+
+    private SimplePrincipalCollection readPrincipals(DataInput in) throws IOException {
+        SimplePrincipalCollection principals = new SimplePrincipalCollection();
+        int realms = (int) readVarLong(in);
+        for (int i = 0; i < realms; i++) {
+            String realmName = readString(in);
+            int count = (int) readVarLong(in);
+            for (int j = 0; j < count; j++) {
+                principals.add(readValue(in), realmName);
+            }
+        }
+        return principals;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static byte[] encode(SessionAttributeCodec<?> codec, Object value) throws IOException {
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(baos);
+        ((SessionAttributeCodec<Object>) codec).write(value, out);
+        out.flush();
+        return baos.toByteArray();
+    }
+
+    private static void writeString(String s, DataOutput out) throws IOException {
+        writeBytes(s.getBytes(UTF_8), out);
+    }
+
+    private static String readString(DataInput in) throws IOException {
+        return new String(readBytes(in), UTF_8);
+    }
+
+    private static void writeBytes(byte[] bytes, DataOutput out) throws IOException {
+        writeVarLong(bytes.length, out);
+        out.write(bytes);
+    }
+
+    private static byte[] readBytes(DataInput in) throws IOException {
+        long length = readVarLong(in);
+        if (length < 0 || length > Integer.MAX_VALUE) {
+            throw new IOException("Invalid length " + length);
+        }
+        byte[] bytes = new byte[(int) length];
+        in.readFully(bytes);
+        return bytes;
+    }
+
+    private static void writeVarLong(long value, DataOutput out) throws IOException {
+        while ((value & ~0x7FL) != 0) {
+            out.writeByte((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.writeByte((int) value);
+    }
+
+    private static long readVarLong(DataInput in) throws IOException {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            int b = in.readUnsignedByte();
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IOException("Malformed variable-length integer.");
+    }
+
+    private static long zigZag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    private static long unZigZag(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    private static boolean isSet(int flags, int flag) {
+        return (flags & flag) != 0;
+    }
+
+    private static Map<String, Integer> indexOf(List<String> keys) {
+        Map<String, Integer> indexes = new HashMap<String, Integer>();
+        for (int i = 0; i < keys.size(); i++) {
+            indexes.put(keys.get(i), i);
+        }
+        return indexes;
+    }
+}
@@ -23,18 +23,42 @@ import org.apache.shiro.cache.CacheManagerAware;
 import org.apache.shiro.session.Session;
 import org.apache.shiro.session.UnknownSessionException;
 import org.apache.shiro.session.mgt.eis.MemorySessionDAO;
+import org.apache.shiro.session.mgt.eis.PagedSessionDAO;
 import org.apache.shiro.session.mgt.eis.SessionDAO;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.Serializable;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Date;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * Default business-tier implementation of a {@link ValidatingSessionManager}.  All session CRUD operations are
  * delegated to an internal {@link SessionDAO}.
+ * <h3>Write-behind</h3>
+ * By default every change to a session (including merely {@link Session#touch() touching} it) is immediately
+ * written to the {@code SessionDAO}.  If {@link #setWriteBehindEnabled(boolean) writeBehindEnabled} is {@code true},
+ * changed sessions are instead marked dirty and written by a background thread every
+ * {@link #getWriteBehindInterval() writeBehindInterval} milliseconds, so any number of changes made to a session in
+ * between result in a single {@link SessionDAO#update update}.  What is written is a {@link #createSnapshot snapshot}
+ * of the session taken when it last changed, so sessions keep changing freely while being written.  Dirty sessions
+ * are served from memory until written, so this manager always sees its own changes.  Stopped and expired sessions
+ * are still written (and deleted) immediately, and their pending writes are discarded.
+ * <p/>
+ * Since changes not yet written are lost if the application terminates abruptly, and are not visible to other
+ * nodes sharing the same {@code SessionDAO} until written, write-behind trades a small window of staleness for far
+ * fewer writes.  Pending changes are written when this manager is {@link #destroy() destroyed}.
  *
  * @since 0.1
  */
@@ -52,6 +76,29 @@ public class DefaultSessionManager extends AbstractValidatingSessionManager impl
 
     private boolean deleteInvalidSessions;
 
+    /**
+     * The default {@link #getWriteBehindInterval() writeBehindInterval}, equal to one second.
+     *
+     * @since 1.13
+     */
+    public static final long DEFAULT_WRITE_BEHIND_INTERVAL = MILLIS_PER_SECOND;
+
+    private volatile boolean writeBehindEnabled;
+
+    private long writeBehindInterval = DEFAULT_WRITE_BEHIND_INTERVAL;
+
+    /**
+     * Sessions changed but not yet written to the SessionDAO, keyed by session id.  An entry stays in the map while
+     * it is being written.  Entries are claimed for writing and superseded by compare-and-set on their own state, so
+     * no lock is held while talking to the SessionDAO, and none is taken while write-behind is disabled.
+     */
+    private final ConcurrentMap<Serializable, PendingUpdate> pendingUpdates =
+            new ConcurrentHashMap<Serializable, PendingUpdate>();
+
+    private final Object executorLock = new Object();
+
+    private volatile ScheduledExecutorService writeBehindExecutor;
+
     public DefaultSessionManager() {
         this.deleteInvalidSessions = true;
         this.sessionFactory = new SimpleSessionFactory();
@@ -133,6 +180,58 @@ public class DefaultSessionManager extends AbstractValidatingSessionManager impl
         applyCacheManagerToSessionDAO();
     }
 
+    /**
+     * Returns {@code true} if session changes are written to the {@code SessionDAO} periodically by a background
+     * thread, coalescing multiple changes to the same session into one write, {@code false} if every change is
+     * written immediately.  The default is {@code false}.
+     *
+     * @return {@code true} if session changes are written to the {@code SessionDAO} periodically.
+     * @since 1.13
+     */
+    public boolean isWriteBehindEnabled() {
+        return writeBehindEnabled;
+    }
+
+    /**
+     * Sets whether session changes are written to the {@code SessionDAO} periodically by a background thread,
+     * coalescing multiple changes to the same session into one write.  Disabling write-behind immediately writes any
+     * pending changes.
+     *
+     * @param writeBehindEnabled whether session changes are written to the {@code SessionDAO} periodically.
+     * @since 1.13
+     */
+    public void setWriteBehindEnabled(boolean writeBehindEnabled) {
+        this.writeBehindEnabled = writeBehindEnabled;
+        if (!writeBehindEnabled) {
+            flushPendingUpdates();
+        }
+    }
+
+    /**
+     * Returns the number of milliseconds between two writes of pending session changes when
+     * {@link #isWriteBehindEnabled() writeBehindEnabled}.  Defaults to {@link #DEFAULT_WRITE_BEHIND_INTERVAL}.
+     *
+     * @return the number of milliseconds between two writes of pending session changes.
+     * @since 1.13
+     */
+    public long getWriteBehindInterval() {
+        return writeBehindInterval;
+    }
+
+    /**
+     * Sets the number of milliseconds between two writes of pending session changes.  Only takes effect if set before
+     * the first change is made with write-behind enabled.
+     *
+     * @param writeBehindInterval the number of milliseconds between two writes of pending session changes.
+     * @since 1.13
+     */
+    public void setWriteBehindInterval(long writeBehindInterval) {
+        if (writeBehindInterval <= 0) {
+            throw new IllegalArgumentException("writeBehindInterval must be greater than zero.");
+        }
+        this.writeBehindInterval = writeBehindInterval;
+    }
+
     /**
      * Sets the internal {@code CacheManager} on the {@code SessionDAO} if it implements the
      * {@link org.apache.shiro.cache.CacheManagerAware CacheManagerAware} interface.
@@ -184,7 +283,9 @@ public class DefaultSessionManager extends AbstractValidatingSessionManager impl
             Date stopTs = ss.getStopTimestamp();
             ss.setLastAccessTime(stopTs);
         }
-        onChange(session);
+        //stopped sessions are always written immediately:
+        update(session);
+        forgetUnpersistedTouches(session);
     }
 
     @Override
@@ -198,7 +299,9 @@ public class DefaultSessionManager extends AbstractValidatingSessionManager impl
         if (session instanceof SimpleSession) {
             ((SimpleSession) session).setExpired(true);
         }
-        onChange(session);
+        //expired sessions are always written immediately:
+        update(session);
+        forgetUnpersistedTouches(session);
     }
 
     @Override
@@ -209,9 +312,228 @@ public class DefaultSessionManager extends AbstractValidatingSessionManager impl
     }
 
     protected void onChange(Session session) {
+        Serializable sessionId = session.getId();
+        if (writeBehindEnabled && sessionId != null) {
+            PendingUpdate update;
+            PendingUpdate previous;
+            //snapshots are taken and stored under the session's own lock, so a newer one is never replaced by an
+            //older one:
+            synchronized (session) {
+                update = new PendingUpdate(session, createSnapshot(session));
+                previous = pendingUpdates.put(sessionId, update);
+            }
+            if (previous != null) {
+                if (previous.supersede(null, false)) {
+                    //not written before the one being written is done, so the older snapshot never lands last:
+                    update.previous = previous;
+                } else {
+                    //the previous snapshot will not be written, keep track of its changes:
+                    mergeDirtyState(update.snapshot, previous.snapshot);
+                    update.previous = previous.previous;
+                }
+            }
+            update.release();
+            ensureWriteBehindExecutor();
+        } else {
+            sessionDAO.update(session);
+        }
+    }
+
+    /**
+     * Returns the copy of the specified changed session that the write-behind thread will write to the
+     * {@code SessionDAO}.  It is taken under the session's own lock, so that the write-behind thread never writes (and
+     * serializes) a session while request threads are changing it.
+     * <p/>
+     * This implementation copies plain {@link SimpleSession}s and returns any other session as is, in which case the
+     * live session is written while holding its monitor.  Subclasses using their own session types can override this
+     * method to copy them too.
+     *
+     * @param session the changed session
+     * @return a copy of the session to write later, or the session itself if it cannot be copied.
+     * @since 1.13
+     */
+    protected Session createSnapshot(Session session) {
+        if (session.getClass() == SimpleSession.class) {
+            return ((SimpleSession) session).snapshot();
+        }
+        return session;
+    }
+
+    private static void mergeDirtyState(Session target, Session discarded) {
+        if (target != discarded && target instanceof SimpleSession && discarded instanceof SimpleSession) {
+            ((SimpleSession) target).mergeDirtyState((SimpleSession) discarded);
+        }
+    }
+
+    /**
+     * Immediately writes the session to the {@code SessionDAO}, superseding any pending write-behind update.
+     *
+     * @param session the session to write
+     * @since 1.13
+     */
+    protected void update(Session session) {
+        dropPendingUpdate(session, false);
         sessionDAO.update(session);
     }
 
+    /**
+     * Discards the pending write-behind update of the specified session, if any, which is about to be written or
+     * deleted by the calling thread.  If the write-behind thread is writing the update right now, it repeats that
+     * write or delete once done, so the session never ends up in the SessionDAO with the older state.
+     */
+    private void dropPendingUpdate(Session session, boolean delete) {
+        Serializable sessionId = session.getId();
+        if (sessionId == null || pendingUpdates.isEmpty()) {
+            return;
+        }
+        PendingUpdate pending = pendingUpdates.get(sessionId);
+        if (pending == null) {
+            return;
+        }
+        if (!pending.supersede(session, delete)) {
+            pendingUpdates.remove(sessionId, pending);
+            mergeDirtyState(session, pending.snapshot);
+        }
+        //an update being written stays until written, so that a delete following a stop still finds it.  An older
+        //update of the session may still be being written too:
+        PendingUpdate older = pending.previous;
+        if (older != null && !older.supersede(session, delete)) {
+            mergeDirtyState(session, older.snapshot);
+        }
+    }
+
+    /**
+     * Writes all pending session changes to the {@code SessionDAO}.  This is called periodically by the write-behind
+     * thread, but may be called at any time, for example before a planned shutdown.
+     * <p/>
+     * A session that fails to be written stays pending and is retried on the next call, unless the
+     * {@code SessionDAO} no longer knows it.
+     *
+     * @since 1.13
+     */
+    public void flushPendingUpdates() {
+        for (Serializable sessionId : new ArrayList<Serializable>(pendingUpdates.keySet())) {
+            PendingUpdate pending = pendingUpdates.get(sessionId);
+            if (pending == null || !pending.startWriting()) {
+                //already written, superseded, being written by another thread or waiting for an older write:
+                continue;
+            }
+            boolean written = false;
+            Session snapshot = pending.snapshot;
+            try {
+                if (snapshot instanceof ValidatingSession && !((ValidatingSession) snapshot).isValid()) {
+                    //its final state was written when it was stopped or expired:
+                    log.debug("Session [{}] is no longer valid.  Discarding its pending update.", sessionId);
+                } else if (snapshot == pending.session) {
+                    synchronized (snapshot) {
+                        sessionDAO.update(snapshot);
+                    }
+                } else {
+                    sessionDAO.update(snapshot);
+                }
+                written = true;
+            } catch (UnknownSessionException e) {
+                log.debug("Session [{}] no longer exists.  Discarding its pending update.", sessionId);
+                written = true;
+            } catch (Throwable t) {
+                log.warn("Unable to write pending update of session [" + sessionId + "].  " +
+                        "It will be retried.", t);
+            }
+            if (pending.finishWriting()) {
+                if (written) {
+                    pendingUpdates.remove(sessionId, pending);
+                }
+            } else {
+                afterSupersededWrite(sessionId, pending, written);
+                pendingUpdates.remove(sessionId, pending);
+            }
+        }
+    }
+
+    /**
+     * Called once the write of a pending update that was superseded while being written is done.  A stop, expiry or
+     * delete of the session is repeated, since the write may have landed after it.  A newer change instead takes
+     * over the changes of the update if it could not be written.
+     */
+    private void afterSupersededWrite(Serializable sessionId, PendingUpdate pending, boolean written) {
+        try {
+            if (pending.deleted) {
+                sessionDAO.delete(pending.session);
+            } else if (pending.replacement != null) {
+                //rewrite everything the older snapshot may just have overwritten:
+                mergeDirtyState(pending.replacement, pending.snapshot);
+                sessionDAO.update(pending.replacement);
+            } else if (!written) {
+                PendingUpdate next = pendingUpdates.get(sessionId);
+                if (next != null) {
+                    mergeDirtyState(next.snapshot, pending.snapshot);
+                }
+            }
+        } catch (UnknownSessionException e) {
+            log.debug("Session [{}] no longer exists.", sessionId);
+        } catch (Throwable t) {
+            log.warn("Unable to rewrite session [" + sessionId + "] after its pending update was written.", t);
+        }
+    }
+
+    /**
+     * Returns the number of sessions with changes not yet written to the {@code SessionDAO}.
+     *
+     * @return the number of sessions with changes not yet written to the {@code SessionDAO}.
+     * @since 1.13
+     */
+    public int getPendingUpdateCount() {
+        return pendingUpdates.size();
+    }
+
+    private void ensureWriteBehindExecutor() {
+        if (writeBehindExecutor != null) {
+            return;
+        }
+        synchronized (executorLock) {
+            if (writeBehindExecutor == null) {
+                ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+                    private final AtomicInteger count = new AtomicInteger(1);
+
+                    public Thread newThread(Runnable r) {
+                        Thread thread = new Thread(r);
+                        thread.setDaemon(true);
+                        thread.setName("shiroSessionWriteBehind-" + count.getAndIncrement());
+                        return thread;
+                    }
+                });
+                executor.scheduleWithFixedDelay(new Runnable() {
+                    public void run() {
+                        flushPendingUpdates();
+                    }
+                }, writeBehindInterval, writeBehindInterval, TimeUnit.MILLISECONDS);
+                writeBehindExecutor = executor;
+            }
+        }
+    }
+
+    /**
+     * Stops session validation and the write-behind thread, then writes any pending session changes.
+     */
+    @Override
+    public void destroy() {
+        super.destroy();
+        ScheduledExecutorService executor;
+        synchronized (executorLock) {
+            executor = writeBehindExecutor;
+            writeBehindExecutor = null;
+        }
+        if (executor != null) {
+            executor.shutdown();
+            try {
+                executor.awaitTermination(writeBehindInterval, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        flushPendingUpdates();
+    }
+
     protected Session retrieveSession(SessionKey sessionKey) throws UnknownSessionException {
         // 当初将 SessionId 封装成 SessionKey，如今又要解析 SessionKey，获取 SessionId
         Serializable sessionId = getSessionId(sessionKey);
@@ -242,16 +564,157 @@ public class DefaultSessionManager extends AbstractValidatingSessionManager impl
     }
 
     protected Session retrieveSessionFromDataSource(Serializable sessionId) throws UnknownSessionException {
+        //sessions with pending changes are more recent than what the SessionDAO has:
+        PendingUpdate pending = pendingUpdates.get(sessionId);
+        if (pending != null) {
+            return pending.session;
+        }
         return sessionDAO.readSession(sessionId);
     }
 
     protected void delete(Session session) {
+        forgetUnpersistedTouches(session);
+        dropPendingUpdate(session, true);
         sessionDAO.delete(session);
     }
 
     protected Collection<Session> getActiveSessions() {
         Collection<Session> active = sessionDAO.getActiveSessions();
-        return active != null ? active : Collections.<Session>emptySet();
+        if (active == null) {
+            return Collections.<Session>emptySet();
+        }
+        if (pendingUpdates.isEmpty()) {
+            return active;
+        }
+        //validate sessions with pending changes (such as a recent touch) against their current state:
+        List<Session> merged = new ArrayList<Session>(active.size());
+        for (Session session : active) {
+            PendingUpdate pending = session.getId() != null ? pendingUpdates.get(session.getId()) : null;
+            merged.add(pending != null ? pending.session : session);
+        }
+        return merged;
+    }
+
+    /**
+     * Pages through the active sessions if the {@link #getSessionDAO() sessionDAO} is a {@link PagedSessionDAO},
+     * otherwise iterates over {@link #getActiveSessions()}.
+     *
+     * @param pageSize the maximum number of sessions fetched from the {@code SessionDAO} at once
+     * @return an iterator over the active sessions.
+     * @since 1.13
+     */
+    @Override
+    protected Iterator<Session> getActiveSessionIterator(int pageSize) {
+        if (!(sessionDAO instanceof PagedSessionDAO)) {
+            return super.getActiveSessionIterator(pageSize);
+        }
+        final Iterator<Session> active = ((PagedSessionDAO) sessionDAO).getActiveSessionIterator(pageSize);
+        if (active == null) {
+            return Collections.<Session>emptySet().iterator();
+        }
+        return new Iterator<Session>() {
+            public boolean hasNext() {
+                return active.hasNext();
+            }
+
+            public Session next() {
+                //validate sessions with pending changes against their current state, as in getActiveSessions():
+                Session session = active.next();
+                PendingUpdate pending = session.getId() != null ? pendingUpdates.get(session.getId()) : null;
+                return pending != null ? pending.session : session;
+            }
+
+            public void remove() {
+                throw new UnsupportedOperationException();
+            }
+        };
+    }
+
+    /**
+     * A change to a session that has not been written to the SessionDAO yet: the live session, served to readers
+     * until written, and the snapshot of it to write.
+     */
+    private static final class PendingUpdate {
+
+        private static final int WRITING = 1;
+        private static final int SUPERSEDED = 2;
+        private static final int HELD = 4;
+
+        private final Session session;
+        private final Session snapshot;
+        private final AtomicInteger state = new AtomicInteger(HELD);
+
+        /**
+         * The superseded update that was being written when this one was stored, written first.
+         */
+        private volatile PendingUpdate previous;
+
+        /**
+         * How the update was superseded: by a delete, or by an immediate write of this session.
+         */
+        private volatile boolean deleted;
+        private volatile Session replacement;
+
+        PendingUpdate(Session session, Session snapshot) {
+            this.session = session;
+            this.snapshot = snapshot;
+        }
+
+        /**
+         * Lets this update be written, once it has been stored and has taken over the update it replaced.
+         */
+        void release() {
+            clear(HELD);
+        }
+
+        /**
+         * Claims this update for writing, unless it was superseded, is already being written or must wait for the
+         * write of an older update of the same session.
+         */
+        boolean startWriting() {
+            PendingUpdate older = previous;
+            if (older != null) {
+                if ((older.state.get() & WRITING) != 0) {
+                    return false;
+                }
+                previous = null;
+            }
+            return state.compareAndSet(0, WRITING);
+        }
+
+        /**
+         * Returns {@code true} if this update was neither written nor superseded in the meantime, in which case it
+         * stays pending when the write failed.
+         */
+        boolean finishWriting() {
+            return (clear(WRITING) & SUPERSEDED) == 0;
+        }
+
+        /**
+         * Marks this update as superseded and returns {@code true} if it is being written right now, in which case
+         * the writing thread takes care of the superseding write or delete once done.
+         */
+        boolean supersede(Session replacement, boolean deleted) {
+            if (replacement != null) {
+                this.replacement = replacement;
+            }
+            if (deleted) {
+                this.deleted = true;
+            }
+            int current;
+            do {
+                current = state.get();
+            } while (!state.compareAndSet(current, current | SUPERSEDED));
+            return (current & WRITING) != 0;
+        }
+
+        private int clear(int bit) {
+            int current;
+            do {
+                current = state.get();
+            } while (!state.compareAndSet(current, current & ~bit));
+            return current;
+        }
     }
 
 }
@@ -0,0 +1,59 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.shiro.session.mgt;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+/**
+ * Writes and reads session attribute values of a single type in a compact binary form, for use by a
+ * {@link BinarySessionSerializer}.  Values without a registered codec fall back to standard Java serialization.
+ *
+ * @param <T> the type of attribute values handled by this codec
+ * @see BinarySessionSerializer#setAttributeCodecs(java.util.List)
+ * @since 1.13
+ */
+public interface SessionAttributeCodec<T> {
+
+    /**
+     * Returns the exact class of the attribute values handled by this codec.  Subclasses are not matched.
+     *
+     * @return the exact class of the attribute values handled by this codec.
+     */
+    Class<T> getType();
+
+    /**
+     * Writes the specified value.
+     *
+     * @param value the attribute value, never {@code null}
+     * @param out   the output to write the value to
+     * @throws IOException if the value cannot be written
+     */
+    void write(T value, DataOutput out) throws IOException;
+
+    /**
+     * Reads a value previously written by {@link #write(Object, DataOutput) write}.
+     *
+     * @param in the input to read the value from
+     * @return the attribute value
+     * @throws IOException if the value cannot be read
+     */
+    T read(DataInput in) throws IOException;
+}
@@ -0,0 +1,216 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.shiro.session.mgt;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Deadline-ordered index of session ids, used by {@link AbstractValidatingSessionManager} to validate only the
+ * sessions that may have expired instead of every active session.
+ * <p/>
+ * Session ids are grouped into buckets of {@link #getResolution() resolution} milliseconds by the time at which they
+ * are expected to expire.  {@link #pollDue(long)} removes and returns the ids of all buckets whose time has come, so
+ * its cost is proportional to the number of due sessions rather than the number of indexed sessions.
+ * <p/>
+ * The index is deliberately lazy: touching a session does not move it to a later bucket.  Instead, the caller is
+ * expected to check each due session and {@link #schedule(Serializable, long) reschedule} it at its actual expiration
+ * time if it is still valid, so an active session is visited about once per timeout period however often it is
+ * accessed.
+ *
+ * @since 1.13
+ */
+public class SessionExpirationIndex {
+
+    /**
+     * The default bucket width, equal to one second.
+     */
+    public static final long DEFAULT_RESOLUTION = 1000;
+
+    private final long resolution;
+
+    /**
+     * The bucket of each indexed session id; only modified while holding the lock of {@link #buckets}, but read
+     * without it.
+     */
+    private final ConcurrentMap<Serializable, Long> scheduled;
+
+    private final TreeMap<Long, Set<Serializable>> buckets;
+
+    public SessionExpirationIndex() {
+        this(DEFAULT_RESOLUTION);
+    }
+
+    public SessionExpirationIndex(long resolution) {
+        if (resolution <= 0) {
+            throw new IllegalArgumentException("resolution must be greater than zero.");
+        }
+        this.resolution = resolution;
+        this.scheduled = new ConcurrentHashMap<Serializable, Long>();
+        this.buckets = new TreeMap<Long, Set<Serializable>>();
+    }
+
+    /**
+     * Returns the width, in milliseconds, of the buckets sessions are grouped into.  A session is returned by
+     * {@link #pollDue(long)} at most this long after its expiration time.
+     *
+     * @return the width, in milliseconds, of the buckets sessions are grouped into.
+     */
+    public long getResolution() {
+        return resolution;
+    }
+
+    /**
+     * Indexes the specified session id to be due at the specified time, replacing any previous expiration time.
+     *
+     * @param sessionId      the id of the session
+     * @param expirationTime the time, in milliseconds since the epoch, at which the session is expected to expire
+     */
+    public void schedule(Serializable sessionId, long expirationTime) {
+        Long bucket = bucketOf(expirationTime);
+        synchronized (buckets) {
+            Long previous = scheduled.put(sessionId, bucket);
+            if (bucket.equals(previous)) {
+                return;
+            }
+            if (previous != null) {
+                removeFromBucket(sessionId, previous);
+            }
+            Set<Serializable> ids = buckets.get(bucket);
+            if (ids == null) {
+                ids = new HashSet<Serializable>();
+                buckets.put(bucket, ids);
+            }
+            ids.add(sessionId);
+        }
+    }
+
+    /**
+     * Indexes the specified session id to be due at the specified time unless it is already indexed.
+     *
+     * @param sessionId      the id of the session
+     * @param expirationTime the time, in milliseconds since the epoch, at which the session is expected to expire
+     * @return {@code true} if the session id was indexed by this call, {@code false} if it was already indexed.
+     */
+    public boolean scheduleIfAbsent(Serializable sessionId, long expirationTime) {
+        if (scheduled.containsKey(sessionId)) {
+            return false;
+        }
+        synchronized (buckets) {
+            if (scheduled.containsKey(sessionId)) {
+                return false;
+            }
+            schedule(sessionId, expirationTime);
+            return true;
+        }
+    }
+
+    /**
+     * Removes the specified session id from this index.
+     *
+     * @param sessionId the id of the session
+     */
+    public void remove(Serializable sessionId) {
+        synchronized (buckets) {
+            Long bucket = scheduled.remove(sessionId);
+            if (bucket != null) {
+                removeFromBucket(sessionId, bucket);
+            }
+        }
+    }
+
+    /**
+     * Returns {@code true} if the specified session id is indexed.  This method does not block.
+     *
+     * @param sessionId the id of the session
+     * @return {@code true} if the specified session id is indexed, {@code false} otherwise.
+     */
+    public boolean contains(Serializable sessionId) {
+        return scheduled.containsKey(sessionId);
+    }
+
+    /**
+     * Returns the number of indexed session ids.
+     *
+     * @return the number of indexed session ids.
+     */
+    public int size() {
+        return scheduled.size();
+    }
+
+    /**
+     * Removes and returns the ids of all sessions expected to have expired at the specified time.  The returned ids are
+     * no longer indexed, so the caller must {@link #schedule(Serializable, long) index} again any of them it fails to
+     * validate.
+     *
+     * @param now the current time, in milliseconds since the epoch
+     * @return the ids of all sessions expected to have expired at the specified time, possibly empty.
+     */
+    public List<Serializable> pollDue(long now) {
+        List<Serializable> due = new ArrayList<Serializable>();
+        synchronized (buckets) {
+            //a bucket is due once its whole time range has passed:
+            SortedMap<Long, Set<Serializable>> dueBuckets = buckets.headMap(now / resolution, true);
+            for (Iterator<Map.Entry<Long, Set<Serializable>>> it = dueBuckets.entrySet().iterator(); it.hasNext(); ) {
+                Set<Serializable> ids = it.next().getValue();
+                for (Serializable id : ids) {
+                    scheduled.remove(id);
+                }
+                due.addAll(ids);
+                it.remove();
+            }
+        }
+        return due;
+    }
+
+    /**
+     * Removes all session ids from this index.
+     */
+    public void clear() {
+        synchronized (buckets) {
+            buckets.clear();
+            scheduled.clear();
+        }
+    }
+
+    private Long bucketOf(long expirationTime) {
+        //round up, so a session is never due before its expiration time:
+        long bucket = expirationTime / resolution;
+        if (expirationTime % resolution != 0) {
+            bucket++;
+        }
+        return bucket;
+    }
+
+    private void removeFromBucket(Serializable sessionId, Long bucket) {
+        Set<Serializable> ids = buckets.get(bucket);
+        if (ids != null && ids.remove(sessionId) && ids.isEmpty()) {
+            buckets.remove(bucket);
+        }
+    }
+}
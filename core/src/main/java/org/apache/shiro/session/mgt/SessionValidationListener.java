@@ -0,0 +1,38 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.shiro.session.mgt;
+
+/**
+ * Interface to be implemented by components that wish to be notified each time an
+ * {@link AbstractValidatingSessionManager} has validated sessions, for example to publish metrics about session
+ * validation runs.
+ *
+ * @see AbstractValidatingSessionManager#setSessionValidationListeners(java.util.Collection)
+ * @since 1.13
+ */
+public interface SessionValidationListener {
+
+    /**
+     * Notification callback that occurs after each {@link ValidatingSessionManager#validateSessions() validation run},
+     * on the thread that performed it.
+     *
+     * @param result the outcome of the validation run.
+     */
+    void onValidation(SessionValidationResult result);
+}
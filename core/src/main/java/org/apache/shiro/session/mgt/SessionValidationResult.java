@@ -0,0 +1,121 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.shiro.session.mgt;
+
+/**
+ * The outcome of a single {@link ValidatingSessionManager#validateSessions() session validation run}, as reported to
+ * {@link SessionValidationListener}s.
+ *
+ * @since 1.13
+ */
+public class SessionValidationResult {
+
+    private final long startTime;
+    private final long duration;
+    private final boolean incremental;
+    private final int scannedCount;
+    private final int expiredCount;
+    private final int stoppedCount;
+    private final int errorCount;
+
+    public SessionValidationResult(long startTime, long duration, boolean incremental,
+                                   int scannedCount, int expiredCount, int stoppedCount, int errorCount) {
+        this.startTime = startTime;
+        this.duration = duration;
+        this.incremental = incremental;
+        this.scannedCount = scannedCount;
+        this.expiredCount = expiredCount;
+        this.stoppedCount = stoppedCount;
+        this.errorCount = errorCount;
+    }
+
+    /**
+     * Returns the time the validation run started, in milliseconds since the epoch.
+     *
+     * @return the time the validation run started, in milliseconds since the epoch.
+     */
+    public long getStartTime() {
+        return startTime;
+    }
+
+    /**
+     * Returns the number of milliseconds the validation run took.
+     *
+     * @return the number of milliseconds the validation run took.
+     */
+    public long getDuration() {
+        return duration;
+    }
+
+    /**
+     * Returns {@code true} if only the sessions due to expire were validated, {@code false} if all active sessions
+     * were.
+     *
+     * @return {@code true} if only the sessions due to expire were validated, {@code false} if all active sessions
+     *         were.
+     * @see AbstractValidatingSessionManager#isIncrementalValidationEnabled()
+     */
+    public boolean isIncremental() {
+        return incremental;
+    }
+
+    /**
+     * Returns the number of sessions examined.
+     *
+     * @return the number of sessions examined.
+     */
+    public int getScannedCount() {
+        return scannedCount;
+    }
+
+    /**
+     * Returns the number of sessions found to have expired.
+     *
+     * @return the number of sessions found to have expired.
+     */
+    public int getExpiredCount() {
+        return expiredCount;
+    }
+
+    /**
+     * Returns the number of sessions found to be invalid for another reason than expiration, typically because they
+     * were stopped.
+     *
+     * @return the number of sessions found to be invalid for another reason than expiration.
+     */
+    public int getStoppedCount() {
+        return stoppedCount;
+    }
+
+    /**
+     * Returns the number of sessions that could not be validated because of an unexpected error.
+     *
+     * @return the number of sessions that could not be validated because of an unexpected error.
+     */
+    public int getErrorCount() {
+        return errorCount;
+    }
+
+    @Override
+    public String toString() {
+        return "SessionValidationResult[incremental=" + incremental + ", duration=" + duration +
+                "ms, scanned=" + scannedCount + ", expired=" + expiredCount + ", stopped=" + stoppedCount +
+                ", errors=" + errorCount + "]";
+    }
+}
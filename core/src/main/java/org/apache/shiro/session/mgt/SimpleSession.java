@@ -34,11 +34,16 @@ import java.util.Collection;
 import java.util.Collections;
 import java.util.Date;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Map;
+import java.util.Set;
 
 /**
  * Simple {@link org.apache.shiro.session.Session} JavaBeans-compatible POJO implementation, intended to be used on the
  * business/server tier.
+ * <p/>
+ * The methods changing a session hold the session's lock, so that a consistent copy of it can be taken while other
+ * threads use it.
  *
  * @since 0.1
  */
@@ -65,19 +70,19 @@ public class SimpleSession implements ValidatingSession, Serializable {
 
     private static final int ID_BIT_MASK = 1 << bitIndexCounter++;
 
-    private static final int START_TIMESTAMP_BIT_MASK = 1 << bitIndexCounter++;
+    static final int START_TIMESTAMP_BIT_MASK = 1 << bitIndexCounter++;
 
-    private static final int STOP_TIMESTAMP_BIT_MASK = 1 << bitIndexCounter++;
+    static final int STOP_TIMESTAMP_BIT_MASK = 1 << bitIndexCounter++;
 
-    private static final int LAST_ACCESS_TIME_BIT_MASK = 1 << bitIndexCounter++;
+    static final int LAST_ACCESS_TIME_BIT_MASK = 1 << bitIndexCounter++;
 
-    private static final int TIMEOUT_BIT_MASK = 1 << bitIndexCounter++;
+    static final int TIMEOUT_BIT_MASK = 1 << bitIndexCounter++;
 
-    private static final int EXPIRED_BIT_MASK = 1 << bitIndexCounter++;
+    static final int EXPIRED_BIT_MASK = 1 << bitIndexCounter++;
 
-    private static final int HOST_BIT_MASK = 1 << bitIndexCounter++;
+    static final int HOST_BIT_MASK = 1 << bitIndexCounter++;
 
-    private static final int ATTRIBUTES_BIT_MASK = 1 << bitIndexCounter++;
+    static final int ATTRIBUTES_BIT_MASK = 1 << bitIndexCounter++;
 
     // ==============================================================
     // NOTICE:
@@ -115,6 +120,11 @@ public class SimpleSession implements ValidatingSession, Serializable {
 
     private transient Map<Object, Object> attributes;
 
+    // Changes made since the session was last read or written, see createDelta().  Never serialized.
+    private transient int dirtyFields;
+
+    private transient Set<Object> dirtyAttributeKeys;
+
     public SimpleSession() {
         this.timeout = DefaultSessionManager.DEFAULT_GLOBAL_SESSION_TIMEOUT; //TODO - remove concrete reference to DefaultSessionManager
         this.startTimestamp = new Date();
@@ -124,6 +134,7 @@ public class SimpleSession implements ValidatingSession, Serializable {
     public SimpleSession(String host) {
         this();
         this.host = host;
+        markDirty(HOST_BIT_MASK);
     }
 
     public Serializable getId() {
@@ -138,8 +149,9 @@ public class SimpleSession implements ValidatingSession, Serializable {
         return startTimestamp;
     }
 
-    public void setStartTimestamp(Date startTimestamp) {
+    public synchronized void setStartTimestamp(Date startTimestamp) {
         this.startTimestamp = startTimestamp;
+        markDirty(START_TIMESTAMP_BIT_MASK);
     }
 
     /**
@@ -163,16 +175,18 @@ public class SimpleSession implements ValidatingSession, Serializable {
         return stopTimestamp;
     }
 
-    public void setStopTimestamp(Date stopTimestamp) {
+    public synchronized void setStopTimestamp(Date stopTimestamp) {
         this.stopTimestamp = stopTimestamp;
+        markDirty(STOP_TIMESTAMP_BIT_MASK);
     }
 
     public Date getLastAccessTime() {
         return lastAccessTime;
     }
 
-    public void setLastAccessTime(Date lastAccessTime) {
+    public synchronized void setLastAccessTime(Date lastAccessTime) {
         this.lastAccessTime = lastAccessTime;
+        markDirty(LAST_ACCESS_TIME_BIT_MASK);
     }
 
     /**
@@ -185,36 +199,41 @@ public class SimpleSession implements ValidatingSession, Serializable {
         return expired;
     }
 
-    public void setExpired(boolean expired) {
+    public synchronized void setExpired(boolean expired) {
         this.expired = expired;
+        markDirty(EXPIRED_BIT_MASK);
     }
 
     public long getTimeout() {
         return timeout;
     }
 
-    public void setTimeout(long timeout) {
+    public synchronized void setTimeout(long timeout) {
         this.timeout = timeout;
+        markDirty(TIMEOUT_BIT_MASK);
     }
 
     public String getHost() {
         return host;
     }
 
-    public void setHost(String host) {
+    public synchronized void setHost(String host) {
         this.host = host;
+        markDirty(HOST_BIT_MASK);
     }
 
     public Map<Object, Object> getAttributes() {
         return attributes;
     }
 
-    public void setAttributes(Map<Object, Object> attributes) {
+    public synchronized void setAttributes(Map<Object, Object> attributes) {
         this.attributes = attributes;
+        markDirty(ATTRIBUTES_BIT_MASK);
     }
 
-    public void touch() {
+    public synchronized void touch() {
         this.lastAccessTime = new Date();
+        markDirty(LAST_ACCESS_TIME_BIT_MASK);
     }
 
     /**
@@ -224,9 +243,10 @@ public class SimpleSession implements ValidatingSession, Serializable {
      *
      * @see SimpleSession#stopTimestamp
      */
-    public void stop() {
+    public synchronized void stop() {
         if (this.stopTimestamp == null) {
             this.stopTimestamp = new Date();
+            markDirty(STOP_TIMESTAMP_BIT_MASK);
         }
     }
 
@@ -237,12 +257,13 @@ public class SimpleSession implements ValidatingSession, Serializable {
     /**
      * 使会话过期
      */
-    protected void expire() {
+    protected synchronized void expire() {
         // 停止会话。这意味着可以手动 stop 会话，也可以因为超时而 stop
         stop();
 
         // 标记为过期
         this.expired = true;
+        markDirty(EXPIRED_BIT_MASK);
     }
 
     /**
@@ -371,21 +392,133 @@ public class SimpleSession implements ValidatingSession, Serializable {
      * <p>
      * 设置属性也可以是清除属性，只要 value 是 null
      */
-    public void setAttribute(Object key, Object value) {
+    public synchronized void setAttribute(Object key, Object value) {
         if (value == null) {
             removeAttribute(key);
         } else {
             // 获取属性 Map，不存在就创建
             getAttributesLazy().put(key, value);
+            markAttributeDirty(key);
         }
     }
 
-    public Object removeAttribute(Object key) {
+    public synchronized Object removeAttribute(Object key) {
         Map<Object, Object> attributes = getAttributes();
         if (attributes == null) {
             return null;
         } else {
-            return attributes.remove(key);
+            Object removed = attributes.remove(key);
+            markAttributeDirty(key);
+            return removed;
+        }
+    }
+
+    private void markDirty(int fieldBitMask) {
+        this.dirtyFields |= fieldBitMask;
+    }
+
+    private void markAttributeDirty(Object key) {
+        if ((dirtyFields & ATTRIBUTES_BIT_MASK) != 0) {
+            // the whole attributes map will be sent anyway
+            return;
+        }
+        if (dirtyAttributeKeys == null) {
+            dirtyAttributeKeys = new HashSet<Object>();
+        }
+        dirtyAttributeKeys.add(key);
+    }
+
+    /**
+     * Returns {@code true} if this session has been changed since it was created, deserialized or
+     * {@link #resetDirtyState() last reset}.
+     * <p/>
+     * Changes are tracked through the methods of this class only: modifying the map returned by
+     * {@link #getAttributes()} directly is not detected, use {@link #setAttributes(Map)} afterwards in that case.
+     *
+     * @return {@code true} if this session has been changed since it was last reset.
+     * @since 1.13
+     */
+    public synchronized boolean isDirty() {
+        return dirtyFields != 0 || !CollectionUtils.isEmpty(dirtyAttributeKeys);
+    }
+
+    /**
+     * Returns the changes made to this session since it was created, deserialized or
+     * {@link #resetDirtyState() last reset}.  Applying the returned delta to a copy of this session taken at that
+     * point makes the copy equal to this session, which lets clustered caches replicate a session update without
+     * transferring the whole session.  Only the modified attributes are included unless the attributes map was
+     * {@link #setAttributes(Map) replaced}.
+     * <p/>
+     * The dirty state is not reset by this method; call {@link #resetDirtyState()} once the delta has been applied.
+     *
+     * @return the changes made to this session since it was last reset.
+     * @since 1.13
+     */
+    public synchronized SimpleSessionDelta createDelta() {
+        int fields = dirtyFields;
+        Map<Object, Object> changedAttributes = null;
+        if ((fields & ATTRIBUTES_BIT_MASK) == 0 && !CollectionUtils.isEmpty(dirtyAttributeKeys)) {
+            changedAttributes = new HashMap<Object, Object>(dirtyAttributeKeys.size());
+            for (Object key : dirtyAttributeKeys) {
+                changedAttributes.put(key, getAttribute(key));
+            }
+        }
+        return new SimpleSessionDelta(this, fields, changedAttributes);
+    }
+
+    /**
+     * Marks this session as unchanged, typically once its current state has been written to a session store.
+     *
+     * @since 1.13
+     */
+    public synchronized void resetDirtyState() {
+        this.dirtyFields = 0;
+        this.dirtyAttributeKeys = null;
+    }
+
+    /**
+     * Returns a copy of this session, including a copy of its attributes map, and moves the dirty state of this
+     * session to the copy.  The copy is taken while holding this session's lock, which every mutator of this class
+     * also holds, so it is a consistent snapshot that can be written or serialized while this session keeps changing.
+     *
+     * @return a copy of this session carrying the changes not yet written.
+     * @since 1.13
+     */
+    synchronized SimpleSession snapshot() {
+        SimpleSession copy = new SimpleSession();
+        copy.id = id;
+        copy.startTimestamp = startTimestamp;
+        copy.stopTimestamp = stopTimestamp;
+        copy.lastAccessTime = lastAccessTime;
+        copy.timeout = timeout;
+        copy.expired = expired;
+        copy.host = host;
+        copy.attributes = attributes != null ? new HashMap<Object, Object>(attributes) : null;
+        copy.dirtyFields = dirtyFields;
+        copy.dirtyAttributeKeys = dirtyAttributeKeys;
+        resetDirtyState();
+        return copy;
+    }
+
+    /**
+     * Adds the dirty state of the specified session to that of this session, so that changes tracked by a
+     * {@link #snapshot() snapshot} which is discarded before being written are not left out of the next delta.
+     *
+     * @param other the session whose changes were not written.
+     * @since 1.13
+     */
+    synchronized void mergeDirtyState(SimpleSession other) {
+        int otherFields;
+        Set<Object> otherKeys;
+        synchronized (other) {
+            otherFields = other.dirtyFields;
+            otherKeys = other.dirtyAttributeKeys != null ? new HashSet<Object>(other.dirtyAttributeKeys) : null;
+        }
+        dirtyFields |= otherFields;
+        if (otherKeys != null) {
+            for (Object key : otherKeys) {
+                markAttributeDirty(key);
+            }
         }
     }
 
@@ -0,0 +1,132 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.shiro.session.mgt;
+
+import org.apache.shiro.cache.CacheEntryUpdater;
+import org.apache.shiro.session.Session;
+
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * The changes made to a {@link SimpleSession} since it was last written to a session store, as returned by
+ * {@link SimpleSession#createDelta()}.
+ * <p/>
+ * A delta is a {@link CacheEntryUpdater}, so an {@link org.apache.shiro.cache.UpdatableCache UpdatableCache} (for
+ * example a clustered JCache) can apply it to the cached copy of the session where that copy lives, transferring only
+ * the modified fields and attributes instead of the whole session.  Like the session attributes it carries, the delta
+ * is serialized to reach remote cache nodes, which therefore need Shiro on their classpath.
+ *
+ * @since 1.13
+ */
+public class SimpleSessionDelta implements CacheEntryUpdater<Session> {
+
+    private static final long serialVersionUID = 1L;
+
+    private final int fields;
+    private final Date startTimestamp;
+    private final Date stopTimestamp;
+    private final Date lastAccessTime;
+    private final long timeout;
+    private final boolean expired;
+    private final String host;
+    // the whole attributes map if it was replaced, otherwise null:
+    private final Map<Object, Object> attributes;
+    // the modified attributes, a null value meaning the attribute was removed:
+    private final Map<Object, Object> changedAttributes;
+
+    SimpleSessionDelta(SimpleSession session, int fields, Map<Object, Object> changedAttributes) {
+        this.fields = fields;
+        // unchanged fields are left out so that they are not serialized:
+        this.startTimestamp = isSet(SimpleSession.START_TIMESTAMP_BIT_MASK) ? session.getStartTimestamp() : null;
+        this.stopTimestamp = isSet(SimpleSession.STOP_TIMESTAMP_BIT_MASK) ? session.getStopTimestamp() : null;
+        this.lastAccessTime = isSet(SimpleSession.LAST_ACCESS_TIME_BIT_MASK) ? session.getLastAccessTime() : null;
+        this.timeout = session.getTimeout();
+        this.expired = session.isExpired();
+        this.host = isSet(SimpleSession.HOST_BIT_MASK) ? session.getHost() : null;
+        Map<Object, Object> attributes = null;
+        if (isSet(SimpleSession.ATTRIBUTES_BIT_MASK) && session.getAttributes() != null) {
+            attributes = new HashMap<Object, Object>(session.getAttributes());
+        }
+        this.attributes = attributes;
+        this.changedAttributes = changedAttributes;
+    }
+
+    /**
+     * Returns {@code true} if the session had not changed when this delta was created.
+     *
+     * @return {@code true} if this delta contains no change.
+     */
+    public boolean isEmpty() {
+        return fields == 0 && (changedAttributes == null || changedAttributes.isEmpty());
+    }
+
+    /**
+     * Applies the changes of this delta to the specified session.
+     *
+     * @param session the session to update, typically an earlier copy of the session this delta was created from.
+     */
+    public void applyTo(SimpleSession session) {
+        if (isSet(SimpleSession.START_TIMESTAMP_BIT_MASK)) {
+            session.setStartTimestamp(startTimestamp);
+        }
+        if (isSet(SimpleSession.STOP_TIMESTAMP_BIT_MASK)) {
+            session.setStopTimestamp(stopTimestamp);
+        }
+        if (isSet(SimpleSession.LAST_ACCESS_TIME_BIT_MASK)) {
+            session.setLastAccessTime(lastAccessTime);
+        }
+        if (isSet(SimpleSession.TIMEOUT_BIT_MASK)) {
+            session.setTimeout(timeout);
+        }
+        if (isSet(SimpleSession.EXPIRED_BIT_MASK)) {
+            session.setExpired(expired);
+        }
+        if (isSet(SimpleSession.HOST_BIT_MASK)) {
+            session.setHost(host);
+        }
+        if (isSet(SimpleSession.ATTRIBUTES_BIT_MASK)) {
+            session.setAttributes(attributes != null ? new HashMap<Object, Object>(attributes) : null);
+        } else if (changedAttributes != null) {
+            for (Map.Entry<Object, Object> entry : changedAttributes.entrySet()) {
+                session.setAttribute(entry.getKey(), entry.getValue());
+            }
+        }
+        session.resetDirtyState();
+    }
+
+    /**
+     * Applies this delta to the specified session if it is a {@link SimpleSession}.
+     *
+     * @param current the cached session
+     * @return the updated session, or {@code null} if it is not a {@code SimpleSession}.
+     */
+    public Session update(Session current) {
+        if (!(current instanceof SimpleSession)) {
+            return null;
+        }
+        applyTo((SimpleSession) current);
+        return current;
+    }
+
+    private boolean isSet(int fieldBitMask) {
+        return (fields & fieldBitMask) != 0;
+    }
+}
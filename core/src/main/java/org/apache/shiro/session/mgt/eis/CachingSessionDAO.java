@@ -21,13 +21,26 @@ package org.apache.shiro.session.mgt.eis;
 import org.apache.shiro.cache.Cache;
 import org.apache.shiro.cache.CacheManager;
 import org.apache.shiro.cache.CacheManagerAware;
+import org.apache.shiro.cache.CacheStatistics;
+import org.apache.shiro.cache.InstrumentedCache;
+import org.apache.shiro.cache.NearCache;
+import org.apache.shiro.cache.PagedCache;
+import org.apache.shiro.cache.UpdatableCache;
+import org.apache.shiro.io.Serializer;
 import org.apache.shiro.session.Session;
 import org.apache.shiro.session.UnknownSessionException;
+import org.apache.shiro.session.mgt.SimpleSession;
+import org.apache.shiro.session.mgt.SimpleSessionDelta;
 import org.apache.shiro.session.mgt.ValidatingSession;
+import org.apache.shiro.util.Destroyable;
 
 import java.io.Serializable;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
 
 /**
  * An CachingSessionDAO is a SessionDAO that provides a transparent caching layer between the components that
@@ -42,10 +55,20 @@ import java.util.Collections;
  * All {@code SessionDAO} methods are implemented by this class to employ
  * caching behavior and delegates the actual EIS operations to respective do* methods to be implemented by
  * subclasses (doCreate, doRead, etc).
+ * <p/>
+ * If a {@link #setSerializer(Serializer) serializer} is set, sessions are cached in serialized form (as
+ * {@code byte[]}) rather than as {@code Session} objects, which lets a distributed cache store and transfer the
+ * compact output of, for example, a {@link org.apache.shiro.session.mgt.BinarySessionSerializer
+ * BinarySessionSerializer} instead of the cache's own serialization of the session.
+ * <p/>
+ * If a {@link #setNearCacheTimeToLive(long) nearCacheTimeToLive} is set, the cache acquired from the
+ * {@code CacheManager} is fronted by a {@link NearCache} keeping local copies of the sessions used on this node, so
+ * that resolving the session of each request does not require a call to a distributed cache.
  *
  * @since 0.2
  */
-public abstract class CachingSessionDAO extends AbstractSessionDAO implements CacheManagerAware {
+public abstract class CachingSessionDAO extends AbstractSessionDAO
+        implements PagedSessionDAO, CacheManagerAware, Destroyable {
 
     /**
      * The default active sessions cache name, equal to {@code shiro-activeSessionCache}.
@@ -67,6 +90,31 @@ public abstract class CachingSessionDAO extends AbstractSessionDAO implements Ca
      */
     private String activeSessionsCacheName = ACTIVE_SESSION_CACHE_NAME;
 
+    /**
+     * Serializer applied to sessions before caching them, or {@code null} to cache them as is.
+     */
+    private Serializer<Session> serializer;
+
+    /**
+     * Whether updates of cached {@code SimpleSession}s only send their changes to an {@code UpdatableCache}.
+     */
+    private boolean deltaUpdatesEnabled;
+
+    /**
+     * Time to live of the local copies of the near cache, or {@code 0} for no near cache.
+     */
+    private long nearCacheTimeToLive;
+
+    /**
+     * Maximum number of local copies of the near cache.
+     */
+    private int nearCacheMaxSize = NearCache.DEFAULT_MAX_SIZE;
+
+    /**
+     * The near cache created in front of the cache acquired from the CacheManager, if any.
+     */
+    private NearCache<Serializable, Session> nearCache;
+
     /**
      * Default no-arg constructor.
      */
@@ -138,6 +186,135 @@ public abstract class CachingSessionDAO extends AbstractSessionDAO implements Ca
         this.activeSessions = cache;
     }
 
+    /**
+     * Returns the serializer used to convert sessions to {@code byte[]} before caching them, or {@code null} (the
+     * default) if sessions are cached as is.
+     *
+     * @return the serializer used to convert sessions before caching them, or {@code null}.
+     * @since 1.13
+     */
+    public Serializer<Session> getSerializer() {
+        return serializer;
+    }
+
+    /**
+     * Sets the serializer used to convert sessions to {@code byte[]} before caching them, or {@code null} to cache
+     * sessions as is.
+     * <p/>
+     * When set, the values of the {@link #getActiveSessionsCache() activeSessionsCache} are {@code byte[]} arrays
+     * despite its declared type; subclasses accessing the cache directly must use
+     * {@link #getCachedSession(Serializable)} and {@link #cache(Session, Serializable)} instead.  Every read returns
+     * a new deserialized copy, so changes to a session are only visible once it is {@link #update(Session) updated}.
+     *
+     * @param serializer the serializer used to convert sessions before caching them, or {@code null}.
+     * @since 1.13
+     */
+    public void setSerializer(Serializer<Session> serializer) {
+        this.serializer = serializer;
+    }
+
+    /**
+     * Returns {@code true} if updating a {@link SimpleSession} sends only its changes (a {@link SimpleSessionDelta})
+     * to the {@link #getActiveSessionsCache() activeSessionsCache} when that cache is an {@link UpdatableCache}.
+     * Defaults to {@code false}.
+     *
+     * @return {@code true} if session updates are sent to the cache as deltas when possible.
+     * @since 1.13
+     */
+    public boolean isDeltaUpdatesEnabled() {
+        return deltaUpdatesEnabled;
+    }
+
+    /**
+     * Sets whether updating a {@link SimpleSession} sends only its changes to the
+     * {@link #getActiveSessionsCache() activeSessionsCache} when that cache is an {@link UpdatableCache}, such as a
+     * clustered JCache.  Since most requests only touch the session or change a single attribute, this avoids
+     * transferring and storing the whole session on every update.
+     * <p/>
+     * The delta is applied where the cache stores the entry, so the classes of Shiro must be available to remote
+     * cache servers.  If the session is no longer cached, a {@link #setSerializer(Serializer) serializer} is set or
+     * the session is not {@link #isDeltaUpdatable(Session) delta updatable} (such as an instance of a
+     * {@code SimpleSession} subclass), the whole session is cached as usual.
+     *
+     * @param deltaUpdatesEnabled whether session updates are sent to the cache as deltas when possible.
+     * @since 1.13
+     */
+    public void setDeltaUpdatesEnabled(boolean deltaUpdatesEnabled) {
+        this.deltaUpdatesEnabled = deltaUpdatesEnabled;
+    }
+
+    /**
+     * Returns the number of milliseconds a session read from or written to the active sessions cache is kept locally
+     * by a {@link NearCache}, or {@code 0} (the default) if there is no near cache.
+     *
+     * @return the time to live of the local session copies, or {@code 0} if there is no near cache.
+     * @since 1.13
+     */
+    public long getNearCacheTimeToLive() {
+        return nearCacheTimeToLive;
+    }
+
+    /**
+     * Sets the number of milliseconds a session read from or written to the active sessions cache is kept locally
+     * by a {@link NearCache}, or {@code 0} for no near cache.  Only the cache acquired from the
+     * {@link #setCacheManager(CacheManager) cacheManager} is fronted by a near cache, and only if this is set before
+     * the cache is first used.
+     * <p/>
+     * This is worthwhile with a distributed cache, such as those of the Hazelcast and JCache cache managers, and
+     * sticky sessions.  Those caches report changes made by other nodes, so local copies are dropped as soon as the
+     * session changes elsewhere; this time to live is only an upper bound on how long a node may use an outdated
+     * copy, and can be kept short (a few seconds).
+     *
+     * @param nearCacheTimeToLive the time to live of the local session copies, or {@code 0} for no near cache.
+     * @since 1.13
+     */
+    public void setNearCacheTimeToLive(long nearCacheTimeToLive) {
+        this.nearCacheTimeToLive = nearCacheTimeToLive;
+    }
+
+    /**
+     * Returns the maximum number of sessions kept locally by the near cache.  Defaults to
+     * {@link NearCache#DEFAULT_MAX_SIZE}.
+     *
+     * @return the maximum number of sessions kept locally by the near cache.
+     * @since 1.13
+     */
+    public int getNearCacheMaxSize() {
+        return nearCacheMaxSize;
+    }
+
+    /**
+     * Sets the maximum number of sessions kept locally by the near cache.
+     *
+     * @param nearCacheMaxSize the maximum number of sessions kept locally by the near cache.
+     * @since 1.13
+     */
+    public void setNearCacheMaxSize(int nearCacheMaxSize) {
+        if (nearCacheMaxSize <= 0) {
+            throw new IllegalArgumentException("nearCacheMaxSize must be greater than zero.");
+        }
+        this.nearCacheMaxSize = nearCacheMaxSize;
+    }
+
+    /**
+     * Returns the statistics of the {@link #getActiveSessionsCache() activeSessionsCache}, or {@code null} if the
+     * cache has not been created yet or does not keep statistics (see
+     * {@link org.apache.shiro.cache.InstrumentedCache InstrumentedCache}).
+     * <p/>
+     * Sessions read from the EIS after a cache miss are reported to the cache as loads.  With a
+     * {@link #setNearCacheTimeToLive(long) near cache}, these are the statistics of its local tier.
+     *
+     * @return the statistics of the active sessions cache, or {@code null}.
+     * @since 1.13
+     */
+    public CacheStatistics getActiveSessionsCacheStatistics() {
+        Cache<Serializable, Session> cache = getActiveSessionsCache();
+        if (cache instanceof InstrumentedCache) {
+            return ((InstrumentedCache<Serializable, Session>) cache).getStatistics();
+        }
+        return null;
+    }
+
     /**
      * Returns the active sessions cache, but if that cache instance is null, first lazily creates the cache instance
      * via the {@link #createActiveSessionsCache()} method and then returns the instance.
@@ -149,11 +326,34 @@ public abstract class CachingSessionDAO extends AbstractSessionDAO implements Ca
      */
     private Cache<Serializable, Session> getActiveSessionsCacheLazy() {
         if (this.activeSessions == null) {
-            this.activeSessions = createActiveSessionsCache();
+            Cache<Serializable, Session> cache = createActiveSessionsCache();
+            if (cache != null && nearCacheTimeToLive > 0) {
+                nearCache = new NearCache<Serializable, Session>(getActiveSessionsCacheName(), cache,
+                        nearCacheMaxSize, nearCacheTimeToLive);
+                cache = nearCache;
+            }
+            this.activeSessions = cache;
         }
         return activeSessions;
     }
 
+    /**
+     * Releases the {@link #setNearCacheTimeToLive(long) near cache}, if one was created.  The sessions remain in the
+     * active sessions cache.
+     *
+     * @since 1.13
+     */
+    public void destroy() {
+        NearCache<Serializable, Session> nearCache = this.nearCache;
+        if (nearCache != null) {
+            this.nearCache = null;
+            if (this.activeSessions == nearCache) {
+                this.activeSessions = null;
+            }
+            nearCache.destroy();
+        }
+    }
+
     /**
      * Creates a cache instance used to store active sessions.  Creation is done by first
      * {@link #getCacheManager() acquiring} the {@code CacheManager}.  If the cache manager is not null, the
@@ -213,14 +413,18 @@ public abstract class CachingSessionDAO extends AbstractSessionDAO implements Ca
 
     /**
      * Returns the Session with the specified id from the specified cache.  This method simply calls
-     * {@code cache.get(sessionId)} and can be overridden by subclasses for custom acquisition behavior.
+     * {@code cache.get(sessionId)}, deserializing the cached value if a {@link #getSerializer() serializer} is set,
+     * and can be overridden by subclasses for custom acquisition behavior.
      *
      * @param sessionId the id of the session to acquire.
      * @param cache     the cache to acquire the session from
      * @return the cached session, or {@code null} if the session wasn't in the cache.
      */
     protected Session getCachedSession(Serializable sessionId, Cache<Serializable, Session> cache) {
-        return cache.get(sessionId);
+        if (serializer == null) {
+            return cache.get(sessionId);
+        }
+        return toSession(serializedView(cache).get(sessionId));
     }
 
     /**
@@ -239,18 +443,78 @@ public abstract class CachingSessionDAO extends AbstractSessionDAO implements Ca
             return;
         }
         cache(session, sessionId, cache);
+        if (session instanceof SimpleSession) {
+            ((SimpleSession) session).resetDirtyState();
+        }
+    }
+
+    /**
+     * Caches the changes of the specified updated session if {@link #isDeltaUpdatesEnabled() delta updates} apply,
+     * otherwise the whole session.
+     */
+    private void recache(Session session) {
+        Serializable sessionId = session.getId();
+        if (deltaUpdatesEnabled && serializer == null && sessionId != null && isDeltaUpdatable(session)) {
+            Cache<Serializable, Session> cache = getActiveSessionsCacheLazy();
+            if (cache instanceof UpdatableCache) {
+                SimpleSession simpleSession = (SimpleSession) session;
+                if (((UpdatableCache<Serializable, Session>) cache).update(sessionId, simpleSession.createDelta())) {
+                    simpleSession.resetDirtyState();
+                    return;
+                }
+            }
+        }
+        cache(session, sessionId);
+    }
+
+    /**
+     * Returns {@code true} if an update of the specified session may be sent to the cache as a
+     * {@link SimpleSessionDelta}.  A delta only carries the fields of {@link SimpleSession}, so this implementation
+     * returns {@code true} for plain {@code SimpleSession}s only; subclasses whose sessions add no state of their own
+     * to {@code SimpleSession} may override this method to allow delta updates for them too.
+     *
+     * @param session the updated session
+     * @return {@code true} if the session's changes can be sent as a delta, {@code false} to cache the whole session.
+     * @since 1.13
+     */
+    protected boolean isDeltaUpdatable(Session session) {
+        return session != null && session.getClass() == SimpleSession.class;
     }
 
     /**
      * Caches the specified session in the given cache under the key of {@code sessionId}.  This implementation
-     * simply calls {@code cache.put(sessionId,session)} and can be overridden for custom behavior.
+     * simply calls {@code cache.put(sessionId,session)}, caching the serialized session instead if a
+     * {@link #getSerializer() serializer} is set, and can be overridden for custom behavior.
      *
      * @param session   the session to cache
      * @param sessionId the id of the session, expected to be the cache key.
      * @param cache     the cache to store the session
      */
     protected void cache(Session session, Serializable sessionId, Cache<Serializable, Session> cache) {
-        cache.put(sessionId, session);
+        if (serializer == null) {
+            cache.put(sessionId, session);
+        } else {
+            serializedView(cache).put(sessionId, serializer.serialize(session));
+        }
+    }
+
+    /**
+     * Returns the specified cache typed according to what it holds when a serializer is set.
+     */
+    @SuppressWarnings("unchecked")
+    private static Cache<Serializable, Object> serializedView(Cache<Serializable, Session> cache) {
+        return (Cache<Serializable, Object>) (Cache) cache;
+    }
+
+    /**
+     * Returns the session represented by the specified cached value, which is either serialized or, if it was cached
+     * before the serializer was set, the session itself.
+     */
+    private Session toSession(Object cached) {
+        if (cached instanceof byte[]) {
+            return serializer.deserialize((byte[]) cached);
+        }
+        return (Session) cached;
     }
 
     /**
@@ -265,7 +529,12 @@ public abstract class CachingSessionDAO extends AbstractSessionDAO implements Ca
         // 从缓存中检索 Session 对象
         Session s = getCachedSession(sessionId);
         if (s == null) {
+            long startTime = System.nanoTime();
             s = super.readSession(sessionId);
+            Cache<Serializable, Session> cache = getActiveSessionsCache();
+            if (cache instanceof InstrumentedCache) {
+                ((InstrumentedCache<Serializable, Session>) cache).recordLoad(System.nanoTime() - startTime);
+            }
         }
         return s;
     }
@@ -284,12 +553,12 @@ public abstract class CachingSessionDAO extends AbstractSessionDAO implements Ca
         doUpdate(session);
         if (session instanceof ValidatingSession) {
             if (((ValidatingSession) session).isValid()) {
-                cache(session, session.getId());
+                recache(session);
             } else {
                 uncache(session);
             }
         } else {
-            cache(session, session.getId());
+            recache(session);
         }
     }
 
@@ -348,10 +617,64 @@ public abstract class CachingSessionDAO extends AbstractSessionDAO implements Ca
      */
     public Collection<Session> getActiveSessions() {
         Cache<Serializable, Session> cache = getActiveSessionsCacheLazy();
-        if (cache != null) {
-            return cache.values();
-        } else {
+        if (cache == null) {
             return Collections.emptySet();
         }
+        if (serializer == null) {
+            return cache.values();
+        }
+        Collection<Object> values = serializedView(cache).values();
+        List<Session> sessions = new ArrayList<Session>(values.size());
+        for (Object value : values) {
+            Session session = toSession(value);
+            if (session != null) {
+                sessions.add(session);
+            }
+        }
+        return sessions;
+    }
+
+    /**
+     * Returns an iterator over the sessions found in the activeSessions cache, fetched {@code pageSize} at a time if
+     * the cache is a {@link PagedCache}.  Otherwise this implementation iterates over {@link #getActiveSessions()},
+     * so subclasses overriding that method to retrieve sessions in a different way should override this method too.
+     *
+     * @param pageSize the maximum number of sessions fetched from the cache at once
+     * @return an iterator over the sessions found in the activeSessions cache.
+     * @since 1.13
+     */
+    public Iterator<Session> getActiveSessionIterator(int pageSize) {
+        Cache<Serializable, Session> cache = getActiveSessionsCacheLazy();
+        if (!(cache instanceof PagedCache)) {
+            return getActiveSessions().iterator();
+        }
+        if (serializer == null) {
+            return ((PagedCache<Serializable, Session>) cache).valueIterator(pageSize);
+        }
+        final Iterator<Object> values = ((PagedCache<Serializable, Object>) serializedView(cache))
+                .valueIterator(pageSize);
+        return new Iterator<Session>() {
+            private Session next;
+
+            public boolean hasNext() {
+                while (next == null && values.hasNext()) {
+                    next = toSession(values.next());
+                }
+                return next != null;
+            }
+
+            public Session next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                Session session = next;
+                next = null;
+                return session;
+            }
+
+            public void remove() {
+                throw new UnsupportedOperationException();
+            }
+        };
     }
 }
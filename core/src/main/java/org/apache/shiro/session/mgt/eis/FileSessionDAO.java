@@ -0,0 +1,825 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.shiro.session.mgt.eis;
+
+import org.apache.shiro.ShiroException;
+import org.apache.shiro.io.DefaultSerializer;
+import org.apache.shiro.io.SerializationException;
+import org.apache.shiro.io.Serializer;
+import org.apache.shiro.session.Session;
+import org.apache.shiro.session.UnknownSessionException;
+import org.apache.shiro.util.Destroyable;
+import org.apache.shiro.util.Initializable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.FilenameFilter;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.io.Serializable;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.util.AbstractCollection;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.zip.CRC32;
+
+/**
+ * SessionDAO that persists sessions to memory-mapped files, so that they survive application restarts on a single
+ * node without requiring an external data store.
+ * <h3>Storage format</h3>
+ * Sessions are stored in an append-only log split into segment files of {@link #getSegmentSize() segmentSize} bytes
+ * in the configured {@link #setDirectory(String) directory}.  Creating or updating a session appends its serialized
+ * form; deleting it appends a tombstone.  Every record carries a CRC32 checksum, so a record torn by a crash is
+ * detected and discarded.  An in-memory index maps each session id to its latest record.
+ * <p/>
+ * When the live records make up less than {@link #getCompactionThreshold() compactionThreshold} of the log, the
+ * oldest segment is compacted: its live records are appended again and the segment is marked as dead and deleted.  Compacting
+ * oldest first guarantees that a dropped tombstone never uncovers an older version of its session.
+ * <h3>Recovery</h3>
+ * On {@link #init() initialization} (or first use) the segments are replayed in order to rebuild the index; replay
+ * stops at the first invalid record of a segment, and the last segment continues from there.
+ * <h3>Durability</h3>
+ * Writes go to the operating system's page cache, so they survive a crash of the JVM but not necessarily of the
+ * operating system.  Enable {@link #setForceWrites(boolean) forceWrites} to flush every write to the storage device,
+ * at a considerable cost.
+ * <p/>
+ * {@link #getActiveSessions()} returns a view that deserializes sessions one at a time while it is iterated, so
+ * validating all sessions does not require holding all of them in memory.
+ * <p/>
+ * Only a single instance may use a directory at any time.
+ *
+ * @since 1.13
+ */
+public class FileSessionDAO extends AbstractSessionDAO implements PagedSessionDAO, Initializable, Destroyable {
+
+    private static final Logger log = LoggerFactory.getLogger(FileSessionDAO.class);
+
+    /**
+     * The default size of each segment file, equal to 16 megabytes.
+     */
+    public static final int DEFAULT_SEGMENT_SIZE = 16 * 1024 * 1024;
+
+    /**
+     * The default fraction of live data below which the oldest segment is compacted.
+     */
+    public static final double DEFAULT_COMPACTION_THRESHOLD = 0.5;
+
+    private static final String SEGMENT_PREFIX = "sessions-";
+    private static final String SEGMENT_SUFFIX = ".log";
+
+    /**
+     * Written in place of the first record length of a segment that is no longer needed, so that it is never replayed
+     * even if its file could not be deleted.
+     */
+    private static final int DEAD_SEGMENT = -1;
+
+    private static final byte PUT = 1;
+    private static final byte DELETE = 2;
+
+    private static final byte STRING_ID = 0;
+    private static final byte SERIALIZED_ID = 1;
+
+    /**
+     * Size of the record length field, preceding the record.
+     */
+    private static final int LENGTH_SIZE = 4;
+
+    /**
+     * Size of the record header: type, id encoding and id length.
+     */
+    private static final int HEADER_SIZE = 6;
+
+    private static final int CRC_SIZE = 4;
+
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    private String directory;
+
+    private int segmentSize = DEFAULT_SEGMENT_SIZE;
+
+    private double compactionThreshold = DEFAULT_COMPACTION_THRESHOLD;
+
+    private boolean forceWrites;
+
+    private Serializer<Session> serializer = new DefaultSerializer<Session>();
+
+    private final Serializer<Serializable> idSerializer = new DefaultSerializer<Serializable>();
+
+    private final ConcurrentMap<Serializable, Location> index = new ConcurrentHashMap<Serializable, Location>();
+
+    /**
+     * Readers hold the read lock while copying a record, so segments are never deleted under them; all changes hold
+     * the write lock.
+     */
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    /**
+     * Segments from oldest to newest; the last one is appended to.
+     */
+    private final LinkedList<Segment> segments = new LinkedList<Segment>();
+
+    private long totalBytes;
+
+    private long liveBytes;
+
+    private volatile boolean initialized;
+
+    public FileSessionDAO() {
+        super();
+    }
+
+    /**
+     * Returns the path of the directory holding the segment files.
+     *
+     * @return the path of the directory holding the segment files.
+     */
+    public String getDirectory() {
+        return directory;
+    }
+
+    /**
+     * Sets the path of the directory holding the segment files.  It is created if it does not exist.
+     *
+     * @param directory the path of the directory holding the segment files.
+     */
+    public void setDirectory(String directory) {
+        this.directory = directory;
+    }
+
+    /**
+     * Returns the size in bytes of each segment file.  Defaults to {@link #DEFAULT_SEGMENT_SIZE}.
+     *
+     * @return the size in bytes of each segment file.
+     */
+    public int getSegmentSize() {
+        return segmentSize;
+    }
+
+    /**
+     * Sets the size in bytes of new segment files.  A session larger than a segment gets a segment of its own.
+     *
+     * @param segmentSize the size in bytes of new segment files.
+     */
+    public void setSegmentSize(int segmentSize) {
+        if (segmentSize <= LENGTH_SIZE + HEADER_SIZE + CRC_SIZE) {
+            throw new IllegalArgumentException("segmentSize is too small.");
+        }
+        this.segmentSize = segmentSize;
+    }
+
+    /**
+     * Returns the fraction of the log below which live data triggers the compaction of the oldest segment.
+     * Defaults to {@link #DEFAULT_COMPACTION_THRESHOLD}.
+     *
+     * @return the fraction of the log below which live data triggers compaction.
+     */
+    public double getCompactionThreshold() {
+        return compactionThreshold;
+    }
+
+    /**
+     * Sets the fraction of the log below which live data triggers the compaction of the oldest segment, between
+     * {@code 0} (only delete segments without live records) and {@code 1} (exclusive).
+     *
+     * @param compactionThreshold the fraction of the log below which live data triggers compaction.
+     */
+    public void setCompactionThreshold(double compactionThreshold) {
+        if (compactionThreshold < 0 || compactionThreshold >= 1) {
+            throw new IllegalArgumentException("compactionThreshold must be between 0 (inclusive) and 1 (exclusive).");
+        }
+        this.compactionThreshold = compactionThreshold;
+    }
+
+    /**
+     * Returns {@code true} if every write is flushed to the storage device before returning.  Defaults to
+     * {@code false}.
+     *
+     * @return {@code true} if every write is flushed to the storage device before returning.
+     */
+    public boolean isForceWrites() {
+        return forceWrites;
+    }
+
+    /**
+     * Sets whether every write is flushed to the storage device before returning, so that sessions also survive a
+     * crash of the operating system.
+     *
+     * @param forceWrites whether every write is flushed to the storage device before returning.
+     */
+    public void setForceWrites(boolean forceWrites) {
+        this.forceWrites = forceWrites;
+    }
+
+    /**
+     * Returns the serializer used to convert sessions to and from bytes.  Defaults to a {@link DefaultSerializer}.
+     *
+     * @return the serializer used to convert sessions to and from bytes.
+     */
+    public Serializer<Session> getSerializer() {
+        return serializer;
+    }
+
+    /**
+     * Sets the serializer used to convert sessions to and from bytes.  Changing the serializer makes previously
+     * stored sessions unreadable.
+     *
+     * @param serializer the serializer used to convert sessions to and from bytes.
+     */
+    public void setSerializer(Serializer<Session> serializer) {
+        if (serializer == null) {
+            throw new IllegalArgumentException("serializer cannot be null.");
+        }
+        this.serializer = serializer;
+    }
+
+    /**
+     * Opens the segment files of the configured directory and rebuilds the session index from them.  Called
+     * automatically on first use if not called explicitly.
+     */
+    public void init() throws ShiroException {
+        Lock writeLock = lock.writeLock();
+        writeLock.lock();
+        try {
+            if (!initialized) {
+                recover();
+                initialized = true;
+            }
+        } catch (IOException e) {
+            throw new ShiroException("Unable to open session files in directory [" + directory + "]", e);
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * Releases the segment files.  Stored sessions remain on disk for the next {@link #init() initialization}.
+     */
+    public void destroy() {
+        Lock writeLock = lock.writeLock();
+        writeLock.lock();
+        try {
+            if (initialized) {
+                for (Segment segment : segments) {
+                    segment.buffer.force();
+                }
+            }
+            segments.clear();
+            index.clear();
+            totalBytes = 0;
+            liveBytes = 0;
+            initialized = false;
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    protected Serializable doCreate(Session session) {
+        Serializable sessionId = generateSessionId(session);
+        assignSessionId(session, sessionId);
+        append(sessionId, serializer.serialize(session), true);
+        return sessionId;
+    }
+
+    protected Session doReadSession(Serializable sessionId) {
+        byte[] bytes = readBytes(sessionId);
+        return bytes != null ? serializer.deserialize(bytes) : null;
+    }
+
+    public void update(Session session) throws UnknownSessionException {
+        Serializable id = session.getId();
+        if (id == null) {
+            throw new UnknownSessionException("Cannot update a session without an id.");
+        }
+        append(id, serializer.serialize(session), false);
+    }
+
+    public void delete(Session session) {
+        if (session == null) {
+            throw new NullPointerException("session argument cannot be null.");
+        }
+        Serializable id = session.getId();
+        if (id == null) {
+            return;
+        }
+        ensureInitialized();
+        Lock writeLock = lock.writeLock();
+        writeLock.lock();
+        try {
+            Location previous = index.remove(id);
+            if (previous != null) {
+                Location tombstone = write(DELETE, id, encodeId(id), null);
+                tombstone.segment.tombstones++;
+                release(previous);
+                compactIfNecessary();
+            }
+        } catch (IOException e) {
+            throw new ShiroException("Unable to delete session [" + id + "]", e);
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * Returns a live view of the stored sessions, deserializing each session only when the iteration reaches it.
+     * Sessions created or deleted during the iteration may or may not be returned.
+     *
+     * @return a live view of the stored sessions.
+     */
+    public Collection<Session> getActiveSessions() {
+        ensureInitialized();
+        return new AbstractCollection<Session>() {
+            @Override
+            public Iterator<Session> iterator() {
+                return new ActiveSessionIterator(index.keySet().iterator());
+            }
+
+            @Override
+            public int size() {
+                return index.size();
+            }
+        };
+    }
+
+    /**
+     * Returns an iterator deserializing each stored session only when the iteration reaches it, so at most one
+     * session is in memory at a time and the page size is ignored.
+     *
+     * @param pageSize ignored
+     * @return an iterator over the stored sessions.
+     */
+    public Iterator<Session> getActiveSessionIterator(int pageSize) {
+        ensureInitialized();
+        return new ActiveSessionIterator(index.keySet().iterator());
+    }
+
+    private void ensureInitialized() {
+        if (!initialized) {
+            init();
+        }
+    }
+
+    private byte[] readBytes(Serializable sessionId) {
+        ensureInitialized();
+        Lock readLock = lock.readLock();
+        readLock.lock();
+        try {
+            Location location = index.get(sessionId);
+            return location != null ? location.read() : null;
+        } finally {
+            readLock.unlock();
+        }
+    }
+
+    private void append(Serializable sessionId, byte[] data, boolean create) {
+        ensureInitialized();
+        byte[] id = encodeId(sessionId);
+        Lock writeLock = lock.writeLock();
+        writeLock.lock();
+        try {
+            Location previous = index.get(sessionId);
+            if (previous == null && !create) {
+                throw new UnknownSessionException("There is no session with id [" + sessionId + "]");
+            }
+            Location location = write(PUT, sessionId, id, data);
+            index.put(sessionId, location);
+            location.segment.add(location);
+            liveBytes += location.recordSize;
+            if (previous != null) {
+                release(previous);
+                compactIfNecessary();
+            }
+        } catch (IOException e) {
+            throw new ShiroException("Unable to write session [" + sessionId + "]", e);
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * Appends a record to the last segment, starting a new one if it does not fit.  Must be called while holding the
+     * write lock.
+     */
+    private Location write(byte type, Serializable sessionId, byte[] id, byte[] data) throws IOException {
+        int dataLength = data != null ? data.length : 0;
+        int length = HEADER_SIZE + id.length + dataLength;
+        int recordSize = LENGTH_SIZE + length + CRC_SIZE;
+        Segment segment = segments.isEmpty() ? null : segments.getLast();
+        if (segment == null || segment.remaining() < recordSize) {
+            segment = newSegment(Math.max(segmentSize, recordSize));
+        }
+
+        ByteBuffer buffer = segment.buffer.duplicate();
+        int offset = segment.position;
+        buffer.position(offset + LENGTH_SIZE);
+        buffer.put(type);
+        buffer.put(sessionId instanceof String ? STRING_ID : SERIALIZED_ID);
+        buffer.putInt(id.length);
+        buffer.put(id);
+        if (data != null) {
+            buffer.put(data);
+        }
+        buffer.putInt(crc(segment.buffer, offset + LENGTH_SIZE, length));
+        //the length comes last, so a partially written record is never taken for a complete one:
+        segment.buffer.putInt(offset, length);
+        if (forceWrites) {
+            segment.buffer.force();
+        }
+        segment.position += recordSize;
+        totalBytes += recordSize;
+        return new Location(sessionId, segment, recordSize, offset + LENGTH_SIZE + HEADER_SIZE + id.length,
+                dataLength);
+    }
+
+    /**
+     * Marks the specified record as superseded.  Must be called while holding the write lock.
+     */
+    private void release(Location location) {
+        location.segment.remove(location);
+        liveBytes -= location.recordSize;
+    }
+
+    /**
+     * Deletes segments that are no longer needed and, if live data has dropped below the compaction threshold,
+     * compacts the oldest segment.  Must be called while holding the write lock.
+     */
+    private void compactIfNecessary() throws IOException {
+        Segment last = segments.getLast();
+        for (Iterator<Segment> it = segments.iterator(); it.hasNext(); ) {
+            Segment segment = it.next();
+            // a tombstone is only needed while an older segment may hold a version of its session:
+            boolean oldest = segment == segments.getFirst();
+            if (segment != last && segment.live.isEmpty() && (oldest || segment.tombstones == 0)) {
+                it.remove();
+                deleteSegment(segment);
+            }
+        }
+        if (segments.size() > 1 && liveBytes < compactionThreshold * totalBytes) {
+            Segment oldest = segments.getFirst();
+            if (log.isDebugEnabled()) {
+                log.debug("Compacting session file [{}] ({} live sessions).", oldest.file, oldest.live.size());
+            }
+            for (Location location : new ArrayList<Location>(oldest.live)) {
+                byte[] data = location.read();
+                Location moved = write(PUT, location.sessionId, encodeId(location.sessionId), data);
+                index.put(location.sessionId, moved);
+                moved.segment.add(moved);
+                liveBytes += moved.recordSize;
+                release(location);
+            }
+            segments.remove(oldest);
+            deleteSegment(oldest);
+        }
+    }
+
+    private Segment newSegment(int size) throws IOException {
+        long sequence = segments.isEmpty() ? 1 : segments.getLast().sequence + 1;
+        File file = new File(getDirectoryFile(), segmentFileName(sequence));
+        Segment segment = new Segment(sequence, file, map(file, size));
+        segments.add(segment);
+        return segment;
+    }
+
+    /**
+     * Marks a segment that is no longer needed as dead and deletes its file.  The mark is written first, so a segment
+     * whose file cannot be deleted is skipped rather than replayed by the next {@link #recover() recovery}, which
+     * would otherwise resurrect the sessions its dropped tombstones deleted.
+     */
+    private void deleteSegment(Segment segment) {
+        totalBytes -= segment.position;
+        segment.buffer.putInt(0, DEAD_SEGMENT);
+        if (forceWrites) {
+            segment.buffer.force();
+        }
+        deleteFile(segment.file, segment.buffer);
+    }
+
+    private static void deleteFile(File file, MappedByteBuffer buffer) {
+        //some platforms refuse to delete a file that is still mapped:
+        unmap(buffer);
+        if (!file.delete()) {
+            log.warn("Unable to delete session file [{}].  It is marked as dead and will be deleted on the next " +
+                    "initialization.", file);
+        }
+    }
+
+    /**
+     * Releases a mapping right away instead of when the buffer is garbage collected.  The buffer must not be used
+     * afterwards.
+     */
+    private static void unmap(MappedByteBuffer buffer) {
+        try {
+            //Java 9 and later:
+            Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+            Method invokeCleaner = unsafeClass.getMethod("invokeCleaner", ByteBuffer.class);
+            Field theUnsafe = unsafeClass.getDeclaredField("theUnsafe");
+            theUnsafe.setAccessible(true);
+            invokeCleaner.invoke(theUnsafe.get(null), buffer);
+            return;
+        } catch (NoSuchMethodException e) {
+            //Java 8, below
+        } catch (Exception e) {
+            log.debug("Unable to unmap session file buffer; it is released when garbage collected.", e);
+            return;
+        }
+        try {
+            Method cleanerMethod = buffer.getClass().getMethod("cleaner");
+            cleanerMethod.setAccessible(true);
+            Object cleaner = cleanerMethod.invoke(buffer);
+            if (cleaner != null) {
+                Method clean = cleaner.getClass().getMethod("clean");
+                clean.setAccessible(true);
+                clean.invoke(cleaner);
+            }
+        } catch (Exception e) {
+            log.debug("Unable to unmap session file buffer; it is released when garbage collected.", e);
+        }
+    }
+
+    private File getDirectoryFile() throws IOException {
+        if (directory == null) {
+            throw new IllegalStateException("The directory property must be set.");
+        }
+        File dir = new File(directory);
+        if (!dir.isDirectory() && !dir.mkdirs()) {
+            throw new IOException("Unable to create directory [" + dir + "]");
+        }
+        return dir;
+    }
+
+    private static String segmentFileName(long sequence) {
+        String digits = Long.toString(sequence);
+        StringBuilder sb = new StringBuilder(SEGMENT_PREFIX);
+        for (int i = digits.length(); i < 16; i++) {
+            sb.append('0');
+        }
+        return sb.append(digits).append(SEGMENT_SUFFIX).toString();
+    }
+
+    private static MappedByteBuffer map(File file, long size) throws IOException {
+        RandomAccessFile raf = new RandomAccessFile(file, "rw");
+        try {
+            //the mapping remains valid after the file is closed:
+            return raf.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, size);
+        } finally {
+            raf.close();
+        }
+    }
+
+    /**
+     * Replays all segment files to rebuild the index.  Must be called while holding the write lock.
+     */
+    private void recover() throws IOException {
+        File[] files = getDirectoryFile().listFiles(new FilenameFilter() {
+            public boolean accept(File dir, String name) {
+                return name.startsWith(SEGMENT_PREFIX) && name.endsWith(SEGMENT_SUFFIX);
+            }
+        });
+        if (files == null) {
+            return;
+        }
+        //zero padded names sort in sequence order:
+        Arrays.sort(files);
+        for (File file : files) {
+            String name = file.getName();
+            long sequence;
+            try {
+                sequence = Long.parseLong(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length()));
+            } catch (NumberFormatException e) {
+                log.warn("Ignoring unexpected file [{}].", file);
+                continue;
+            }
+            MappedByteBuffer buffer = map(file, file.length());
+            if (buffer.capacity() >= LENGTH_SIZE && buffer.getInt(0) == DEAD_SEGMENT) {
+                log.debug("Deleting dead session file [{}].", file);
+                deleteFile(file, buffer);
+                continue;
+            }
+            Segment segment = new Segment(sequence, file, buffer);
+            segments.add(segment);
+            replay(segment);
+        }
+        if (!segments.isEmpty()) {
+            //clear whatever follows the last valid record, so it can never be mistaken for a record later:
+            Segment last = segments.getLast();
+            for (int i = last.position; i < last.buffer.capacity(); i++) {
+                last.buffer.put(i, (byte) 0);
+            }
+            compactIfNecessary();
+        }
+        if (log.isInfoEnabled()) {
+            log.info("Recovered {} sessions from {} session files in [{}].",
+                    new Object[]{index.size(), segments.size(), directory});
+        }
+    }
+
+    private void replay(Segment segment) {
+        ByteBuffer buffer = segment.buffer;
+        int capacity = buffer.capacity();
+        int offset = 0;
+        while (offset + LENGTH_SIZE + HEADER_SIZE + CRC_SIZE <= capacity) {
+            int length = buffer.getInt(offset);
+            int recordSize = LENGTH_SIZE + length + CRC_SIZE;
+            if (length < HEADER_SIZE || recordSize > capacity - offset ||
+                    buffer.getInt(offset + LENGTH_SIZE + length) != crc(buffer, offset + LENGTH_SIZE, length)) {
+                break;
+            }
+            byte type = buffer.get(offset + LENGTH_SIZE);
+            byte idEncoding = buffer.get(offset + LENGTH_SIZE + 1);
+            int idLength = buffer.getInt(offset + LENGTH_SIZE + 2);
+            if (idLength < 0 || idLength > length - HEADER_SIZE) {
+                break;
+            }
+            int idOffset = offset + LENGTH_SIZE + HEADER_SIZE;
+            Serializable sessionId = decodeId(buffer, idOffset, idLength, idEncoding);
+            if (sessionId != null) {
+                Location previous = type == DELETE ? index.remove(sessionId) : null;
+                if (type == PUT) {
+                    Location location = new Location(sessionId, segment, recordSize, idOffset + idLength,
+                            length - HEADER_SIZE - idLength);
+                    previous = index.put(sessionId, location);
+                    segment.add(location);
+                    liveBytes += recordSize;
+                } else if (type == DELETE) {
+                    segment.tombstones++;
+                }
+                if (previous != null) {
+                    release(previous);
+                }
+            }
+            offset += recordSize;
+        }
+        if (offset < capacity && buffer.getInt(offset) != 0) {
+            log.warn("Session file [{}] ends with an incomplete record at offset {}; it is ignored.",
+                    segment.file, offset);
+        }
+        segment.position = offset;
+        totalBytes += offset;
+    }
+
+    private byte[] encodeId(Serializable sessionId) {
+        if (sessionId instanceof String) {
+            return ((String) sessionId).getBytes(UTF_8);
+        }
+        return idSerializer.serialize(sessionId);
+    }
+
+    private Serializable decodeId(ByteBuffer buffer, int offset, int length, byte encoding) {
+        byte[] bytes = new byte[length];
+        ByteBuffer source = buffer.duplicate();
+        source.position(offset);
+        source.get(bytes);
+        if (encoding == STRING_ID) {
+            return new String(bytes, UTF_8);
+        }
+        try {
+            return idSerializer.deserialize(bytes);
+        } catch (SerializationException e) {
+            log.warn("Unable to deserialize a session id.  Its record is ignored.", e);
+            return null;
+        }
+    }
+
+    private static int crc(ByteBuffer buffer, int offset, int length) {
+        CRC32 crc = new CRC32();
+        ByteBuffer source = buffer.duplicate();
+        source.position(offset);
+        source.limit(offset + length);
+        crc.update(source);
+        return (int) crc.getValue();
+    }
+
+    /**
+     * A memory-mapped segment file.
+     */
+    private static final class Segment {
+
+        private final long sequence;
+        private final File file;
+        private final MappedByteBuffer buffer;
+        private final Set<Location> live = new HashSet<Location>();
+        private int position;
+        private int tombstones;
+
+        private Segment(long sequence, File file, MappedByteBuffer buffer) {
+            this.sequence = sequence;
+            this.file = file;
+            this.buffer = buffer;
+        }
+
+        private int remaining() {
+            return buffer.capacity() - position;
+        }
+
+        private void add(Location location) {
+            live.add(location);
+        }
+
+        private void remove(Location location) {
+            live.remove(location);
+        }
+    }
+
+    /**
+     * The position of the latest record of a session.
+     */
+    private static final class Location {
+
+        private final Serializable sessionId;
+        private final Segment segment;
+        private final int recordSize;
+        private final int dataOffset;
+        private final int dataLength;
+
+        private Location(Serializable sessionId, Segment segment, int recordSize, int dataOffset, int dataLength) {
+            this.sessionId = sessionId;
+            this.segment = segment;
+            this.recordSize = recordSize;
+            this.dataOffset = dataOffset;
+            this.dataLength = dataLength;
+        }
+
+        private byte[] read() {
+            ByteBuffer source = segment.buffer.duplicate();
+            source.position(dataOffset);
+            byte[] bytes = new byte[dataLength];
+            source.get(bytes);
+            return bytes;
+        }
+    }
+
+    /**
+     * Iterates over session ids, deserializing the corresponding session on demand and skipping sessions deleted in
+     * the meantime.
+     */
+    private final class ActiveSessionIterator implements Iterator<Session> {
+
+        private final Iterator<Serializable> ids;
+        private Session next;
+
+        private ActiveSessionIterator(Iterator<Serializable> ids) {
+            this.ids = ids;
+        }
+
+        public boolean hasNext() {
+            while (next == null && ids.hasNext()) {
+                Serializable id = ids.next();
+                byte[] bytes = readBytes(id);
+                if (bytes == null) {
+                    continue;
+                }
+                try {
+                    next = serializer.deserialize(bytes);
+                } catch (SerializationException e) {
+                    log.warn("Unable to deserialize session [" + id + "].  It is skipped.", e);
+                }
+            }
+            return next != null;
+        }
+
+        public Session next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            Session session = next;
+            next = null;
+            return session;
+        }
+
+        public void remove() {
+            throw new UnsupportedOperationException();
+        }
+    }
+}
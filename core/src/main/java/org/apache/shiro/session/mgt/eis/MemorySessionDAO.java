@@ -27,6 +27,7 @@ import org.slf4j.LoggerFactory;
 import java.io.Serializable;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.Iterator;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
 
@@ -53,7 +54,7 @@ import java.util.concurrent.ConcurrentMap;
  * @see CachingSessionDAO
  * @since 0.1
  */
-public class MemorySessionDAO extends AbstractSessionDAO {
+public class MemorySessionDAO extends AbstractSessionDAO implements PagedSessionDAO {
 
     private static final Logger log = LoggerFactory.getLogger(MemorySessionDAO.class);
 
@@ -104,4 +105,15 @@ public class MemorySessionDAO extends AbstractSessionDAO {
         }
     }
 
+    /**
+     * Returns a weakly consistent iterator over the sessions held in memory, ignoring the page size.
+     *
+     * @param pageSize ignored
+     * @return an iterator over the active sessions.
+     * @since 1.13
+     */
+    public Iterator<Session> getActiveSessionIterator(int pageSize) {
+        return Collections.unmodifiableCollection(sessions.values()).iterator();
+    }
+
 }
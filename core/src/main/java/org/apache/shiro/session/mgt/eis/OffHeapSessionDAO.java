@@ -0,0 +1,549 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.shiro.session.mgt.eis;
+
+import org.apache.shiro.io.DefaultSerializer;
+import org.apache.shiro.io.Serializer;
+import org.apache.shiro.session.Session;
+import org.apache.shiro.session.UnknownSessionException;
+import org.apache.shiro.util.Destroyable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Serializable;
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * SessionDAO that stores serialized sessions outside of the Java heap, in direct {@link ByteBuffer}s.
+ * <p/>
+ * Unlike the {@link MemorySessionDAO}, which keeps every session object graph (attribute maps, dates, principals)
+ * on the heap, this implementation only keeps a small index entry per session on the heap, so a large number of
+ * sessions does not lengthen garbage collection pauses.  The price is that every read deserializes the session and
+ * every change must be written back with {@link #update(Session) update}, as the
+ * {@link org.apache.shiro.session.mgt.DefaultSessionManager DefaultSessionManager} does.
+ * <h3>Memory layout</h3>
+ * Serialized sessions are appended to fixed-size slabs of {@link #getSlabSize() slabSize} bytes; a session larger
+ * than a slab gets a slab of its own.  An update writes the new version at the end of the current slab and leaves the
+ * old one as garbage.  Once the live data of a full slab drops below {@link #getCompactionThreshold()
+ * compactionThreshold} of its capacity, its remaining sessions are moved to the current slab and the slab is released
+ * (or kept for reuse).
+ * <p/>
+ * Sessions are serialized with the configured {@link #setSerializer(Serializer) serializer}, which defaults to
+ * standard Java serialization.
+ * <p/>
+ * Like the {@code MemorySessionDAO}, sessions do not survive a restart and are not shared across JVMs.
+ *
+ * @since 1.13
+ */
+public class OffHeapSessionDAO extends AbstractSessionDAO implements PagedSessionDAO, Destroyable {
+
+    private static final Logger log = LoggerFactory.getLogger(OffHeapSessionDAO.class);
+
+    /**
+     * The default size of each slab, equal to 4 megabytes.
+     */
+    public static final int DEFAULT_SLAB_SIZE = 4 * 1024 * 1024;
+
+    /**
+     * The default fraction of live data below which a slab is compacted.
+     */
+    public static final double DEFAULT_COMPACTION_THRESHOLD = 0.5;
+
+    /**
+     * Number of released slabs kept for reuse rather than left to the garbage collector, which frees direct memory
+     * lazily.
+     */
+    private static final int MAX_SPARE_SLABS = 2;
+
+    private Serializer<Session> serializer = new DefaultSerializer<Session>();
+
+    private int slabSize = DEFAULT_SLAB_SIZE;
+
+    private double compactionThreshold = DEFAULT_COMPACTION_THRESHOLD;
+
+    private final ConcurrentMap<Serializable, Slot> index = new ConcurrentHashMap<Serializable, Slot>();
+
+    /**
+     * Readers hold the read lock while copying bytes out of a slab, so slabs are never compacted or reused under
+     * them; all changes hold the write lock.
+     */
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private final Deque<Slab> spareSlabs = new ArrayDeque<Slab>();
+
+    private Slab current;
+
+    /**
+     * Slabs that stopped being the current slab during the ongoing write, reclaimed once the index is up to date.
+     */
+    private final Deque<Slab> retiredSlabs = new ArrayDeque<Slab>();
+
+    private long allocatedMemory;
+
+    private long usedMemory;
+
+    public OffHeapSessionDAO() {
+        super();
+    }
+
+    /**
+     * Returns the serializer used to convert sessions to and from bytes.  Defaults to a {@link DefaultSerializer}.
+     *
+     * @return the serializer used to convert sessions to and from bytes.
+     */
+    public Serializer<Session> getSerializer() {
+        return serializer;
+    }
+
+    /**
+     * Sets the serializer used to convert sessions to and from bytes.  Must be set before any session is stored.
+     *
+     * @param serializer the serializer used to convert sessions to and from bytes.
+     */
+    public void setSerializer(Serializer<Session> serializer) {
+        if (serializer == null) {
+            throw new IllegalArgumentException("serializer cannot be null.");
+        }
+        this.serializer = serializer;
+    }
+
+    /**
+     * Returns the size in bytes of each slab of direct memory.  Defaults to {@link #DEFAULT_SLAB_SIZE}.
+     *
+     * @return the size in bytes of each slab of direct memory.
+     */
+    public int getSlabSize() {
+        return slabSize;
+    }
+
+    /**
+     * Sets the size in bytes of each slab of direct memory.  Larger slabs mean fewer allocations, but more memory
+     * held while partially used.  Must be set before any session is stored.
+     *
+     * @param slabSize the size in bytes of each slab of direct memory.
+     */
+    public void setSlabSize(int slabSize) {
+        if (slabSize <= 0) {
+            throw new IllegalArgumentException("slabSize must be greater than zero.");
+        }
+        this.slabSize = slabSize;
+    }
+
+    /**
+     * Returns the fraction of its capacity below which the live data of a full slab triggers its compaction.
+     * Defaults to {@link #DEFAULT_COMPACTION_THRESHOLD}.
+     *
+     * @return the fraction of its capacity below which the live data of a full slab triggers its compaction.
+     */
+    public double getCompactionThreshold() {
+        return compactionThreshold;
+    }
+
+    /**
+     * Sets the fraction of its capacity below which the live data of a full slab triggers its compaction, between
+     * {@code 0} (only release empty slabs) and {@code 1} (exclusive).  Higher values use less memory at the cost of
+     * copying sessions more often.
+     *
+     * @param compactionThreshold the fraction of its capacity below which a full slab is compacted.
+     */
+    public void setCompactionThreshold(double compactionThreshold) {
+        if (compactionThreshold < 0 || compactionThreshold >= 1) {
+            throw new IllegalArgumentException("compactionThreshold must be between 0 (inclusive) and 1 (exclusive).");
+        }
+        this.compactionThreshold = compactionThreshold;
+    }
+
+    /**
+     * Returns the number of bytes of direct memory currently allocated to store sessions, including spare slabs.
+     *
+     * @return the number of bytes of direct memory currently allocated to store sessions.
+     */
+    public long getAllocatedMemory() {
+        Lock readLock = lock.readLock();
+        readLock.lock();
+        try {
+            return allocatedMemory;
+        } finally {
+            readLock.unlock();
+        }
+    }
+
+    /**
+     * Returns the number of bytes of direct memory holding the current version of a session.
+     *
+     * @return the number of bytes of direct memory holding the current version of a session.
+     */
+    public long getUsedMemory() {
+        Lock readLock = lock.readLock();
+        readLock.lock();
+        try {
+            return usedMemory;
+        } finally {
+            readLock.unlock();
+        }
+    }
+
+    protected Serializable doCreate(Session session) {
+        Serializable sessionId = generateSessionId(session);
+        assignSessionId(session, sessionId);
+        store(sessionId, serializer.serialize(session), true);
+        return sessionId;
+    }
+
+    protected Session doReadSession(Serializable sessionId) {
+        byte[] bytes;
+        Lock readLock = lock.readLock();
+        readLock.lock();
+        try {
+            Slot slot = index.get(sessionId);
+            if (slot == null) {
+                return null;
+            }
+            bytes = slot.read();
+        } finally {
+            readLock.unlock();
+        }
+        return serializer.deserialize(bytes);
+    }
+
+    public void update(Session session) throws UnknownSessionException {
+        Serializable id = session.getId();
+        if (id == null) {
+            throw new UnknownSessionException("Cannot update a session without an id.");
+        }
+        store(id, serializer.serialize(session), false);
+    }
+
+    public void delete(Session session) {
+        if (session == null) {
+            throw new NullPointerException("session argument cannot be null.");
+        }
+        Serializable id = session.getId();
+        if (id == null) {
+            return;
+        }
+        Lock writeLock = lock.writeLock();
+        writeLock.lock();
+        try {
+            Slot slot = index.remove(id);
+            if (slot != null) {
+                release(slot);
+                reclaimRetiredSlabs();
+            }
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    public Collection<Session> getActiveSessions() {
+        List<byte[]> serialized;
+        Lock readLock = lock.readLock();
+        readLock.lock();
+        try {
+            if (index.isEmpty()) {
+                return Collections.emptySet();
+            }
+            serialized = new ArrayList<byte[]>(index.size());
+            for (Slot slot : index.values()) {
+                serialized.add(slot.read());
+            }
+        } finally {
+            readLock.unlock();
+        }
+        List<Session> sessions = new ArrayList<Session>(serialized.size());
+        for (byte[] bytes : serialized) {
+            sessions.add(serializer.deserialize(bytes));
+        }
+        return Collections.unmodifiableList(sessions);
+    }
+
+    /**
+     * Returns an iterator copying the serialized sessions out of direct memory {@code pageSize} at a time and
+     * deserializing each one only when the iteration reaches it.
+     *
+     * @param pageSize the maximum number of sessions copied to the heap at once
+     * @return an iterator over the stored sessions.
+     */
+    public Iterator<Session> getActiveSessionIterator(int pageSize) {
+        if (pageSize <= 0) {
+            throw new IllegalArgumentException("pageSize must be greater than zero.");
+        }
+        return new PagedSessionIterator(index.keySet().iterator(), pageSize);
+    }
+
+    /**
+     * Releases all sessions and direct memory held by this instance.
+     */
+    public void destroy() {
+        Lock writeLock = lock.writeLock();
+        writeLock.lock();
+        try {
+            index.clear();
+            spareSlabs.clear();
+            retiredSlabs.clear();
+            current = null;
+            allocatedMemory = 0;
+            usedMemory = 0;
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    private void store(Serializable sessionId, byte[] bytes, boolean create) {
+        Lock writeLock = lock.writeLock();
+        writeLock.lock();
+        try {
+            Slot previous = index.get(sessionId);
+            if (previous == null && !create) {
+                throw new UnknownSessionException("There is no session with id [" + sessionId + "]");
+            }
+            index.put(sessionId, allocate(sessionId, bytes));
+            if (previous != null) {
+                release(previous);
+            }
+            reclaimRetiredSlabs();
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * Copies the specified bytes to direct memory.  Must be called while holding the write lock.
+     */
+    private Slot allocate(Serializable sessionId, byte[] bytes) {
+        int length = bytes.length;
+        Slab slab;
+        if (length > slabSize) {
+            //too large to share a slab:
+            slab = newSlab(length);
+        } else {
+            if (current == null || current.remaining() < length) {
+                if (current != null) {
+                    //it may already hold little live data, but its slots may be in use by the ongoing write:
+                    retiredSlabs.add(current);
+                }
+                current = newSlab(slabSize);
+            }
+            slab = current;
+        }
+        Slot slot = slab.append(sessionId, bytes);
+        usedMemory += length;
+        return slot;
+    }
+
+    /**
+     * Marks the specified slot as garbage, compacting its slab if needed.  Must be called while holding the write
+     * lock.
+     */
+    private void release(Slot slot) {
+        Slab slab = slot.slab;
+        slab.remove(slot);
+        usedMemory -= slot.length;
+        reclaim(slab);
+    }
+
+    /**
+     * Frees or compacts the slabs that stopped being the current slab since the last call, which {@link #release}
+     * skipped while they were current.  Must be called while holding the write lock, once the index is up to date.
+     */
+    private void reclaimRetiredSlabs() {
+        Slab slab;
+        while ((slab = retiredSlabs.poll()) != null) {
+            reclaim(slab);
+        }
+    }
+
+    /**
+     * Frees the specified slab if it holds no live data, or compacts it if it holds little.  The current slab is
+     * left alone, since it is still being filled.
+     */
+    private void reclaim(Slab slab) {
+        if (slab == current || slab.freed) {
+            return;
+        }
+        if (slab.live.isEmpty()) {
+            freeSlab(slab);
+        } else if (slab.liveBytes < compactionThreshold * slab.buffer.capacity()) {
+            compact(slab);
+        }
+    }
+
+    private void compact(Slab slab) {
+        if (log.isTraceEnabled()) {
+            log.trace("Compacting slab with {} live sessions ({} of {} bytes).",
+                    new Object[]{slab.live.size(), slab.liveBytes, slab.buffer.capacity()});
+        }
+        for (Slot slot : new ArrayList<Slot>(slab.live)) {
+            Slot moved = allocate(slot.sessionId, slot.read());
+            index.put(slot.sessionId, moved);
+            slab.remove(slot);
+            usedMemory -= slot.length;
+        }
+        freeSlab(slab);
+    }
+
+    private Slab newSlab(int capacity) {
+        Slab slab = capacity == slabSize ? spareSlabs.poll() : null;
+        if (slab == null) {
+            slab = new Slab(ByteBuffer.allocateDirect(capacity));
+            allocatedMemory += capacity;
+        }
+        slab.freed = false;
+        return slab;
+    }
+
+    private void freeSlab(Slab slab) {
+        slab.freed = true;
+        if (slab.buffer.capacity() == slabSize && spareSlabs.size() < MAX_SPARE_SLABS) {
+            slab.reset();
+            spareSlabs.push(slab);
+        } else {
+            allocatedMemory -= slab.buffer.capacity();
+        }
+    }
+
+    /**
+     * A region of direct memory sessions are appended to.
+     */
+    private static final class Slab {
+
+        private final ByteBuffer buffer;
+        private final Set<Slot> live = new HashSet<Slot>();
+        private int position;
+        private long liveBytes;
+        private boolean freed;
+
+        private Slab(ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        private int remaining() {
+            return buffer.capacity() - position;
+        }
+
+        private Slot append(Serializable sessionId, byte[] bytes) {
+            ByteBuffer target = buffer.duplicate();
+            target.position(position);
+            target.put(bytes);
+            Slot slot = new Slot(sessionId, this, position, bytes.length);
+            position += bytes.length;
+            live.add(slot);
+            liveBytes += bytes.length;
+            return slot;
+        }
+
+        private void remove(Slot slot) {
+            if (live.remove(slot)) {
+                liveBytes -= slot.length;
+            }
+        }
+
+        private void reset() {
+            live.clear();
+            position = 0;
+            liveBytes = 0;
+        }
+    }
+
+    /**
+     * The location of the current serialized version of a session.
+     */
+    private static final class Slot {
+
+        private final Serializable sessionId;
+        private final Slab slab;
+        private final int offset;
+        private final int length;
+
+        private Slot(Serializable sessionId, Slab slab, int offset, int length) {
+            this.sessionId = sessionId;
+            this.slab = slab;
+            this.offset = offset;
+            this.length = length;
+        }
+
+        private byte[] read() {
+            ByteBuffer source = slab.buffer.duplicate();
+            source.position(offset);
+            byte[] bytes = new byte[length];
+            source.get(bytes);
+            return bytes;
+        }
+    }
+
+    /**
+     * Copies pages of serialized sessions while holding the read lock, skipping sessions deleted in the meantime.
+     */
+    private final class PagedSessionIterator implements Iterator<Session> {
+
+        private final Iterator<Serializable> ids;
+        private final int pageSize;
+        private final Deque<byte[]> page;
+
+        private PagedSessionIterator(Iterator<Serializable> ids, int pageSize) {
+            this.ids = ids;
+            this.pageSize = pageSize;
+            this.page = new ArrayDeque<byte[]>(Math.min(pageSize, 1024));
+        }
+
+        public boolean hasNext() {
+            while (page.isEmpty() && ids.hasNext()) {
+                Lock readLock = lock.readLock();
+                readLock.lock();
+                try {
+                    while (page.size() < pageSize && ids.hasNext()) {
+                        Slot slot = index.get(ids.next());
+                        if (slot != null) {
+                            page.add(slot.read());
+                        }
+                    }
+                } finally {
+                    readLock.unlock();
+                }
+            }
+            return !page.isEmpty();
+        }
+
+        public Session next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            return serializer.deserialize(page.poll());
+        }
+
+        public void remove() {
+            throw new UnsupportedOperationException();
+        }
+    }
+}
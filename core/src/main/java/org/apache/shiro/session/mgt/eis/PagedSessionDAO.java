@@ -0,0 +1,43 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.shiro.session.mgt.eis;
+
+import org.apache.shiro.session.Session;
+
+import java.util.Iterator;
+
+/**
+ * A {@link SessionDAO} able to enumerate the active sessions a page at a time, so that components visiting every
+ * session, such as session validation, hold at most about one page of sessions in memory regardless of how many
+ * sessions exist.
+ *
+ * @since 1.13
+ */
+public interface PagedSessionDAO extends SessionDAO {
+
+    /**
+     * Returns an iterator over the active sessions, fetching them from the underlying store {@code pageSize} at a
+     * time.  The iterator is weakly consistent: sessions created or deleted while it is in use may or may not be
+     * returned.  Implementations holding their sessions in local memory may ignore the page size.
+     *
+     * @param pageSize the maximum number of sessions fetched at once, greater than zero
+     * @return an iterator over the active sessions; it does not support removal.
+     */
+    Iterator<Session> getActiveSessionIterator(int pageSize);
+}
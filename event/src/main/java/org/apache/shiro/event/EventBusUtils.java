@@ -0,0 +1,49 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.shiro.event;
+
+/**
+ * Static helper methods for components publishing events.
+ *
+ * @since 1.13
+ */
+public final class EventBusUtils {
+
+    private EventBusUtils() {
+    }
+
+    /**
+     * Returns {@code true} if an event of the specified class published to the specified bus could be delivered to a
+     * subscriber.  Always returns {@code false} for a {@code null} bus, and {@code true} for buses that are not
+     * {@link InspectableEventBus}es.
+     *
+     * @param eventBus  the bus the event would be published to, may be {@code null}.
+     * @param eventType the concrete class of the event that would be published.
+     * @return {@code true} if the event should be created and published.
+     */
+    public static boolean hasSubscribers(EventBus eventBus, Class<?> eventType) {
+        if (eventBus == null) {
+            return false;
+        }
+        if (eventBus instanceof InspectableEventBus) {
+            return ((InspectableEventBus) eventBus).hasSubscribers(eventType);
+        }
+        return true;
+    }
+}
@@ -0,0 +1,38 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.shiro.event;
+
+/**
+ * An {@link EventBus} that can tell whether any subscriber would receive an event of a given type, allowing
+ * publishers to skip creating events nobody listens to.
+ *
+ * @see EventBusUtils#hasSubscribers(EventBus, Class)
+ * @since 1.13
+ */
+public interface InspectableEventBus extends EventBus {
+
+    /**
+     * Returns {@code true} if publishing an event of the specified class could deliver it to at least one subscriber,
+     * {@code false} if it would certainly be ignored.
+     *
+     * @param eventType the concrete class of the event that would be published.
+     * @return {@code true} if an event of the specified class could be delivered to a subscriber.
+     */
+    boolean hasSubscribers(Class<?> eventType);
+}
@@ -37,11 +37,41 @@ import java.lang.annotation.Target;
  * Because the method argument is declared as a {@code SomeEvent} type, the method will be called by the event
  * dispatcher whenever a {@code SomeEvent} instance (or one of its subclass instances that is not already registered)
  * is published.
+ * <h2>Batches</h2>
+ * As of 1.13, subscribers that can amortize work across events (e.g. writing audit records to a file or database)
+ * may receive them in batches by declaring a {@link java.util.List List} argument and a {@link #batchSize()}:
+ * <pre>
+ * &#64;Subscribe(batchSize = 500, batchDelay = 2000)
+ * public void onSomeEvents(List&lt;SomeEvent&gt; events) { ... }
+ * </pre>
+ * The list's element type determines the events delivered.  Events are accumulated until {@code batchSize} of them
+ * are pending, or until the oldest one has waited {@code batchDelay} milliseconds, and then handed over in a single
+ * call.
  *
+ * @see org.apache.shiro.event.support.BatchEventListener
  * @since 1.3
  */
 @Retention(value = RetentionPolicy.RUNTIME)
 @Target(value = ElementType.METHOD)
 @Documented
 public @interface Subscribe {
+
+    /**
+     * The maximum number of events delivered in a single call to a method accepting a {@code List} of events.  The
+     * default, {@code 0}, delivers events one at a time.
+     *
+     * @return the maximum number of events delivered in a single call, or {@code 0} to deliver events one at a time.
+     * @since 1.13
+     */
+    int batchSize() default 0;
+
+    /**
+     * The maximum number of milliseconds an event waits for its batch to fill up before the batch is delivered
+     * anyway, or {@code 0} to only deliver full batches (and pending events when the subscriber is unregistered).
+     * Only applies when {@link #batchSize()} is set.  Defaults to one second.
+     *
+     * @return the maximum number of milliseconds an event waits for its batch to fill up.
+     * @since 1.13
+     */
+    long batchDelay() default 1000;
 }
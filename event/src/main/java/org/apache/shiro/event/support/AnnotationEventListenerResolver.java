@@ -33,8 +33,11 @@ import java.util.List;
  * <p/>
  * The default {@link #setAnnotationClass(Class) annotationClass} is {@link Subscribe}, indicating each
  * {@link Subscribe}-annotated method will be represented as an EventListener.
+ * <p/>
+ * Methods annotated with a {@link Subscribe#batchSize() batchSize} are represented as a {@link BatchEventListener}.
  *
  * @see SingleArgumentMethodEventListener
+ * @see BatchEventListener
  * @since 1.3
  */
 public class AnnotationEventListenerResolver implements EventListenerResolver {
@@ -66,7 +69,12 @@ public class AnnotationEventListenerResolver implements EventListenerResolver {
         List<EventListener> listeners = new ArrayList<EventListener>(methods.size());
 
         for (Method m : methods) {
-            listeners.add(new SingleArgumentMethodEventListener(instance, m));
+            Subscribe subscribe = m.getAnnotation(Subscribe.class);
+            if (subscribe != null && subscribe.batchSize() > 0) {
+                listeners.add(new BatchEventListener(instance, m, subscribe.batchSize(), subscribe.batchDelay()));
+            } else {
+                listeners.add(new SingleArgumentMethodEventListener(instance, m));
+            }
         }
 
         return listeners;
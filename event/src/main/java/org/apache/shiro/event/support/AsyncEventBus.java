@@ -0,0 +1,434 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.shiro.event.support;
+
+import org.apache.shiro.util.Destroyable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * An event bus that delivers events to subscribers asynchronously, so that slow listeners (auditing, metrics,
+ * notifications) do not add to the latency of the operation publishing the event.
+ * <p/>
+ * Subscribers are resolved exactly as by the {@link DefaultEventBus}, but each registered subscriber has its own
+ * bounded queue, drained by tasks submitted to the {@link #getExecutor() executor}.  A subscriber therefore receives
+ * events in the order they were published, one at a time, while different subscribers are notified concurrently.
+ * When a subscriber's queue is full, the {@link #getOverflowPolicy() overflow policy} decides what happens to the
+ * new event.
+ * <p/>
+ * Unless an executor is configured, events are delivered by virtual threads when the JVM supports them, and by a
+ * cached pool of daemon threads otherwise.  {@link #destroy() Destroying} the bus waits up to
+ * {@link #getShutdownTimeout() shutdownTimeout} milliseconds for queued events to be delivered.  Example
+ * {@code shiro.ini} configuration:
+ * <pre>
+ * eventBus = org.apache.shiro.event.support.AsyncEventBus
+ * eventBus.queueCapacity = 10000
+ * eventBus.overflowPolicy = DROP
+ * </pre>
+ * Since publishing returns before listeners run, listeners that must complete before the publishing operation
+ * continues (e.g. one vetoing or mutating the event) should be registered with a {@code DefaultEventBus} instead.
+ *
+ * @since 1.13
+ */
+public class AsyncEventBus extends DefaultEventBus implements Destroyable {
+
+    /**
+     * What to do with an event published to a subscriber whose queue is full.
+     */
+    public enum OverflowPolicy {
+
+        /**
+         * The publishing thread waits until the queue has room for the event.  Listeners publishing from one of
+         * this bus's delivery threads do not wait, since the queue may only drain once they return; the event is
+         * delivered on their thread instead, as with {@link #CALLER_RUNS}.
+         */
+        BLOCK,
+
+        /**
+         * The event is discarded for that subscriber and counted in {@link #getDroppedEventCount()}.
+         */
+        DROP,
+
+        /**
+         * The event is delivered on the publishing thread, possibly before (and concurrently with) events still
+         * queued for the subscriber.
+         */
+        CALLER_RUNS
+    }
+
+    /**
+     * The default maximum number of events queued for each subscriber.
+     */
+    public static final int DEFAULT_QUEUE_CAPACITY = 1024;
+
+    /**
+     * The default number of milliseconds {@link #destroy()} waits for queued events to be delivered.
+     */
+    public static final long DEFAULT_SHUTDOWN_TIMEOUT = 5000;
+
+    private static final Logger log = LoggerFactory.getLogger(AsyncEventBus.class);
+
+    //the number of events a worker delivers to a subscriber before yielding the thread to other subscribers:
+    private static final int DRAIN_BATCH_SIZE = 64;
+
+    private int queueCapacity = DEFAULT_QUEUE_CAPACITY;
+    private OverflowPolicy overflowPolicy = OverflowPolicy.BLOCK;
+    private long shutdownTimeout = DEFAULT_SHUTDOWN_TIMEOUT;
+    private Executor executor;
+    private ExecutorService createdExecutor;
+
+    private final ConcurrentMap<Subscription, SubscriberQueue> queues =
+            new ConcurrentHashMap<Subscription, SubscriberQueue>();
+    private final AtomicLong pendingEventCount = new AtomicLong();
+    private final AtomicLong droppedEventCount = new AtomicLong();
+    private final Object idleLock = new Object();
+    private volatile boolean destroying;
+    //set while the current thread delivers events of this bus:
+    private final ThreadLocal<Boolean> draining = new ThreadLocal<Boolean>();
+
+    /**
+     * Returns the maximum number of events queued for each subscriber.  Defaults to {@link #DEFAULT_QUEUE_CAPACITY}.
+     *
+     * @return the maximum number of events queued for each subscriber.
+     */
+    public int getQueueCapacity() {
+        return queueCapacity;
+    }
+
+    /**
+     * Sets the maximum number of events queued for each subscriber.  Only applies to subscribers that receive their
+     * first event after it is set.
+     *
+     * @param queueCapacity the maximum number of events queued for each subscriber.
+     */
+    public void setQueueCapacity(int queueCapacity) {
+        if (queueCapacity <= 0) {
+            throw new IllegalArgumentException("queueCapacity must be greater than zero.");
+        }
+        this.queueCapacity = queueCapacity;
+    }
+
+    /**
+     * Returns what happens to an event published to a subscriber whose queue is full.  Defaults to
+     * {@link OverflowPolicy#BLOCK BLOCK}.
+     *
+     * @return what happens to an event published to a subscriber whose queue is full.
+     */
+    public OverflowPolicy getOverflowPolicy() {
+        return overflowPolicy;
+    }
+
+    /**
+     * Sets what happens to an event published to a subscriber whose queue is full.
+     *
+     * @param overflowPolicy what happens to an event published to a subscriber whose queue is full.
+     */
+    public void setOverflowPolicy(OverflowPolicy overflowPolicy) {
+        if (overflowPolicy == null) {
+            throw new IllegalArgumentException("overflowPolicy cannot be null.");
+        }
+        this.overflowPolicy = overflowPolicy;
+    }
+
+    /**
+     * Returns the number of milliseconds {@link #destroy()} waits for queued events to be delivered.  Defaults to
+     * {@link #DEFAULT_SHUTDOWN_TIMEOUT}.
+     *
+     * @return the number of milliseconds {@link #destroy()} waits for queued events to be delivered.
+     */
+    public long getShutdownTimeout() {
+        return shutdownTimeout;
+    }
+
+    /**
+     * Sets the number of milliseconds {@link #destroy()} waits for queued events to be delivered.
+     *
+     * @param shutdownTimeout the number of milliseconds {@link #destroy()} waits for queued events to be delivered.
+     */
+    public void setShutdownTimeout(long shutdownTimeout) {
+        this.shutdownTimeout = shutdownTimeout;
+    }
+
+    /**
+     * Returns the executor running event deliveries.  If none has been set, one is created on first use: a
+     * virtual-thread-per-task executor when the JVM supports virtual threads, otherwise a cached pool of daemon
+     * threads, which never runs more threads than there are subscribers with queued events.
+     *
+     * @return the executor running event deliveries.
+     */
+    public synchronized Executor getExecutor() {
+        if (executor == null) {
+            createdExecutor = createDefaultExecutor();
+            executor = createdExecutor;
+        }
+        return executor;
+    }
+
+    /**
+     * Sets the executor running event deliveries.  An executor set this way is not shut down by {@link #destroy()}.
+     *
+     * @param executor the executor running event deliveries.
+     */
+    public synchronized void setExecutor(Executor executor) {
+        this.executor = executor;
+    }
+
+    /**
+     * Returns the number of events discarded because of the {@link OverflowPolicy#DROP DROP} overflow policy, or
+     * because the publishing thread was interrupted while waiting for room in a queue.
+     *
+     * @return the number of events discarded so far.
+     */
+    public long getDroppedEventCount() {
+        return droppedEventCount.get();
+    }
+
+    /**
+     * Returns the number of events published but not yet delivered.
+     *
+     * @return the number of events published but not yet delivered.
+     */
+    public long getPendingEventCount() {
+        return pendingEventCount.get();
+    }
+
+    @Override
+    void deliver(Dispatch dispatch, Object event) {
+        SubscriberQueue queue = queues.get(dispatch.subscription);
+        if (queue == null) {
+            queue = new SubscriberQueue(queueCapacity);
+            SubscriberQueue existing = queues.putIfAbsent(dispatch.subscription, queue);
+            if (existing != null) {
+                queue = existing;
+            } else if (!isRegistered(dispatch.subscription)) {
+                //published from a snapshot taken before the subscriber was unregistered, possibly after
+                //unregistered() ran: the queue still delivers this event by itself, but must not be kept
+                queues.remove(dispatch.subscription, queue);
+            }
+        }
+        queue.enqueue(new Delivery(dispatch, event));
+    }
+
+    /**
+     * Delivers the events still queued for the subscription on the calling thread (after any delivery in progress),
+     * so that they precede its incomplete batches, which are delivered next.
+     */
+    @Override
+    void unregistered(Subscription subscription) {
+        SubscriberQueue queue = queues.remove(subscription);
+        if (queue != null) {
+            queue.drain();
+        }
+        super.unregistered(subscription);
+    }
+
+    /**
+     * Waits up to {@link #getShutdownTimeout() shutdownTimeout} milliseconds for queued events to be delivered,
+     * delivers incomplete {@link BatchEventListener batches}, then shuts down the executor if it was created by this
+     * bus.  In that case, events published afterwards are delivered on the publishing thread; an executor that was
+     * {@link #setExecutor(Executor) set} keeps delivering them as before.
+     */
+    public void destroy() throws Exception {
+        destroying = true;
+        long deadline = System.currentTimeMillis() + shutdownTimeout;
+        synchronized (idleLock) {
+            long remaining;
+            while (pendingEventCount.get() > 0 && (remaining = deadline - System.currentTimeMillis()) > 0) {
+                idleLock.wait(remaining);
+            }
+        }
+        if (pendingEventCount.get() > 0) {
+            log.warn("{} events were still queued when the event bus was destroyed.", pendingEventCount.get());
+        }
+        super.destroy();
+        ExecutorService created;
+        synchronized (this) {
+            created = createdExecutor;
+        }
+        if (created != null) {
+            created.shutdown();
+        }
+    }
+
+    private void delivered() {
+        if (pendingEventCount.decrementAndGet() == 0 && destroying) {
+            synchronized (idleLock) {
+                idleLock.notifyAll();
+            }
+        }
+    }
+
+    private static ExecutorService createDefaultExecutor() {
+        try {
+            Method method = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return (ExecutorService) method.invoke(null);
+        } catch (Exception e) {
+            log.debug("Virtual threads are not available, delivering events with platform threads.");
+        }
+        //a subscriber is drained by at most one thread at a time, which bounds the size of the pool:
+        return Executors.newCachedThreadPool(new ThreadFactory() {
+            private final AtomicInteger count = new AtomicInteger(1);
+
+            public Thread newThread(Runnable r) {
+                Thread thread = new Thread(r);
+                thread.setDaemon(true);
+                thread.setName("EventBusWorker-" + count.getAndIncrement());
+                return thread;
+            }
+        });
+    }
+
+    /**
+     * An event waiting to be delivered to one subscriber.
+     */
+    private static final class Delivery {
+
+        private final Dispatch dispatch;
+        private final Object event;
+
+        private Delivery(Dispatch dispatch, Object event) {
+            this.dispatch = dispatch;
+            this.event = event;
+        }
+    }
+
+    /**
+     * The events queued for one subscriber, delivered in order by at most one worker at a time.
+     */
+    private final class SubscriberQueue implements Runnable {
+
+        private final BlockingQueue<Delivery> deliveries;
+        //true while a drain task is submitted or running; whoever sets it is responsible for draining:
+        private final AtomicBoolean scheduled = new AtomicBoolean();
+        //held while delivering, so that drain() cannot deliver concurrently with a drain task:
+        private final ReentrantLock drainLock = new ReentrantLock();
+
+        private SubscriberQueue(int capacity) {
+            this.deliveries = new ArrayBlockingQueue<Delivery>(capacity);
+        }
+
+        private void enqueue(Delivery delivery) {
+            pendingEventCount.incrementAndGet();
+            if (!deliveries.offer(delivery) && !overflow(delivery)) {
+                return;
+            }
+            schedule();
+        }
+
+        /**
+         * Handles a delivery that does not fit in the queue, returning {@code true} if it was queued after all.
+         */
+        private boolean overflow(Delivery delivery) {
+            OverflowPolicy policy = overflowPolicy;
+            //a listener waiting for room in any queue could wait for itself, directly or through other listeners
+            //waiting on each other's queues:
+            if (policy == OverflowPolicy.CALLER_RUNS ||
+                    (policy == OverflowPolicy.BLOCK && draining.get() != null)) {
+                run(delivery);
+                return false;
+            }
+            if (policy == OverflowPolicy.BLOCK) {
+                try {
+                    deliveries.put(delivery);
+                    return true;
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            droppedEventCount.incrementAndGet();
+            delivered();
+            log.debug("Event queue of subscriber [{}] is full, dropping event [{}].",
+                    delivery.dispatch.subscription.subscriber, delivery.event);
+            return false;
+        }
+
+        private void schedule() {
+            if (scheduled.compareAndSet(false, true)) {
+                try {
+                    getExecutor().execute(this);
+                } catch (RejectedExecutionException e) {
+                    //the executor has been shut down (or is saturated): deliver on this thread instead
+                    run();
+                }
+            }
+        }
+
+        public void run() {
+            try {
+                drain(DRAIN_BATCH_SIZE);
+            } finally {
+                scheduled.set(false);
+            }
+            if (!deliveries.isEmpty()) {
+                schedule();
+            }
+        }
+
+        /**
+         * Delivers all queued events on the calling thread.
+         */
+        private void drain() {
+            drain(Integer.MAX_VALUE);
+        }
+
+        private void drain(int max) {
+            drainLock.lock();
+            boolean nested = draining.get() != null;
+            draining.set(Boolean.TRUE);
+            try {
+                for (int i = 0; i < max; i++) {
+                    Delivery delivery = deliveries.poll();
+                    if (delivery == null) {
+                        break;
+                    }
+                    run(delivery);
+                }
+            } finally {
+                if (!nested) {
+                    draining.remove();
+                }
+                drainLock.unlock();
+            }
+        }
+
+        private void run(Delivery delivery) {
+            try {
+                delivery.dispatch.onEvent(delivery.event);
+            } finally {
+                delivered();
+            }
+        }
+    }
+}
@@ -0,0 +1,198 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.shiro.event.support;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.reflect.Method;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.lang.reflect.WildcardType;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * An event listener that accumulates events and passes them, in publication order, to a target object's method
+ * accepting a {@link List} of events.  A batch is delivered once {@link #getBatchSize() batchSize} events are
+ * pending, on the thread publishing (or, with an {@link AsyncEventBus}, delivering) the event that completes it, or
+ * once its oldest event has waited {@link #getBatchDelay() batchDelay} milliseconds, on a thread owned by the
+ * {@link DefaultEventBus} the subscriber is registered with.  A listener that is not registered with such a bus only
+ * delivers full batches and those {@link #flush() flushed} explicitly.
+ * <p/>
+ * Batches are delivered one at a time: a publisher completing a batch while the previous one is still being
+ * processed waits for it, which bounds the number of pending events.  Events that are still pending when the
+ * subscriber is unregistered are delivered immediately.
+ *
+ * @see org.apache.shiro.event.Subscribe#batchSize()
+ * @since 1.13
+ */
+public class BatchEventListener implements TypedEventListener {
+
+    private static final Logger log = LoggerFactory.getLogger(BatchEventListener.class);
+
+    private final SingleArgumentMethodEventListener invoker;
+    private final Class eventType;
+    private final int batchSize;
+    private final long batchDelay;
+
+    //pending events, guarded by pendingLock; batches are taken and delivered while holding deliveryLock so that they are
+    //delivered in order, while events can still be added during a delivery:
+    private List<Object> pending;
+    private final Object pendingLock = new Object();
+    private final Object deliveryLock = new Object();
+
+    //the scheduler delivering batches that reached their delay, provided by the event bus:
+    private volatile ScheduledExecutorService scheduler;
+
+    public BatchEventListener(Object target, Method method, int batchSize, long batchDelay) {
+        if (batchSize <= 0) {
+            throw new IllegalArgumentException("batchSize must be greater than zero.");
+        }
+        this.eventType = getBatchElementType(method);
+        this.invoker = new SingleArgumentMethodEventListener(target, method);
+        this.batchSize = batchSize;
+        this.batchDelay = batchDelay;
+        this.pending = new ArrayList<Object>(batchSize);
+    }
+
+    public Object getTarget() {
+        return invoker.getTarget();
+    }
+
+    public Method getMethod() {
+        return invoker.getMethod();
+    }
+
+    /**
+     * Returns the maximum number of events delivered in a single call.
+     *
+     * @return the maximum number of events delivered in a single call.
+     */
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    /**
+     * Returns the maximum number of milliseconds an event waits for its batch to fill up, or {@code 0} if only full
+     * batches are delivered.
+     *
+     * @return the maximum number of milliseconds an event waits for its batch to fill up.
+     */
+    public long getBatchDelay() {
+        return batchDelay;
+    }
+
+    /**
+     * Returns the element type of the method's {@code List} argument, i.e. the type of events received.
+     */
+    public Class getEventType() {
+        return eventType;
+    }
+
+    /**
+     * Sets the scheduler used to deliver batches once they reached their {@link #getBatchDelay() batchDelay}.
+     */
+    void setScheduler(ScheduledExecutorService scheduler) {
+        this.scheduler = scheduler;
+    }
+
+    public boolean accepts(Object event) {
+        return event != null && eventType.isInstance(event);
+    }
+
+    public void onEvent(Object event) {
+        boolean full;
+        boolean first;
+        synchronized (pendingLock) {
+            pending.add(event);
+            full = pending.size() >= batchSize;
+            first = pending.size() == 1;
+        }
+        if (full) {
+            flush();
+        } else if (first && batchDelay > 0) {
+            scheduleFlush();
+        }
+    }
+
+    private void scheduleFlush() {
+        ScheduledExecutorService scheduler = this.scheduler;
+        if (scheduler == null) {
+            return;
+        }
+        try {
+            scheduler.schedule(new Runnable() {
+                public void run() {
+                    try {
+                        flush();
+                    } catch (Throwable t) {
+                        log.warn("Unable to deliver a batch of events to event handler method [" + getMethod() +
+                                "].", t);
+                    }
+                }
+            }, batchDelay, TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException e) {
+            //the event bus has been destroyed: nothing would deliver the batch later
+            flush();
+        }
+    }
+
+    /**
+     * Delivers the pending events, if any, without waiting for the batch to fill up.
+     */
+    public void flush() {
+        synchronized (deliveryLock) {
+            List<Object> batch;
+            synchronized (pendingLock) {
+                if (pending.isEmpty()) {
+                    return;
+                }
+                batch = pending;
+                pending = new ArrayList<Object>(batchSize);
+            }
+            invoker.onEvent(batch);
+        }
+    }
+
+    private static Class getBatchElementType(Method method) {
+        Class[] paramTypes = method.getParameterTypes();
+        if (paramTypes.length != 1 || !paramTypes[0].isAssignableFrom(List.class)) {
+            String msg = "Batch event handler methods must accept a single List argument.";
+            throw new IllegalArgumentException(msg);
+        }
+        Type type = method.getGenericParameterTypes()[0];
+        if (type instanceof ParameterizedType) {
+            Type elementType = ((ParameterizedType) type).getActualTypeArguments()[0];
+            if (elementType instanceof WildcardType) {
+                elementType = ((WildcardType) elementType).getUpperBounds()[0];
+            }
+            if (elementType instanceof ParameterizedType) {
+                elementType = ((ParameterizedType) elementType).getRawType();
+            }
+            if (elementType instanceof Class) {
+                return (Class) elementType;
+            }
+        }
+        return Object.class;
+    }
+}
@@ -19,6 +19,8 @@
 package org.apache.shiro.event.support;
 
 import org.apache.shiro.event.EventBus;
+import org.apache.shiro.event.InspectableEventBus;
+import org.apache.shiro.util.Destroyable;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -29,8 +31,11 @@ import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
-import java.util.concurrent.locks.Lock;
-import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
 
 /**
  * A default event bus implementation that synchronously publishes events to registered listeners.  Listeners can be
@@ -69,10 +74,13 @@ import java.util.concurrent.locks.ReentrantReadWriteLock;
  * been used).
  *
  * This implementation is thread-safe and may be used concurrently.
+ * <p/>
+ * If a subscriber has {@link BatchEventListener batch listeners} with a delay, the bus starts a daemon thread to
+ * deliver their batches on time; {@link #destroy() destroying} the bus delivers all pending batches and stops it.
  *
  * @since 1.3
  */
-public class DefaultEventBus implements EventBus {
+public class DefaultEventBus implements InspectableEventBus, Destroyable {
 
     private static final Logger log = LoggerFactory.getLogger(DefaultEventBus.class);
 
@@ -88,25 +96,19 @@ public class DefaultEventBus implements EventBus {
     //with the event bus.  This has the nice effect that any Shiro system-level components that are registered first
     //(likely to happen upon startup) have precedence over those registered by end-user components later.
     //
-    //One might think that this could have been done by just using a ConcurrentSkipListMap (which is available only on
-    //JDK 6 or later).  However, this approach requires the implementation of a Comparator to sort elements, and this
-    //surfaces a problem: for any given random event listener, there isn't any guaranteed property to exist that can be
-    //inspected to determine order of registration, since registration order is an artifact of this EventBus
-    //implementation, not the listeners themselves.
-    //
-    //Therefore, we use a simple concurrent lock to wrap a LinkedHashMap - the LinkedHashMap retains insertion order
-    //and the lock provides thread-safety in probably a much simpler mechanism than attempting to write a
-    //EventBus-specific Comparator.  This technique is also likely to be faster than a ConcurrentSkipListMap, which
-    //is about 3-5 times slower than a standard ConcurrentMap.
-    private final Map<Object, Subscription> registry;
-    private final Lock registryReadLock;
-    private final Lock registryWriteLock;
+    //As of 1.13 the registry is copy-on-write: registrations and removals (rare, mostly at startup) replace the
+    //LinkedHashMap under a lock, while publishing (at request rate) only reads the current immutable snapshot without
+    //any locking.  The listeners to notify for a given concrete event class are computed once per registry snapshot
+    //and kept in the dispatchIndex, which is discarded along with the snapshot it was computed from.
+    private volatile Map<Object, Subscription> registry;
+    private volatile ConcurrentMap<Class<?>, Dispatch[]> dispatchIndex;
+    private final Object registryLock = new Object();
+    //delivers delayed batches, created with the first subscriber needing it; guarded by registryLock:
+    private ScheduledExecutorService batchScheduler;
 
     public DefaultEventBus() {
-        this.registry = new LinkedHashMap<Object, Subscription>(); //not thread safe, so we need locks:
-        ReentrantReadWriteLock rwl = new ReentrantReadWriteLock();
-        this.registryReadLock = rwl.readLock();
-        this.registryWriteLock = rwl.writeLock();
+        this.registry = Collections.emptyMap();
+        this.dispatchIndex = new ConcurrentHashMap<Class<?>, Dispatch[]>();
         this.eventListenerResolver = new AnnotationEventListenerResolver();
     }
 
@@ -124,26 +126,113 @@ public class DefaultEventBus implements EventBus {
             return;
         }
 
-        registryReadLock.lock();
-        try {
-            //performing the entire iteration within the lock will be a slow operation if the registry has a lot of
-            //contention.  However, it is expected that the very large majority of cases the registry will be
-            //read-mostly with very little writes (registrations or removals) occurring during a typical application
-            //lifetime.
-            //
-            //The alternative would be to copy the registry.values() collection to a new LinkedHashSet within the lock
-            //only and the iteration on this new collection could be outside the lock.  This has the performance penalty
-            //however of always creating a new collection every time an event is published,  which could be more
-            //costly for the majority of applications, especially if the number of listeners is large.
-            //
-            //Finally, the read lock is re-entrant, so multiple publish calls will be
-            //concurrent without penalty since publishing is a read-only operation on the registry.
-
-            for (Subscription subscription : this.registry.values()) {
-                subscription.onEvent(event);
+        for (Dispatch dispatch : getDispatches(event.getClass())) {
+            deliver(dispatch, event);
+        }
+    }
+
+    /**
+     * Returns {@code true} if at least one registered subscriber has a listener that may accept events of the
+     * specified class.  The answer is computed once per class and registry change, like the list of listeners
+     * notified when such an event is published.
+     *
+     * @since 1.13
+     */
+    public boolean hasSubscribers(Class<?> eventType) {
+        return getDispatches(eventType).length > 0;
+    }
+
+    Dispatch[] getDispatches(Class<?> eventClass) {
+        //the index must be read before the registry, see setRegistry:
+        ConcurrentMap<Class<?>, Dispatch[]> index = this.dispatchIndex;
+        Dispatch[] dispatches = index.get(eventClass);
+        if (dispatches == null) {
+            dispatches = createDispatches(eventClass, this.registry);
+            index.put(eventClass, dispatches);
+        }
+        return dispatches;
+    }
+
+    /**
+     * Delivers a published event to the listeners of one subscriber.  Called on the publishing thread once per
+     * subscriber interested in the event, in registration order.  This implementation delivers synchronously.
+     *
+     * @since 1.13
+     */
+    void deliver(Dispatch dispatch, Object event) {
+        dispatch.onEvent(event);
+    }
+
+    /**
+     * Called once a subscription has been removed from the registry, without holding the registry lock, delivers
+     * the events its {@link BatchEventListener}s were accumulating.  Events already handed to
+     * {@link #deliver(Dispatch, Object)} may still be delivered to it.
+     *
+     * @since 1.13
+     */
+    void unregistered(Subscription subscription) {
+        subscription.flushBatches();
+    }
+
+    /**
+     * Returns {@code true} if the subscription is still registered, {@code false} once it has been unregistered
+     * (or replaced by a new registration of the same subscriber).
+     *
+     * @since 1.13
+     */
+    boolean isRegistered(Subscription subscription) {
+        return this.registry.get(subscription.subscriber) == subscription;
+    }
+
+    /**
+     * Delivers the events accumulated by the {@link BatchEventListener}s of all registered subscribers.
+     *
+     * @since 1.13
+     */
+    void flushBatches() {
+        for (Subscription subscription : this.registry.values()) {
+            subscription.flushBatches();
+        }
+    }
+
+    /**
+     * Delivers the events accumulated by the {@link BatchEventListener}s of all registered subscribers and stops the
+     * thread delivering delayed batches.  Batches completed afterwards are still delivered, but those waiting for
+     * their delay are delivered immediately.
+     *
+     * @since 1.13
+     */
+    public void destroy() throws Exception {
+        ScheduledExecutorService scheduler;
+        synchronized (registryLock) {
+            scheduler = this.batchScheduler;
+            this.batchScheduler = null;
+        }
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
+        flushBatches();
+    }
+
+    /**
+     * Provides the batch listeners of a new subscription that deliver batches after a delay with the scheduler
+     * doing so.  Must be called while holding the registry lock.
+     */
+    private void applyBatchScheduler(List<EventListener> listeners) {
+        for (EventListener listener : listeners) {
+            if (listener instanceof BatchEventListener && ((BatchEventListener) listener).getBatchDelay() > 0) {
+                if (this.batchScheduler == null) {
+                    this.batchScheduler = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+                        public Thread newThread(Runnable r) {
+                            Thread thread = new Thread(r);
+                            thread.setDaemon(true);
+                            thread.setName("EventBatchFlusher");
+                            return thread;
+                        }
+                    });
+                }
+                ((BatchEventListener) listener).setScheduler(this.batchScheduler);
             }
-        } finally {
-            registryReadLock.unlock();
         }
     }
 
@@ -163,13 +252,13 @@ public class DefaultEventBus implements EventBus {
             return;
         }
 
-        Subscription subscription = new Subscription(listeners);
+        Subscription subscription = new Subscription(instance, listeners);
 
-        this.registryWriteLock.lock();
-        try {
-            this.registry.put(instance, subscription);
-        } finally {
-            this.registryWriteLock.unlock();
+        synchronized (registryLock) {
+            applyBatchScheduler(listeners);
+            Map<Object, Subscription> registry = new LinkedHashMap<Object, Subscription>(this.registry);
+            registry.put(instance, subscription);
+            setRegistry(registry);
         }
     }
 
@@ -177,22 +266,145 @@ public class DefaultEventBus implements EventBus {
         if (instance == null) {
             return;
         }
-        this.registryWriteLock.lock();
+        Subscription subscription;
+        synchronized (registryLock) {
+            if (!this.registry.containsKey(instance)) {
+                return;
+            }
+            Map<Object, Subscription> registry = new LinkedHashMap<Object, Subscription>(this.registry);
+            subscription = registry.remove(instance);
+            setRegistry(registry);
+        }
+        //delivers pending batches, which runs listener code that must not block other (un)registrations:
+        unregistered(subscription);
+    }
+
+    private void setRegistry(Map<Object, Subscription> registry) {
+        //publish reads dispatchIndex then registry, so a new index is only ever filled from the new registry:
+        this.registry = Collections.unmodifiableMap(registry);
+        this.dispatchIndex = new ConcurrentHashMap<Class<?>, Dispatch[]>();
+    }
+
+    /**
+     * Returns, in registration order, the deliveries to make for events of the specified class.
+     */
+    private static Dispatch[] createDispatches(Class<?> eventClass, Map<Object, Subscription> registry) {
+        List<Dispatch> dispatches = new ArrayList<Dispatch>(registry.size());
+        for (Subscription subscription : registry.values()) {
+            Dispatch dispatch = subscription.dispatchFor(eventClass);
+            if (dispatch != null) {
+                dispatches.add(dispatch);
+            }
+        }
+        return dispatches.toArray(new Dispatch[dispatches.size()]);
+    }
+
+    private static Object getTarget(EventListener listener) {
+        if (listener instanceof SingleArgumentMethodEventListener) {
+            return ((SingleArgumentMethodEventListener) listener).getTarget();
+        }
+        return listener;
+    }
+
+    private static boolean isIndexable(EventListener listener) {
+        //whether a BatchEventListener or a plain SingleArgumentMethodEventListener accepts an event only depends on
+        //the event's class:
+        if (listener.getClass() == BatchEventListener.class) {
+            return true;
+        }
+        if (!(listener instanceof SingleArgumentMethodEventListener)) {
+            return false;
+        }
         try {
-            this.registry.remove(instance);
-        } finally {
-            this.registryWriteLock.unlock();
+            Class<?> type = listener.getClass();
+            return type.getMethod("accepts", Object.class).getDeclaringClass() ==
+                    SingleArgumentMethodEventListener.class &&
+                    type.getMethod("getEventType").getDeclaringClass() == SingleArgumentMethodEventListener.class;
+        } catch (NoSuchMethodException e) {
+            return false;
+        }
+    }
+
+    /**
+     * The listeners of one subscription that are notified of a given class of events.
+     */
+    static final class Dispatch {
+
+        //the listeners known to accept the event class, at most one per target, or null if the subscription's
+        //listeners must be asked for each event:
+        private final EventListener[] listeners;
+        final Subscription subscription;
+
+        private Dispatch(EventListener[] listeners, Subscription subscription) {
+            this.listeners = listeners;
+            this.subscription = subscription;
+        }
+
+        void onEvent(Object event) {
+            if (listeners == null) {
+                subscription.onEvent(event);
+                return;
+            }
+            for (EventListener listener : listeners) {
+                try {
+                    listener.onEvent(event);
+                } catch (Throwable t) {
+                    log.warn(EVENT_LISTENER_ERROR_MSG, t);
+                }
+            }
         }
     }
 
-    private class Subscription {
+    static class Subscription {
 
+        final Object subscriber;
         private final List<EventListener> listeners;
+        private final boolean indexable;
 
-        public Subscription(List<EventListener> listeners) {
+        public Subscription(Object subscriber, List<EventListener> listeners) {
+            this.subscriber = subscriber;
             List<EventListener> toSort = new ArrayList<EventListener>(listeners);
             Collections.sort(toSort, EVENT_LISTENER_COMPARATOR);
             this.listeners = toSort;
+            boolean indexable = true;
+            for (EventListener listener : toSort) {
+                indexable &= isIndexable(listener);
+            }
+            this.indexable = indexable;
+        }
+
+        /**
+         * Returns the delivery to make for events of the specified class, or {@code null} if none of the listeners
+         * accepts them.
+         */
+        private Dispatch dispatchFor(Class<?> eventClass) {
+            if (!indexable) {
+                return new Dispatch(null, this);
+            }
+            List<EventListener> accepting = new ArrayList<EventListener>(1);
+            Set<Object> targets = new HashSet<Object>();
+            for (EventListener listener : this.listeners) {
+                Class<?> eventType = ((TypedEventListener) listener).getEventType();
+                if (eventType.isAssignableFrom(eventClass) && targets.add(getTarget(listener))) {
+                    accepting.add(listener);
+                }
+            }
+            if (accepting.isEmpty()) {
+                return null;
+            }
+            return new Dispatch(accepting.toArray(new EventListener[accepting.size()]), this);
+        }
+
+        private void flushBatches() {
+            for (EventListener listener : this.listeners) {
+                if (listener instanceof BatchEventListener) {
+                    try {
+                        ((BatchEventListener) listener).flush();
+                    } catch (Throwable t) {
+                        log.warn(EVENT_LISTENER_ERROR_MSG, t);
+                    }
+                }
+            }
         }
 
         public void onEvent(Object event) {
@@ -200,11 +412,7 @@ public class DefaultEventBus implements EventBus {
             Set<Object> delivered = new HashSet<Object>();
 
             for (EventListener listener : this.listeners) {
-                Object target = listener;
-                if (listener instanceof SingleArgumentMethodEventListener) {
-                    SingleArgumentMethodEventListener singleArgListener = (SingleArgumentMethodEventListener) listener;
-                    target = singleArgListener.getTarget();
-                }
+                Object target = getTarget(listener);
                 if (listener.accepts(event) && !delivered.contains(target)) {
                     try {
                         listener.onEvent(event);
@@ -18,18 +18,27 @@
  */
 package org.apache.shiro.event.support;
 
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
 import java.lang.reflect.Method;
 import java.lang.reflect.Modifier;
 
 /**
  * A event listener that invokes a target object's method that accepts a single event argument.
+ * <p/>
+ * As of 1.13, the method is invoked through a {@link MethodHandle} bound to the target when the method is accessible
+ * (a public method of a public class), which avoids the argument array and access checks of reflective calls.
  *
  * @since 1.3
  */
 public class SingleArgumentMethodEventListener implements TypedEventListener {
 
+    private static final MethodType HANDLER_TYPE = MethodType.methodType(void.class, Object.class);
+
     private final Object target;
     private final Method method;
+    private final MethodHandle handle;
 
     public SingleArgumentMethodEventListener(Object target, Method method) {
         this.target = target;
@@ -38,6 +47,26 @@ public class SingleArgumentMethodEventListener implements TypedEventListener {
         getMethodArgumentType(method);
 
         assertPublicMethod(method);
+
+        this.handle = createHandle(target, method);
+    }
+
+    /**
+     * Returns a handle invoking the method on the target with an {@code Object} argument, or {@code null} if the
+     * method is not accessible through a handle, in which case it is invoked reflectively.
+     */
+    private static MethodHandle createHandle(Object target, Method method) {
+        if (Modifier.isStatic(method.getModifiers())) {
+            return null;
+        }
+        try {
+            return MethodHandles.publicLookup().unreflect(method).bindTo(target).asType(HANDLER_TYPE);
+        } catch (IllegalAccessException e) {
+            return null;
+        } catch (RuntimeException e) {
+            //e.g. the target is not an instance of the method's class:
+            return null;
+        }
     }
 
     public Object getTarget() {
@@ -65,8 +94,20 @@ public class SingleArgumentMethodEventListener implements TypedEventListener {
 
     public void onEvent(Object event) {
         Method method = getMethod();
+        Object target = getTarget();
+        //subclasses overriding getMethod() or getTarget() are invoked reflectively, as before 1.13:
+        if (handle != null && method == this.method && target == this.target) {
+            try {
+                handle.invokeExact(event);
+            } catch (Error e) {
+                throw e;
+            } catch (Throwable t) {
+                throw new IllegalStateException("Unable to invoke event handler method [" + method + "].", t);
+            }
+            return;
+        }
         try {
-            method.invoke(getTarget(), event);
+            method.invoke(target, event);
         } catch (Exception e) {
             throw new IllegalStateException("Unable to invoke event handler method [" + method + "].", e);
         }
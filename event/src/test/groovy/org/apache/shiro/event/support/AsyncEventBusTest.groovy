@@ -0,0 +1,204 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.shiro.event.support
+
+import org.apache.shiro.event.Subscribe
+import org.junit.After
+import org.junit.Test
+
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.Executor
+import java.util.concurrent.Executors
+import java.util.concurrent.TimeUnit
+
+import static org.junit.Assert.*
+
+/**
+ * @since 1.13
+ */
+class AsyncEventBusTest {
+
+    AsyncEventBus bus = new AsyncEventBus()
+
+    @After
+    void tearDown() {
+        bus.destroy()
+    }
+
+    @Test
+    void testDeliversInOrderOffThePublishingThread() {
+        def subscriber = new RecordingSubscriber()
+        bus.register(subscriber)
+
+        100.times { bus.publish(new FooEvent(it)) }
+        bus.destroy()
+
+        assertEquals((0..<100).toList(), subscriber.events*.source)
+        assertFalse subscriber.threads.contains(Thread.currentThread())
+        assertEquals 0, bus.pendingEventCount
+    }
+
+    @Test
+    void testSlowSubscriberDoesNotDelayOthers() {
+        def slow = new RecordingSubscriber(gate: new CountDownLatch(1))
+        def fast = new RecordingSubscriber()
+        bus.register(slow)
+        bus.register(fast)
+
+        bus.publish(new FooEvent(this))
+
+        long deadline = System.currentTimeMillis() + 5000
+        while (fast.events.isEmpty() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(1)
+        }
+        assertEquals 1, fast.events.size()
+        assertTrue slow.events.isEmpty()
+
+        slow.gate.countDown()
+        bus.destroy()
+        assertEquals 1, slow.events.size()
+    }
+
+    @Test
+    void testDropOverflowPolicy() {
+        def subscriber = new RecordingSubscriber(gate: new CountDownLatch(1))
+        bus.queueCapacity = 2
+        bus.overflowPolicy = AsyncEventBus.OverflowPolicy.DROP
+        def executor = Executors.newSingleThreadExecutor()
+        bus.executor = executor
+        bus.register(subscriber)
+
+        bus.publish(new FooEvent(0))
+        assertTrue subscriber.started.await(5, TimeUnit.SECONDS)
+        //the first event is being delivered, two more fit in the queue:
+        4.times { bus.publish(new FooEvent(it + 1)) }
+
+        assertEquals 2, bus.droppedEventCount
+        subscriber.gate.countDown()
+        bus.destroy()
+        executor.shutdown()
+        assertEquals([0, 1, 2], subscriber.events*.source)
+    }
+
+    @Test
+    void testCallerRunsOverflowPolicy() {
+        def subscriber = new RecordingSubscriber()
+        bus.queueCapacity = 1
+        bus.overflowPolicy = AsyncEventBus.OverflowPolicy.CALLER_RUNS
+        //an executor that never runs anything keeps the queue full:
+        bus.executor = { Runnable r -> } as Executor
+        bus.register(subscriber)
+
+        bus.publish(new FooEvent(0))
+        bus.publish(new FooEvent(1))
+
+        assertEquals([1], subscriber.events*.source)
+        assertEquals([Thread.currentThread()], subscriber.threads)
+    }
+
+    @Test(timeout = 5000L)
+    void testBlockingPublishFromDeliveryThreadDoesNotWaitForOtherSubscribers() {
+        def relay = new RelayingSubscriber(bus: bus)
+        def subscriber = new RecordingSubscriber()
+        bus.queueCapacity = 1
+        //an executor that never runs anything keeps the queues full:
+        bus.executor = { Runnable r -> } as Executor
+        bus.register(relay)
+        bus.register(subscriber)
+
+        bus.publish(new FooEvent(0))
+        bus.publish(new SimpleEvent())
+        //delivers the SimpleEvent on this thread, the relayed event must not wait for the subscriber's full queue:
+        bus.unregister(relay)
+
+        assertEquals([1], subscriber.events*.source)
+        assertEquals([Thread.currentThread()], subscriber.threads)
+    }
+
+    @Test
+    void testDeliversOnPublishingThreadAfterDestroy() {
+        def subscriber = new RecordingSubscriber()
+        bus.register(subscriber)
+        bus.publish(new FooEvent(0))
+        bus.destroy()
+
+        bus.publish(new FooEvent(1))
+
+        assertEquals([0, 1], subscriber.events*.source)
+        assertSame Thread.currentThread(), subscriber.threads[1]
+    }
+
+    @Test
+    void testUnregisterDeliversQueuedEventsBeforePendingBatch() {
+        def subscriber = new BatchEventListenerTest.BatchSubscriber()
+        //an executor that never runs anything keeps the events queued:
+        bus.executor = { Runnable r -> } as Executor
+        bus.register(subscriber)
+
+        bus.publish(new FooEvent(0))
+        bus.publish(new FooEvent(1))
+        bus.unregister(subscriber)
+
+        assertEquals([[0, 1]], subscriber.batches.collect { it*.source })
+        assertEquals 0, bus.pendingEventCount
+    }
+
+    @Test
+    void testPublishFromStaleSnapshotDoesNotKeepQueueOfUnregisteredSubscriber() {
+        def subscriber = new RecordingSubscriber()
+        bus.register(subscriber)
+        //what a publisher still holds after the subscriber is unregistered:
+        def dispatches = bus.getDispatches(FooEvent)
+        bus.unregister(subscriber)
+
+        bus.deliver(dispatches[0], new FooEvent(0))
+        bus.destroy()
+
+        assertEquals([0], subscriber.events*.source)
+        assertTrue bus.queues.isEmpty()
+    }
+
+    static class RelayingSubscriber {
+
+        AsyncEventBus bus
+
+        @Subscribe
+        void onSimpleEvent(SimpleEvent event) {
+            bus.publish(new FooEvent(1))
+        }
+    }
+
+    static class RecordingSubscriber {
+
+        final List<FooEvent> events = Collections.synchronizedList(new ArrayList<FooEvent>())
+        final List<Thread> threads = Collections.synchronizedList(new ArrayList<Thread>())
+        final CountDownLatch started = new CountDownLatch(1)
+        CountDownLatch gate
+
+        @Subscribe
+        void onFooEvent(FooEvent event) {
+            started.countDown()
+            if (gate != null) {
+                gate.await(5, TimeUnit.SECONDS)
+            }
+            threads.add(Thread.currentThread())
+            events.add(event)
+        }
+    }
+}
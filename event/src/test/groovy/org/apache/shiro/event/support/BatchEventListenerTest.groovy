@@ -0,0 +1,127 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.shiro.event.support
+
+import org.apache.shiro.event.Subscribe
+import org.junit.Test
+
+import static org.junit.Assert.*
+
+/**
+ * @since 1.13
+ */
+class BatchEventListenerTest {
+
+    @Test(expected = IllegalArgumentException)
+    void testMethodWithoutListArgument() {
+        def target = new TestSubscriber()
+        def method = TestSubscriber.class.getMethod("onFooEvent", FooEvent)
+        new BatchEventListener(target, method, 10, 0)
+    }
+
+    @Test
+    void testEventTypeFromListElementType() {
+        def target = new BatchSubscriber()
+        def method = BatchSubscriber.class.getMethod("onFooEvents", List)
+        def listener = new BatchEventListener(target, method, 10, 0)
+
+        assertSame FooEvent, listener.eventType
+        assertTrue listener.accepts(new FooEvent(this))
+        assertTrue listener.accepts(new BarEvent(this))
+        assertFalse listener.accepts(new SimpleEvent())
+    }
+
+    @Test
+    void testDeliversFullBatches() {
+        def bus = new DefaultEventBus()
+        def subscriber = new BatchSubscriber()
+        bus.register(subscriber)
+
+        7.times { bus.publish(new FooEvent(it)) }
+
+        assertEquals([[0, 1, 2], [3, 4, 5]], subscriber.batches.collect { it*.source })
+
+        bus.unregister(subscriber)
+        assertEquals([6], subscriber.batches[2]*.source)
+    }
+
+    @Test
+    void testDeliversIncompleteBatchAfterDelay() {
+        def bus = new DefaultEventBus()
+        def subscriber = new DelayedBatchSubscriber()
+        bus.register(subscriber)
+
+        bus.publish(new FooEvent(0))
+        bus.publish(new BarEvent(1))
+
+        long deadline = System.currentTimeMillis() + 5000
+        while (subscriber.batches.isEmpty() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(5)
+        }
+        assertEquals([[0, 1]], subscriber.batches.collect { it*.source })
+    }
+
+    @Test
+    void testDestroyDeliversDelayedBatches() {
+        def bus = new DefaultEventBus()
+        def subscriber = new DelayedBatchSubscriber()
+        bus.register(subscriber)
+
+        bus.publish(new FooEvent(0))
+        bus.destroy()
+        assertEquals([[0]], subscriber.batches.collect { it*.source })
+
+        //no thread is left to deliver delayed batches:
+        bus.publish(new FooEvent(1))
+        assertEquals([[0], [1]], subscriber.batches.collect { it*.source })
+    }
+
+    @Test
+    void testBatchesWithAsyncEventBus() {
+        def bus = new AsyncEventBus()
+        def subscriber = new BatchSubscriber()
+        bus.register(subscriber)
+
+        100.times { bus.publish(new FooEvent(it)) }
+        bus.destroy()
+
+        assertEquals 34, subscriber.batches.size()
+        assertEquals((0..<100).toList(), subscriber.batches.flatten()*.source)
+    }
+
+    static class BatchSubscriber {
+
+        final List<List<FooEvent>> batches = Collections.synchronizedList(new ArrayList<List<FooEvent>>())
+
+        @Subscribe(batchSize = 3, batchDelay = 0L)
+        void onFooEvents(List<FooEvent> events) {
+            batches.add(events)
+        }
+    }
+
+    static class DelayedBatchSubscriber {
+
+        final List<List<EventObject>> batches = Collections.synchronizedList(new ArrayList<List<EventObject>>())
+
+        @Subscribe(batchSize = 100, batchDelay = 50L)
+        void onEvents(List<? extends EventObject> events) {
+            batches.add(events)
+        }
+    }
+}
@@ -188,4 +188,72 @@ class DefaultEventBusTest {
         assertEquals 0, error.count
     }
 
+    @Test
+    void testHasSubscribers() {
+        def subscriber = new TestSubscriber()
+
+        assertFalse bus.hasSubscribers(FooEvent)
+
+        bus.register(subscriber)
+        assertTrue bus.hasSubscribers(FooEvent)
+        assertTrue bus.hasSubscribers(BarEvent)
+        assertFalse bus.hasSubscribers(SimpleEvent)
+
+        bus.unregister(subscriber)
+        assertFalse bus.hasSubscribers(FooEvent)
+    }
+
+    @Test
+    void testRegisterInvalidatesDispatchIndex() {
+        def first = new TestSubscriber()
+        bus.register(first)
+
+        //computes and indexes the dispatches for FooEvent:
+        bus.publish(new FooEvent(this))
+        def indexed = bus.getDispatches(FooEvent)
+        assertSame indexed, bus.getDispatches(FooEvent)
+
+        def second = new TestSubscriber()
+        bus.register(second)
+        assertNotSame indexed, bus.getDispatches(FooEvent)
+
+        bus.publish(new FooEvent(this))
+
+        assertEquals 2, first.fooCount
+        assertEquals 1, second.fooCount
+    }
+
+    @Test
+    void testUnregisterInvalidatesDispatchIndex() {
+        def first = new TestSubscriber()
+        def second = new TestSubscriber()
+        bus.register(first)
+        bus.register(second)
+
+        bus.publish(new FooEvent(this))
+        assertEquals 2, bus.getDispatches(FooEvent).length
+
+        bus.unregister(second)
+        assertEquals 1, bus.getDispatches(FooEvent).length
+
+        bus.publish(new FooEvent(this))
+
+        assertEquals 2, first.fooCount
+        assertEquals 1, second.fooCount
+    }
+
+    @Test
+    void testReRegisterReplacesIndexedDispatch() {
+        def subscriber = new TestSubscriber()
+        bus.register(subscriber)
+        bus.publish(new FooEvent(this))
+
+        //registering again replaces the subscription rather than adding a second one:
+        bus.register(subscriber)
+        bus.publish(new FooEvent(this))
+
+        assertEquals 1, bus.getDispatches(FooEvent).length
+        assertEquals 2, subscriber.fooCount
+    }
+
 }
@@ -99,6 +99,65 @@ class SingleArgumentMethodEventListenerTest {
         new SingleArgumentMethodEventListener(target, method)
     }
 
+    @Test
+    void testMethodHandleInvocation() {
+        def target = new TestSubscriber()
+        def method = TestSubscriber.class.getMethods().find { it.name == "onFooEvent" }
+        def listener = new SingleArgumentMethodEventListener(target, method)
+
+        def event = new FooEvent(this)
+        listener.onEvent(event)
+
+        assertEquals 1, target.fooCount
+        assertSame event, target.lastEvent
+    }
+
+    @Test
+    void testMethodHandleInvocationException() {
+        def target = new ExceptionThrowingSubscriber()
+        def method = ExceptionThrowingSubscriber.class.getMethods().find { it.name == "onEvent" }
+        def listener = new SingleArgumentMethodEventListener(target, method)
 
+        try {
+            listener.onEvent(new ErrorCausingEvent())
+            fail("exception expected")
+        } catch (IllegalStateException ise) {
+            assertTrue ise.message.startsWith("Unable to invoke event handler method")
+            //invoked through the handle, so the cause is not wrapped in an InvocationTargetException:
+            assertTrue ise.cause instanceof UnsupportedOperationException
+        }
+    }
+
+    @Test
+    void testMethodHandleInvocationRethrowsError() {
+        def target = new ErrorThrowingSubscriber()
+        def method = ErrorThrowingSubscriber.class.getMethods().find { it.name == "onEvent" }
+        def listener = new SingleArgumentMethodEventListener(target, method)
+
+        try {
+            listener.onEvent(new ErrorCausingEvent())
+            fail("error expected")
+        } catch (ErrorThrowingSubscriber.TestError expected) {
+        }
+    }
+
+    @Test
+    void testOverriddenTargetInvokedReflectively() {
+        def target = new TestSubscriber()
+        def other = new TestSubscriber()
+        def method = TestSubscriber.class.getMethods().find { it.name == "onFooEvent" }
+
+        def listener = new SingleArgumentMethodEventListener(target, method) {
+            @Override
+            Object getTarget() {
+                return other
+            }
+        }
+
+        listener.onEvent(new FooEvent(this))
+
+        assertEquals 0, target.fooCount
+        assertEquals 1, other.fooCount
+    }
 
 }
@@ -22,8 +22,9 @@ import java.lang.ref.ReferenceQueue;
 import java.lang.ref.SoftReference;
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.ConcurrentLinkedQueue;
-import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 
 
 /**
@@ -40,7 +41,9 @@ import java.util.concurrent.locks.ReentrantLock;
  * <a href="http://www.javaspecialists.eu/archive/Issue015.html">publicly posted version (with their approval)</a>, with
  * continued modifications.
  * <p/>
- * This implementation is thread-safe and usable in concurrent environments.
+ * This implementation is thread-safe and usable in concurrent environments.  Reads do not block: recently accessed
+ * values are retained in a ring buffer shared by all threads, and garbage-collected entries are purged by one
+ * thread at a time while other threads carry on.
  *
  * @since 1.0
  */
@@ -63,10 +66,21 @@ public class SoftHashMap<K, V> implements Map<K, V> {
     private final int RETENTION_SIZE;
 
     /**
-     * The FIFO list of strong references (not to be garbage collected), order of last access.
+     * The strong references (not to be garbage collected), held in a ring buffer of RETENTION_SIZE slots that
+     * overwrites its oldest reference, so it always retains the RETENTION_SIZE most recently accessed values.
      */
-    private final Queue<V> strongReferences; //guarded by 'strongReferencesLock'
-    private final ReentrantLock strongReferencesLock;
+    private final AtomicReferenceArray<Object> strongReferences;
+
+    /**
+     * The number of values ever added to the strong references; the next value goes to this count modulo
+     * RETENTION_SIZE.
+     */
+    private final AtomicLong strongReferenceCount = new AtomicLong();
+
+    /**
+     * Ensures only one thread at a time purges garbage-collected values.
+     */
+    private final AtomicBoolean processingQueue = new AtomicBoolean();
 
     /**
      * Reference queue for cleared SoftReference objects.
@@ -103,9 +117,8 @@ public class SoftHashMap<K, V> implements Map<K, V> {
         super();
         RETENTION_SIZE = Math.max(0, retentionSize);
         queue = new ReferenceQueue<V>();
-        strongReferencesLock = new ReentrantLock();
         map = new ConcurrentHashMap<K, SoftValue<V, K>>();
-        strongReferences = new ConcurrentLinkedQueue<V>();
+        strongReferences = new AtomicReferenceArray<Object>(RETENTION_SIZE);
     }
 
     /**
@@ -151,46 +164,54 @@ public class SoftHashMap<K, V> implements Map<K, V> {
             //unwrap the 'real' value from the SoftReference
             result = value.get();
             if (result == null) {
-                //The wrapped value was garbage collected, so remove this entry from the backing map:
+                //The wrapped value was garbage collected, so remove this entry from the backing map (unless it has
+                //been replaced in the meantime):
                 //noinspection SuspiciousMethodCalls
-                map.remove(key);
+                map.remove(key, value);
             } else {
-                //Add this value to the beginning of the strong reference queue (FIFO).
+                //Retain a strong reference to the recently accessed value.
                 addToStrongReferences(result);
             }
         }
         return result;
     }
 
+    /**
+     * Records the value in the next slot of the ring buffer, overwriting the oldest retained value.  Every caller
+     * claims a slot of its own, so the last RETENTION_SIZE values added are retained regardless of the thread that
+     * added them.
+     */
     private void addToStrongReferences(V result) {
-        strongReferencesLock.lock();
-        try {
-            strongReferences.add(result);
-            trimStrongReferencesIfNecessary();
-        } finally {
-            strongReferencesLock.unlock();
-        }
-
-    }
-
-    //Guarded by the strongReferencesLock in the addToStrongReferences method
-
-    private void trimStrongReferencesIfNecessary() {
-        //trim the strong ref queue if necessary:
-        while (strongReferences.size() > RETENTION_SIZE) {
-            strongReferences.poll();
+        if (RETENTION_SIZE == 0) {
+            return;
         }
+        long count = strongReferenceCount.getAndIncrement();
+        strongReferences.set((int) ((count & Long.MAX_VALUE) % RETENTION_SIZE), result);
     }
 
     /**
      * Traverses the ReferenceQueue and removes garbage-collected SoftValue objects from the backing map
-     * by looking them up using the SoftValue.key data member.
+     * by looking them up using the SoftValue.key data member.  If another thread is already doing so, this method
+     * returns after removing at most one entry instead of waiting for it.
      */
     private void processQueue() {
-        SoftValue sv;
-        while ((sv = (SoftValue) queue.poll()) != null) {
-            //noinspection SuspiciousMethodCalls
-            map.remove(sv.key); // we can access private data!
+        // polling an empty queue does not lock, so this is cheap when nothing has been garbage collected:
+        SoftValue sv = (SoftValue) queue.poll();
+        if (sv == null) {
+            return;
+        }
+        //noinspection SuspiciousMethodCalls
+        map.remove(sv.key, sv); // we can access private data!
+        if (!processingQueue.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            while ((sv = (SoftValue) queue.poll()) != null) {
+                //noinspection SuspiciousMethodCalls
+                map.remove(sv.key, sv);
+            }
+        } finally {
+            processingQueue.set(false);
         }
     }
 
@@ -260,11 +281,8 @@ public class SoftHashMap<K, V> implements Map<K, V> {
     }
 
     public void clear() {
-        strongReferencesLock.lock();
-        try {
-            strongReferences.clear();
-        } finally {
-            strongReferencesLock.unlock();
+        for (int i = 0; i < strongReferences.length(); i++) {
+            strongReferences.set(i, null);
         }
         processQueue(); // throw out garbage collected values
         map.clear();
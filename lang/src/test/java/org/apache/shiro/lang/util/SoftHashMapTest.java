@@ -0,0 +1,126 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.shiro.lang.util;
+
+import org.apache.shiro.util.SoftHashMap;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+public class SoftHashMapTest {
+
+    private static final int RETENTION_SIZE = 64;
+
+    @Test
+    public void testRetainsMostRecentlyAccessedValues() {
+        SoftHashMap<Integer, Object> map = new SoftHashMap<Integer, Object>(RETENTION_SIZE);
+        for (int i = 0; i < RETENTION_SIZE * 4; i++) {
+            map.put(i, new byte[1024]);
+        }
+        //reading an older value retains it again:
+        assertNotNull(map.get(0));
+
+        clearSoftReferences();
+
+        //only softly referenced, so cleared:
+        assertNull(map.get(1));
+        assertNotNull(map.get(0));
+        for (int i = RETENTION_SIZE * 4 - RETENTION_SIZE + 1; i < RETENTION_SIZE * 4; i++) {
+            assertNotNull("value " + i + " is retained", map.get(i));
+        }
+    }
+
+    @Test
+    public void testNoRetention() {
+        SoftHashMap<String, Object> map = new SoftHashMap<String, Object>(0);
+        Object value = new Object();
+        map.put("key", value);
+        assertSame(value, map.get("key"));
+        map.remove("key");
+        assertNull(map.get("key"));
+    }
+
+    @Test
+    public void testConcurrentGetAndPut() throws InterruptedException {
+        final SoftHashMap<String, Object> map = new SoftHashMap<String, Object>(RETENTION_SIZE);
+        final int threadCount = 8;
+        final int keyCount = 500;
+        //the values are strongly referenced here, so none of them can be garbage collected:
+        final Object[][] values = new Object[threadCount][keyCount];
+        final CountDownLatch start = new CountDownLatch(1);
+        final AtomicReference<Throwable> failure = new AtomicReference<Throwable>();
+        List<Thread> threads = new ArrayList<Thread>();
+        for (int t = 0; t < threadCount; t++) {
+            final int thread = t;
+            threads.add(new Thread(new Runnable() {
+                public void run() {
+                    try {
+                        start.await();
+                        for (int i = 0; i < keyCount; i++) {
+                            values[thread][i] = new Object();
+                            map.put(thread + ":" + i, values[thread][i]);
+                            assertSame(values[thread][i], map.get(thread + ":" + i));
+                            //read the keys of other threads as well:
+                            map.get(((thread + 1) % threadCount) + ":" + i);
+                        }
+                    } catch (Throwable e) {
+                        failure.compareAndSet(null, e);
+                    }
+                }
+            }));
+        }
+        for (Thread thread : threads) {
+            thread.start();
+        }
+        start.countDown();
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertNull(failure.get());
+        assertEquals(threadCount * keyCount, map.size());
+        for (int t = 0; t < threadCount; t++) {
+            for (int i = 0; i < keyCount; i++) {
+                assertSame(values[t][i], map.get(t + ":" + i));
+            }
+        }
+    }
+
+    /**
+     * Fills the heap until the JVM has to clear all soft references, which it guarantees to do before throwing an
+     * OutOfMemoryError.
+     */
+    private static void clearSoftReferences() {
+        List<byte[]> filler = new ArrayList<byte[]>();
+        try {
+            while (true) {
+                filler.add(new byte[16 * 1024 * 1024]);
+            }
+        } catch (OutOfMemoryError expected) {
+            filler.clear();
+        }
+    }
+}
@@ -19,8 +19,10 @@
 package org.apache.shiro.cache.ehcache;
 
 import net.sf.ehcache.Element;
-import org.apache.shiro.cache.Cache;
 import org.apache.shiro.cache.CacheException;
+import org.apache.shiro.cache.CacheStatistics;
+import org.apache.shiro.cache.InstrumentedCache;
+import org.apache.shiro.cache.SimpleCacheStatistics;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -28,10 +30,13 @@ import java.util.*;
 
 /**
  * Shiro {@link org.apache.shiro.cache.Cache} implementation that wraps an {@link net.sf.ehcache.Ehcache} instance.
+ * <p/>
+ * As of 1.13, hits, misses and puts made through this instance are counted and available via
+ * {@link #getStatistics()}, along with the eviction count and memory usage reported by Ehcache itself.
  *
  * @since 0.2
  */
-public class EhCache<K, V> implements Cache<K, V> {
+public class EhCache<K, V> implements InstrumentedCache<K, V> {
 
     /**
      * Private internal log instance.
@@ -43,16 +48,64 @@ public class EhCache<K, V> implements Cache<K, V> {
      */
     private net.sf.ehcache.Ehcache cache;
 
+    /**
+     * The statistics of this cache.
+     */
+    private final SimpleCacheStatistics statistics;
+
     /**
      * Constructs a new EhCache instance with the given cache.
      *
      * @param cache - delegate EhCache instance this Shiro cache instance will wrap.
      */
     public EhCache(net.sf.ehcache.Ehcache cache) {
+        this(cache, null);
+    }
+
+    /**
+     * Constructs a new EhCache instance with the given cache, recording its activity in the specified statistics.
+     * This allows several {@code EhCache} instances wrapping the same Ehcache to share them.
+     *
+     * @param cache      delegate EhCache instance this Shiro cache instance will wrap.
+     * @param statistics the statistics to record activity in, or {@code null} to create new ones.
+     * @since 1.13
+     */
+    public EhCache(net.sf.ehcache.Ehcache cache, SimpleCacheStatistics statistics) {
         if (cache == null) {
             throw new IllegalArgumentException("Cache argument cannot be null.");
         }
         this.cache = cache;
+        this.statistics = statistics != null ? statistics : createStatistics(cache);
+    }
+
+    /**
+     * Returns new statistics for the specified Ehcache, which report the eviction count and memory usage maintained
+     * by Ehcache itself.  Note that computing the memory usage requires Ehcache to walk all cached elements.
+     *
+     * @param cache the Ehcache to create statistics for
+     * @return new statistics for the specified Ehcache.
+     * @since 1.13
+     */
+    public static SimpleCacheStatistics createStatistics(final net.sf.ehcache.Ehcache cache) {
+        return new SimpleCacheStatistics() {
+            @Override
+            public long getEvictionCount() {
+                try {
+                    return cache.getStatistics().getEvictionCount();
+                } catch (Throwable t) {
+                    return 0;
+                }
+            }
+
+            @Override
+            public long getEstimatedMemorySize() {
+                try {
+                    return cache.calculateInMemorySize();
+                } catch (Throwable t) {
+                    return -1;
+                }
+            }
+        };
     }
 
     /**
@@ -62,6 +115,16 @@ public class EhCache<K, V> implements Cache<K, V> {
      * @return The value placed into the cache with an earlier put, or null if not found or expired
      */
     public V get(K key) throws CacheException {
+        V value = doGet(key);
+        if (value != null) {
+            statistics.recordHit();
+        } else {
+            statistics.recordMiss();
+        }
+        return value;
+    }
+
+    private V doGet(K key) throws CacheException {
         try {
             if (log.isTraceEnabled()) {
                 log.trace("Getting object from cache [" + cache.getName() + "] for key [" + key + "]");
@@ -96,7 +159,8 @@ public class EhCache<K, V> implements Cache<K, V> {
             log.trace("Putting object in cache [" + cache.getName() + "] for key [" + key + "]");
         }
         try {
-            V previous = get(key);
+            V previous = doGet(key);
+            statistics.recordPut();
             Element element = new Element(key, value);
             cache.put(element);
             return previous;
@@ -117,7 +181,7 @@ public class EhCache<K, V> implements Cache<K, V> {
             log.trace("Removing object from cache [" + cache.getName() + "] for key [" + key + "]");
         }
         try {
-            V previous = get(key);
+            V previous = doGet(key);
             cache.remove(key);
             return previous;
         } catch (Throwable t) {
@@ -168,7 +232,7 @@ public class EhCache<K, V> implements Cache<K, V> {
             if (!isEmpty(keys)) {
                 List<V> values = new ArrayList<V>(keys.size());
                 for (K key : keys) {
-                    V value = get(key);
+                    V value = doGet(key);
                     if (value != null) {
                         values.add(value);
                     }
@@ -229,6 +293,25 @@ public class EhCache<K, V> implements Cache<K, V> {
         }
     }
 
+    /**
+     * Returns a live view of the statistics of this cache.
+     *
+     * @return a live view of the statistics of this cache.
+     * @since 1.13
+     */
+    public CacheStatistics getStatistics() {
+        return statistics;
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @since 1.13
+     */
+    public void recordLoad(long loadTime) {
+        statistics.recordLoad(loadTime);
+    }
+
     /**
      * Returns &quot;EhCache [&quot; + cache.getName() + &quot;]&quot;
      *
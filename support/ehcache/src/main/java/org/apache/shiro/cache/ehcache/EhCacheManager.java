@@ -21,6 +21,8 @@ package org.apache.shiro.cache.ehcache;
 import org.apache.shiro.cache.Cache;
 import org.apache.shiro.cache.CacheException;
 import org.apache.shiro.cache.CacheManager;
+import org.apache.shiro.cache.CacheStatisticsExporter;
+import org.apache.shiro.cache.SimpleCacheStatistics;
 import org.apache.shiro.io.ResourceUtils;
 import org.apache.shiro.util.Destroyable;
 import org.apache.shiro.util.Initializable;
@@ -29,6 +31,8 @@ import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 /**
  * Shiro {@code CacheManager} implementation utilizing the Ehcache framework for all cache functionality.
@@ -69,6 +73,17 @@ public class EhCacheManager implements CacheManager, Initializable, Destroyable
      */
     private String cacheManagerConfigFile = "classpath:org/apache/shiro/cache/ehcache/ehcache.xml";
 
+    /**
+     * The statistics shared by all {@link EhCache} instances wrapping the same Ehcache, keyed by cache name.
+     */
+    private final ConcurrentMap<String, SimpleCacheStatistics> statistics =
+            new ConcurrentHashMap<String, SimpleCacheStatistics>();
+
+    /**
+     * Receives the statistics of every cache acquired from this manager, if set.
+     */
+    private CacheStatisticsExporter statisticsExporter;
+
     /**
      * Default no argument constructor
      */
@@ -123,6 +138,28 @@ public class EhCacheManager implements CacheManager, Initializable, Destroyable
         this.cacheManagerConfigFile = classpathLocation;
     }
 
+    /**
+     * Returns the exporter notified of the statistics of every cache acquired from this manager, or {@code null} if
+     * statistics are not exported (the default).
+     *
+     * @return the exporter notified of the statistics of every cache acquired from this manager, or {@code null}.
+     * @since 1.13
+     */
+    public CacheStatisticsExporter getStatisticsExporter() {
+        return statisticsExporter;
+    }
+
+    /**
+     * Sets the exporter notified of the statistics of every cache acquired from this manager from now on.  Each
+     * cache's statistics are exported once, the first time the cache is acquired.
+     *
+     * @param statisticsExporter the exporter notified of the statistics of every cache acquired from this manager.
+     * @since 1.13
+     */
+    public void setStatisticsExporter(CacheStatisticsExporter statisticsExporter) {
+        this.statisticsExporter = statisticsExporter;
+    }
+
     /**
      * Acquires the InputStream for the ehcache configuration file using
      * {@link ResourceUtils#getInputStreamForPath(String) ResourceUtils.getInputStreamForPath} with the
@@ -169,12 +206,27 @@ public class EhCacheManager implements CacheManager, Initializable, Destroyable
                     log.info("Using existing EHCache named [" + cache.getName() + "]");
                 }
             }
-            return new EhCache<K, V>(cache);
+            return new EhCache<K, V>(cache, getStatistics(cache));
         } catch (net.sf.ehcache.CacheException e) {
             throw new CacheException(e);
         }
     }
 
+    private SimpleCacheStatistics getStatistics(net.sf.ehcache.Ehcache cache) {
+        String name = cache.getName();
+        SimpleCacheStatistics cacheStatistics = statistics.get(name);
+        if (cacheStatistics == null) {
+            cacheStatistics = EhCache.createStatistics(cache);
+            SimpleCacheStatistics existing = statistics.putIfAbsent(name, cacheStatistics);
+            if (existing != null) {
+                cacheStatistics = existing;
+            } else if (statisticsExporter != null) {
+                statisticsExporter.export(name, cacheStatistics);
+            }
+        }
+        return cacheStatistics;
+    }
+
     /**
      * Initializes this instance.
      * <p/>
@@ -244,6 +296,7 @@ public class EhCacheManager implements CacheManager, Initializable, Destroyable
             } finally {
                 this.manager = null;
                 this.cacheManagerImplicitlyCreated = false;
+                this.statistics.clear();
             }
         }
     }
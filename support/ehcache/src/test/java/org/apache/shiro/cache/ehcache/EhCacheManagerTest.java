@@ -19,6 +19,8 @@
 package org.apache.shiro.cache.ehcache;
 
 import org.apache.shiro.cache.Cache;
+import org.apache.shiro.cache.CacheStatistics;
+import org.apache.shiro.cache.InstrumentedCache;
 import org.apache.shiro.util.LifecycleUtils;
 import org.junit.After;
 import org.junit.Before;
@@ -198,4 +200,47 @@ public class EhCacheManagerTest {
         assertNull(cache.remove("blah"));
     }
 
+    @Test
+    public void testHitAndMissStatistics() {
+        Cache<String, String> cache = cacheManager.getCache("test");
+        CacheStatistics statistics = ((InstrumentedCache<String, String>) cache).getStatistics();
+
+        cache.put("hello", "world");
+        assertEquals("world", cache.get("hello"));
+        assertNull(cache.get("blah"));
+
+        //a put looks up the previous value without counting it as a hit or a miss:
+        assertEquals(1, statistics.getPutCount());
+        assertEquals(1, statistics.getHitCount());
+        assertEquals(1, statistics.getMissCount());
+        assertEquals(0.5, statistics.getHitRatio(), 0.0);
+
+        //the statistics are shared by all instances wrapping the same Ehcache:
+        Cache<String, String> again = cacheManager.getCache("test");
+        assertEquals("world", again.get("hello"));
+        assertSame(statistics, ((InstrumentedCache<String, String>) again).getStatistics());
+        assertEquals(2, statistics.getHitCount());
+    }
+
+    @Test
+    public void testEvictionStatistics() {
+        cacheManager.init();
+        //holds at most two elements in memory and does not overflow to disk:
+        net.sf.ehcache.Cache bounded = new net.sf.ehcache.Cache("bounded", 2, false, true, 0, 0);
+        cacheManager.getCacheManager().addCache(bounded);
+        bounded.setStatisticsEnabled(true);
+
+        Cache<String, String> cache = cacheManager.getCache("bounded");
+        CacheStatistics statistics = ((InstrumentedCache<String, String>) cache).getStatistics();
+        assertEquals(0, statistics.getEvictionCount());
+
+        cache.put("one", "1");
+        cache.put("two", "2");
+        cache.put("three", "3");
+
+        assertEquals(3, statistics.getPutCount());
+        assertEquals(2, cache.size());
+        assertTrue(statistics.getEvictionCount() > 0);
+    }
+
 }
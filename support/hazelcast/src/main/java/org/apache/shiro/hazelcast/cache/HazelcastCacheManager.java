@@ -19,13 +19,25 @@
 package org.apache.shiro.hazelcast.cache;
 
 import com.hazelcast.config.Config;
+import com.hazelcast.core.EntryEvent;
 import com.hazelcast.core.Hazelcast;
 import com.hazelcast.core.HazelcastInstance;
+import com.hazelcast.map.listener.EntryAddedListener;
+import com.hazelcast.map.listener.EntryEvictedListener;
+import com.hazelcast.map.listener.EntryExpiredListener;
+import com.hazelcast.map.listener.EntryRemovedListener;
+import com.hazelcast.map.listener.EntryUpdatedListener;
+import com.hazelcast.map.listener.MapListener;
 import org.apache.shiro.ShiroException;
 import org.apache.shiro.cache.Cache;
+import org.apache.shiro.cache.CacheEntryListener;
 import org.apache.shiro.cache.CacheException;
 import org.apache.shiro.cache.CacheManager;
+import org.apache.shiro.cache.CacheStatisticsExporter;
+import org.apache.shiro.cache.ListenableCache;
 import org.apache.shiro.cache.MapCache;
+import org.apache.shiro.cache.PagedCache;
+import org.apache.shiro.cache.SimpleCacheStatistics;
 import org.apache.shiro.util.Destroyable;
 import org.apache.shiro.util.Initializable;
 import org.slf4j.Logger;
@@ -34,7 +46,17 @@ import org.slf4j.LoggerFactory;
 import java.lang.invoke.MethodHandle;
 import java.lang.invoke.MethodHandles;
 import java.lang.invoke.MethodType;
+import java.lang.reflect.Method;
+import java.util.ArrayDeque;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
 import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 /**
  * A {@code CacheManager} implementation backed by <a href="http://www.hazelcast.com/">Hazelcast</a>,
@@ -82,6 +104,13 @@ public class HazelcastCacheManager implements CacheManager, Initializable, Destr
 
     private static final MethodType GET_MAP_METHOD_TYPE;
 
+    private static final MethodHandle GET_ALL_HANDLE;
+
+    // the id of an entry listener is a String in Hazelcast 3 and a UUID in Hazelcast 4:
+    private static final MethodHandle ADD_ENTRY_LISTENER_HANDLE;
+
+    private static final MethodHandle REMOVE_ENTRY_LISTENER_HANDLE;
+
     static {
         Class<?> klazz;
         try {
@@ -95,6 +124,17 @@ public class HazelcastCacheManager implements CacheManager, Initializable, Destr
         }
         IMAP_CLASS = klazz;
         GET_MAP_METHOD_TYPE = MethodType.methodType( IMAP_CLASS, String.class );
+        try {
+            GET_ALL_HANDLE = MethodHandles.publicLookup()
+                    .findVirtual(IMAP_CLASS, "getAll", MethodType.methodType(Map.class, Set.class));
+            Method addEntryListener = IMAP_CLASS.getMethod("addEntryListener", MapListener.class, boolean.class);
+            Method removeEntryListener = IMAP_CLASS.getMethod("removeEntryListener",
+                    addEntryListener.getReturnType());
+            ADD_ENTRY_LISTENER_HANDLE = MethodHandles.publicLookup().unreflect(addEntryListener);
+            REMOVE_ENTRY_LISTENER_HANDLE = MethodHandles.publicLookup().unreflect(removeEntryListener);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Could not find the IMap methods used by Shiro", e);
+        }
     }
 
     public static final Logger log = LoggerFactory.getLogger(HazelcastCacheManager.class);
@@ -103,6 +143,14 @@ public class HazelcastCacheManager implements CacheManager, Initializable, Destr
     private HazelcastInstance hazelcastInstance;
     private Config config;
 
+    /**
+     * The statistics shared by all {@link MapCache} instances wrapping the same Hazelcast map, keyed by cache name.
+     * These only reflect the activity of this cluster member.
+     */
+    private final ConcurrentMap<String, SimpleCacheStatistics> statistics =
+            new ConcurrentHashMap<String, SimpleCacheStatistics>();
+    private CacheStatisticsExporter statisticsExporter;
+
     /**
      * Returns a {@link MapCache} instance representing the named Hazelcast-managed
      * {@link com.hazelcast.core.IMap IMap}.  The Hazelcast Map is obtained by calling
@@ -123,12 +171,26 @@ public class HazelcastCacheManager implements CacheManager, Initializable, Destr
             MethodHandle getMapHandle = MethodHandles
                     .lookup().bind(ensureHazelcastInstance(), "getMap", GET_MAP_METHOD_TYPE);
             Map<K, V> map = (Map) getMapHandle.invoke(name); //returned map is a ConcurrentMap
-            return new MapCache<>(name, map);
+            return new HazelcastMapCache<>(name, map, getStatistics(name));
         } catch (Throwable e) {
             throw new CacheException("Unable to get IMap", e);
         }
     }
 
+    private SimpleCacheStatistics getStatistics(String name) {
+        SimpleCacheStatistics cacheStatistics = statistics.get(name);
+        if (cacheStatistics == null) {
+            cacheStatistics = new SimpleCacheStatistics();
+            SimpleCacheStatistics existing = statistics.putIfAbsent(name, cacheStatistics);
+            if (existing != null) {
+                cacheStatistics = existing;
+            } else if (statisticsExporter != null) {
+                statisticsExporter.export(name, cacheStatistics);
+            }
+        }
+        return cacheStatistics;
+    }
+
     /**
      * Ensures that this implementation has a backing {@link HazelcastInstance}, and if not, implicitly creates one
      * via {@link #createHazelcastInstance()}.
@@ -214,6 +276,7 @@ public class HazelcastCacheManager implements CacheManager, Initializable, Destr
             } finally {
                 this.hazelcastInstance = null;
                 this.implicitlyCreated = false;
+                this.statistics.clear();
             }
         }
     }
@@ -272,4 +335,177 @@ public class HazelcastCacheManager implements CacheManager, Initializable, Destr
         this.config = config;
     }
 
+    /**
+     * Returns the exporter notified of the statistics of every cache acquired from this manager, or {@code null} if
+     * statistics are not exported (the default).
+     *
+     * @return the exporter notified of the statistics of every cache acquired from this manager, or {@code null}.
+     * @since 1.13
+     */
+    public CacheStatisticsExporter getStatisticsExporter() {
+        return statisticsExporter;
+    }
+
+    /**
+     * Sets the exporter notified of the statistics of every cache acquired from this manager from now on.  Each
+     * cache's statistics are exported once, the first time the cache is acquired.  The statistics only reflect the
+     * activity of this cluster member.
+     *
+     * @param statisticsExporter the exporter notified of the statistics of every cache acquired from this manager.
+     * @since 1.13
+     */
+    public void setStatisticsExporter(CacheStatisticsExporter statisticsExporter) {
+        this.statisticsExporter = statisticsExporter;
+    }
+
+
+    /**
+     * A {@link MapCache} backed by a Hazelcast {@code IMap}, whose {@link #valueIterator(int) valueIterator} only
+     * transfers the keys at once and then fetches the values a page at a time with {@code IMap.getAll}, and which
+     * reports entry changes made by any cluster member to {@link CacheEntryListener}s.
+     * <p/>
+     * Clearing or evicting the whole map is not reported, since the corresponding listener API differs between
+     * Hazelcast 3 and 4.
+     *
+     * @since 1.13
+     */
+    static class HazelcastMapCache<K, V> extends MapCache<K, V> implements PagedCache<K, V>, ListenableCache<K, V> {
+
+        private final Map<K, V> map;
+
+        private final ConcurrentMap<CacheEntryListener<K>, Object> listenerIds = new ConcurrentHashMap<>();
+
+        HazelcastMapCache(String name, Map<K, V> map, SimpleCacheStatistics statistics) {
+            super(name, map, statistics);
+            this.map = map;
+        }
+
+        @Override
+        public Iterator<V> valueIterator(int pageSize) throws CacheException {
+            if (pageSize <= 0) {
+                throw new IllegalArgumentException("pageSize must be greater than zero.");
+            }
+            try {
+                return new PagedValueIterator(map.keySet().iterator(), pageSize);
+            } catch (RuntimeException e) {
+                throw new CacheException(e);
+            }
+        }
+
+        @Override
+        public void addCacheEntryListener(CacheEntryListener<K> listener) throws CacheException {
+            if (listenerIds.containsKey(listener)) {
+                return;
+            }
+            try {
+                Object id = ADD_ENTRY_LISTENER_HANDLE.invoke(map, (MapListener) new ListenerAdapter<K, V>(listener),
+                        false);
+                if (listenerIds.putIfAbsent(listener, id) != null) {
+                    REMOVE_ENTRY_LISTENER_HANDLE.invoke(map, id);
+                }
+            } catch (Throwable t) {
+                throw new CacheException("Unable to add IMap entry listener", t);
+            }
+        }
+
+        @Override
+        public void removeCacheEntryListener(CacheEntryListener<K> listener) throws CacheException {
+            Object id = listenerIds.remove(listener);
+            if (id == null) {
+                return;
+            }
+            try {
+                REMOVE_ENTRY_LISTENER_HANDLE.invoke(map, id);
+            } catch (Throwable t) {
+                throw new CacheException("Unable to remove IMap entry listener", t);
+            }
+        }
+
+        @SuppressWarnings("unchecked")
+        private Collection<V> getAll(Set<K> keys) {
+            try {
+                return ((Map<K, V>) GET_ALL_HANDLE.invoke(map, keys)).values();
+            } catch (Throwable t) {
+                throw new CacheException("Unable to get IMap entries", t);
+            }
+        }
+
+        /**
+         * Fetches the values of the next page of keys whenever the current page is exhausted, skipping entries
+         * removed since the keys were listed.
+         */
+        private class PagedValueIterator implements Iterator<V> {
+
+            private final Iterator<K> keys;
+            private final int pageSize;
+            private final Deque<V> page = new ArrayDeque<>();
+
+            PagedValueIterator(Iterator<K> keys, int pageSize) {
+                this.keys = keys;
+                this.pageSize = pageSize;
+            }
+
+            @Override
+            public boolean hasNext() {
+                while (page.isEmpty() && keys.hasNext()) {
+                    Set<K> pageKeys = new LinkedHashSet<>();
+                    while (pageKeys.size() < pageSize && keys.hasNext()) {
+                        pageKeys.add(keys.next());
+                    }
+                    for (V value : getAll(pageKeys)) {
+                        if (value != null) {
+                            page.add(value);
+                        }
+                    }
+                }
+                return !page.isEmpty();
+            }
+
+            @Override
+            public V next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                return page.poll();
+            }
+        }
+    }
+
+    /**
+     * Forwards the entry events of an {@code IMap} to a {@link CacheEntryListener}.
+     */
+    static class ListenerAdapter<K, V> implements EntryAddedListener<K, V>, EntryUpdatedListener<K, V>,
+            EntryRemovedListener<K, V>, EntryEvictedListener<K, V>, EntryExpiredListener<K, V> {
+
+        private final CacheEntryListener<K> listener;
+
+        ListenerAdapter(CacheEntryListener<K> listener) {
+            this.listener = listener;
+        }
+
+        @Override
+        public void entryAdded(EntryEvent<K, V> event) {
+            listener.onChange(event.getKey());
+        }
+
+        @Override
+        public void entryUpdated(EntryEvent<K, V> event) {
+            listener.onChange(event.getKey());
+        }
+
+        @Override
+        public void entryRemoved(EntryEvent<K, V> event) {
+            listener.onChange(event.getKey());
+        }
+
+        @Override
+        public void entryEvicted(EntryEvent<K, V> event) {
+            listener.onChange(event.getKey());
+        }
+
+        @Override
+        public void entryExpired(EntryEvent<K, V> event) {
+            listener.onChange(event.getKey());
+        }
+    }
 }
@@ -24,6 +24,7 @@ import com.hazelcast.core.HazelcastInstance
 import com.hazelcast.core.IMap
 import com.hazelcast.core.LifecycleService
 import org.apache.shiro.cache.MapCache
+import org.apache.shiro.cache.PagedCache
 import org.junit.BeforeClass
 import org.junit.Test
 import org.junit.runner.RunWith
@@ -161,6 +162,30 @@ class HazelcastCacheManagerTest {
         }
     }
 
+    @Test
+    void testPagedValueIterator() {
+
+        def hc = createStrictMock(HazelcastInstance)
+        def hcMap = createStrictMock(IMap)
+
+        expect(hc.getMap("foo")).andReturn(hcMap)
+        expect(hcMap.keySet()).andReturn(["one", "two", "three"] as LinkedHashSet)
+        expect(hcMap.getAll(["one", "two"] as Set)).andReturn([one: "value1", two: "value2"])
+        //"three" was removed after the keys were listed:
+        expect(hcMap.getAll(["three"] as Set)).andReturn([:])
+
+        replay hc, hcMap
+
+        def manager = new HazelcastCacheManager()
+        manager.hazelcastInstance = hc
+
+        def cache = manager.getCache("foo")
+        assertTrue cache instanceof PagedCache
+        assertEquals(["value1", "value2"], (cache as PagedCache).valueIterator(2).collect())
+
+        verify hc, hcMap
+    }
+
     @Test
     void testCustomConfig() {
 
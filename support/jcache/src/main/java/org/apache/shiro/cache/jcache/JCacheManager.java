@@ -19,8 +19,17 @@
 package org.apache.shiro.cache.jcache;
 
 import org.apache.shiro.cache.Cache;
+import org.apache.shiro.cache.CacheEntryListener;
+import org.apache.shiro.cache.CacheEntryUpdater;
 import org.apache.shiro.cache.CacheException;
 import org.apache.shiro.cache.CacheManager;
+import org.apache.shiro.cache.CacheStatistics;
+import org.apache.shiro.cache.CacheStatisticsExporter;
+import org.apache.shiro.cache.InstrumentedCache;
+import org.apache.shiro.cache.ListenableCache;
+import org.apache.shiro.cache.PagedCache;
+import org.apache.shiro.cache.SimpleCacheStatistics;
+import org.apache.shiro.cache.UpdatableCache;
 import org.apache.shiro.util.Destroyable;
 import org.apache.shiro.util.Initializable;
 import org.apache.shiro.util.StringUtils;
@@ -28,14 +37,27 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import javax.cache.Caching;
+import javax.cache.configuration.CacheEntryListenerConfiguration;
+import javax.cache.configuration.Factory;
+import javax.cache.configuration.MutableCacheEntryListenerConfiguration;
 import javax.cache.configuration.MutableConfiguration;
+import javax.cache.event.CacheEntryCreatedListener;
+import javax.cache.event.CacheEntryEvent;
+import javax.cache.event.CacheEntryExpiredListener;
+import javax.cache.event.CacheEntryRemovedListener;
+import javax.cache.event.CacheEntryUpdatedListener;
+import javax.cache.processor.EntryProcessor;
+import javax.cache.processor.MutableEntry;
 import javax.cache.spi.CachingProvider;
+import java.io.Serializable;
 import java.net.URL;
 import java.util.Collection;
 import java.util.Iterator;
 import java.util.Set;
 import java.util.Spliterator;
 import java.util.Spliterators;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 import java.util.stream.StreamSupport;
@@ -68,6 +90,16 @@ public class JCacheManager implements CacheManager, Initializable, Destroyable {
      */
     private boolean cacheManagerImplicitlyCreated = false;
 
+    /**
+     * The statistics shared by all {@link JCache} instances wrapping the same JCache cache, keyed by cache name.
+     */
+    private final ConcurrentMap<String, SimpleCacheStatistics> statistics = new ConcurrentHashMap<>();
+
+    /**
+     * Receives the statistics of every cache acquired from this manager, if set.
+     */
+    private CacheStatisticsExporter statisticsExporter;
+
     @Override
     public <K, V> Cache<K, V> getCache(String name) throws CacheException {
 
@@ -86,7 +118,21 @@ public class JCacheManager implements CacheManager, Initializable, Destroyable {
             }
         }
 
-        return new JCache<>(cache);
+        return new JCache<>(cache, getStatistics(cache.getName()));
+    }
+
+    private SimpleCacheStatistics getStatistics(String name) {
+        SimpleCacheStatistics cacheStatistics = statistics.get(name);
+        if (cacheStatistics == null) {
+            cacheStatistics = new SimpleCacheStatistics();
+            SimpleCacheStatistics existing = statistics.putIfAbsent(name, cacheStatistics);
+            if (existing != null) {
+                cacheStatistics = existing;
+            } else if (statisticsExporter != null) {
+                statisticsExporter.export(name, cacheStatistics);
+            }
+        }
+        return cacheStatistics;
     }
 
     /**
@@ -150,6 +196,7 @@ public class JCacheManager implements CacheManager, Initializable, Destroyable {
             } finally {
                 this.jCacheManager = null;
                 this.cacheManagerImplicitlyCreated = false;
+                this.statistics.clear();
             }
         }
     }
@@ -170,12 +217,45 @@ public class JCacheManager implements CacheManager, Initializable, Destroyable {
         this.jCacheManager = jCacheManager;
     }
 
-    static class JCache<K,V> implements Cache<K,V> {
+    /**
+     * Returns the exporter notified of the statistics of every cache acquired from this manager, or {@code null} if
+     * statistics are not exported (the default).
+     *
+     * @return the exporter notified of the statistics of every cache acquired from this manager, or {@code null}.
+     * @since 1.13
+     */
+    public CacheStatisticsExporter getStatisticsExporter() {
+        return statisticsExporter;
+    }
+
+    /**
+     * Sets the exporter notified of the statistics of every cache acquired from this manager from now on.  Each
+     * cache's statistics are exported once, the first time the cache is acquired.
+     *
+     * @param statisticsExporter the exporter notified of the statistics of every cache acquired from this manager.
+     * @since 1.13
+     */
+    public void setStatisticsExporter(CacheStatisticsExporter statisticsExporter) {
+        this.statisticsExporter = statisticsExporter;
+    }
+
+    static class JCache<K,V> implements InstrumentedCache<K,V>, UpdatableCache<K,V>, PagedCache<K,V>,
+            ListenableCache<K,V> {
 
         private final javax.cache.Cache<K,V> cache;
 
+        private final SimpleCacheStatistics statistics;
+
+        private final ConcurrentMap<CacheEntryListener<K>, CacheEntryListenerConfiguration<K,V>> listeners =
+                new ConcurrentHashMap<>();
+
         JCache(javax.cache.Cache<K,V> cache) {
+            this(cache, new SimpleCacheStatistics());
+        }
+
+        JCache(javax.cache.Cache<K,V> cache, SimpleCacheStatistics statistics) {
             this.cache = cache;
+            this.statistics = statistics;
         }
         /**
          * Gets a value of an element which matches the given key.
@@ -193,8 +273,10 @@ public class JCacheManager implements CacheManager, Initializable, Destroyable {
                     V element = cache.get(key);
                     if (element == null) {
                         log.trace("Element for [{}] is null.", key);
+                        statistics.recordMiss();
                         return null;
                     } else {
+                        statistics.recordHit();
                         return element;
                     }
                 }
@@ -212,14 +294,36 @@ public class JCacheManager implements CacheManager, Initializable, Destroyable {
         public V put(K key, V value) throws CacheException {
             log.trace("Putting object in cache [{}] for key [{}]", cache.getName(), key);
             try {
-                V previous = get(key);
-                cache.put(key, value);
+                V previous = cache.getAndPut(key, value);
+                statistics.recordPut();
                 return previous;
             } catch (Throwable t) {
                 throw new CacheException(t);
             }
         }
 
+        /**
+         * Updates an existing element by invoking an entry processor, which clustered JCache implementations run on
+         * the node owning the element so that only the updater is transferred.
+         *
+         * @param key     the key of the element to update
+         * @param updater the change to apply to the element
+         * @return {@code true} if the element exists and was updated
+         */
+        @Override
+        public boolean update(K key, CacheEntryUpdater<V> updater) throws CacheException {
+            log.trace("Updating object in cache [{}] for key [{}]", cache.getName(), key);
+            try {
+                boolean updated = Boolean.TRUE.equals(cache.invoke(key, new UpdaterEntryProcessor<>(updater)));
+                if (updated) {
+                    statistics.recordPut();
+                }
+                return updated;
+            } catch (Throwable t) {
+                throw new CacheException(t);
+            }
+        }
+
         /**
          * Removes the element which matches the key.
          *
@@ -266,8 +370,164 @@ public class JCacheManager implements CacheManager, Initializable, Destroyable {
                     .collect(Collectors.toSet());
         }
 
+        /**
+         * Returns the values of the cache's entry iterator, which clustered JCache implementations fetch lazily in
+         * batches of a provider-configured size: the page size cannot be passed through the JCache API and is ignored.
+         *
+         * @param pageSize ignored
+         * @return an iterator over the values of the cache.
+         */
+        @Override
+        public Iterator<V> valueIterator(int pageSize) {
+            try {
+                return toStream(cache.iterator()).map(javax.cache.Cache.Entry::getValue).iterator();
+            } catch (Throwable t) {
+                throw new CacheException(t);
+            }
+        }
+
+        /**
+         * Registers an asynchronous JCache entry listener forwarding created, updated, removed and expired events,
+         * including those caused by other cluster members, to the specified listener.  The listener only exists in
+         * this JVM: caching providers that serialize listener configurations in order to create the listener
+         * elsewhere fail to do so with an {@code IllegalStateException}.
+         *
+         * @param listener the listener to register
+         */
+        @Override
+        public void addCacheEntryListener(CacheEntryListener<K> listener) throws CacheException {
+            if (listener == null) {
+                throw new IllegalArgumentException("listener cannot be null.");
+            }
+            CacheEntryListenerConfiguration<K,V> configuration = new MutableCacheEntryListenerConfiguration<>(
+                    new ListenerFactory<>(new ListenerAdapter<>(listener)), null, false, false);
+            if (listeners.putIfAbsent(listener, configuration) != null) {
+                return;
+            }
+            try {
+                cache.registerCacheEntryListener(configuration);
+            } catch (Throwable t) {
+                listeners.remove(listener, configuration);
+                throw new CacheException(t);
+            }
+        }
+
+        @Override
+        public void removeCacheEntryListener(CacheEntryListener<K> listener) throws CacheException {
+            CacheEntryListenerConfiguration<K,V> configuration = listeners.remove(listener);
+            if (configuration == null) {
+                return;
+            }
+            try {
+                cache.deregisterCacheEntryListener(configuration);
+            } catch (Throwable t) {
+                throw new CacheException(t);
+            }
+        }
+
+        @Override
+        public CacheStatistics getStatistics() {
+            return statistics;
+        }
+
+        @Override
+        public void recordLoad(long loadTime) {
+            statistics.recordLoad(loadTime);
+        }
+
         private Stream<javax.cache.Cache.Entry<K, V>> toStream(Iterator<javax.cache.Cache.Entry<K, V>> iterator) {
             return StreamSupport.stream(Spliterators.spliteratorUnknownSize(iterator, Spliterator.ORDERED), false);
         }
     }
+
+    /**
+     * Provides the {@link ListenerAdapter} of a listener registered in this JVM.  {@link Factory} is
+     * {@code Serializable}, but the adapter is not serialized with it: a deserialized factory fails fast instead of
+     * creating a listener that would never forward anything.
+     */
+    static class ListenerFactory<K,V> implements Factory<ListenerAdapter<K,V>> {
+
+        private static final long serialVersionUID = 1L;
+
+        private final transient ListenerAdapter<K,V> adapter;
+
+        ListenerFactory(ListenerAdapter<K,V> adapter) {
+            this.adapter = adapter;
+        }
+
+        @Override
+        public ListenerAdapter<K,V> create() {
+            if (adapter == null) {
+                throw new IllegalStateException("Shiro cache entry listeners can only be created in the JVM that " +
+                        "registered them, but the caching provider serialized the listener configuration.");
+            }
+            return adapter;
+        }
+    }
+
+    /**
+     * Forwards JCache entry events to a {@link CacheEntryListener}.
+     */
+    static class ListenerAdapter<K,V> implements CacheEntryCreatedListener<K,V>, CacheEntryUpdatedListener<K,V>,
+            CacheEntryRemovedListener<K,V>, CacheEntryExpiredListener<K,V> {
+
+        private final CacheEntryListener<K> listener;
+
+        ListenerAdapter(CacheEntryListener<K> listener) {
+            this.listener = listener;
+        }
+
+        @Override
+        public void onCreated(Iterable<CacheEntryEvent<? extends K, ? extends V>> events) {
+            forward(events);
+        }
+
+        @Override
+        public void onUpdated(Iterable<CacheEntryEvent<? extends K, ? extends V>> events) {
+            forward(events);
+        }
+
+        @Override
+        public void onRemoved(Iterable<CacheEntryEvent<? extends K, ? extends V>> events) {
+            forward(events);
+        }
+
+        @Override
+        public void onExpired(Iterable<CacheEntryEvent<? extends K, ? extends V>> events) {
+            forward(events);
+        }
+
+        private void forward(Iterable<CacheEntryEvent<? extends K, ? extends V>> events) {
+            for (CacheEntryEvent<? extends K, ? extends V> event : events) {
+                listener.onChange(event.getKey());
+            }
+        }
+    }
+
+    /**
+     * Applies a {@link CacheEntryUpdater} to an existing entry, returning whether the entry was updated.
+     */
+    static class UpdaterEntryProcessor<K,V> implements EntryProcessor<K,V,Boolean>, Serializable {
+
+        private static final long serialVersionUID = 1L;
+
+        private final CacheEntryUpdater<V> updater;
+
+        UpdaterEntryProcessor(CacheEntryUpdater<V> updater) {
+            this.updater = updater;
+        }
+
+        @Override
+        public Boolean process(MutableEntry<K,V> entry, Object... arguments) {
+            if (!entry.exists()) {
+                return false;
+            }
+            V updated = updater.update(entry.getValue());
+            if (updated == null) {
+                return false;
+            }
+            entry.setValue(updated);
+            return true;
+        }
+    }
 }
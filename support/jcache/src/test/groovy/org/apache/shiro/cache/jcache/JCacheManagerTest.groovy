@@ -19,7 +19,13 @@
 package org.apache.shiro.cache.jcache
 
 import org.apache.shiro.cache.Cache
+import org.apache.shiro.cache.CacheEntryUpdater
 import org.apache.shiro.cache.CacheException
+import org.apache.shiro.cache.CacheStatistics
+import org.apache.shiro.cache.CacheStatisticsExporter
+import org.apache.shiro.cache.InstrumentedCache
+import org.apache.shiro.cache.NearCache
+import org.apache.shiro.cache.UpdatableCache
 import org.junit.Assert
 import org.junit.Test
 
@@ -131,6 +137,79 @@ class JCacheManagerTest {
         assertThat cacheManager.jCacheManager, nullValue()
     }
 
+    @Test
+    void statistics() {
+        def exported = [:]
+        JCacheManager cacheManager = new JCacheManager()
+        cacheManager.statisticsExporter = { String name, CacheStatistics statistics ->
+            exported[name] = statistics
+        } as CacheStatisticsExporter
+        cacheManager.init()
+        Cache cache = cacheManager.getCache("statistics-test")
+        cache.put("one", "value1")
+        cache.get("one")
+        cache.get("two")
+
+        // a second wrapper of the same cache shares its statistics:
+        def statistics = (cacheManager.getCache("statistics-test") as InstrumentedCache).statistics
+        assertThat statistics.hitCount, is(1L)
+        assertThat statistics.missCount, is(1L)
+        assertThat statistics.putCount, is(1L)
+        assertThat statistics.hitRatio, is(0.5d)
+        assertThat exported.size(), is(1)
+        assertThat exported["statistics-test"], sameInstance(statistics)
+    }
+
+    @Test
+    void update() {
+        JCacheManager cacheManager = new JCacheManager()
+        cacheManager.init()
+        UpdatableCache cache = cacheManager.getCache("update-test") as UpdatableCache
+        cache.put("one", "value1")
+        assertThat cache.update("one", new AppendUpdater(suffix: "-updated")), is(true)
+        assertThat cache.get("one"), is("value1-updated")
+        assertThat cache.update("two", new AppendUpdater(suffix: "-updated")), is(false)
+        assertThat cache.get("two"), nullValue()
+        assertThat cache.update("one", new AppendUpdater()), is(false)
+        assertThat cache.get("one"), is("value1-updated")
+    }
+
+    @Test
+    void nearCacheInvalidatedByOtherWriters() {
+        JCacheManager cacheManager = new JCacheManager()
+        cacheManager.init()
+        NearCache nearCache = new NearCache("near-test", cacheManager.getCache("near-test"), 100, 60000)
+        Cache other = cacheManager.getCache("near-test")
+        assertThat nearCache.invalidatedByNotifications, is(true)
+
+        nearCache.put("one", "value1")
+        assertThat nearCache.get("one"), is("value1")
+        assertThat nearCache.statistics.hitCount, is(1L)
+
+        // a write by another node drops the local copy once the cache reports it:
+        other.put("one", "value2")
+        long deadline = System.currentTimeMillis() + 5000
+        while (nearCache.get("one") != "value2" && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10)
+        }
+        assertThat nearCache.get("one"), is("value2")
+
+        nearCache.destroy()
+        cacheManager.destroy()
+    }
+
+    /**
+     * Appends a suffix to the cached string, or does not apply if there is no suffix.
+     */
+    static class AppendUpdater implements CacheEntryUpdater<String> {
+        String suffix
+
+        @Override
+        String update(String current) {
+            return suffix != null ? current + suffix : null
+        }
+    }
+
     static <T extends Throwable> T expectThrows(Class<T> exceptionClass, Closure closure) {
         try {
             closure.run()
@@ -36,6 +36,11 @@ import java.util.List;
  * <p><strong>NOTE:</strong> in a Spring environment implementing EventBusAware is not necessary, as you can just inject the EventBus with
  * {@link org.springframework.beans.factory.annotation.Autowire @Autowire}.</p>
  *
+ * <p>Subscribers are notified however the given <code>eventBus</code> delivers events: synchronously with a
+ * {@link org.apache.shiro.event.support.DefaultEventBus DefaultEventBus}, or on background threads with an
+ * {@link org.apache.shiro.event.support.AsyncEventBus AsyncEventBus}, which the Shiro Spring configuration creates
+ * when the <code>shiro.eventBus.async</code> property is <code>true</code>.</p>
+ *
  * @see EventBusAware
  * @see Subscribe
  * @since 1.4
@@ -19,21 +19,47 @@
 package org.apache.shiro.spring.config;
 
 import org.apache.shiro.event.EventBus;
+import org.apache.shiro.event.support.AsyncEventBus;
 import org.apache.shiro.event.support.DefaultEventBus;
 import org.apache.shiro.spring.LifecycleBeanPostProcessor;
 import org.apache.shiro.spring.ShiroEventBusBeanPostProcessor;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.EnvironmentAware;
+import org.springframework.core.env.Environment;
 
 /**
  * @since 1.4.0
  */
-public class AbstractShiroBeanConfiguration {
+public class AbstractShiroBeanConfiguration implements EnvironmentAware {
+
+    //this class declares BeanPostProcessors and is therefore created before @Value fields can be injected:
+    private Environment environment;
+
+    /**
+     * @since 1.13
+     */
+    @Override
+    public void setEnvironment(Environment environment) {
+        this.environment = environment;
+    }
 
     protected LifecycleBeanPostProcessor lifecycleBeanPostProcessor() {
         return new LifecycleBeanPostProcessor();
     }
 
+    /**
+     * Returns a {@link DefaultEventBus}, or an {@link AsyncEventBus} configured by the {@code shiro.eventBus.*}
+     * properties if {@code shiro.eventBus.async} is {@code true}.
+     */
     protected EventBus eventBus() {
+        if (environment != null && environment.getProperty("shiro.eventBus.async", Boolean.class, false)) {
+            AsyncEventBus eventBus = new AsyncEventBus();
+            eventBus.setQueueCapacity(environment.getProperty("shiro.eventBus.queueCapacity", Integer.class,
+                    AsyncEventBus.DEFAULT_QUEUE_CAPACITY));
+            eventBus.setOverflowPolicy(environment.getProperty("shiro.eventBus.overflowPolicy",
+                    AsyncEventBus.OverflowPolicy.class, AsyncEventBus.OverflowPolicy.BLOCK));
+            return eventBus;
+        }
         return new DefaultEventBus();
     }
 
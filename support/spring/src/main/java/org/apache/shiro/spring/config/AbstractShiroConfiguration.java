@@ -24,8 +24,10 @@ import org.apache.shiro.authc.pam.AuthenticationStrategy;
 import org.apache.shiro.authc.pam.ModularRealmAuthenticator;
 import org.apache.shiro.authz.Authorizer;
 import org.apache.shiro.authz.ModularRealmAuthorizer;
+import org.apache.shiro.authz.permission.CachingPermissionResolver;
 import org.apache.shiro.authz.permission.PermissionResolver;
 import org.apache.shiro.authz.permission.RolePermissionResolver;
+import org.apache.shiro.authz.permission.WildcardPermissionResolver;
 import org.apache.shiro.cache.CacheManager;
 import org.apache.shiro.config.Ini;
 import org.apache.shiro.event.EventBus;
@@ -63,6 +65,12 @@ public class AbstractShiroConfiguration {
     @Value("#{ @environment['shiro.sessionManager.deleteInvalidSessions'] ?: true }")
     protected boolean sessionManagerDeleteInvalidSessions;
 
+    @Value("#{ @environment['shiro.permissionResolver.cachingEnabled'] ?: false }")
+    protected boolean permissionResolverCachingEnabled;
+
+    @Value("#{ @environment['shiro.permissionResolver.cacheMaxSize'] ?: 1000 }")
+    protected int permissionResolverCacheMaxSize;
+
 
     protected SessionsSecurityManager securityManager(List<Realm> realms) {
         SessionsSecurityManager securityManager = createSecurityManager();
@@ -131,8 +139,9 @@ public class AbstractShiroConfiguration {
     protected Authorizer authorizer() {
         ModularRealmAuthorizer authorizer = new ModularRealmAuthorizer();
 
-        if (permissionResolver != null) {
-            authorizer.setPermissionResolver(permissionResolver);
+        PermissionResolver resolver = permissionResolver();
+        if (resolver != null) {
+            authorizer.setPermissionResolver(resolver);
         }
 
         if (rolePermissionResolver != null) {
@@ -142,6 +151,14 @@ public class AbstractShiroConfiguration {
         return authorizer;
     }
 
+    protected PermissionResolver permissionResolver() {
+        if (!permissionResolverCachingEnabled || permissionResolver instanceof CachingPermissionResolver) {
+            return permissionResolver;
+        }
+        PermissionResolver delegate = permissionResolver != null ? permissionResolver : new WildcardPermissionResolver();
+        return new CachingPermissionResolver(delegate, permissionResolverCacheMaxSize);
+    }
+
     protected AuthenticationStrategy authenticationStrategy() {
         return new AtLeastOneSuccessfulStrategy();
     }
@@ -19,13 +19,19 @@
 package org.apache.shiro.web.servlet;
 
 import org.apache.shiro.SecurityUtils;
+import org.apache.shiro.event.EventBus;
+import org.apache.shiro.event.EventBusUtils;
+import org.apache.shiro.mgt.CachingSecurityManager;
+import org.apache.shiro.session.InvalidSessionException;
 import org.apache.shiro.session.Session;
 import org.apache.shiro.subject.ExecutionException;
+import org.apache.shiro.subject.PrincipalCollection;
 import org.apache.shiro.subject.Subject;
 import org.apache.shiro.web.config.ShiroFilterConfiguration;
 import org.apache.shiro.web.filter.mgt.FilterChainResolver;
 import org.apache.shiro.web.mgt.DefaultWebSecurityManager;
 import org.apache.shiro.web.mgt.WebSecurityManager;
+import org.apache.shiro.web.servlet.event.FilteredRequestEvent;
 import org.apache.shiro.web.subject.WebSubject;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -358,6 +364,11 @@ public abstract class AbstractShiroFilter extends OncePerRequestFilter {
     protected void doFilterInternal(ServletRequest servletRequest, ServletResponse servletResponse, final FilterChain chain)
             throws ServletException, IOException {
 
+        EventBus eventBus = getEventBus();
+        boolean publish = EventBusUtils.hasSubscribers(eventBus, FilteredRequestEvent.class);
+        long startNanos = publish ? System.nanoTime() : 0L;
+        Subject executed = null;
+
         Throwable t = null;
 
         try {
@@ -365,6 +376,7 @@ public abstract class AbstractShiroFilter extends OncePerRequestFilter {
             final ServletResponse response = prepareServletResponse(request, servletResponse, chain);
 
             final Subject subject = createSubject(request, response);
+            executed = subject;
 
             //noinspection unchecked
             subject.execute(new Callable() {
@@ -380,6 +392,11 @@ public abstract class AbstractShiroFilter extends OncePerRequestFilter {
             t = throwable;
         }
 
+        if (publish) {
+            publishFilteredRequestEvent(eventBus, servletRequest, servletResponse, executed, t,
+                    System.nanoTime() - startNanos);
+        }
+
         if (t != null) {
             if (t instanceof ServletException) {
                 throw (ServletException) t;
@@ -393,6 +410,44 @@ public abstract class AbstractShiroFilter extends OncePerRequestFilter {
         }
     }
 
+    private void publishFilteredRequestEvent(EventBus eventBus, ServletRequest request, ServletResponse response,
+                                             Subject subject, Throwable failure, long durationNanos) {
+        String method = null;
+        String requestUri = null;
+        if (request instanceof HttpServletRequest) {
+            HttpServletRequest httpRequest = (HttpServletRequest) request;
+            method = httpRequest.getMethod();
+            requestUri = httpRequest.getRequestURI();
+        }
+        int status = response instanceof HttpServletResponse ? ((HttpServletResponse) response).getStatus() : -1;
+        PrincipalCollection principals = null;
+        if (subject != null) {
+            try {
+                principals = subject.getPrincipals();
+            } catch (InvalidSessionException e) {
+                //the session (and with it any run-as principals) expired during the request - nothing to report
+            }
+        }
+        eventBus.publish(new FilteredRequestEvent(this, method, requestUri, request.getRemoteAddr(), status,
+                principals, failure, durationNanos));
+    }
+
+    /**
+     * Returns the EventBus to publish {@link FilteredRequestEvent}s to, i.e. the
+     * {@link CachingSecurityManager#getEventBus() eventBus} of the {@link #getSecurityManager() securityManager}, or
+     * {@code null} if it has none.
+     *
+     * @return the EventBus to publish {@link FilteredRequestEvent}s to, or {@code null}.
+     * @since 1.13
+     */
+    protected EventBus getEventBus() {
+        WebSecurityManager securityManager = getSecurityManager();
+        if (securityManager instanceof CachingSecurityManager) {
+            return ((CachingSecurityManager) securityManager).getEventBus();
+        }
+        return null;
+    }
+
     /**
      * Returns the {@code FilterChain} to execute for the given request.
      * <p/>
@@ -0,0 +1,197 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.shiro.web.servlet;
+
+import javax.servlet.ServletRequest;
+import javax.servlet.ServletRequestWrapper;
+import javax.servlet.http.HttpServletRequest;
+import java.util.Enumeration;
+
+/**
+ * The cookies sent with a request, read from the raw {@code Cookie} header(s) in a single pass that only records
+ * where each cookie's name and value are, so that looking up Shiro's cookies (session id, rememberMe) neither
+ * materializes the container's {@code javax.servlet.http.Cookie[]} nor allocates anything for the other cookies.
+ * <p/>
+ * The result is memoized as a request attribute: every cookie read during the request, e.g. by the
+ * {@code DefaultWebSessionManager} and then the {@code CookieRememberMeManager}, reuses the same parse.
+ * <p/>
+ * Requests wrapped by anything but Shiro's own {@link ShiroHttpServletRequest}, which may add, remove or alter
+ * cookies without changing the header, and requests without a {@code Cookie} header are looked up through
+ * {@link HttpServletRequest#getCookies()} as before.
+ *
+ * @since 1.13
+ */
+final class RequestCookies {
+
+    private static final String REQUEST_ATTRIBUTE = RequestCookies.class.getName();
+
+    private static final String COOKIE_HEADER = "Cookie";
+
+    //for each cookie: name start, name end, value start, value end (exclusive) offsets in the header:
+    private static final int FIELDS = 4;
+
+    private final String header;
+    private final int[] offsets;
+    private final int count;
+
+    private RequestCookies(String header) {
+        this.header = header;
+        int[] offsets = new int[FIELDS * 4];
+        int count = 0;
+        if (header != null) {
+            int length = header.length();
+            int i = 0;
+            while (i < length) {
+                //skip separators and leading whitespace:
+                char c = header.charAt(i);
+                if (c == ';' || c == ',' || Character.isWhitespace(c)) {
+                    i++;
+                    continue;
+                }
+                int nameStart = i;
+                while (i < length && (c = header.charAt(i)) != '=' && c != ';' && c != ',') {
+                    i++;
+                }
+                int nameEnd = trimEnd(header, nameStart, i);
+                int valueStart = i;
+                int valueEnd = i;
+                if (i < length && c == '=') {
+                    i++;
+                    while (i < length && header.charAt(i) == ' ') {
+                        i++;
+                    }
+                    valueStart = i;
+                    //a quoted value may contain separators:
+                    if (i < length && header.charAt(i) == '"') {
+                        int closingQuote = header.indexOf('"', i + 1);
+                        if (closingQuote > 0) {
+                            i = closingQuote + 1;
+                        }
+                    }
+                    while (i < length && (c = header.charAt(i)) != ';' && c != ',') {
+                        i++;
+                    }
+                    valueEnd = trimEnd(header, valueStart, i);
+                    //quoted values are returned without their quotes:
+                    if (valueEnd - valueStart >= 2 && header.charAt(valueStart) == '"' &&
+                            header.charAt(valueEnd - 1) == '"') {
+                        valueStart++;
+                        valueEnd--;
+                    }
+                }
+                if (nameEnd > nameStart) {
+                    if (count * FIELDS == offsets.length) {
+                        int[] grown = new int[offsets.length * 2];
+                        System.arraycopy(offsets, 0, grown, 0, offsets.length);
+                        offsets = grown;
+                    }
+                    int k = count++ * FIELDS;
+                    offsets[k] = nameStart;
+                    offsets[k + 1] = nameEnd;
+                    offsets[k + 2] = valueStart;
+                    offsets[k + 3] = valueEnd;
+                }
+            }
+        }
+        this.offsets = offsets;
+        this.count = count;
+    }
+
+    private static int trimEnd(String s, int start, int end) {
+        while (end > start && Character.isWhitespace(s.charAt(end - 1))) {
+            end--;
+        }
+        return end;
+    }
+
+    /**
+     * Returns the value of the first cookie with the specified name sent with the request, or {@code null} if there
+     * is none.
+     *
+     * @param request the current executing http request.
+     * @param name    the name of the cookie.
+     * @return the value of the first cookie with the specified name, or {@code null} if there is none.
+     */
+    static String getValue(HttpServletRequest request, String name) {
+        if (isWrapped(request)) {
+            return getCookieValue(request, name);
+        }
+        RequestCookies cookies = (RequestCookies) request.getAttribute(REQUEST_ATTRIBUTE);
+        if (cookies == null) {
+            cookies = new RequestCookies(getCookieHeader(request));
+            request.setAttribute(REQUEST_ATTRIBUTE, cookies);
+        }
+        return cookies.header != null ? cookies.getValue(name) : getCookieValue(request, name);
+    }
+
+    private String getValue(String name) {
+        int nameLength = name.length();
+        for (int k = 0; k < count * FIELDS; k += FIELDS) {
+            int nameStart = offsets[k];
+            if (offsets[k + 1] - nameStart == nameLength && header.regionMatches(nameStart, name, 0, nameLength)) {
+                return header.substring(offsets[k + 2], offsets[k + 3]);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Returns {@code true} if the request is wrapped by anything but a {@link ShiroHttpServletRequest}, in which case
+     * the {@code Cookie} header may not reflect the request's cookies.
+     */
+    private static boolean isWrapped(HttpServletRequest request) {
+        ServletRequest unwrapped = request;
+        while (unwrapped instanceof ShiroHttpServletRequest) {
+            unwrapped = ((ShiroHttpServletRequest) unwrapped).getRequest();
+        }
+        return unwrapped instanceof ServletRequestWrapper;
+    }
+
+    /**
+     * Returns the request's {@code Cookie} header, joining multiple headers (as sent over HTTP/2) with {@code "; "},
+     * or {@code null} if there is none.
+     */
+    private static String getCookieHeader(HttpServletRequest request) {
+        Enumeration<String> headers = request.getHeaders(COOKIE_HEADER);
+        if (headers == null || !headers.hasMoreElements()) {
+            return null;
+        }
+        String header = headers.nextElement();
+        if (!headers.hasMoreElements()) {
+            return header;
+        }
+        StringBuilder sb = new StringBuilder(header);
+        while (headers.hasMoreElements()) {
+            sb.append("; ").append(headers.nextElement());
+        }
+        return sb.toString();
+    }
+
+    private static String getCookieValue(HttpServletRequest request, String name) {
+        javax.servlet.http.Cookie[] cookies = request.getCookies();
+        if (cookies != null) {
+            for (javax.servlet.http.Cookie cookie : cookies) {
+                if (cookie.getName().equals(name)) {
+                    return cookie.getValue();
+                }
+            }
+        }
+        return null;
+    }
+}
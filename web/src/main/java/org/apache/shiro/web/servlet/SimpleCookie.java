@@ -431,19 +431,29 @@ public class SimpleCookie implements Cookie {
         log.trace("Removed '{}' cookie by setting maxAge=0", name);
     }
 
+    /**
+     * Returns the value of the first cookie sent with the request that has this cookie's name, or {@code null} if
+     * there is none or it was sent for a request URI outside of the configured {@link #getPath() path}.
+     * <p/>
+     * The request's {@code Cookie} header is parsed only once per request and shared by every {@code SimpleCookie}
+     * read during that request (e.g. the session id and rememberMe cookies), see {@link RequestCookies}.
+     *
+     * @param request the current executing http request.
+     * @param ignored the current executing http response (not used).
+     * @return the value of the cookie with this cookie's name, or {@code null} if there is none.
+     */
     @Override
     public String readValue(HttpServletRequest request, HttpServletResponse ignored) {
         String name = getName();
-        String value = null;
-        javax.servlet.http.Cookie cookie = getCookie(request, name);
-        if (cookie != null) {
+        String value = RequestCookies.getValue(request, name);
+        if (value != null) {
             // Validate that the cookie is used at the correct place.
             String path = StringUtils.clean(getPath());
             if (path != null && !pathMatches(path, request.getRequestURI())) {
                 log.warn("Found '{}' cookie at path '{}', but should be only used for '{}'", 
                 		new Object[] { name, Encode.forHtml(request.getRequestURI()), path});
-            } else {
-                value = cookie.getValue();
+                value = null;
+            } else if (log.isDebugEnabled()) {
                 log.debug("Found '{}' cookie value [{}]", name, Encode.forHtml(value));
             }
         } else {
@@ -452,25 +462,4 @@ public class SimpleCookie implements Cookie {
 
         return value;
     }
-
-    /**
-     * Returns the cookie with the given name from the request or {@code null} if no cookie
-     * with that name could be found.
-     *
-     * @param request    the current executing http request.
-     * @param cookieName the name of the cookie to find and return.
-     * @return the cookie with the given name from the request or {@code null} if no cookie
-     *         with that name could be found.
-     */
-    private static javax.servlet.http.Cookie getCookie(HttpServletRequest request, String cookieName) {
-        javax.servlet.http.Cookie cookies[] = request.getCookies();
-        if (cookies != null) {
-            for (javax.servlet.http.Cookie cookie : cookies) {
-                if (cookie.getName().equals(cookieName)) {
-                    return cookie;
-                }
-            }
-        }
-        return null;
-    }
 }
@@ -0,0 +1,121 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.shiro.web.servlet.event;
+
+import org.apache.shiro.event.Event;
+import org.apache.shiro.subject.PrincipalCollection;
+
+/**
+ * Event triggered when an {@link org.apache.shiro.web.servlet.AbstractShiroFilter AbstractShiroFilter} has finished
+ * processing a request.  Events are only created when the security manager's
+ * {@link org.apache.shiro.event.EventBus EventBus} has a subscriber for them.
+ * <p/>
+ * Since events may be delivered asynchronously, after the container has recycled the request and response objects,
+ * the event only holds values captured when the request completed, never the request, response or Subject
+ * themselves.
+ *
+ * @since 1.13
+ */
+public class FilteredRequestEvent extends Event {
+
+    private final String method;
+    private final String requestUri;
+    private final String remoteAddress;
+    private final int status;
+    private final PrincipalCollection principals;
+    private final Throwable failure;
+    private final long durationNanos;
+
+    public FilteredRequestEvent(Object source, String method, String requestUri, String remoteAddress, int status,
+                                PrincipalCollection principals, Throwable failure, long durationNanos) {
+        super(source);
+        this.method = method;
+        this.requestUri = requestUri;
+        this.remoteAddress = remoteAddress;
+        this.status = status;
+        this.principals = principals;
+        this.failure = failure;
+        this.durationNanos = durationNanos;
+    }
+
+    /**
+     * Returns the HTTP method of the request, or {@code null} if it was not an HTTP request.
+     *
+     * @return the HTTP method of the request, or {@code null} if it was not an HTTP request.
+     */
+    public String getMethod() {
+        return method;
+    }
+
+    /**
+     * Returns the request URI, or {@code null} if it was not an HTTP request.
+     *
+     * @return the request URI, or {@code null} if it was not an HTTP request.
+     */
+    public String getRequestUri() {
+        return requestUri;
+    }
+
+    /**
+     * Returns the IP address of the client that sent the request.
+     *
+     * @return the IP address of the client that sent the request.
+     */
+    public String getRemoteAddress() {
+        return remoteAddress;
+    }
+
+    /**
+     * Returns the HTTP status of the response when the request completed, or {@code -1} if it was not an HTTP
+     * response.
+     *
+     * @return the HTTP status of the response, or {@code -1} if it was not an HTTP response.
+     */
+    public int getStatus() {
+        return status;
+    }
+
+    /**
+     * Returns the principals of the Subject the request was executed as when the request completed, or {@code null}
+     * if the Subject was anonymous or the request failed before it was created.
+     *
+     * @return the principals the request was executed as, or {@code null}.
+     */
+    public PrincipalCollection getPrincipals() {
+        return principals;
+    }
+
+    /**
+     * Returns the exception the request failed with, or {@code null} if it completed normally.
+     *
+     * @return the exception the request failed with, or {@code null} if it completed normally.
+     */
+    public Throwable getFailure() {
+        return failure;
+    }
+
+    /**
+     * Returns the number of nanoseconds the filter took to process the request, including the rest of the chain.
+     *
+     * @return the number of nanoseconds the filter took to process the request.
+     */
+    public long getDurationNanos() {
+        return durationNanos;
+    }
+}
@@ -119,7 +119,7 @@ public class DefaultWebSessionManager extends DefaultSessionManager implements W
             return null;
         }
 
-        // 读取 Cookie
+        // 读取 Cookie：SimpleCookie 对每个请求只解析一次 Cookie 请求头，RememberMe Cookie 的读取会复用解析结果
         HttpServletRequest httpRequest = (HttpServletRequest) request;
         return getSessionIdCookie().readValue(httpRequest, WebUtils.toHttp(response));
     }